@@ -0,0 +1,862 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package BSBT;
+
+import SudoLib.GridView;
+import SudoLib.ISolutionSink;
+import SudoLib.ISudoku;
+import SudoLib.UnitTable;
+import Sudoku.ICheck;
+import Sudoku.Sudoku;
+import java.util.ArrayList;
+
+/**
+ * <p>
+ * <b><code>BitSetBTCheck</code></b> (BitSet BackTracking Check) est un moteur
+ * de résolution destiné aux grandes grilles (de 16x16 à 100x100) pour
+ * lesquelles {@link IMBT.InMemoryBTCheck} devient inutilisable.</p>
+ *
+ * <p>
+ * Chaque case vide conserve l'ensemble de ses valeurs possibles sous la forme
+ * d'un ensemble de bits réparti sur plusieurs <code>long</code> (voir
+ * {@link Candidates}). Les modifications faites pendant la recherche sont
+ * empilées dans une pile de retour arrière ce qui permet de les annuler sans
+ * recopier l'état.</p>
+ *
+ * <p>
+ * A chaque noeud de la recherche :</p>
+ * <ul>
+ * <li>les cases n'ayant plus qu'une valeur possible sont remplies (singletons
+ * nus)</li>
+ * <li>les valeurs n'ayant plus qu'une place dans une ligne, une colonne ou un
+ * bloc y sont placées (singletons cachés)</li>
+ * <li>la case suivante est choisie dynamiquement parmi celles ayant le moins de
+ * valeurs possibles</li>
+ * </ul>
+ *
+ * <p>
+ * Une case vide sans valeur possible ou une valeur n'ayant plus de place dans
+ * une ligne, une colonne ou un bloc coupe immédiatement la branche.</p>
+ *
+ * <p>
+ * Toutes les structures sont allouées à la construction pour une taille donnée.
+ * Une même instance peut donc être réutilisée pour résoudre un grand nombre de
+ * grilles : {@link #reset(SudoLib.ISudoku)} la réarme en un temps linéaire en
+ * nombre de cases et sans aucune allocation, puis {@link #run()} lance la
+ * recherche. Une instance ne doit cependant pas être partagée entre plusieurs
+ * threads.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Candidates
+ * @see SudoLib.UnitTable
+ * @see IMBT.InMemoryBTCheck
+ *
+ * @since 1.1
+ */
+public class BitSetBTCheck implements ICheck {
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc du sudoku.</p>
+     *
+     * @since 1.1
+     */
+    private final int size;
+
+    /**
+     * <p>
+     * Nombre de cases sur une ligne, soit aussi le nombre de valeurs
+     * possibles.</p>
+     *
+     * @since 1.1
+     */
+    private final int width;
+
+    /**
+     * <p>
+     * Nombre total de cases de la grille.</p>
+     *
+     * @since 1.1
+     */
+    private final int nbCells;
+
+    /**
+     * <p>
+     * Nombre de <code>long</code> nécessaires pour représenter l'ensemble des
+     * valeurs possibles d'une case.</p>
+     *
+     * @since 1.1
+     */
+    private final int words;
+
+    /**
+     * <p>
+     * Nombre maximum de solutions à retourner.</p>
+     *
+     * @since 1.1
+     */
+    private final int nbSolutions;
+
+    /**
+     * <p>
+     * Tables d'indices partagées pour la taille du sudoku.</p>
+     *
+     * @see SudoLib.UnitTable#of(int)
+     *
+     * @since 1.1
+     */
+    private final UnitTable units;
+
+    /**
+     * <p>
+     * Nombre de voisins d'une case.</p>
+     *
+     * @since 1.1
+     */
+    private final int nbPeers;
+
+    /**
+     * <p>
+     * Grille de travail, 0 pour une case vide.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] grid;
+
+    /**
+     * <p>
+     * Valeurs possibles de chaque case, rangées par paquets de
+     * {@link #words}.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] candidates;
+
+    /**
+     * <p>
+     * Nombre de valeurs possibles de chaque case.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] counts;
+
+    /**
+     * <p>
+     * Pile des modifications à annuler lors d'un retour arrière. Une valeur
+     * positive <code>cell * width + digit</code> indique une valeur retirée
+     * d'une case, une valeur négative <code>~cell</code> indique une case
+     * remplie.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] trail;
+
+    /**
+     * <p>
+     * Nombre d'éléments dans {@link #trail}.</p>
+     *
+     * @since 1.1
+     */
+    private int trailSize;
+
+    /**
+     * <p>
+     * Cases n'ayant plus qu'une valeur possible et restant à remplir.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] singles;
+
+    /**
+     * <p>
+     * Nombre d'éléments dans {@link #singles}.</p>
+     *
+     * @since 1.1
+     */
+    private int singlesSize;
+
+    /**
+     * <p>
+     * Unités modifiées depuis leur dernier examen et dans lesquelles il faut
+     * chercher les singletons cachés.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] dirty;
+
+    /**
+     * <p>
+     * Nombre d'éléments dans {@link #dirty}.</p>
+     *
+     * @since 1.1
+     */
+    private int dirtySize;
+
+    /**
+     * <p>
+     * Indique si une unité est déjà présente dans {@link #dirty}.</p>
+     *
+     * @since 1.1
+     */
+    private final boolean[] isDirty;
+
+    /**
+     * <p>
+     * Tampons utilisés lors de la recherche des singletons cachés.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] once, twice, placed;
+
+    /**
+     * <p>
+     * Première solution trouvée depuis le dernier réarmement.</p>
+     *
+     * @see #copySolutionTo(int[])
+     *
+     * @since 1.1
+     */
+    private final int[] solution;
+
+    /**
+     * <p>
+     * Nombre de solutions trouvées depuis le dernier réarmement.</p>
+     *
+     * @since 1.1
+     */
+    private int found;
+
+    /**
+     * <p>
+     * Faux si les valeurs de la grille chargée par le dernier réarmement se
+     * contredisent.</p>
+     *
+     * @since 1.1
+     */
+    private boolean loaded;
+
+    /**
+     * <p>
+     * Nombre de noeuds de l'arbre de recherche visités depuis le dernier
+     * réarmement.</p>
+     *
+     * @since 1.1
+     */
+    private long nodes;
+
+    /**
+     * <p>
+     * Nombre de valeurs essayées puis abandonnées sans mener à une solution
+     * depuis le dernier réarmement.</p>
+     *
+     * @since 1.1
+     */
+    private long backtracks;
+
+    /**
+     * <p>
+     * Nombre de solutions au-delà duquel la recherche en cours s'arrête.</p>
+     *
+     * @since 1.1
+     */
+    private int limit;
+
+    /**
+     * <p>
+     * Nombre de noeuds au-delà duquel la recherche en cours est
+     * interrompue.</p>
+     *
+     * @since 1.1
+     */
+    private long nodeLimit;
+
+    /**
+     * <p>
+     * Vrai si la dernière recherche a été interrompue faute de noeuds.</p>
+     *
+     * @since 1.1
+     */
+    private boolean interrupted;
+
+    /**
+     * <p>
+     * Ensemble des solutions trouvées, null si les solutions ne doivent pas
+     * être conservées.</p>
+     *
+     * @since 1.1
+     */
+    private ArrayList<Integer[]> solutions;
+
+    /**
+     * <p>
+     * Destinataire des solutions de la recherche en cours, null s'il n'y en
+     * a pas.</p>
+     *
+     * @since 1.1
+     */
+    private ISolutionSink sink;
+
+    /**
+     * <p>
+     * Vue en lecture seule sur la grille de travail, transmise au
+     * destinataire des solutions.</p>
+     *
+     * @since 1.1
+     */
+    private final GridView view;
+
+    /**
+     * <p>
+     * Construit un moteur de résolution pour les sudokus dont l'arête d'un
+     * bloc mesure <code>size</code> et qui retourne au plus une solution.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @throws IllegalArgumentException Si la taille est inférieure à 1
+     *
+     * @since 1.1
+     */
+    public BitSetBTCheck(int size) throws IllegalArgumentException {
+        this(size, 1);
+    }
+
+    /**
+     * <p>
+     * Construit un moteur de résolution pour les sudokus dont l'arête d'un
+     * bloc mesure <code>size</code> en précisant le nombre de solutions à
+     * retourner.</p>
+     *
+     * @param size        La taille de l'arête d'un bloc
+     * @param nbSolutions Le nombre de solutions à retourner
+     *
+     * @throws IllegalArgumentException Si la taille est inférieure à 1 ou si
+     *                                  le nombre de solutions désiré est
+     *                                  inférieur ou égal à 0
+     *
+     * @since 1.1
+     */
+    public BitSetBTCheck(int size, int nbSolutions) throws IllegalArgumentException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be strictly superior to 0.");
+        }
+        if (nbSolutions <= 0) {
+            throw new IllegalArgumentException("Ammount of solutions desired must be > 0.");
+        }
+        this.size = size;
+        this.nbSolutions = nbSolutions;
+        width = size * size;
+        nbCells = width * width;
+        words = Candidates.words(width);
+
+        units = UnitTable.of(size);
+        nbPeers = units.getNbPeers();
+
+        grid = new int[nbCells];
+        candidates = new long[nbCells * words];
+        counts = new int[nbCells];
+        trail = new int[nbCells * width + nbCells];
+        singles = new int[nbCells];
+        dirty = new int[3 * width];
+        isDirty = new boolean[3 * width];
+        once = new long[words];
+        twice = new long[words];
+        placed = new long[words];
+        solution = new int[nbCells];
+        view = new GridView(size, grid);
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc des sudokus acceptés.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * <p>
+     * Résoud un sudoku et retourne au plus le nombre de solutions précisé à la
+     * construction.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @return Les solutions si la grille en accepte ou null
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas à celle du moteur
+     *
+     * @see #reset(SudoLib.ISudoku)
+     * @see #run()
+     *
+     * @since 1.1
+     */
+    @Override
+    public ArrayList<Integer[]> solve(Sudoku sudoku) throws IllegalArgumentException {
+        reset(sudoku);
+        solutions = new ArrayList<>();
+        run();
+        ArrayList<Integer[]> result = solutions;
+        solutions = null;
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * <p>
+     * Réarme le moteur avec la grille d'un sudoku. Toutes les structures
+     * allouées à la construction sont réutilisées.</p>
+     *
+     * @param sudoku Le sudoku à charger
+     *
+     * @return Faux si la grille contient une valeur invalide ou deux valeurs
+     *         identiques sur une même ligne, colonne ou bloc
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas à celle du moteur
+     *
+     * @since 1.1
+     */
+    public boolean reset(ISudoku sudoku) throws IllegalArgumentException {
+        if (sudoku.getSize() != size) {
+            throw new IllegalArgumentException("Sudoku size does not match the solver size.");
+        }
+        clear();
+        for (int cell = 0; cell < nbCells && loaded; ++cell) {
+            int value = sudoku.getValueAt(cell);
+            if (value != 0 && (value < 0 || value > width || !assign(cell, value - 1))) {
+                loaded = false;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * <p>
+     * Réarme le moteur avec une grille rangée ligne par ligne dans un
+     * tableau, à partir d'une position donnée. Cette forme évite de construire
+     * un sudoku pour chaque grille d'un lot.</p>
+     *
+     * @param src    Le tableau contenant la grille, 0 pour une case vide
+     * @param offset La position de la première case de la grille
+     *
+     * @return Faux si la grille contient une valeur invalide ou deux valeurs
+     *         identiques sur une même ligne, colonne ou bloc
+     *
+     * @throws IllegalArgumentException Si le tableau est trop petit
+     *
+     * @see #reset(SudoLib.ISudoku)
+     *
+     * @since 1.1
+     */
+    public boolean reset(int[] src, int offset) throws IllegalArgumentException {
+        if (offset < 0 || src.length - offset < nbCells) {
+            throw new IllegalArgumentException("Array is too small for the grid.");
+        }
+        clear();
+        for (int cell = 0; cell < nbCells && loaded; ++cell) {
+            int value = src[offset + cell];
+            if (value != 0 && (value < 0 || value > width || !assign(cell, value - 1))) {
+                loaded = false;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * <p>
+     * Lance la recherche sur la grille chargée par le dernier réarmement. Sans
+     * appel à {@link #solve(Sudoku.Sudoku)}, aucune solution n'est conservée
+     * à l'exception de la première.</p>
+     *
+     * @return Le nombre de solutions trouvées, au plus le nombre précisé à la
+     *         construction
+     *
+     * @see #reset(SudoLib.ISudoku)
+     * @see #copySolutionTo(int[])
+     *
+     * @since 1.1
+     */
+    public int run() {
+        return run(nbSolutions, Long.MAX_VALUE);
+    }
+
+    /**
+     * <p>
+     * Lance la recherche sur la grille chargée par le dernier réarmement en
+     * la bornant : la recherche s'arrête après <code>maxSolutions</code>
+     * solutions et est interrompue après <code>maxNodes</code> noeuds (voir
+     * {@link #isInterrupted()}).</p>
+     *
+     * @param maxSolutions Le nombre de solutions à chercher
+     * @param maxNodes     Le nombre maximum de noeuds à visiter
+     *
+     * @return Le nombre de solutions trouvées, au plus
+     *         <code>maxSolutions</code>
+     *
+     * @throws IllegalArgumentException Si l'une des bornes est inférieure ou
+     *                                  égale à 0
+     *
+     * @see #run()
+     *
+     * @since 1.1
+     */
+    public int run(int maxSolutions, long maxNodes) throws IllegalArgumentException {
+        if (maxSolutions <= 0 || maxNodes <= 0) {
+            throw new IllegalArgumentException("Search bounds must be > 0.");
+        }
+        if (loaded) {
+            limit = maxSolutions;
+            nodeLimit = maxNodes;
+            search();
+            loaded = false;
+        }
+        return found;
+    }
+
+    /**
+     * <p>
+     * Lance une recherche bornée sur la grille chargée par le dernier
+     * réarmement en transmettant chaque solution, sans la recopier, à un
+     * destinataire. Le destinataire peut arrêter la recherche en retournant
+     * faux.</p>
+     *
+     * @param sink         Le destinataire des solutions
+     * @param maxSolutions Le nombre de solutions à chercher
+     * @param maxNodes     Le nombre maximum de noeuds à visiter
+     *
+     * @return Le nombre de solutions transmises
+     *
+     * @throws IllegalArgumentException Si l'une des bornes est inférieure ou
+     *                                  égale à 0
+     *
+     * @see SudoLib.ISolutionSink
+     * @see #run(int, long)
+     *
+     * @since 1.1
+     */
+    public int run(ISolutionSink sink, int maxSolutions, long maxNodes) throws IllegalArgumentException {
+        this.sink = sink;
+        try {
+            return run(maxSolutions, maxNodes);
+        } finally {
+            this.sink = null;
+        }
+    }
+
+    /**
+     * <p>
+     * Indique si la dernière recherche a été interrompue après avoir visité
+     * le nombre maximum de noeuds, auquel cas le nombre de solutions trouvées
+     * n'est qu'un minorant.</p>
+     *
+     * @return Vrai si la recherche a été interrompue
+     *
+     * @see #run(int, long)
+     *
+     * @since 1.1
+     */
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de noeuds de l'arbre de recherche visités depuis le
+     * dernier réarmement.</p>
+     *
+     * @return Le nombre de noeuds
+     *
+     * @since 1.1
+     */
+    public long getNbNodes() {
+        return nodes;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de valeurs essayées puis abandonnées sans mener à une
+     * solution depuis le dernier réarmement.</p>
+     *
+     * @return Le nombre de retours en arrière
+     *
+     * @since 1.1
+     */
+    public long getNbBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * <p>
+     * Recopie la première solution trouvée par {@link #run()} dans un
+     * tableau, les cases étant rangées ligne par ligne.</p>
+     *
+     * @param dst Le tableau de destination, d'au moins autant de cases que la
+     *            grille
+     *
+     * @throws IllegalStateException Si aucune solution n'a été trouvée
+     *
+     * @since 1.1
+     */
+    public void copySolutionTo(int[] dst) throws IllegalStateException {
+        if (found == 0) {
+            throw new IllegalStateException("No solution found.");
+        }
+        System.arraycopy(solution, 0, dst, 0, nbCells);
+    }
+
+    /**
+     * <p>
+     * Remet le moteur dans l'état d'une grille vide.</p>
+     *
+     * @since 1.1
+     */
+    private void clear() {
+        found = 0;
+        interrupted = false;
+        nodes = 0;
+        backtracks = 0;
+        trailSize = 0;
+        singlesSize = 0;
+        dirtySize = 0;
+        for (int unit = 0; unit < 3 * width; ++unit) {
+            isDirty[unit] = false;
+            touch(unit);
+        }
+        for (int cell = 0; cell < nbCells; ++cell) {
+            grid[cell] = 0;
+            counts[cell] = width;
+            Candidates.fill(candidates, cell * words, width);
+        }
+        loaded = true;
+    }
+
+    /**
+     * <p>
+     * Remplit une case et retire la valeur des cases voisines.</p>
+     *
+     * @param cell  La case à remplir
+     * @param digit La valeur, entre 0 et <code>width - 1</code>
+     *
+     * @return Faux si la valeur n'est pas possible pour la case ou si une case
+     *         voisine n'a plus de valeur possible
+     *
+     * @since 1.1
+     */
+    private boolean assign(int cell, int digit) {
+        if (!Candidates.contains(candidates, cell * words, digit)) {
+            return false;
+        }
+        grid[cell] = digit + 1;
+        trail[trailSize++] = ~cell;
+        touch(units.getUnit(cell, 0));
+        touch(units.getUnit(cell, 1));
+        touch(units.getUnit(cell, 2));
+        for (int k = 0; k < nbPeers; ++k) {
+            int peer = units.getPeer(cell, k);
+            if (grid[peer] == 0 && Candidates.contains(candidates, peer * words, digit)) {
+                Candidates.remove(candidates, peer * words, digit);
+                trail[trailSize++] = peer * width + digit;
+                touch(units.getUnit(peer, 0));
+                touch(units.getUnit(peer, 1));
+                touch(units.getUnit(peer, 2));
+                if (--counts[peer] == 0) {
+                    return false;
+                } else if (counts[peer] == 1) {
+                    singles[singlesSize++] = peer;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Annule toutes les modifications faites depuis la position donnée de la
+     * pile de retour arrière.</p>
+     *
+     * @param mark La position à laquelle revenir
+     *
+     * @since 1.1
+     */
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int entry = trail[--trailSize];
+            if (entry < 0) {
+                grid[~entry] = 0;
+            } else {
+                int cell = entry / width;
+                Candidates.add(candidates, cell * words, entry - cell * width);
+                ++counts[cell];
+            }
+        }
+        singlesSize = 0;
+        while (dirtySize > 0) {
+            isDirty[dirty[--dirtySize]] = false;
+        }
+    }
+
+    /**
+     * <p>
+     * Marque une unité comme devant être examinée à la recherche de
+     * singletons cachés.</p>
+     *
+     * @param unit L'unité modifiée
+     *
+     * @since 1.1
+     */
+    private void touch(int unit) {
+        if (!isDirty[unit]) {
+            isDirty[unit] = true;
+            dirty[dirtySize++] = unit;
+        }
+    }
+
+    /**
+     * <p>
+     * Remplit les singletons nus et cachés jusqu'à ce qu'il n'y en ait
+     * plus.</p>
+     *
+     * @return Faux si une contradiction a été détectée
+     *
+     * @since 1.1
+     */
+    private boolean propagate() {
+        while (singlesSize > 0 || dirtySize > 0) {
+            if (singlesSize > 0) {
+                int cell = singles[--singlesSize];
+                if (grid[cell] == 0 && !assign(cell, Candidates.first(candidates, cell * words, words))) {
+                    return false;
+                }
+            } else {
+                int unit = dirty[--dirtySize];
+                isDirty[unit] = false;
+                if (!hiddenSingles(unit)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Cherche les valeurs n'ayant plus qu'une place dans une unité et les y
+     * place.</p>
+     *
+     * @param unit L'unité à examiner
+     *
+     * @return Faux si une valeur n'a plus de place dans l'unité
+     *
+     * @since 1.1
+     */
+    private boolean hiddenSingles(int unit) {
+        Candidates.clear(once, 0, words);
+        Candidates.clear(twice, 0, words);
+        Candidates.clear(placed, 0, words);
+        for (int k = 0; k < width; ++k) {
+            int cell = units.getUnitCell(unit, k);
+            if (grid[cell] != 0) {
+                Candidates.add(placed, 0, grid[cell] - 1);
+            } else {
+                for (int w = 0; w < words; ++w) {
+                    long bits = candidates[cell * words + w];
+                    twice[w] |= once[w] & bits;
+                    once[w] |= bits;
+                }
+            }
+        }
+        for (int w = 0; w < words; ++w) {
+            long full = Candidates.mask(width, w);
+            if (((once[w] | placed[w]) & full) != full) {
+                return false;
+            }
+            long hidden = once[w] & ~twice[w] & ~placed[w];
+            while (hidden != 0) {
+                int digit = (w << 6) + Long.numberOfTrailingZeros(hidden);
+                hidden &= hidden - 1;
+                for (int k = 0; k < width; ++k) {
+                    int cell = units.getUnitCell(unit, k);
+                    if (grid[cell] == 0 && Candidates.contains(candidates, cell * words, digit)) {
+                        if (!assign(cell, digit)) {
+                            return false;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Parcourt l'arbre de recherche en choisissant à chaque noeud la case vide
+     * ayant le moins de valeurs possibles.</p>
+     *
+     * @since 1.1
+     */
+    private void search() {
+        if (++nodes > nodeLimit) {
+            interrupted = true;
+            return;
+        }
+        if (!propagate()) {
+            return;
+        }
+
+        int best = -1;
+        for (int cell = 0; cell < nbCells; ++cell) {
+            if (grid[cell] == 0 && (best < 0 || counts[cell] < counts[best])) {
+                best = cell;
+                if (counts[cell] <= 2) {
+                    break;
+                }
+            }
+        }
+
+        if (best < 0) {
+            if (found++ == 0) {
+                System.arraycopy(grid, 0, solution, 0, nbCells);
+            }
+            if (solutions != null) {
+                Integer[] copy = new Integer[nbCells];
+                for (int cell = 0; cell < nbCells; ++cell) {
+                    copy[cell] = grid[cell];
+                }
+                solutions.add(copy);
+            }
+            if (sink != null && !sink.accept(view)) {
+                limit = found;
+            }
+            return;
+        }
+
+        int mark = trailSize;
+        int base = best * words;
+        for (int w = 0; w < words; ++w) {
+            long bits = candidates[base + w];
+            while (bits != 0) {
+                int digit = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int before = found;
+                if (assign(best, digit)) {
+                    search();
+                }
+                undo(mark);
+                if (found == before) {
+                    ++backtracks;
+                }
+                if (found >= limit || interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
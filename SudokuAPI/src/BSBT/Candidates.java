@@ -0,0 +1,189 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package BSBT;
+
+/**
+ * <p>
+ * <b><code>Candidates</code></b> regroupe les opérations sur les ensembles de
+ * valeurs possibles d'une case représentés par plusieurs <code>long</code>
+ * consécutifs d'un même tableau.</p>
+ *
+ * <p>
+ * La valeur <code>d</code> (comprise entre 0 et <code>width - 1</code>) est
+ * représentée par le bit <code>d % 64</code> du mot <code>d / 64</code>. Deux
+ * mots suffisent ainsi pour les grilles de 100x100.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see BitSetBTCheck
+ *
+ * @since 1.1
+ */
+public final class Candidates {
+
+    /**
+     * <p>
+     * Classe utilitaire, ne peut être instanciée.</p>
+     *
+     * @since 1.1
+     */
+    private Candidates() {
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de mots nécessaires pour représenter un ensemble de
+     * <code>width</code> valeurs.</p>
+     *
+     * @param width Le nombre de valeurs
+     *
+     * @return Le nombre de <code>long</code> nécessaires
+     *
+     * @since 1.1
+     */
+    public static int words(int width) {
+        return (width + 63) >>> 6;
+    }
+
+    /**
+     * <p>
+     * Retourne le masque des bits utilisés dans un mot donné d'un ensemble de
+     * <code>width</code> valeurs.</p>
+     *
+     * @param width Le nombre de valeurs
+     * @param word  L'indice du mot
+     *
+     * @return Le masque des bits utilisés
+     *
+     * @since 1.1
+     */
+    public static long mask(int width, int word) {
+        int bits = width - (word << 6);
+        if (bits >= 64) {
+            return -1L;
+        }
+        return bits <= 0 ? 0L : (1L << bits) - 1;
+    }
+
+    /**
+     * <p>
+     * Remplit un ensemble avec toutes les valeurs de 0 à
+     * <code>width - 1</code>.</p>
+     *
+     * @param set    Le tableau contenant l'ensemble
+     * @param offset La position du premier mot de l'ensemble
+     * @param width  Le nombre de valeurs
+     *
+     * @since 1.1
+     */
+    public static void fill(long[] set, int offset, int width) {
+        for (int w = 0, n = words(width); w < n; ++w) {
+            set[offset + w] = mask(width, w);
+        }
+    }
+
+    /**
+     * <p>
+     * Vide un ensemble.</p>
+     *
+     * @param set    Le tableau contenant l'ensemble
+     * @param offset La position du premier mot de l'ensemble
+     * @param words  Le nombre de mots de l'ensemble
+     *
+     * @since 1.1
+     */
+    public static void clear(long[] set, int offset, int words) {
+        for (int w = 0; w < words; ++w) {
+            set[offset + w] = 0L;
+        }
+    }
+
+    /**
+     * <p>
+     * Indique si une valeur appartient à un ensemble.</p>
+     *
+     * @param set    Le tableau contenant l'ensemble
+     * @param offset La position du premier mot de l'ensemble
+     * @param digit  La valeur à tester
+     *
+     * @return Vrai si la valeur appartient à l'ensemble
+     *
+     * @since 1.1
+     */
+    public static boolean contains(long[] set, int offset, int digit) {
+        return (set[offset + (digit >>> 6)] & (1L << digit)) != 0;
+    }
+
+    /**
+     * <p>
+     * Ajoute une valeur à un ensemble.</p>
+     *
+     * @param set    Le tableau contenant l'ensemble
+     * @param offset La position du premier mot de l'ensemble
+     * @param digit  La valeur à ajouter
+     *
+     * @since 1.1
+     */
+    public static void add(long[] set, int offset, int digit) {
+        set[offset + (digit >>> 6)] |= 1L << digit;
+    }
+
+    /**
+     * <p>
+     * Retire une valeur d'un ensemble.</p>
+     *
+     * @param set    Le tableau contenant l'ensemble
+     * @param offset La position du premier mot de l'ensemble
+     * @param digit  La valeur à retirer
+     *
+     * @since 1.1
+     */
+    public static void remove(long[] set, int offset, int digit) {
+        set[offset + (digit >>> 6)] &= ~(1L << digit);
+    }
+
+    /**
+     * <p>
+     * Retourne la plus petite valeur d'un ensemble.</p>
+     *
+     * @param set    Le tableau contenant l'ensemble
+     * @param offset La position du premier mot de l'ensemble
+     * @param words  Le nombre de mots de l'ensemble
+     *
+     * @return La plus petite valeur ou -1 si l'ensemble est vide
+     *
+     * @since 1.1
+     */
+    public static int first(long[] set, int offset, int words) {
+        for (int w = 0; w < words; ++w) {
+            long bits = set[offset + w];
+            if (bits != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de valeurs d'un ensemble.</p>
+     *
+     * @param set    Le tableau contenant l'ensemble
+     * @param offset La position du premier mot de l'ensemble
+     * @param words  Le nombre de mots de l'ensemble
+     *
+     * @return Le nombre de valeurs de l'ensemble
+     *
+     * @since 1.1
+     */
+    public static int count(long[] set, int offset, int words) {
+        int count = 0;
+        for (int w = 0; w < words; ++w) {
+            count += Long.bitCount(set[offset + w]);
+        }
+        return count;
+    }
+}
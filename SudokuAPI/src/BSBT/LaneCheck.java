@@ -0,0 +1,556 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package BSBT;
+
+import SudoLib.ISudoku;
+import SudoLib.UnitTable;
+import Sudoku.ICheck;
+import Sudoku.Sudoku;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * <b><code>LaneCheck</code></b> est un moteur de résolution par lots destiné
+ * aux grilles 9x9, pour lesquelles le coût fixe de chaque résolution dépasse
+ * souvent le coût de la résolution elle-même.</p>
+ *
+ * <p>
+ * Les grilles d'un lot sont propagées ensemble par paquets de {@link #LANES},
+ * chaque grille d'un paquet occupant un couloir. L'état est découpé en
+ * tranches de bits : pour chaque case et chaque valeur, un <code>long</code>
+ * indique dans son bit <code>lane</code> si la valeur est possible pour la
+ * case de la grille du couloir <code>lane</code>. Chaque opération logique
+ * traite ainsi les 64 grilles du paquet à la fois, dans des boucles sans
+ * branchement sur des tableaux contigus.</p>
+ *
+ * <p>
+ * Chaque tour de propagation :</p>
+ * <ul>
+ * <li>retire des cases vides les valeurs déjà placées dans leurs unités et
+ * remplit celles qui n'ont plus qu'une valeur possible (singletons nus)</li>
+ * <li>remplit les cases qui sont l'unique place d'une valeur dans une unité
+ * (singletons cachés)</li>
+ * </ul>
+ * <p>
+ * Une case remplie met aussitôt à jour les valeurs placées de ses unités, ce
+ * qui profite dès le même tour aux cases suivantes. Les couloirs contenant une
+ * case vide sans valeur possible, une valeur placée deux fois ou une valeur
+ * sans place dans une unité sont marqués comme sans solution. Les tours
+ * s'enchaînent tant qu'une case est remplie. Les grilles que la propagation ne
+ * suffit pas à remplir sont ensuite résolues une à une par un
+ * {@link BitSetBTCheck}, à partir des cases déjà remplies.</p>
+ *
+ * <p>
+ * Toutes les structures sont allouées à la construction. Un
+ * <b>LaneCheck</b> ne doit pas être partagé entre plusieurs threads.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see BitSetBTCheck
+ *
+ * @since 1.1
+ */
+public class LaneCheck implements ICheck {
+
+    /**
+     * <p>
+     * Nombre de grilles propagées ensemble, une par bit d'un
+     * <code>long</code>.</p>
+     *
+     * @since 1.1
+     */
+    public static final int LANES = 64;
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc des grilles acceptées.</p>
+     *
+     * @since 1.1
+     */
+    private static final int SIZE = 3;
+
+    /**
+     * <p>
+     * Nombre de cases d'une unité, soit aussi le nombre de valeurs
+     * possibles.</p>
+     *
+     * @since 1.1
+     */
+    private static final int WIDTH = SIZE * SIZE;
+
+    /**
+     * <p>
+     * Nombre de cases d'une grille.</p>
+     *
+     * @since 1.1
+     */
+    private static final int NB_CELLS = WIDTH * WIDTH;
+
+    /**
+     * <p>
+     * Nombre d'unités d'une grille.</p>
+     *
+     * @since 1.1
+     */
+    private static final int NB_UNITS = 3 * WIDTH;
+
+    /**
+     * <p>
+     * Cases de chaque unité, à partir de l'indice <code>unit * WIDTH</code>.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] unitCells;
+
+    /**
+     * <p>
+     * Ligne, colonne et bloc de chaque case, à partir de l'indice
+     * <code>cell * 3</code>.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] cellUnits;
+
+    /**
+     * <p>
+     * Couloirs dans lesquels une valeur est possible pour une case, à
+     * l'indice <code>cell * WIDTH + digit</code>. Une case remplie n'a que sa
+     * valeur pour valeur possible.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] candidates;
+
+    /**
+     * <p>
+     * Couloirs dans lesquels une case est remplie par une valeur, à l'indice
+     * <code>cell * WIDTH + digit</code>.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] fixed;
+
+    /**
+     * <p>
+     * Couloirs dans lesquels une case est remplie.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] filled;
+
+    /**
+     * <p>
+     * Couloirs dans lesquels une valeur est placée dans une unité, à l'indice
+     * <code>unit * WIDTH + digit</code>.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] placed;
+
+    /**
+     * <p>
+     * Couloirs sans solution ou inutilisés.</p>
+     *
+     * @since 1.1
+     */
+    private long dead;
+
+    /**
+     * <p>
+     * Moteur utilisé pour les grilles que la propagation ne suffit pas à
+     * remplir.</p>
+     *
+     * @since 1.1
+     */
+    private final BitSetBTCheck check;
+
+    /**
+     * <p>
+     * Grille d'un couloir après propagation, puis sa solution.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] solution;
+
+    /**
+     * <p>
+     * Nombre de grilles du dernier lot résolues par une recherche.</p>
+     *
+     * @since 1.1
+     */
+    private int searched;
+
+    /**
+     * <p>
+     * Construit un moteur de résolution par lots.</p>
+     *
+     * @since 1.1
+     */
+    public LaneCheck() {
+        UnitTable units = UnitTable.of(SIZE);
+        unitCells = new int[NB_UNITS * WIDTH];
+        for (int unit = 0; unit < NB_UNITS; ++unit) {
+            for (int k = 0; k < WIDTH; ++k) {
+                unitCells[unit * WIDTH + k] = units.getUnitCell(unit, k);
+            }
+        }
+        cellUnits = new int[NB_CELLS * 3];
+        for (int cell = 0; cell < NB_CELLS; ++cell) {
+            for (int kind = 0; kind < 3; ++kind) {
+                cellUnits[cell * 3 + kind] = units.getUnit(cell, kind);
+            }
+        }
+        candidates = new long[NB_CELLS * WIDTH];
+        fixed = new long[NB_CELLS * WIDTH];
+        filled = new long[NB_CELLS];
+        placed = new long[NB_UNITS * WIDTH];
+        check = new BitSetBTCheck(SIZE);
+        solution = new int[NB_CELLS];
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de grilles du dernier lot que la propagation n'a pas
+     * suffi à remplir et qui ont été résolues par une recherche.</p>
+     *
+     * @return Le nombre de grilles résolues par une recherche
+     *
+     * @since 1.1
+     */
+    public int getNbSearched() {
+        return searched;
+    }
+
+    /**
+     * <p>
+     * Résoud un lot de grilles 9x9 rangées les unes à la suite des autres,
+     * chacune ligne par ligne, et écrit une solution de chaque grille à la
+     * même position dans le tableau de destination. Les cases d'une grille
+     * sans solution sont mises à 0 dans le tableau de destination.</p>
+     *
+     * @param grids   Les grilles, 0 pour une case vide
+     * @param nbGrids Le nombre de grilles
+     * @param dst     Le tableau de destination, qui peut être
+     *                <code>grids</code>
+     *
+     * @return Le nombre de grilles ayant une solution
+     *
+     * @throws IllegalArgumentException Si un tableau est trop petit pour le
+     *                                  nombre de grilles
+     *
+     * @since 1.1
+     */
+    public int solve(int[] grids, int nbGrids, int[] dst) throws IllegalArgumentException {
+        if (nbGrids < 0 || grids.length / NB_CELLS < nbGrids || dst.length / NB_CELLS < nbGrids) {
+            throw new IllegalArgumentException("Arrays are too small for the number of grids.");
+        }
+        searched = 0;
+        int solved = 0;
+        for (int first = 0; first < nbGrids; first += LANES) {
+            int count = Math.min(LANES, nbGrids - first);
+            load(grids, first, count);
+            propagate();
+            solved += store(first, count, dst);
+        }
+        return solved;
+    }
+
+    /**
+     * <p>
+     * Résoud un lot de sudokus 9x9 et retourne pour chacun, dans le même
+     * ordre, une liste contenant une solution ou null si le sudoku n'admet
+     * aucune solution.</p>
+     *
+     * @param sudokus Les sudokus à résoudre
+     *
+     * @return Les solutions de chaque sudoku
+     *
+     * @throws IllegalArgumentException Si un sudoku n'est pas une grille 9x9
+     *
+     * @see #solve(int[], int, int[])
+     *
+     * @since 1.1
+     */
+    public ArrayList<ArrayList<Integer[]>> solveAll(List<? extends ISudoku> sudokus)
+            throws IllegalArgumentException {
+        int nbGrids = sudokus.size();
+        int[] grids = new int[nbGrids * NB_CELLS];
+        int[] grid = new int[NB_CELLS];
+        for (int k = 0; k < nbGrids; ++k) {
+            ISudoku sudoku = sudokus.get(k);
+            if (sudoku.getSize() != SIZE) {
+                throw new IllegalArgumentException("Sudoku size does not match the solver size.");
+            }
+            sudoku.copyGridTo(grid);
+            System.arraycopy(grid, 0, grids, k * NB_CELLS, NB_CELLS);
+        }
+        solve(grids, nbGrids, grids);
+
+        ArrayList<ArrayList<Integer[]>> results = new ArrayList<>(nbGrids);
+        for (int k = 0; k < nbGrids; ++k) {
+            if (grids[k * NB_CELLS] == 0) {
+                results.add(null);
+            } else {
+                Integer[] copy = new Integer[NB_CELLS];
+                for (int cell = 0; cell < NB_CELLS; ++cell) {
+                    copy[cell] = grids[k * NB_CELLS + cell];
+                }
+                ArrayList<Integer[]> result = new ArrayList<>(1);
+                result.add(copy);
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * <p>
+     * Résoud un unique sudoku 9x9, comme un lot d'une seule grille.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @return Une solution si la grille en accepte ou null
+     *
+     * @throws IllegalArgumentException Si le sudoku n'est pas une grille 9x9
+     *
+     * @see #solveAll(java.util.List)
+     *
+     * @since 1.1
+     */
+    @Override
+    public ArrayList<Integer[]> solve(Sudoku sudoku) throws IllegalArgumentException {
+        ArrayList<Sudoku> batch = new ArrayList<>(1);
+        batch.add(sudoku);
+        return solveAll(batch).get(0);
+    }
+
+    /**
+     * <p>
+     * Répartit des grilles sur les couloirs. Les couloirs inutilisés et ceux
+     * dont la grille contient une valeur invalide sont marqués comme sans
+     * solution.</p>
+     *
+     * @param grids Les grilles
+     * @param first L'indice de la première grille à charger
+     * @param count Le nombre de grilles à charger
+     *
+     * @since 1.1
+     */
+    private void load(int[] grids, int first, int count) {
+        Arrays.fill(candidates, 0L);
+        Arrays.fill(fixed, 0L);
+        Arrays.fill(filled, 0L);
+        dead = count == LANES ? 0L : -1L << count;
+        for (int lane = 0; lane < count; ++lane) {
+            long bit = 1L << lane;
+            int offset = (first + lane) * NB_CELLS;
+            for (int cell = 0; cell < NB_CELLS; ++cell) {
+                int value = grids[offset + cell];
+                if (value == 0) {
+                    for (int digit = 0; digit < WIDTH; ++digit) {
+                        candidates[cell * WIDTH + digit] |= bit;
+                    }
+                } else if (value > 0 && value <= WIDTH) {
+                    candidates[cell * WIDTH + value - 1] |= bit;
+                    fixed[cell * WIDTH + value - 1] |= bit;
+                    filled[cell] |= bit;
+                } else {
+                    dead |= bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Enchaîne les tours de propagation sur tous les couloirs jusqu'à ce
+     * qu'aucune case ne soit plus remplie.</p>
+     *
+     * @since 1.1
+     */
+    private void propagate() {
+        collectPlaced();
+        long changed = -1L;
+        while (changed != 0) {
+            changed = eliminate();
+            for (int unit = 0; unit < NB_UNITS; ++unit) {
+                changed |= hiddenSingles(unit);
+            }
+            changed &= ~dead;
+        }
+    }
+
+    /**
+     * <p>
+     * Calcule les valeurs placées dans chaque unité et marque les couloirs
+     * où une valeur est placée deux fois dans une même unité.</p>
+     *
+     * @since 1.1
+     */
+    private void collectPlaced() {
+        for (int unit = 0; unit < NB_UNITS; ++unit) {
+            for (int digit = 0; digit < WIDTH; ++digit) {
+                long once = 0L;
+                long twice = 0L;
+                for (int k = 0; k < WIDTH; ++k) {
+                    long lanes = fixed[unitCells[unit * WIDTH + k] * WIDTH + digit];
+                    twice |= once & lanes;
+                    once |= lanes;
+                }
+                placed[unit * WIDTH + digit] = once;
+                dead |= twice;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Retire des cases vides les valeurs placées dans leur ligne, leur
+     * colonne ou leur bloc et remplit aussitôt celles qui n'ont plus qu'une
+     * valeur possible (singletons nus). Les couloirs où une case vide n'a
+     * plus de valeur possible sont marqués.</p>
+     *
+     * @return Les couloirs dans lesquels une case a été remplie
+     *
+     * @since 1.1
+     */
+    private long eliminate() {
+        long changed = 0L;
+        for (int cell = 0; cell < NB_CELLS; ++cell) {
+            int base = cell * WIDTH;
+            int row = cellUnits[cell * 3] * WIDTH;
+            int col = cellUnits[cell * 3 + 1] * WIDTH;
+            int box = cellUnits[cell * 3 + 2] * WIDTH;
+            long empty = ~filled[cell];
+            long once = 0L;
+            long twice = 0L;
+            for (int digit = 0; digit < WIDTH; ++digit) {
+                long taken = placed[row + digit] | placed[col + digit] | placed[box + digit];
+                long lanes = candidates[base + digit] & ~taken & empty | fixed[base + digit];
+                candidates[base + digit] = lanes;
+                twice |= once & lanes;
+                once |= lanes;
+            }
+            dead |= ~once;
+            long single = once & ~twice & empty;
+            if (single == 0) {
+                continue;
+            }
+            for (int digit = 0; digit < WIDTH; ++digit) {
+                long lanes = candidates[base + digit] & single;
+                fixed[base + digit] |= lanes;
+                placed[row + digit] |= lanes;
+                placed[col + digit] |= lanes;
+                placed[box + digit] |= lanes;
+            }
+            filled[cell] |= single;
+            changed |= single;
+        }
+        return changed;
+    }
+
+    /**
+     * <p>
+     * Remplit les cases d'une unité qui sont l'unique place d'une valeur
+     * (singletons cachés), et marque les couloirs où une valeur n'a plus de
+     * place dans l'unité ou se retrouve placée deux fois.</p>
+     *
+     * @param unit L'unité à examiner
+     *
+     * @return Les couloirs dans lesquels une case a été remplie
+     *
+     * @since 1.1
+     */
+    private long hiddenSingles(int unit) {
+        long changed = 0L;
+        int cells = unit * WIDTH;
+        for (int digit = 0; digit < WIDTH; ++digit) {
+            long once = 0L;
+            long twice = 0L;
+            for (int k = 0; k < WIDTH; ++k) {
+                long lanes = candidates[unitCells[cells + k] * WIDTH + digit];
+                twice |= once & lanes;
+                once |= lanes;
+            }
+            dead |= ~once;
+            long hidden = once & ~twice & ~placed[cells + digit];
+            if (hidden == 0) {
+                continue;
+            }
+            for (int k = 0; k < WIDTH; ++k) {
+                int cell = unitCells[cells + k];
+                long lanes = candidates[cell * WIDTH + digit] & hidden;
+                if (lanes == 0) {
+                    continue;
+                }
+                int row = cellUnits[cell * 3] * WIDTH + digit;
+                int col = cellUnits[cell * 3 + 1] * WIDTH + digit;
+                int box = cellUnits[cell * 3 + 2] * WIDTH + digit;
+                dead |= lanes & (filled[cell] | placed[row] | placed[col] | placed[box]);
+                fixed[cell * WIDTH + digit] |= lanes;
+                filled[cell] |= lanes;
+                placed[row] |= lanes;
+                placed[col] |= lanes;
+                placed[box] |= lanes;
+            }
+            changed |= hidden;
+        }
+        return changed;
+    }
+
+    /**
+     * <p>
+     * Écrit les solutions des couloirs dans le tableau de destination. Les
+     * grilles que la propagation n'a pas remplies sont résolues par une
+     * recherche à partir des cases déjà remplies.</p>
+     *
+     * @param first L'indice de la première grille chargée
+     * @param count Le nombre de grilles chargées
+     * @param dst   Le tableau de destination
+     *
+     * @return Le nombre de grilles ayant une solution
+     *
+     * @since 1.1
+     */
+    private int store(int first, int count, int[] dst) {
+        long complete = ~dead;
+        for (int cell = 0; cell < NB_CELLS; ++cell) {
+            complete &= filled[cell];
+        }
+        int solved = 0;
+        for (int lane = 0; lane < count; ++lane) {
+            long bit = 1L << lane;
+            int offset = (first + lane) * NB_CELLS;
+            if ((dead & bit) != 0) {
+                Arrays.fill(dst, offset, offset + NB_CELLS, 0);
+                continue;
+            }
+            for (int cell = 0; cell < NB_CELLS; ++cell) {
+                int value = 0;
+                if ((filled[cell] & bit) != 0) {
+                    while ((fixed[cell * WIDTH + value] & bit) == 0) {
+                        ++value;
+                    }
+                    ++value;
+                }
+                solution[cell] = value;
+            }
+            if ((complete & bit) == 0) {
+                ++searched;
+                if (!check.reset(solution, 0) || check.run() == 0) {
+                    Arrays.fill(dst, offset, offset + NB_CELLS, 0);
+                    continue;
+                }
+                check.copySolutionTo(solution);
+            }
+            System.arraycopy(solution, 0, dst, offset, NB_CELLS);
+            ++solved;
+        }
+        return solved;
+    }
+}
@@ -11,8 +11,14 @@ import java.util.Iterator;
 
 /**
  * <p>
- * <code><b>CoordIMBTCheck</b></code> est une extension de
- * {@link Coord2D} adapté au sudoku.</p>
+ * <code><b>CoordIMBTCheck</b></code> représente une case de la grille adaptée
+ * au sudoku.</p>
+ *
+ * <p>
+ * La case est repérée par son indice dans la grille (voir
+ * {@link Coord2D#convCoord(int, int, int)}) plutôt que par un objet
+ * {@link Coord2D}, ce qui évite toute création de coordonnées pendant la
+ * résolution.</p>
  *
  * <p>
  * Une instance de cette classe représente une case de la grille et permet de
@@ -22,13 +28,21 @@ import java.util.Iterator;
  * algorithmes de résolution.</p>
  *
  * @author Pascal Luttgens
- * @version 1.0
+ * @version 1.1
  *
  * @see Coord2D
  *
  * @since 1.0
  */
-public class CoordIMBTCheck extends Coord2D implements Comparable<CoordIMBTCheck> {
+public class CoordIMBTCheck implements Comparable<CoordIMBTCheck> {
+
+    /**
+     * <p>
+     * Indice de la case dans la grille.</p>
+     *
+     * @since 1.1
+     */
+    private final int _index;
 
     /**
      * <p>
@@ -49,27 +63,38 @@ public class CoordIMBTCheck extends Coord2D implements Comparable<CoordIMBTCheck
 
     /**
      * <p>
-     * Construit une case à partir de ses coordonnées sur la grille.</p>
+     * Construit une case à partir de son indice dans la grille.</p>
      *
-     * @param i Coordonnée en x
-     * @param j Coordonnée en y
+     * @param index L'indice de la case
      *
-     * @see Coord2D#Coord2D(int, int)
+     * @see Coord2D#convCoord(int, int, int)
      *
-     * @since 1.0
+     * @since 1.1
      */
-    public CoordIMBTCheck(int i, int j) {
-        super(i, j);
+    public CoordIMBTCheck(int index) {
+        _index = index;
         _concurrents = new ArrayList<>();
     }
 
+    /**
+     * <p>
+     * Retourne l'indice de la case dans la grille.</p>
+     *
+     * @return L'indice de la case
+     *
+     * @since 1.1
+     */
+    public int getIndex() {
+        return _index;
+    }
+
     /**
      * <p>
      * Ajoute la liste des valeurs possibles pour la case.</p>
      *
      * @param concurrents La liste des valeurs possibles
      *
-     * @see ExistArray#countContenders(Coord2D.Coord2D)
+     * @see ExistArray#countContenders(int)
      *
      * @since 1.0
      */
@@ -133,6 +158,23 @@ public class CoordIMBTCheck extends Coord2D implements Comparable<CoordIMBTCheck
         _current = _concurrents.iterator();
     }
 
+    /**
+     * <p>
+     * Range les valeurs possibles selon un ordre et remet l'itérateur au début
+     * de la liste.</p>
+     *
+     * @param order       L'ordre des valeurs
+     * @param existArrays L'état courant de la grille
+     *
+     * @see ValueOrder
+     *
+     * @since 1.1
+     */
+    public void orderPossibleValues(ValueOrder order, ExistArray existArrays) {
+        order.order(_index, _concurrents, existArrays);
+        _current = _concurrents.iterator();
+    }
+
     /**
      * <p>
      * Spécialisation de la méthode {@link Comparable#compareTo(java.lang.Object)
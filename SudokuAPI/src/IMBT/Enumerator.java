@@ -0,0 +1,547 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package IMBT;
+
+import IMBT.Frontier.Task;
+import SudoLib.ExistArray;
+import SudoLib.GridView;
+import SudoLib.ISolutionSink;
+import Sudoku.Sudoku;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * <p>
+ * <b><code>Enumerator</code></b> énumère toutes les solutions d'une grille,
+ * comme {@link InMemoryBTCheck#enumerate(Sudoku.Sudoku, SudoLib.ISolutionSink)},
+ * mais en conservant l'état de sa recherche dans des tableaux plutôt que dans
+ * la pile d'appels, ce qui permet de l'enregistrer à tout moment.</p>
+ *
+ * <p>
+ * Les cases vides sont remplies dans le même ordre que par
+ * {@link InMemoryBTCheck} : par nombre croissant de valeurs possibles dans la
+ * grille de départ. Pour chaque profondeur, la recherche retient la valeur
+ * posée et la prochaine valeur à essayer ; ces curseurs, le nombre de
+ * solutions trouvées et les parties de l'arbre restant à parcourir forment une
+ * {@link Frontier}, enregistrée régulièrement dans un fichier de reprise. Une
+ * énumération interrompue reprend exactement là où la dernière frontière
+ * enregistrée l'avait laissée ; les solutions trouvées entre ce dernier
+ * enregistrement et l'interruption sont alors transmises une seconde fois.</p>
+ *
+ * <p>
+ * Une frontière peut aussi être découpée en parties indépendantes (voir
+ * {@link #split(int)}), chacune énumérée par un autre processus ou une autre
+ * machine. La somme des solutions trouvées par les parties est celle de
+ * l'énumération complète, et les solutions des parties mises bout à bout
+ * suivent l'ordre de l'énumération complète.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Frontier
+ * @see InMemoryBTCheck
+ *
+ * @since 1.1
+ */
+public class Enumerator {
+
+    /**
+     * <p>
+     * Nombre de noeuds parcourus entre deux consultations de l'horloge.</p>
+     *
+     * @since 1.1
+     */
+    private static final int CLOCK_MASK = (1 << 10) - 1;
+
+    /**
+     * Taille de l'arête d'un bloc de la grille.
+     *
+     * @since 1.1
+     */
+    private final int size;
+
+    /**
+     * Nombre de valeurs possibles d'une case.
+     *
+     * @since 1.1
+     */
+    private final int width;
+
+    /**
+     * Grille de départ.
+     *
+     * @since 1.1
+     */
+    private final int[] puzzle;
+
+    /**
+     * Cases vides dans l'ordre où elles sont remplies.
+     *
+     * @since 1.1
+     */
+    private final int[] order;
+
+    /**
+     * Grille de départ sous la forme d'un sudoku, servant à recharger les
+     * tableaux de booléens.
+     *
+     * @since 1.1
+     */
+    private final Sudoku sudoku;
+
+    /**
+     * Valeurs présentes sur chaque ligne, colonne et bloc.
+     *
+     * @since 1.1
+     */
+    private final ExistArray existArrays;
+
+    /**
+     * Grille de travail, transmise en lecture seule aux destinataires.
+     *
+     * @since 1.1
+     */
+    private final int[] grid;
+
+    /**
+     * Vue sur la grille de travail.
+     *
+     * @since 1.1
+     */
+    private final GridView view;
+
+    /**
+     * Valeur posée à chaque profondeur.
+     *
+     * @since 1.1
+     */
+    private final int[] placed;
+
+    /**
+     * Prochaine valeur à essayer à chaque profondeur.
+     *
+     * @since 1.1
+     */
+    private final int[] cursor;
+
+    /**
+     * Tâches restant à parcourir après la tâche en cours.
+     *
+     * @since 1.1
+     */
+    private final Deque<Task> tasks = new ArrayDeque<>();
+
+    /**
+     * Vrai si une tâche est en cours.
+     *
+     * @since 1.1
+     */
+    private boolean active;
+
+    /**
+     * Base de la tâche en cours.
+     *
+     * @since 1.1
+     */
+    private int base;
+
+    /**
+     * Profondeur courante de la tâche en cours.
+     *
+     * @since 1.1
+     */
+    private int depth;
+
+    /**
+     * Nombre de solutions trouvées.
+     *
+     * @since 1.1
+     */
+    private long count;
+
+    /**
+     * <p>
+     * Prépare l'énumération de toutes les solutions d'un sudoku.</p>
+     *
+     * @param sudoku Le sudoku
+     *
+     * @throws IllegalArgumentException Si le sudoku est déjà rempli et faux
+     *
+     * @since 1.1
+     */
+    public Enumerator(Sudoku sudoku) throws IllegalArgumentException {
+        this(sudoku, null);
+    }
+
+    /**
+     * <p>
+     * Prépare la reprise d'une énumération à partir d'une frontière.</p>
+     *
+     * @param frontier La frontière
+     *
+     * @throws IllegalArgumentException Si la frontière ne correspond pas à sa
+     *                                  grille
+     *
+     * @see Frontier#load(java.io.File)
+     *
+     * @since 1.1
+     */
+    public Enumerator(Frontier frontier) throws IllegalArgumentException {
+        this(frontier.getSudoku(), frontier);
+    }
+
+    /**
+     * <p>
+     * Initialise les structures de recherche et, à défaut de frontière, calcule
+     * l'ordre des cases vides.</p>
+     *
+     * @param sudoku   La grille de départ
+     * @param frontier La frontière à reprendre, ou null
+     *
+     * @throws IllegalArgumentException Si la frontière ne correspond pas à sa
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    private Enumerator(Sudoku sudoku, Frontier frontier) throws IllegalArgumentException {
+        this.sudoku = sudoku;
+        size = sudoku.getSize();
+        width = size * size;
+        puzzle = new int[width * width];
+        sudoku.copyGridTo(puzzle);
+        existArrays = new ExistArray(sudoku);
+        grid = puzzle.clone();
+        view = new GridView(size, grid);
+
+        if (frontier == null) {
+            order = sortedCells();
+            if (!existArrays.hasContradiction()) {
+                tasks.add(new Task(0, new int[0], 0));
+            }
+        } else {
+            order = frontier.order.clone();
+            for (int cell : order) {
+                if (cell >= puzzle.length || puzzle[cell] != 0) {
+                    throw new IllegalArgumentException("Frontier does not match its grid.");
+                }
+            }
+            for (Task task : frontier.tasks) {
+                for (int value : task.path) {
+                    if (value >= width) {
+                        throw new IllegalArgumentException("Frontier does not match its grid.");
+                    }
+                }
+                tasks.add(task);
+            }
+            count = frontier.count;
+        }
+        placed = new int[order.length];
+        cursor = new int[order.length + 1];
+    }
+
+    /**
+     * <p>
+     * Énumère les solutions restantes en enregistrant régulièrement la
+     * frontière dans un fichier de reprise, puis une dernière fois à la fin de
+     * l'énumération. Le destinataire peut arrêter l'énumération en retournant
+     * faux ; la frontière enregistrée permet alors de la reprendre après la
+     * dernière solution transmise.</p>
+     *
+     * @param sink       Le destinataire des solutions, ou null pour seulement
+     *                   les compter
+     * @param interval   L'intervalle entre deux enregistrements, en
+     *                   millisecondes
+     * @param checkpoint Le fichier de reprise, ou null pour n'en écrire aucun
+     *
+     * @return Le nombre total de solutions trouvées, y compris celles trouvées
+     *         avant la reprise
+     *
+     * @throws IOException Si le fichier de reprise n'a pas pu être écrit
+     *
+     * @see Frontier#save(java.io.File)
+     *
+     * @since 1.1
+     */
+    public long run(ISolutionSink sink, long interval, File checkpoint) throws IOException {
+        long deadline = System.currentTimeMillis() + interval;
+        long nodes = 0;
+        boolean stopped = false;
+
+        while (!stopped && (active || load())) {
+            if (depth == order.length) {
+                ++count;
+                if (sink != null && !sink.accept(view)) {
+                    stopped = true;
+                }
+                backtrack();
+                continue;
+            }
+
+            int cell = order[depth];
+            int value = cursor[depth];
+            for (; value < width; ++value) {
+                if (!existArrays.isInArrays(cell, value)) {
+                    existArrays.setBoolAt(cell, value, true);
+                    if (!existArrays.isDeadEnd(cell, value)) {
+                        break;
+                    }
+                    existArrays.setBoolAt(cell, value, false);
+                }
+            }
+            if (value == width) {
+                backtrack();
+                continue;
+            }
+            cursor[depth] = value + 1;
+            placed[depth] = value;
+            grid[cell] = value + 1;
+            cursor[++depth] = 0;
+
+            if ((++nodes & CLOCK_MASK) == 0 && checkpoint != null
+                    && System.currentTimeMillis() >= deadline) {
+                getFrontier().save(checkpoint);
+                deadline = System.currentTimeMillis() + interval;
+            }
+        }
+        if (checkpoint != null) {
+            getFrontier().save(checkpoint);
+        }
+        return count;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de solutions trouvées, y compris celles trouvées
+     * avant la reprise.</p>
+     *
+     * @return Le nombre de solutions
+     *
+     * @since 1.1
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * <p>
+     * Indique si l'énumération est terminée.</p>
+     *
+     * @return Vrai si tout l'arbre de recherche a été parcouru
+     *
+     * @since 1.1
+     */
+    public boolean isFinished() {
+        return !active && tasks.isEmpty();
+    }
+
+    /**
+     * <p>
+     * Retourne l'état courant de l'énumération.</p>
+     *
+     * @return La frontière
+     *
+     * @since 1.1
+     */
+    public Frontier getFrontier() {
+        ArrayList<Task> remaining = new ArrayList<>();
+        if (active) {
+            remaining.add(new Task(base, Arrays.copyOf(placed, depth), cursor[depth]));
+        }
+        remaining.addAll(tasks);
+        return new Frontier(size, puzzle, order, count, remaining);
+    }
+
+    /**
+     * <p>
+     * Découpe l'état courant de l'énumération en parties indépendantes.</p>
+     *
+     * <p>
+     * La tâche en cours est d'abord décomposée en sous-arbres, un par
+     * profondeur entamée, puis les sous-arbres les moins profonds sont
+     * remplacés par leurs fils jusqu'à en obtenir au moins autant que de
+     * parties demandées. Les sous-arbres sont ensuite répartis, dans l'ordre de
+     * l'énumération et par paquets contigus, entre les parties. La première
+     * partie conserve le nombre de solutions déjà trouvées ; les suivantes
+     * partent de zéro, de sorte que la somme des parties donne le total.
+     * L'énumérateur lui-même n'est pas modifié et peut reprendre sa recherche
+     * après le découpage.</p>
+     *
+     * @param k Le nombre de parties
+     *
+     * @return Les parties, certaines pouvant être déjà terminées s'il reste
+     *         moins de sous-arbres que de parties
+     *
+     * @throws IllegalArgumentException Si le nombre de parties est inférieur
+     *                                  à 1
+     *
+     * @since 1.1
+     */
+    public Frontier[] split(int k) throws IllegalArgumentException {
+        if (k < 1) {
+            throw new IllegalArgumentException("Number of shards must be > 0.");
+        }
+        Task current = active ? new Task(base, Arrays.copyOf(placed, depth), cursor[depth]) : null;
+        ArrayList<Task> ranges = new ArrayList<>();
+        for (Task task : getFrontier().tasks) {
+            ranges.add(new Task(task.path.length, task.path, task.cursor));
+            for (int level = task.path.length - 1; level >= task.base; --level) {
+                if (task.path[level] + 1 < width) {
+                    ranges.add(new Task(level, Arrays.copyOf(task.path, level), task.path[level] + 1));
+                }
+            }
+        }
+
+        while (ranges.size() < k) {
+            int shallowest = -1;
+            for (int t = 0; t < ranges.size(); ++t) {
+                int length = ranges.get(t).path.length;
+                if (length < order.length && (shallowest < 0 || length < ranges.get(shallowest).path.length)) {
+                    shallowest = t;
+                }
+            }
+            if (shallowest < 0) {
+                break;
+            }
+            ranges.addAll(shallowest, expand(ranges.remove(shallowest)));
+        }
+        if (current != null) {
+            replay(current);
+        }
+
+        Frontier[] shards = new Frontier[k];
+        int from = 0;
+        for (int s = 0; s < k; ++s) {
+            int to = from + (ranges.size() - from) / (k - s);
+            shards[s] = new Frontier(size, puzzle, order, s == 0 ? count : 0, ranges.subList(from, to));
+            from = to;
+        }
+        return shards;
+    }
+
+    /**
+     * <p>
+     * Remplace un sous-arbre par ses fils : un sous-arbre pour chaque valeur
+     * acceptable dans la case suivant son chemin, à partir de son curseur.
+     * L'état de la recherche en cours est écrasé : l'appelant doit le
+     * rétablir.</p>
+     *
+     * @param task Le sous-arbre, dont la base vaut la longueur du chemin
+     *
+     * @return Les fils, dans l'ordre de l'énumération
+     *
+     * @since 1.1
+     */
+    private List<Task> expand(Task task) {
+        replay(task);
+        ArrayList<Task> children = new ArrayList<>();
+        int cell = order[depth];
+        for (int value = task.cursor; value < width; ++value) {
+            if (!existArrays.isInArrays(cell, value)) {
+                existArrays.setBoolAt(cell, value, true);
+                if (!existArrays.isDeadEnd(cell, value)) {
+                    int[] path = Arrays.copyOf(task.path, depth + 1);
+                    path[depth] = value;
+                    children.add(new Task(depth + 1, path, 0));
+                }
+                existArrays.setBoolAt(cell, value, false);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * <p>
+     * Passe à la tâche suivante.</p>
+     *
+     * @return Faux s'il ne reste aucune tâche
+     *
+     * @since 1.1
+     */
+    private boolean load() {
+        Task task = tasks.poll();
+        if (task == null) {
+            return false;
+        }
+        replay(task);
+        base = task.base;
+        active = true;
+        return true;
+    }
+
+    /**
+     * <p>
+     * Recharge la grille de départ puis pose les valeurs du chemin d'une
+     * tâche.</p>
+     *
+     * @param task La tâche
+     *
+     * @since 1.1
+     */
+    private void replay(Task task) {
+        existArrays.reset(sudoku);
+        System.arraycopy(puzzle, 0, grid, 0, puzzle.length);
+        for (depth = 0; depth < task.path.length; ++depth) {
+            int value = task.path[depth];
+            existArrays.setBoolAt(order[depth], value, true);
+            grid[order[depth]] = value + 1;
+            placed[depth] = value;
+            cursor[depth] = value + 1;
+        }
+        cursor[depth] = task.cursor;
+    }
+
+    /**
+     * <p>
+     * Retire la dernière valeur posée, ou termine la tâche en cours si sa base
+     * est atteinte.</p>
+     *
+     * @return Vrai si la tâche continue
+     *
+     * @since 1.1
+     */
+    private boolean backtrack() {
+        if (depth == base) {
+            active = false;
+            return false;
+        }
+        --depth;
+        existArrays.setBoolAt(order[depth], placed[depth], false);
+        grid[order[depth]] = 0;
+        return true;
+    }
+
+    /**
+     * <p>
+     * Trie les cases vides de la grille par nombre croissant de valeurs
+     * possibles, en conservant l'ordre des cases à égalité.</p>
+     *
+     * @return Les cases vides triées
+     *
+     * @see CoordIMBTCheck#compareTo(IMBT.CoordIMBTCheck)
+     *
+     * @since 1.1
+     */
+    private int[] sortedCells() {
+        ArrayList<Integer> cells = new ArrayList<>();
+        int[] contenders = new int[puzzle.length];
+        for (int cell = 0; cell < puzzle.length; ++cell) {
+            if (puzzle[cell] == 0) {
+                contenders[cell] = existArrays.countContenders(cell).size();
+                cells.add(cell);
+            }
+        }
+        cells.sort((a, b) -> Integer.compare(contenders[a], contenders[b]));
+        int[] sorted = new int[cells.size()];
+        for (int k = 0; k < sorted.length; ++k) {
+            sorted[k] = cells.get(k);
+        }
+        return sorted;
+    }
+}
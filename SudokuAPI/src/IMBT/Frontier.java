@@ -0,0 +1,318 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package IMBT;
+
+import Sudoku.Sudoku;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * <b><code>Frontier</code></b> est l'état d'une énumération des solutions
+ * d'une grille par un {@link Enumerator} : la grille, l'ordre dans lequel ses
+ * cases vides sont remplies, le nombre de solutions déjà trouvées et la liste
+ * des parties de l'arbre de recherche restant à parcourir.</p>
+ *
+ * <p>
+ * Chaque partie restante, ou tâche, est décrite par les valeurs posées dans
+ * les premières cases de l'ordre (le chemin), la profondeur au-dessus de
+ * laquelle les valeurs du chemin sont fixées (la base), et la prochaine valeur
+ * à essayer au bout du chemin (le curseur). Une tâche dont la base vaut la
+ * longueur du chemin couvre le sous-arbre des valeurs du curseur à
+ * <code>width</code> pour la case suivante ; une tâche en cours couvre en plus
+ * les valeurs suivantes de chaque case du chemin située sous la base.</p>
+ *
+ * <p>
+ * Une frontière s'enregistre dans un fichier compact, remplacé de manière
+ * atomique, et se relit pour reprendre l'énumération exactement là où elle
+ * s'était arrêtée. Les tâches étant indépendantes, une frontière peut être
+ * découpée en plusieurs frontières résolues séparément (voir
+ * {@link Enumerator#split(int)}).</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Enumerator
+ *
+ * @since 1.1
+ */
+public final class Frontier {
+
+    /**
+     * <p>
+     * Partie de l'arbre de recherche restant à parcourir.</p>
+     *
+     * @since 1.1
+     */
+    static final class Task {
+
+        /**
+         * Profondeur au-dessus de laquelle les valeurs du chemin sont fixées.
+         */
+        final int base;
+
+        /**
+         * Valeurs posées, entre 0 et <code>width - 1</code>, dans les
+         * premières cases de l'ordre.
+         */
+        final int[] path;
+
+        /**
+         * Prochaine valeur à essayer dans la case suivant le chemin.
+         */
+        final int cursor;
+
+        /**
+         * <p>
+         * Construit une tâche.</p>
+         *
+         * @param base   La base
+         * @param path   Le chemin
+         * @param cursor Le curseur
+         */
+        Task(int base, int[] path, int cursor) {
+            this.base = base;
+            this.path = path;
+            this.cursor = cursor;
+        }
+    }
+
+    /**
+     * <p>
+     * Nombre magique en tête des fichiers de frontière.</p>
+     *
+     * @since 1.1
+     */
+    public static final int MAGIC = 0x53554446;
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc de la grille.</p>
+     *
+     * @since 1.1
+     */
+    final int size;
+
+    /**
+     * <p>
+     * Grille de départ.</p>
+     *
+     * @since 1.1
+     */
+    final int[] puzzle;
+
+    /**
+     * <p>
+     * Cases vides de la grille dans l'ordre où elles sont remplies.</p>
+     *
+     * @since 1.1
+     */
+    final int[] order;
+
+    /**
+     * <p>
+     * Nombre de solutions trouvées avant cet état.</p>
+     *
+     * @since 1.1
+     */
+    final long count;
+
+    /**
+     * <p>
+     * Tâches restantes, dans l'ordre de l'énumération.</p>
+     *
+     * @since 1.1
+     */
+    final List<Task> tasks;
+
+    /**
+     * <p>
+     * Construit une frontière.</p>
+     *
+     * @param size   La taille de l'arête d'un bloc
+     * @param puzzle La grille de départ
+     * @param order  L'ordre des cases vides
+     * @param count  Le nombre de solutions déjà trouvées
+     * @param tasks  Les tâches restantes
+     *
+     * @since 1.1
+     */
+    Frontier(int size, int[] puzzle, int[] order, long count, List<Task> tasks) {
+        this.size = size;
+        this.puzzle = puzzle;
+        this.order = order;
+        this.count = count;
+        this.tasks = Collections.unmodifiableList(new ArrayList<>(tasks));
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc de la grille.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * <p>
+     * Retourne la grille de départ de l'énumération.</p>
+     *
+     * @return Un nouveau sudoku contenant la grille de départ
+     *
+     * @since 1.1
+     */
+    public Sudoku getSudoku() {
+        ArrayList<Integer> cells = new ArrayList<>();
+        for (int value : puzzle) {
+            cells.add(value);
+        }
+        return new Sudoku(cells, size);
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de solutions trouvées avant cet état.</p>
+     *
+     * @return Le nombre de solutions
+     *
+     * @since 1.1
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de tâches restantes.</p>
+     *
+     * @return Le nombre de tâches
+     *
+     * @since 1.1
+     */
+    public int getNbTasks() {
+        return tasks.size();
+    }
+
+    /**
+     * <p>
+     * Indique si l'énumération est terminée.</p>
+     *
+     * @return Vrai s'il ne reste aucune tâche
+     *
+     * @since 1.1
+     */
+    public boolean isFinished() {
+        return tasks.isEmpty();
+    }
+
+    /**
+     * <p>
+     * Enregistre la frontière dans un fichier. La frontière est d'abord écrite
+     * dans un fichier temporaire qui remplace ensuite le fichier, de sorte
+     * qu'une interruption laisse toujours la frontière précédente
+     * intacte.</p>
+     *
+     * @param file Le fichier
+     *
+     * @throws IOException Si le fichier n'a pas pu être écrit
+     *
+     * @since 1.1
+     */
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(size);
+            for (int value : puzzle) {
+                out.writeByte(value);
+            }
+            out.writeShort(order.length);
+            for (int cell : order) {
+                out.writeShort(cell);
+            }
+            out.writeLong(count);
+            out.writeInt(tasks.size());
+            for (Task task : tasks) {
+                out.writeShort(task.base);
+                out.writeShort(task.path.length);
+                out.writeByte(task.cursor);
+                for (int value : task.path) {
+                    out.writeByte(value);
+                }
+            }
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * <p>
+     * Relit une frontière enregistrée par {@link #save(java.io.File)}.</p>
+     *
+     * @param file Le fichier
+     *
+     * @return La frontière
+     *
+     * @throws IOException Si le fichier n'a pas pu être lu ou n'est pas un
+     *                     fichier de frontière
+     *
+     * @since 1.1
+     */
+    public static Frontier load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a frontier file.");
+            }
+            int size = in.readUnsignedByte();
+            int width = size * size;
+            if (size < 1 || size > 10) {
+                throw new IOException("Invalid grid size in frontier file.");
+            }
+            int[] puzzle = new int[width * width];
+            for (int cell = 0; cell < puzzle.length; ++cell) {
+                puzzle[cell] = in.readUnsignedByte();
+            }
+            int[] order = new int[in.readUnsignedShort()];
+            for (int k = 0; k < order.length; ++k) {
+                order[k] = in.readUnsignedShort();
+            }
+            long count = in.readLong();
+            int nbTasks = in.readInt();
+            ArrayList<Task> tasks = new ArrayList<>();
+            for (int t = 0; t < nbTasks; ++t) {
+                int base = in.readUnsignedShort();
+                int[] path = new int[in.readUnsignedShort()];
+                int cursor = in.readUnsignedByte();
+                if (base > path.length || path.length > order.length) {
+                    throw new IOException("Invalid task in frontier file.");
+                }
+                for (int k = 0; k < path.length; ++k) {
+                    path[k] = in.readUnsignedByte();
+                }
+                tasks.add(new Task(base, path, cursor));
+            }
+            return new Frontier(size, puzzle, order, count, tasks);
+        }
+    }
+}
@@ -7,6 +7,8 @@ package IMBT;
 import Sudoku.Sudoku;
 import Sudoku.ICheck;
 import SudoLib.ExistArray;
+import SudoLib.ISolutionSink;
+import SudoLib.PackedSolutions;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.ListIterator;
@@ -26,6 +28,13 @@ import java.util.ListIterator;
  * chiffres concurrents qu'elles peuvent accepter.</p>
  *
  * <p>
+ * Les grilles sans solution sont écartées au plus tôt : avant la recherche,
+ * puis après chaque valeur posée, la résolution s'arrête dès qu'une case vide
+ * n'accepte plus aucune valeur ou qu'une valeur n'a plus de place dans une
+ * ligne, une colonne ou un bloc (voir
+ * {@link SudoLib.ExistArray#isDeadEnd(int, int)}).</p>
+ *
+ * <p>
  * Elle propose deux méthodes publiques de résolution :</p>
  * <ul><li>une méthode renvoyant une unique solution</li>
  * <li>une méthode renvoyant toutes les solutions</li></ul>
@@ -127,6 +136,49 @@ public class InMemoryBTCheck implements ICheck {
      */
     private CasesLeftToTest unsolvedCases;
 
+    /**
+     * <p>
+     * Ordre dans lequel les valeurs possibles d'une case sont essayées.</p>
+     *
+     * @see ValueOrder
+     *
+     * @since 1.1
+     */
+    private ValueOrder valueOrder = ValueOrder.ASCENDING;
+
+    /**
+     * <p>
+     * Nombre maximum de noeuds visités par la résolution en cours.</p>
+     *
+     * @since 1.1
+     */
+    private long nodeLimit = Long.MAX_VALUE;
+
+    /**
+     * <p>
+     * Nombre de noeuds visités par la dernière résolution.</p>
+     *
+     * @since 1.1
+     */
+    private long nodes;
+
+    /**
+     * <p>
+     * Vrai si la dernière résolution a été interrompue avant d'avoir
+     * parcouru tout l'arbre de recherche.</p>
+     *
+     * @since 1.1
+     */
+    private boolean interrupted;
+
+    /**
+     * <p>
+     * Demande d'interruption venant d'un autre thread.</p>
+     *
+     * @since 1.1
+     */
+    private volatile boolean cancelled;
+
     /**
      * <p>
      * Construit un InMemoryBTCheck à partir d'un sudoku. Les tableaux de
@@ -143,9 +195,7 @@ public class InMemoryBTCheck implements ICheck {
      * @since 1.0
      */
     public InMemoryBTCheck(Sudoku sudoku) throws IllegalArgumentException {
-        size = sudoku.getSize();
-        existArrays = new ExistArray(sudoku);
-        solutions = new Solutions(sudoku);
+        this(sudoku, 1);
     }
 
     /**
@@ -169,16 +219,71 @@ public class InMemoryBTCheck implements ICheck {
      * @since 1.0
      */
     public InMemoryBTCheck(Sudoku sudoku, int nbSolutions) throws IllegalArgumentException {
+        this(sudoku.getSize(), nbSolutions);
+        reset(sudoku);
+    }
+
+    /**
+     * <p>
+     * Construit un InMemoryBTCheck pour les sudokus dont l'arête d'un bloc
+     * mesure <code>size</code>, sans grille. L'objet peut ensuite être réutilisé
+     * pour résoudre autant de grilles de cette taille que désiré, chaque appel
+     * à {@link #solve(Sudoku.Sudoku)} le réarmant avec la grille donnée.</p>
+     *
+     * @param size        La taille de l'arête d'un bloc
+     * @param nbSolutions Le nombre de solutions à retourner
+     *
+     * @throws IllegalArgumentException Si le nombre de solutions désiré est
+     *                                  inférieur ou égal à 0
+     *
+     * @see #reset(Sudoku.Sudoku)
+     *
+     * @since 1.1
+     */
+    public InMemoryBTCheck(int size, int nbSolutions) throws IllegalArgumentException {
         if (nbSolutions <= 0) {
             throw new IllegalArgumentException("Ammount of solutions desired must be > 0.");
-        } else if (nbSolutions > 1) {
-            solutions = new Solutions(sudoku, nbSolutions);
-        } else {
-            solutions = new Solutions(sudoku);
         }
-        size = sudoku.getSize();
-        existArrays = new ExistArray(sudoku);
+        this.size = size;
+        existArrays = new ExistArray(size);
+        solutions = new Solutions(size, nbSolutions);
+    }
 
+    /**
+     * <p>
+     * Choisit l'ordre dans lequel les valeurs possibles d'une case sont
+     * essayées lors des résolutions suivantes.</p>
+     *
+     * @param order L'ordre des valeurs
+     *
+     * @see ValueOrder
+     *
+     * @since 1.1
+     */
+    public void setValueOrder(ValueOrder order) {
+        valueOrder = order;
+    }
+
+    /**
+     * <p>
+     * Réinitialise les tableaux de booléens et l'objet de solutions en
+     * fonction de l'état de la grille d'un sudoku, en réutilisant les
+     * structures déjà allouées.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas ou si le sudoku est déjà rempli et
+     *                                  faux.
+     *
+     * @see SudoLib.ExistArray#reset(SudoLib.ISudoku)
+     * @see Solutions#reset(Sudoku.Sudoku)
+     *
+     * @since 1.1
+     */
+    public final void reset(Sudoku sudoku) throws IllegalArgumentException {
+        existArrays.reset(sudoku);
+        solutions.reset(sudoku);
     }
 
     /**
@@ -188,12 +293,12 @@ public class InMemoryBTCheck implements ICheck {
      * @param coord La case du sudoku.
      *
      * @see CoordIMBTCheck#addPossibleValues(java.util.ArrayList)
-     * @see SudoLib.ExistArray#countContenders(Coord2D.Coord2D)
+     * @see SudoLib.ExistArray#countContenders(int)
      *
      * @since 1.0
      */
     public void countContenders(CoordIMBTCheck coord) {
-        coord.addPossibleValues(existArrays.countContenders(coord));
+        coord.addPossibleValues(existArrays.countContenders(coord.getIndex()));
     }
 
     /**
@@ -216,7 +321,7 @@ public class InMemoryBTCheck implements ICheck {
     public void isValid(ListIterator<CoordIMBTCheck> caseIterator) {
         CoordIMBTCheck coord;
 
-        if (solutions.hasEnoughSolutions()) {
+        if (solutions.hasEnoughSolutions() || isOverBudget()) {
             return;
         }
 
@@ -226,13 +331,18 @@ public class InMemoryBTCheck implements ICheck {
         }
 
         coord = caseIterator.next();
+        if (valueOrder != ValueOrder.ASCENDING) {
+            coord.orderPossibleValues(valueOrder, existArrays);
+        }
         while (coord.getCurrent().hasNext()) {
             int i = coord.getCurrent().next();
-            if (!existArrays.isInArrays(coord, i)) {
-                existArrays.setBoolAt(coord, i, true);
-                solutions.write(coord, i);
-                isValid(caseIterator);
-                existArrays.setBoolAt(coord, i, false);
+            if (!existArrays.isInArrays(coord.getIndex(), i)) {
+                existArrays.setBoolAt(coord.getIndex(), i, true);
+                if (!existArrays.isDeadEnd(coord.getIndex(), i)) {
+                    solutions.write(coord.getIndex(), i);
+                    isValid(caseIterator);
+                }
+                existArrays.setBoolAt(coord.getIndex(), i, false);
             }
         }
         coord.resetCurrent();
@@ -260,20 +370,27 @@ public class InMemoryBTCheck implements ICheck {
     public boolean isValidUnique(ListIterator<CoordIMBTCheck> caseIterator) {
         CoordIMBTCheck coord;
 
+        if (isOverBudget()) {
+            return false;
+        }
+
         if (!caseIterator.hasNext()) {
             return true;
         }
 
         coord = caseIterator.next();
+        if (valueOrder != ValueOrder.ASCENDING) {
+            coord.orderPossibleValues(valueOrder, existArrays);
+        }
         while (coord.getCurrent().hasNext()) {
             int i = coord.getCurrent().next();
-            if (!existArrays.isInArrays(coord, i)) {
-                existArrays.setBoolAt(coord, i, true);
-                if (isValidUnique(caseIterator)) {
-                    solutions.write(coord, i);
+            if (!existArrays.isInArrays(coord.getIndex(), i)) {
+                existArrays.setBoolAt(coord.getIndex(), i, true);
+                if (!existArrays.isDeadEnd(coord.getIndex(), i) && isValidUnique(caseIterator)) {
+                    solutions.write(coord.getIndex(), i);
                     return true;
                 }
-                existArrays.setBoolAt(coord, i, false);
+                existArrays.setBoolAt(coord.getIndex(), i, false);
             }
         }
         coord.resetCurrent();
@@ -287,9 +404,14 @@ public class InMemoryBTCheck implements ICheck {
      * l'algorithme adapté au choix de l'utilisateur.</p>
      *
      * <p>
+     * La grille du sudoku est d'abord rechargée (voir
+     * {@link #reset(Sudoku.Sudoku)}), ce qui permet de réutiliser l'objet pour
+     * résoudre plusieurs grilles.<br>
      * Une liste est crée avec toutes les cases vides du sudoku et celles-ci
      * sont ensuite trié par ordre croissant en fonction de leur nombre de
      * possibilités.<br>
+     * Si la grille est déjà sans issue, la fonction retourne immédiatement
+     * <code>null</code> (voir {@link SudoLib.ExistArray#hasContradiction()}).<br>
      * Enfin, en fonction du nombre de solutions désiré par l'utilisateur, la
      * fonction va appelé l'une des deux méthodes de résolutions de la classe et
      * retourner les solutions si elles existent ou <code>null</code> si il n'y
@@ -309,24 +431,198 @@ public class InMemoryBTCheck implements ICheck {
      */
     @Override
     public ArrayList<Integer[]> solve(Sudoku sudoku) {
+        solutions.setSink(null);
+        ListIterator<CoordIMBTCheck> listIterator = prepare(sudoku);
+        if (listIterator == null) {
+            return null;
+        }
+        if (solutions.getNbSolutions() > 1) {
+            isValid(listIterator);
+            return (solutions.hasSolution()) ? solutions.getSolutions() : null;
+        } else {
+            return (isValidUnique(listIterator)) ? solutions.getSolution() : null;
+        }
+    }
+
+    /**
+     * <p>
+     * Résoud un sudoku comme {@link #solve(Sudoku.Sudoku)}, en abandonnant la
+     * recherche après un nombre donné de noeuds ou sur demande d'un autre
+     * thread (voir {@link #setCancelled(boolean)}).</p>
+     *
+     * @param sudoku   Le sudoku à résoudre
+     * @param maxNodes Le nombre maximum de noeuds à visiter
+     *
+     * @return Les solutions si la grille en accepte ou null, y compris si la
+     *         recherche a été interrompue (voir {@link #isInterrupted()})
+     *
+     * @throws IllegalArgumentException Si le nombre de noeuds est inférieur
+     *                                  ou égal à 0
+     *
+     * @since 1.1
+     */
+    public ArrayList<Integer[]> solve(Sudoku sudoku, long maxNodes) throws IllegalArgumentException {
+        if (maxNodes <= 0) {
+            throw new IllegalArgumentException("Node budget must be > 0.");
+        }
+        nodeLimit = maxNodes;
+        try {
+            ArrayList<Integer[]> result = solve(sudoku);
+            return interrupted ? null : result;
+        } finally {
+            nodeLimit = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * <p>
+     * Indique si la dernière résolution a été interrompue, par son budget de
+     * noeuds ou par un autre thread, avant d'avoir parcouru tout l'arbre de
+     * recherche.</p>
+     *
+     * @return Vrai si la résolution a été interrompue
+     *
+     * @since 1.1
+     */
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de noeuds visités par la dernière résolution.</p>
+     *
+     * @return Le nombre de noeuds
+     *
+     * @since 1.1
+     */
+    public long getNbNodes() {
+        return nodes;
+    }
+
+    /**
+     * <p>
+     * Demande l'interruption de la résolution en cours, depuis n'importe quel
+     * thread, ou réarme la méthode. La demande reste valable pour les
+     * résolutions suivantes jusqu'à ce qu'elle soit levée, ce qui évite de la
+     * perdre si elle précède le début de la résolution.</p>
+     *
+     * @param cancelled Vrai pour interrompre, faux pour réarmer
+     *
+     * @since 1.1
+     */
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * <p>
+     * Énumère les solutions d'un sudoku, au plus le nombre précisé à la
+     * construction, en les transmettant une à une à un destinataire sans les
+     * recopier. Le destinataire peut arrêter la recherche en retournant
+     * faux.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     * @param sink   Le destinataire des solutions
+     *
+     * @return Le nombre de solutions transmises
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas ou si le sudoku est déjà rempli et
+     *                                  faux
+     *
+     * @see SudoLib.ISolutionSink
+     * @see #isValid(java.util.ListIterator)
+     *
+     * @since 1.1
+     */
+    public long enumerate(Sudoku sudoku, ISolutionSink sink) throws IllegalArgumentException {
+        solutions.setSink(sink);
+        try {
+            ListIterator<CoordIMBTCheck> listIterator = prepare(sudoku);
+            if (listIterator != null) {
+                isValid(listIterator);
+            }
+            return solutions.getNbFound();
+        } finally {
+            solutions.setSink(null);
+        }
+    }
+
+    /**
+     * <p>
+     * Énumère les solutions d'un sudoku, au plus le nombre précisé à la
+     * construction, et les retourne sous une forme compacte plutôt que dans
+     * une liste de grilles.</p>
+     *
+     * @param sudoku    Le sudoku à résoudre
+     * @param memoryCap Le nombre maximum d'octets de solutions conservés en
+     *                  mémoire avant d'écrire les suivantes dans un fichier
+     *
+     * @return Les solutions si la grille en accepte ou null
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas, si le sudoku est déjà rempli et
+     *                                  faux ou si le plafond est négatif
+     *
+     * @see PackedSolutions
+     * @see #enumerate(Sudoku.Sudoku, SudoLib.ISolutionSink)
+     *
+     * @since 1.1
+     */
+    public PackedSolutions solvePacked(Sudoku sudoku, long memoryCap) throws IllegalArgumentException {
+        PackedSolutions packed = new PackedSolutions(sudoku, memoryCap);
+        return enumerate(sudoku, packed) > 0 ? packed : null;
+    }
+
+    /**
+     * <p>
+     * Recharge la grille d'un sudoku et construit la liste triée de ses cases
+     * vides.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @return Un itérateur sur les cases vides, ou null si la grille est déjà
+     *         sans issue
+     *
+     * @since 1.1
+     */
+    private ListIterator<CoordIMBTCheck> prepare(Sudoku sudoku) {
+        reset(sudoku);
+        nodes = 0;
+        interrupted = false;
 
         unsolvedCases = new CasesLeftToTest();
-        for (int i = 0; i < size * size; ++i) {
-            for (int j = 0; j < size * size; ++j) {
-                if (sudoku.getValueAt(j, i) == 0) {
-                    unsolvedCases.add(new CoordIMBTCheck(j, i));
-                }
+        for (int cell = 0; cell < size * size * size * size; ++cell) {
+            if (sudoku.getValueAt(cell) == 0) {
+                unsolvedCases.add(new CoordIMBTCheck(cell));
             }
         }
+        if (existArrays.hasContradiction()) {
+            return null;
+        }
+        valueOrder.start();
+        valueOrder.shuffle(unsolvedCases);
         unsolvedCases.sort(null);
 
         LinkedList<CoordIMBTCheck> list = new LinkedList<>(unsolvedCases);
-        ListIterator<CoordIMBTCheck> listIterator = list.listIterator();
-        if (solutions.getNbSolutions() > 1) {
-            isValid(listIterator);
-            return (solutions.hasSolution()) ? solutions.getSolutions() : null;
-        } else {
-            return (isValidUnique(listIterator)) ? solutions.getSolution() : null;
+        return list.listIterator();
+    }
+
+    /**
+     * <p>
+     * Compte un noeud de plus et indique si la recherche doit être
+     * abandonnée.</p>
+     *
+     * @return Vrai si le budget de noeuds est épuisé ou si l'interruption a
+     *         été demandée
+     *
+     * @since 1.1
+     */
+    private boolean isOverBudget() {
+        if (interrupted || ++nodes > nodeLimit || cancelled) {
+            interrupted = true;
         }
+        return interrupted;
     }
 }
@@ -4,6 +4,9 @@
  */
 package IMBT;
 
+import BSBT.BitSetBTCheck;
+import Logic.Difficulty;
+import Logic.Rater;
 import Sudoku.IGen;
 import Sudoku.Sudoku;
 import java.util.ArrayList;
@@ -241,6 +244,90 @@ public class Shaker implements IGen {
         return _grid;
     }
 
+    /**
+     * <p>
+     * Génère une grille de sudoku à solution unique d'un niveau de difficulté
+     * donné.</p>
+     *
+     * <p>
+     * Plutôt que de vider des cases au hasard, ce qui donne rarement une
+     * solution unique, les cases sont vidées une à une dans un ordre aléatoire
+     * en conservant l'unicité de la solution, jusqu'à n'en laisser que
+     * <code>solvedCases</code> remplies. La grille obtenue est ensuite notée
+     * et conservée si elle est du niveau demandé.</p>
+     *
+     * @param solvedCases Le nombre de cases à laisser remplies
+     * @param difficulty  Le niveau de difficulté désiré
+     *
+     * @return La grille générée
+     *
+     * @throws IllegalStateException Si la base du sudoku générée au préalable
+     *                               n'est pas valide ou si aucune grille du
+     *                               niveau demandé n'a été obtenue en
+     *                               {@link IGen#MAX_ATTEMPTS} essais
+     *
+     * @see #dig(Sudoku.Sudoku, int, BSBT.BitSetBTCheck)
+     * @see Rater
+     *
+     * @since 1.1
+     */
+    @Override
+    public Integer[] generate(int solvedCases, Difficulty difficulty) throws IllegalStateException {
+        BitSetBTCheck unique = new BitSetBTCheck(_size, 2);
+        Rater rater = new Rater(_size);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; ++attempt) {
+            shake();
+            Sudoku sudoku = new Sudoku(new ArrayList<>(Arrays.asList(_grid)), _size);
+            if (dig(sudoku, solvedCases, unique) && rater.rate(sudoku).getDifficulty() == difficulty) {
+                for (int i = 0; i < _grid.length; ++i) {
+                    _grid[i] = sudoku.getValueAt(i);
+                }
+                return _grid;
+            }
+        }
+        throw new IllegalStateException("No grid of the requested difficulty could be generated.");
+    }
+
+    /**
+     * <p>
+     * Vide les cases d'une grille complète dans un ordre aléatoire, en ne
+     * vidant une case que si la solution reste unique.</p>
+     *
+     * @param sudoku      Le sudoku à vider
+     * @param solvedCases Le nombre de cases à laisser remplies
+     * @param unique      Le moteur utilisé pour vérifier l'unicité, limité à
+     *                    deux solutions
+     *
+     * @return Faux si aucune case ne pouvait plus être vidée avant d'atteindre
+     *         le nombre de cases demandé
+     *
+     * @since 1.1
+     */
+    private boolean dig(Sudoku sudoku, int solvedCases, BitSetBTCheck unique) {
+        int width = _size * _size;
+        int[] order = new int[_grid.length];
+        Random rand = new Random();
+        for (int i = 0; i < order.length; ++i) {
+            int j = rand.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        int filled = order.length;
+        for (int i = 0; i < order.length && filled > solvedCases; ++i) {
+            int x = order[i] % width;
+            int y = order[i] / width;
+            int value = sudoku.getValueAt(x, y);
+            sudoku.clear(x, y);
+            unique.reset(sudoku);
+            if (unique.run() == 1) {
+                --filled;
+            } else {
+                sudoku.place(x, y, value);
+            }
+        }
+        return filled == solvedCases;
+    }
+
     /**
      * <p>
      * Affiche la grille générée par le <b><code>Shaker</code></b>.</p>
@@ -4,6 +4,10 @@
  */
 package IMBT;
 
+import Coord2D.Coord2D;
+import SudoLib.GridView;
+import SudoLib.IGridView;
+import SudoLib.ISolutionSink;
 import java.util.ArrayList;
 import Sudoku.Sudoku;
 
@@ -13,8 +17,19 @@ import Sudoku.Sudoku;
  * grille de sudoku. Les méthodes proposées par la classe permette de gérér
  * facilement le cas où une grille admet plusieurs solutions</p>
  *
+ * <p>
+ * Un même objet peut servir à résoudre plusieurs grilles de même taille grâce
+ * à {@link #reset(Sudoku.Sudoku)}.</p>
+ *
+ * <p>
+ * La grille de travail est un unique tableau d'entiers réutilisé d'une grille
+ * à l'autre. Chaque solution complète est soit recopiée dans l'ensemble des
+ * solutions, soit transmise sans copie à un {@link ISolutionSink} sous la
+ * forme d'une vue sur la grille de travail (voir
+ * {@link #setSink(SudoLib.ISolutionSink)}).</p>
+ *
  * @author Pascal Luttgens
- * @version 1.0
+ * @version 1.1
  *
  * @since 1.0
  */
@@ -36,13 +51,66 @@ public class Solutions {
      */
     private final int NB_SOLUTIONS;
 
+    /**
+     * <p>
+     * Grille de travail, complétée au fil de la recherche.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] grid;
+
+    /**
+     * <p>
+     * Vue en lecture seule sur la grille de travail.</p>
+     *
+     * @since 1.1
+     */
+    private final GridView view;
+
     /**
      * <p>
      * Ensemble des solutions du sudoku.</p>
      *
      * @since 1.0
      */
-    private final ArrayList<Integer[]> solutions;
+    private ArrayList<Integer[]> solutions;
+
+    /**
+     * <p>
+     * Vrai si l'ensemble des solutions a été retourné à l'utilisateur et ne
+     * doit donc plus être réutilisé.</p>
+     *
+     * @see #reset(Sudoku.Sudoku)
+     *
+     * @since 1.1
+     */
+    private boolean escaped;
+
+    /**
+     * <p>
+     * Destinataire des solutions, null si les solutions sont recopiées dans
+     * l'ensemble des solutions.</p>
+     *
+     * @since 1.1
+     */
+    private ISolutionSink sink;
+
+    /**
+     * <p>
+     * Nombre de solutions trouvées depuis le dernier réarmement.</p>
+     *
+     * @since 1.1
+     */
+    private long found;
+
+    /**
+     * <p>
+     * Vrai si le destinataire des solutions a demandé l'arrêt de la
+     * recherche.</p>
+     *
+     * @since 1.1
+     */
+    private boolean stopped;
 
     /**
      * <p>
@@ -52,22 +120,12 @@ public class Solutions {
      *
      * @param sudoku Le sudoku à résoudre
      *
-     * @see CoordIMBTCheck
+     * @see #reset(Sudoku.Sudoku)
      *
      * @since 1.0
      */
     public Solutions(Sudoku sudoku) {
-        SIZE = sudoku.getSize();
-        NB_SOLUTIONS = 1;
-        Integer[] _grid;
-        _grid = new Integer[SIZE * SIZE * SIZE * SIZE];
-        for (int i = 0; i < SIZE * SIZE; ++i) {
-            for (int j = 0; j < SIZE * SIZE; ++j) {
-                _grid[new CoordIMBTCheck(j, i).convCoord(SIZE * SIZE)] = sudoku.getValueAt(j, i);
-            }
-        }
-        solutions = new ArrayList<>();
-        solutions.add(_grid);
+        this(sudoku, 1);
     }
 
     /**
@@ -80,22 +138,90 @@ public class Solutions {
      * @param sudoku      Le sudoku à résoudre
      * @param nbSolutions Le nombre de solutions maximum désiré
      *
-     * @see CoordIMBTCheck
+     * @see #reset(Sudoku.Sudoku)
      *
      * @since 1.0
      */
     public Solutions(Sudoku sudoku, int nbSolutions) {
-        SIZE = sudoku.getSize();
+        this(sudoku.getSize(), nbSolutions);
+        reset(sudoku);
+    }
+
+    /**
+     * <p>
+     * Instancie un objet <b><code>Solution</code></b> vide pour les sudokus
+     * dont l'arête d'un bloc mesure <code>size</code>. Il devra être
+     * initialisé par {@link #reset(Sudoku.Sudoku)} avant d'être utilisé.</p>
+     *
+     * @param size        La taille de l'arête d'un bloc
+     * @param nbSolutions Le nombre de solutions maximum désiré
+     *
+     * @since 1.1
+     */
+    public Solutions(int size, int nbSolutions) {
+        SIZE = size;
         NB_SOLUTIONS = nbSolutions;
-        Integer[] _grid;
-        _grid = new Integer[SIZE * SIZE * SIZE * SIZE];
-        for (int i = 0; i < SIZE * SIZE; ++i) {
-            for (int j = 0; j < SIZE * SIZE; ++j) {
-                _grid[new CoordIMBTCheck(j, i).convCoord(SIZE * SIZE)] = sudoku.getValueAt(j, i);
-            }
-        }
+        grid = new int[size * size * size * size];
+        view = new GridView(size, grid);
         solutions = new ArrayList<>();
-        solutions.add(_grid);
+    }
+
+    /**
+     * <p>
+     * Vide l'ensemble des solutions et recopie la grille du sudoku dans la
+     * grille de travail. L'ensemble des solutions est réutilisé tant qu'il
+     * n'a pas été retourné à l'utilisateur.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas
+     *
+     * @see SudoLib.ISudoku#copyGridTo(int[])
+     *
+     * @since 1.1
+     */
+    public final void reset(Sudoku sudoku) throws IllegalArgumentException {
+        if (sudoku.getSize() != SIZE) {
+            throw new IllegalArgumentException("Sudoku size does not match.");
+        }
+        if (escaped) {
+            solutions = new ArrayList<>();
+            escaped = false;
+        } else {
+            solutions.clear();
+        }
+        sudoku.copyGridTo(grid);
+        found = 0;
+        stopped = false;
+    }
+
+    /**
+     * <p>
+     * Spécifie le destinataire des solutions trouvées à partir du prochain
+     * réarmement. Avec un destinataire, les solutions ne sont plus recopiées
+     * dans l'ensemble des solutions.</p>
+     *
+     * @param sink Le destinataire, null pour recopier les solutions
+     *
+     * @see ISolutionSink
+     *
+     * @since 1.1
+     */
+    public void setSink(ISolutionSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * <p>
+     * Retourne une vue en lecture seule sur la grille de travail.</p>
+     *
+     * @return La vue, qui reflète les modifications de la grille de travail
+     *
+     * @since 1.1
+     */
+    public IGridView getView() {
+        return view;
     }
 
     /**
@@ -110,7 +236,23 @@ public class Solutions {
      * @since 1.0
      */
     public void write(CoordIMBTCheck coord, int value) {
-        solutions.get(solutions.size() - 1)[coord.convCoord(SIZE * SIZE)] = value + 1;
+        write(coord.getIndex(), value);
+    }
+
+    /**
+     * <p>
+     * Ecrit une une valeur dans la grille de solution à la case d'indice
+     * donné.</p>
+     *
+     * @param cell  L'indice de la case où on écrit la valeur
+     * @param value La valeur à incrémenter de 1 avant de l'ajouter
+     *
+     * @see Coord2D#convCoord(int, int, int)
+     *
+     * @since 1.1
+     */
+    public void write(int cell, int value) {
+        grid[cell] = value + 1;
     }
 
     /**
@@ -122,7 +264,7 @@ public class Solutions {
      * @since 1.0
      */
     public boolean hasSolution() {
-        return solutions.size() > 1;
+        return found > 0;
     }
 
     /**
@@ -139,7 +281,21 @@ public class Solutions {
 
     /**
      * <p>
-     * Indique si assez de solutions ont été trouvées</p>
+     * Retourne le nombre de solutions trouvées depuis le dernier
+     * réarmement.</p>
+     *
+     * @return Le nombre de solutions trouvées
+     *
+     * @since 1.1
+     */
+    public long getNbFound() {
+        return found;
+    }
+
+    /**
+     * <p>
+     * Indique si assez de solutions ont été trouvées, ou si le destinataire
+     * des solutions a demandé l'arrêt de la recherche.</p>
      *
      * @see #NB_SOLUTIONS
      *
@@ -147,7 +303,7 @@ public class Solutions {
      *         de solutions désirées
      */
     public boolean hasEnoughSolutions() {
-        return NB_SOLUTIONS < solutions.size();
+        return stopped || found >= NB_SOLUTIONS;
     }
 
     /**
@@ -159,32 +315,58 @@ public class Solutions {
      * @since 1.0
      */
     public ArrayList<Integer[]> getSolutions() {
-        solutions.remove(solutions.size() - 1);
+        escaped = true;
         return solutions;
     }
 
     /**
      * <p>
      * Retourne la première solution de l'ensemble des solutions. Cette méthode
-     * devrait être utilisée pour</p>
+     * devrait être utilisée lorsque la recherche s'arrête à la première
+     * solution, celle-ci étant alors lue dans la grille de travail.</p>
      *
      * @return La première solution de la liste
      *
      * @since 1.0
      */
     public ArrayList<Integer[]> getSolution() {
+        if (solutions.isEmpty()) {
+            solutions.add(box());
+        }
+        escaped = true;
         return solutions;
     }
 
     /**
      * <p>
      * Ajoute une nouvelle solution à l'ensemble des solutions à partir de la
-     * dernière solution trouvée.</p>
+     * grille de travail, ou la transmet au destinataire des solutions.</p>
      *
      * @since 1.0
      */
     public void addSolution() {
-        solutions.add(solutions.get(solutions.size() - 1).clone());
+        ++found;
+        if (sink == null) {
+            solutions.add(box());
+        } else if (!sink.accept(view)) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * <p>
+     * Recopie la grille de travail.</p>
+     *
+     * @return La copie de la grille de travail
+     *
+     * @since 1.1
+     */
+    private Integer[] box() {
+        Integer[] copy = new Integer[grid.length];
+        for (int cell = 0; cell < grid.length; ++cell) {
+            copy[cell] = grid[cell];
+        }
+        return copy;
     }
 
 }
@@ -0,0 +1,507 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package IO;
+
+import IMBT.Enumerator;
+import IMBT.Frontier;
+import SudoLib.ISolutionSink;
+import SudoLib.SolutionSpill;
+import Sudoku.Sudoku;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>
+ * <b><code>Coordinator</code></b> répartit l'énumération de toutes les
+ * solutions d'une grille entre plusieurs processus, sur la même machine ou
+ * sur d'autres.</p>
+ *
+ * <p>
+ * Les premiers niveaux de l'arbre de recherche sont découpés en parties
+ * disjointes (voir {@link Enumerator#split(int)}), enregistrées dans un
+ * répertoire de travail sous les noms <code>shard.</code><i>i</i>. Chaque
+ * partie est énumérée par un processus indépendant, lancé par
+ * <code>IO.Coordinator worker</code>, qui enregistre son état dans
+ * <code>shard.</code><i>i</i><code>.ckpt</code>, écrit éventuellement ses
+ * solutions dans <code>shard.</code><i>i</i><code>.sol</code> (voir
+ * {@link SolutionSpill}) et transmet son nombre de solutions au coordinateur
+ * par sa sortie standard. Une partie peut aussi être copiée sur une autre
+ * machine, y être énumérée par la même commande, et ses fichiers rapportés
+ * dans le répertoire de travail.</p>
+ *
+ * <p>
+ * Les résultats sont fusionnés dans l'ordre des parties, qui est celui de
+ * l'énumération complète : le total et la suite des solutions ne dépendent ni
+ * du nombre de processus ni de l'ordre dans lequel ils se terminent. Relancer
+ * le coordinateur sur le même répertoire ne relance que les parties non
+ * terminées ; celles qui ne conservent pas leurs solutions reprennent à leur
+ * dernier point de reprise, les autres repartent du début de leur partie.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Enumerator
+ * @see Frontier
+ *
+ * @since 1.1
+ */
+public class Coordinator {
+
+    /**
+     * <p>
+     * Fin du processus d'une partie, transmise par le thread qui l'attend.</p>
+     *
+     * @since 1.1
+     */
+    private static final class Exit {
+
+        /**
+         * L'indice de la partie.
+         */
+        final int shard;
+
+        /**
+         * La ligne écrite par le processus, null s'il n'a rien écrit.
+         */
+        final String line;
+
+        /**
+         * Le code de retour du processus.
+         */
+        final int status;
+
+        /**
+         * L'erreur survenue en attendant le processus, ou null.
+         */
+        final IOException error;
+
+        /**
+         * <p>
+         * Construit la fin d'un processus.</p>
+         *
+         * @param shard  L'indice de la partie
+         * @param line   La ligne écrite par le processus
+         * @param status Le code de retour du processus
+         * @param error  L'erreur survenue en l'attendant
+         */
+        Exit(int shard, String line, int status, IOException error) {
+            this.shard = shard;
+            this.line = line;
+            this.status = status;
+            this.error = error;
+        }
+    }
+
+    /**
+     * <p>
+     * Intervalle entre deux enregistrements du point de reprise d'une partie,
+     * en millisecondes.</p>
+     *
+     * @since 1.1
+     */
+    public static final long CHECKPOINT_INTERVAL = 30_000;
+
+    /**
+     * <p>
+     * Répertoire de travail.</p>
+     *
+     * @since 1.1
+     */
+    private final File dir;
+
+    /**
+     * <p>
+     * Crée un coordinateur travaillant dans un répertoire, créé s'il n'existe
+     * pas.</p>
+     *
+     * @param dir Le répertoire de travail
+     *
+     * @throws IOException Si le répertoire n'a pas pu être créé
+     *
+     * @since 1.1
+     */
+    public Coordinator(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir + ".");
+        }
+        this.dir = dir;
+    }
+
+    /**
+     * <p>
+     * Découpe l'énumération des solutions d'un sudoku en parties enregistrées
+     * dans le répertoire de travail, à moins qu'il n'en contienne déjà.</p>
+     *
+     * @param sudoku Le sudoku
+     * @param k      Le nombre de parties
+     *
+     * @return Le nombre de parties du répertoire
+     *
+     * @throws IllegalArgumentException Si le nombre de parties est inférieur
+     *                                  à 1 ou si le sudoku est déjà rempli et
+     *                                  faux
+     * @throws IOException              Si une partie n'a pas pu être écrite
+     *
+     * @since 1.1
+     */
+    public int split(Sudoku sudoku, int k) throws IllegalArgumentException, IOException {
+        int existing = getNbShards();
+        if (existing > 0) {
+            return existing;
+        }
+        Frontier[] shards = new Enumerator(sudoku).split(k);
+        for (int i = 0; i < shards.length; ++i) {
+            shards[i].save(shard(i, ""));
+        }
+        return shards.length;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de parties du répertoire de travail.</p>
+     *
+     * @return Le nombre de parties
+     *
+     * @since 1.1
+     */
+    public int getNbShards() {
+        int k = 0;
+        while (shard(k, "").isFile()) {
+            ++k;
+        }
+        return k;
+    }
+
+    /**
+     * <p>
+     * Énumère les parties non terminées, chacune dans son propre processus,
+     * au plus <code>nbProcesses</code> à la fois. Chaque processus est attendu
+     * par son propre thread, et la partie suivante est lancée dès que l'un
+     * d'eux se termine, quel que soit l'ordre de lancement.</p>
+     *
+     * @param nbProcesses   Le nombre maximum de processus simultanés
+     * @param keepSolutions Vrai pour que chaque partie écrive ses solutions
+     *
+     * @throws IllegalArgumentException Si le nombre de processus est inférieur
+     *                                  à 1
+     * @throws IOException              Si un processus n'a pas pu être lancé
+     *                                  ou a échoué
+     * @throws InterruptedException     Si le thread est interrompu en
+     *                                  attendant un processus
+     *
+     * @since 1.1
+     */
+    public void run(int nbProcesses, boolean keepSolutions)
+            throws IllegalArgumentException, IOException, InterruptedException {
+        if (nbProcesses < 1) {
+            throw new IllegalArgumentException("Number of processes must be > 0.");
+        }
+        Deque<Integer> pending = new ArrayDeque<>();
+        for (int i = 0; i < getNbShards(); ++i) {
+            if (!isDone(i, keepSolutions)) {
+                pending.add(i);
+            }
+        }
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Map<Integer, Process> running = new HashMap<>();
+        BlockingQueue<Exit> exits = new LinkedBlockingQueue<>();
+        try {
+            while (!pending.isEmpty() || !running.isEmpty()) {
+                while (!pending.isEmpty() && running.size() < nbProcesses) {
+                    int i = pending.poll();
+                    List<String> command = new ArrayList<>();
+                    command.add(java);
+                    command.add("-cp");
+                    command.add(System.getProperty("java.class.path"));
+                    command.add(Coordinator.class.getName());
+                    command.add("worker");
+                    command.add(shard(i, "").getPath());
+                    if (keepSolutions) {
+                        command.add(shard(i, ".sol").getPath());
+                    }
+                    Process process = new ProcessBuilder(command)
+                            .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                    running.put(i, process);
+                    Thread waiter = new Thread(() -> exits.add(await(i, process)), "Coordinator");
+                    waiter.setDaemon(true);
+                    waiter.start();
+                }
+                Exit exit = exits.take();
+                running.remove(exit.shard);
+                check(exit);
+            }
+        } finally {
+            for (Process process : running.values()) {
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Fusionne les résultats des parties dans l'ordre de l'énumération.</p>
+     *
+     * @param sink Le destinataire des solutions, dans l'ordre de l'énumération
+     *             complète, ou null pour seulement les compter
+     *
+     * @return Le nombre total de solutions
+     *
+     * @throws IllegalStateException Si une partie n'est pas terminée
+     * @throws IOException           Si les résultats d'une partie n'ont pas pu
+     *                               être lus
+     *
+     * @since 1.1
+     */
+    public long merge(ISolutionSink sink) throws IllegalStateException, IOException {
+        long total = 0;
+        for (int i = 0; i < getNbShards(); ++i) {
+            if (!isDone(i, sink != null)) {
+                throw new IllegalStateException("Shard " + i + " is not finished.");
+            }
+            total += Frontier.load(shard(i, ".ckpt")).getCount();
+            if (sink != null) {
+                SolutionSpill.read(shard(i, ".sol"), sink);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * <p>
+     * Énumère une partie : c'est le travail d'un processus lancé par
+     * {@link #run(int, boolean)}, qui peut aussi être lancé à la main sur une
+     * autre machine.</p>
+     *
+     * <p>
+     * Si aucun fichier de solutions n'est donné, l'énumération reprend au
+     * point de reprise de la partie s'il existe. Sinon, elle repart du début
+     * de la partie, le fichier de solutions ne pouvant être complété, et le
+     * point de reprise n'est écrit qu'à la fin.</p>
+     *
+     * @param shard     Le fichier de la partie
+     * @param solutions Le fichier de solutions, ou null
+     *
+     * @return Le nombre de solutions de la partie
+     *
+     * @throws IOException Si un fichier n'a pas pu être lu ou écrit
+     *
+     * @since 1.1
+     */
+    public static long work(File shard, File solutions) throws IOException {
+        File checkpoint = new File(shard.getPath() + ".ckpt");
+        if (solutions == null) {
+            Frontier frontier = Frontier.load(checkpoint.isFile() ? checkpoint : shard);
+            return new Enumerator(frontier).run(null, CHECKPOINT_INTERVAL, checkpoint);
+        }
+        Frontier frontier = Frontier.load(shard);
+        Enumerator enumerator = new Enumerator(frontier);
+        try (SolutionSpill spill = new SolutionSpill(frontier.getSudoku(), solutions)) {
+            enumerator.run(spill, 0, null);
+        }
+        enumerator.getFrontier().save(checkpoint);
+        return enumerator.getCount();
+    }
+
+    /**
+     * <p>
+     * Point d'entrée du coordinateur et de ses processus.</p>
+     *
+     * <ul>
+     * <li><code>IO.Coordinator dir k [p [solutions]]</code> : découpe la
+     * grille du fichier <code>grid.txt</code> en <code>k</code> parties dans
+     * le répertoire <code>dir</code> (si ce n'est déjà fait), les énumère avec
+     * <code>p</code> processus (un par processeur par défaut), puis affiche le
+     * total et écrit les solutions fusionnées dans le fichier
+     * <code>solutions</code> s'il est donné</li>
+     * <li><code>IO.Coordinator worker shard [solutions]</code> : énumère une
+     * partie et affiche son nombre de solutions</li>
+     * </ul>
+     *
+     * @param args Les paramètres d'éxécution
+     *
+     * @since 1.1
+     */
+    public static void main(String[] args) {
+        if (args.length >= 2 && args[0].equals("worker")) {
+            try {
+                System.out.println(work(new File(args[1]), args.length > 2 ? new File(args[2]) : null));
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.exit(2);
+            } catch (IOException e) {
+                System.err.println("La partie n'a pas pu etre enumeree : " + e.getMessage());
+                System.exit(3);
+            }
+            return;
+        }
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Parametres : dir k [p [solutions]] ou worker shard [solutions]");
+            System.exit(1);
+        }
+
+        int k = 0, p = Runtime.getRuntime().availableProcessors();
+        int pos = 1;
+        try {
+            k = Integer.parseInt(args[pos++]);
+            if (args.length > 2) {
+                p = Integer.parseInt(args[pos++]);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println(args[pos - 1] + " doit etre un entier.");
+            System.exit(1);
+        }
+        File solutions = args.length > 3 ? new File(args[3]) : null;
+
+        try {
+            Coordinator coordinator = new Coordinator(new File(args[0]));
+            if (coordinator.getNbShards() == 0) {
+                coordinator.split(load("grid.txt"), k);
+            }
+            coordinator.run(p, solutions != null);
+            if (solutions == null) {
+                System.out.println(coordinator.merge(null));
+            } else {
+                Sudoku sudoku = Frontier.load(coordinator.shard(0, "")).getSudoku();
+                try (SolutionSpill spill = new SolutionSpill(sudoku, solutions)) {
+                    coordinator.merge(spill);
+                    System.out.println(spill.getCount());
+                }
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("L'enumeration n'a pas pu etre menee : " + e.getMessage());
+            System.exit(3);
+        } catch (InterruptedException e) {
+            System.err.println("L'enumeration a ete interrompue.");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * <p>
+     * Attend la fin du processus d'une partie en lisant le nombre de
+     * solutions qu'il transmet. Appelée par le thread propre au
+     * processus.</p>
+     *
+     * @param i       L'indice de la partie
+     * @param process Le processus
+     *
+     * @return La fin du processus
+     *
+     * @since 1.1
+     */
+    private static Exit await(int i, Process process) {
+        String line;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            line = out.readLine();
+        } catch (IOException e) {
+            return new Exit(i, null, -1, e);
+        }
+        try {
+            return new Exit(i, line, process.waitFor(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Exit(i, line, -1, new IOException("Interrupted while waiting for shard " + i + "."));
+        }
+    }
+
+    /**
+     * <p>
+     * Vérifie qu'un processus a terminé sa partie et que le nombre de
+     * solutions qu'il a transmis est celui de son point de reprise.</p>
+     *
+     * @param exit La fin du processus
+     *
+     * @throws IOException Si le processus a échoué
+     *
+     * @since 1.1
+     */
+    private void check(Exit exit) throws IOException {
+        int i = exit.shard;
+        if (exit.error != null) {
+            throw exit.error;
+        }
+        if (exit.status != 0) {
+            throw new IOException("Worker for shard " + i + " exited with status " + exit.status + ".");
+        }
+        if (exit.line == null || !isDone(i, false)
+                || Long.parseLong(exit.line.trim()) != Frontier.load(shard(i, ".ckpt")).getCount()) {
+            throw new IOException("Worker for shard " + i + " did not finish its shard.");
+        }
+    }
+
+    /**
+     * <p>
+     * Indique si une partie est terminée.</p>
+     *
+     * @param i             L'indice de la partie
+     * @param withSolutions Vrai si ses solutions doivent aussi être écrites
+     *
+     * @return Vrai si la partie est terminée
+     *
+     * @throws IOException Si son point de reprise n'a pas pu être lu
+     *
+     * @since 1.1
+     */
+    private boolean isDone(int i, boolean withSolutions) throws IOException {
+        File checkpoint = shard(i, ".ckpt");
+        return checkpoint.isFile() && Frontier.load(checkpoint).isFinished()
+                && (!withSolutions || shard(i, ".sol").isFile());
+    }
+
+    /**
+     * <p>
+     * Retourne un fichier d'une partie dans le répertoire de travail.</p>
+     *
+     * @param i      L'indice de la partie
+     * @param suffix Le suffixe du fichier
+     *
+     * @return Le fichier
+     *
+     * @since 1.1
+     */
+    private File shard(int i, String suffix) {
+        return new File(dir, "shard." + i + suffix);
+    }
+
+    /**
+     * <p>
+     * Lit une grille dans un fichier texte, case par case.</p>
+     *
+     * @param path Le fichier
+     *
+     * @return Le sudoku
+     *
+     * @throws IOException Si le fichier n'a pas pu être lu
+     *
+     * @since 1.1
+     */
+    private static Sudoku load(String path) throws IOException {
+        ArrayList<Integer> cells = new ArrayList<>();
+        try (Scanner s = new Scanner(new FileReader(path))) {
+            while (s.hasNext()) {
+                cells.add(s.nextInt());
+            }
+        }
+        return new Sudoku(cells, InOut.gridSize(cells.size()));
+    }
+}
@@ -4,13 +4,24 @@
  */
 package IO;
 
+import BSBT.BitSetBTCheck;
+import IMBT.Enumerator;
+import IMBT.Frontier;
 import IMBT.InMemoryBTCheck;
+import IMBT.ValueOrder;
+import Logic.Difficulty;
+import SAT.SatCheck;
+import SAT.SudokuCnf;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+import Sudoku.ICheck;
+import Sudoku.PortfolioCheck;
 import Sudoku.Sudoku;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
@@ -38,6 +49,15 @@ import java.util.Scanner;
  */
 public class InOut {
 
+    /**
+     * <p>
+     * Intervalle entre deux enregistrements du point de reprise d'une
+     * énumération, en millisecondes.</p>
+     *
+     * @since 1.1
+     */
+    private static final long CHECKPOINT_INTERVAL = 30_000;
+
     /**
      * <p>
      * Le sudoku</p>
@@ -46,6 +66,28 @@ public class InOut {
      */
     private Sudoku sudoku;
 
+    /**
+     * <p>
+     * La base des grilles déjà résolues, ouverte lors de la première
+     * résolution.</p>
+     *
+     * @see #stored(Sudoku.ICheck, int)
+     *
+     * @since 1.1
+     */
+    private PuzzleStore store;
+
+    /**
+     * <p>
+     * Le fichier de la base des grilles déjà résolues, null si aucune base
+     * n'a été demandée.</p>
+     *
+     * @see #stored(Sudoku.ICheck, int)
+     *
+     * @since 1.1
+     */
+    private String storePath;
+
     /**
      * <p>
      * Main du programme, récupère les paramètres en ligne de commande et
@@ -107,6 +149,96 @@ public class InOut {
         System.exit(1);
     }
 
+    /**
+     * <p>
+     * Détermine la taille de l'arête d'un bloc à partir du nombre de cases lues
+     * dans le fichier de la grille.</p>
+     *
+     * @param nbCases Le nombre de cases lues
+     *
+     * @return La plus petite taille d'arête de bloc permettant de contenir
+     *         toutes les cases, au minimum 3
+     *
+     * @since 1.1
+     */
+    static int gridSize(int nbCases) {
+        int size = 3;
+        while (size * size * size * size < nbCases) {
+            ++size;
+        }
+        return size;
+    }
+
+    /**
+     * <p>
+     * Place la base des grilles déjà résolues devant une méthode de résolution
+     * lorsqu'une base a été demandée par l'option <code>-B</code> et qu'une
+     * seule solution est demandée.</p>
+     *
+     * @param check       La méthode de résolution
+     * @param nbSolutions Le nombre de solutions demandées
+     *
+     * @return La méthode de résolution utilisant la base, ou
+     *         <code>check</code> si aucune base n'a été demandée, si plusieurs
+     *         solutions sont demandées ou si la base n'a pas pu être
+     *         ouverte
+     *
+     * @see StoredCheck
+     *
+     * @since 1.1
+     */
+    private ICheck stored(ICheck check, int nbSolutions) {
+        if (storePath == null || nbSolutions != 1) {
+            return check;
+        }
+        if (store == null) {
+            try {
+                store = new PuzzleStore(storePath, sudoku.getSize());
+            } catch (IOException ex) {
+                System.err.println("La base de grilles n'a pas pu être ouverte.");
+                return check;
+            }
+        }
+        return new StoredCheck(check, store);
+    }
+
+    /**
+     * <p>
+     * Prépare une énumération en reprenant le point de reprise s'il existe, ou
+     * à partir du fichier de la grille sinon.</p>
+     *
+     * @param sudokuPath     Le fichier de la grille
+     * @param checkpointPath Le fichier de reprise
+     *
+     * @return L'énumération
+     *
+     * @see Enumerator
+     *
+     * @since 1.1
+     */
+    private Enumerator enumerator(String sudokuPath, String checkpointPath) {
+        File checkpoint = new File(checkpointPath);
+        if (checkpoint.exists()) {
+            try {
+                return new Enumerator(Frontier.load(checkpoint));
+            } catch (IOException ex) {
+                System.err.println("Le point de reprise n'a pas pu être lu");
+                System.exit(3);
+            }
+        }
+        ArrayList<Integer> loadedSudoku = new ArrayList<>();
+        try (Scanner s = new Scanner(new FileReader(sudokuPath))) {
+            while (s.hasNext()) {
+                loadedSudoku.add(s.nextInt());
+            }
+            sudoku = new Sudoku(loadedSudoku, gridSize(loadedSudoku.size()));
+        } catch (IOException ex) {
+            System.err.println("Le sudoku n'a pas pu être lu");
+            System.exit(3);
+        }
+        return new Enumerator(sudoku);
+    }
+
     /**
      * <p>
      * Exécute une action en fonction des commandes passées en paramètre lors de
@@ -122,10 +254,24 @@ public class InOut {
     public void action(String[] args) {
         String[] opt = new String[]{"-S", "solve",
             "-G", "generate",
+            "-E", "enumerate",
+            "-C", "cnf",
             "-H", "help"};
         String sudokuPath = "grid.txt",
                 solutionsPath = "solutions.txt",
-                helpPath = "ReadMe.txt";
+                helpPath = "ReadMe.txt",
+                checkpointPath = "enumeration.ckpt",
+                cnfPath = "grid.cnf";
+
+        if (args.length >= 1 && (args[0].equals("-B") || args[0].equals("base"))) {
+            if (args.length < 3) {
+                System.err.println("Parametres non renseignés.\n"
+                        + "tapez -H pour plus d'informations");
+                System.exit(1);
+            }
+            storePath = args[1];
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
 
         if (args.length == 0) {
             try {
@@ -154,10 +300,19 @@ public class InOut {
                     System.err.println("Parametres non renseignés.\n"
                             + "tapez -H generate ou -H pour plus d'informations");
                     System.exit(1);
-                } else if (args.length == 2) {
+                } else if (args.length <= 3) {
+                    Difficulty difficulty = null;
+                    if (args.length == 3) {
+                        try {
+                            difficulty = Difficulty.parse(args[2]);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println(args[2] + " n'est pas un niveau de difficulte.");
+                            System.exit(1);
+                        }
+                    }
                     try {
                         nb = Integer.parseInt(args[1]);
-                        sudoku = new Sudoku(nb);
+                        sudoku = new Sudoku(nb, difficulty);
                         System.out.println(sudoku);
                     } catch (NumberFormatException e) {
                         System.err.println(args[1] + " doit etre un entier.");
@@ -167,7 +322,7 @@ public class InOut {
                         System.exit(2);
                     }
                 } else {
-                    show_unknown_opt(args, 2);
+                    show_unknown_opt(args, 3);
                 }
                 try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sudokuPath), "utf-8"))) {
                     writer.write(sudoku.toString());
@@ -178,14 +333,14 @@ public class InOut {
                 break;
             case "-S":
             case "solve":
-                String[] supported = new String[]{"imbt"};
+                String[] supported = new String[]{"imbt", "bsbt", "portfolio", "sat"};
                 ArrayList<Integer> loadedSudoku = new ArrayList<>();
 
                 try (Scanner s = new Scanner(new FileReader(sudokuPath))) {
                     while (s.hasNext()) {
                         loadedSudoku.add(s.nextInt());
                     }
-                    sudoku = new Sudoku(loadedSudoku, 3);
+                    sudoku = new Sudoku(loadedSudoku, gridSize(loadedSudoku.size()));
                 } catch (IOException ex) {
                     System.err.println("Le sudoku n'a pas pu être lu");
                     System.exit(3);
@@ -196,19 +351,24 @@ public class InOut {
 
                 if (args.length == 1) {
                     try {
+                        sudoku.setCheck(stored(new InMemoryBTCheck(sudoku), 1));
                         sudoku.solve();
                         System.out.println(sudoku);
                     } catch (IllegalStateException | IllegalArgumentException e) {
                         System.err.println();
                     }
-                } else if ((args.length == 2) || (args.length == 3)) {
+                } else if ((args.length >= 2) && (args.length <= 4)) {
                     if (is_opt(supported, args[1])) {
                         switch (args[1]) {
                             case "imbt":
-                                if (args.length == 3) {
+                                if (args.length >= 3) {
                                     try {
                                         nb = Integer.parseInt(args[2]);
-                                        sudoku.setCheck(new InMemoryBTCheck(sudoku, nb));
+                                        InMemoryBTCheck check = new InMemoryBTCheck(sudoku, nb);
+                                        if (args.length == 4) {
+                                            check.setValueOrder(ValueOrder.parse(args[3]));
+                                        }
+                                        sudoku.setCheck(stored(check, nb));
                                     } catch (NumberFormatException e) {
                                         System.err.println(args[1] + " et " + args[2] + " doit etre un entier.");
                                         System.exit(1);
@@ -218,30 +378,170 @@ public class InOut {
                                     }
                                 } else {
                                     try {
-                                        sudoku.setCheck(new InMemoryBTCheck(sudoku));
+                                        sudoku.setCheck(stored(new InMemoryBTCheck(sudoku), 1));
                                     } catch (IllegalArgumentException e) {
                                         System.err.println(e.getMessage());
                                     }
                                 }
+                                break;
+                            case "portfolio":
+                                if (args.length == 4) {
+                                    show_unknown_opt(args, 3);
+                                }
                                 try {
-                                    sudoku.solve();
-                                    System.out.println(sudoku);
-                                } catch (IllegalStateException | IllegalArgumentException e) {
+                                    if (args.length == 3) {
+                                        nb = Integer.parseInt(args[2]);
+                                        sudoku.setCheck(stored(new PortfolioCheck(sudoku.getSize(), nb,
+                                                PortfolioCheck.DEFAULT_LUBY_UNIT), 1));
+                                    } else {
+                                        sudoku.setCheck(stored(new PortfolioCheck(sudoku.getSize()), 1));
+                                    }
+                                } catch (NumberFormatException e) {
+                                    System.err.println(args[1] + " et " + args[2] + " doit etre un entier.");
+                                    System.exit(1);
+                                } catch (IllegalArgumentException e) {
                                     System.err.println(e.getMessage());
-                                    System.exit(2);
+                                    System.exit(1);
                                 }
-                                try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(solutionsPath), "utf-8"))) {
-                                    writer.write(sudoku.toString());
-                                } catch (IOException ex) {
-                                    System.err.println("La ou les solutions n'ont pas pu être sauvegardées.");
-                                    System.exit(3);
+                                break;
+                            case "sat":
+                                if (args.length == 4) {
+                                    show_unknown_opt(args, 3);
+                                }
+                                try {
+                                    if (args.length == 3) {
+                                        nb = Integer.parseInt(args[2]);
+                                        sudoku.setCheck(stored(new SatCheck(nb), nb));
+                                    } else {
+                                        sudoku.setCheck(stored(new SatCheck(), 1));
+                                    }
+                                } catch (NumberFormatException e) {
+                                    System.err.println(args[1] + " et " + args[2] + " doit etre un entier.");
+                                    System.exit(1);
+                                } catch (IllegalArgumentException e) {
+                                    System.err.println(e.getMessage());
+                                    System.exit(1);
                                 }
                                 break;
+                            case "bsbt":
+                                if (args.length == 4) {
+                                    show_unknown_opt(args, 3);
+                                }
+                                try {
+                                    if (args.length == 3) {
+                                        nb = Integer.parseInt(args[2]);
+                                        sudoku.setCheck(stored(new BitSetBTCheck(sudoku.getSize(), nb), nb));
+                                    } else {
+                                        sudoku.setCheck(stored(new BitSetBTCheck(sudoku.getSize()), 1));
+                                    }
+                                } catch (NumberFormatException e) {
+                                    System.err.println(args[1] + " et " + args[2] + " doit etre un entier.");
+                                    System.exit(1);
+                                } catch (IllegalArgumentException e) {
+                                    System.err.println(e.getMessage());
+                                    System.exit(1);
+                                }
+                                break;
+                        }
+                        try {
+                            sudoku.solve();
+                            System.out.println(sudoku);
+                        } catch (IllegalStateException | IllegalArgumentException e) {
+                            System.err.println(e.getMessage());
+                            System.exit(2);
+                        }
+                        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(solutionsPath), "utf-8"))) {
+                            writer.write(sudoku.toString());
+                        } catch (IOException ex) {
+                            System.err.println("La ou les solutions n'ont pas pu être sauvegardées.");
+                            System.exit(3);
                         }
                     } else {
                         show_unknown_opt(args, 1);
                     }
                 }
+                if (store != null) {
+                    try {
+                        store.close();
+                    } catch (IOException ex) {
+                        System.err.println("La base de grilles n'a pas pu être fermée.");
+                    }
+                }
+                break;
+            case "-E":
+            case "enumerate":
+                if (args.length >= 2 && args[1].equals("split")) {
+                    if (args.length < 3 || args.length > 4) {
+                        show_unknown_opt(args, 1);
+                    }
+                    if (args.length == 4) {
+                        checkpointPath = args[3];
+                    }
+                    try {
+                        nb = Integer.parseInt(args[2]);
+                        Frontier[] shards = enumerator(sudokuPath, checkpointPath).split(nb);
+                        for (int i = 0; i < shards.length; ++i) {
+                            shards[i].save(new File(checkpointPath + "." + i));
+                        }
+                        System.out.println(shards.length + " parties ecrites dans " + checkpointPath + ".*");
+                    } catch (NumberFormatException e) {
+                        System.err.println(args[2] + " doit etre un entier.");
+                        System.exit(1);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage());
+                        System.exit(1);
+                    } catch (IOException ex) {
+                        System.err.println("Les parties n'ont pas pu être sauvegardées.");
+                        System.exit(3);
+                    }
+                } else if (args.length <= 2) {
+                    if (args.length == 2) {
+                        checkpointPath = args[1];
+                    }
+                    try {
+                        Enumerator enumerator = enumerator(sudokuPath, checkpointPath);
+                        System.out.println(enumerator.run(null, CHECKPOINT_INTERVAL, new File(checkpointPath)));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage());
+                        System.exit(2);
+                    } catch (IOException ex) {
+                        System.err.println("Le point de reprise n'a pas pu être sauvegarde.");
+                        System.exit(3);
+                    }
+                } else {
+                    show_unknown_opt(args, 2);
+                }
+                break;
+            case "-C":
+            case "cnf":
+                if (args.length > 2) {
+                    show_unknown_opt(args, 2);
+                }
+                if (args.length == 2) {
+                    cnfPath = args[1];
+                }
+                ArrayList<Integer> cnfSudoku = new ArrayList<>();
+                try (Scanner s = new Scanner(new FileReader(sudokuPath))) {
+                    while (s.hasNext()) {
+                        cnfSudoku.add(s.nextInt());
+                    }
+                    sudoku = new Sudoku(cnfSudoku, gridSize(cnfSudoku.size()));
+                } catch (IOException ex) {
+                    System.err.println("Le sudoku n'a pas pu être lu");
+                    System.exit(3);
+                } catch (IllegalArgumentException | IllegalStateException ex) {
+                    System.err.println(ex.getMessage());
+                    System.exit(2);
+                }
+                SudokuCnf encoding = new SudokuCnf(sudoku);
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(cnfPath), "utf-8"))) {
+                    encoding.writeDimacs(writer);
+                } catch (IOException ex) {
+                    System.err.println("La formule n'a pas pu être sauvegardée.");
+                    System.exit(3);
+                }
+                System.out.println(encoding.getCnf().getNbVars() + " variables, "
+                        + encoding.getCnf().getNbClauses() + " clauses ecrites dans " + cnfPath);
                 break;
             case "-H":
             case "help":
@@ -0,0 +1,822 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package IO;
+
+import SudoLib.Canonicalizer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * <b><code>PuzzleStore</code></b> est une base de grilles et de solutions
+ * conservée dans un fichier, à laquelle on ne peut qu'ajouter des
+ * grilles.</p>
+ *
+ * <p>
+ * Le fichier commence par un en-tête de {@value #HEADER_SIZE} octets (numéro
+ * magique, version, taille des grilles, taille d'un enregistrement et nombre
+ * d'enregistrements validés) suivi d'enregistrements de taille fixe
+ * contenant :</p>
+ * <ul>
+ * <li>l'empreinte de la grille (voir {@link Canonicalizer#fingerprint(int[])})</li>
+ * <li>le nombre de cases initialisées de la grille</li>
+ * <li>l'indication que la grille a une solution et la durée de la résolution
+ * en nanosecondes</li>
+ * <li>la forme canonique de la grille puis celle de sa première solution,
+ * chaque case occupant juste le nombre de bits nécessaire</li>
+ * </ul>
+ *
+ * <p>
+ * Les grilles sont rangées sous leur forme canonique : une grille et toutes les
+ * grilles équivalentes partagent donc le même enregistrement, et les solutions
+ * sont ramenées dans l'orientation et la numérotation de la grille demandée.
+ * Un index en mémoire, reconstruit à l'ouverture par une lecture séquentielle
+ * du fichier, associe les empreintes aux enregistrements et permet de
+ * retrouver une grille en temps constant.</p>
+ *
+ * <p>
+ * Le fichier est projeté en mémoire par segments. Les ajouts ne deviennent
+ * définitifs qu'après un appel à {@link #commit()} (ou {@link #close()}) : les
+ * enregistrements sont d'abord écrits sur le disque, puis le nombre
+ * d'enregistrements de l'en-tête est mis à jour. Un arrêt brutal ne peut donc
+ * laisser que des enregistrements complets, ceux ajoutés depuis la dernière
+ * validation étant ignorés à la réouverture.</p>
+ *
+ * <p>
+ * Un <b>PuzzleStore</b> ne doit pas être partagé entre plusieurs threads sans
+ * synchronisation.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Canonicalizer
+ * @see StoredCheck
+ *
+ * @since 1.1
+ */
+public class PuzzleStore implements Closeable {
+
+    /**
+     * <p>
+     * Numéro magique identifiant les fichiers de grilles ("SDKS").</p>
+     *
+     * @since 1.1
+     */
+    private static final int MAGIC = 0x53444B53;
+
+    /**
+     * <p>
+     * Version du format de fichier.</p>
+     *
+     * @since 1.1
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * <p>
+     * Taille de l'en-tête en octets.</p>
+     *
+     * @since 1.1
+     */
+    public static final int HEADER_SIZE = 64;
+
+    /**
+     * <p>
+     * Position du nombre d'enregistrements validés dans l'en-tête.</p>
+     *
+     * @since 1.1
+     */
+    private static final int COUNT_OFFSET = 16;
+
+    /**
+     * <p>
+     * Taille approximative d'un segment projeté en mémoire, en octets.</p>
+     *
+     * @since 1.1
+     */
+    private static final int SEGMENT_BYTES = 1 << 24;
+
+    /**
+     * <p>
+     * Positions des champs dans un enregistrement.</p>
+     *
+     * @since 1.1
+     */
+    private static final int FINGERPRINT = 0, CLUES = 8, SOLVABLE = 12,
+            SOLVE_NANOS = 16, PUZZLE = 24;
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc des grilles de la base.</p>
+     *
+     * @since 1.1
+     */
+    private final int _size;
+
+    /**
+     * <p>
+     * Nombre de cases d'une grille.</p>
+     *
+     * @since 1.1
+     */
+    private final int _nbCells;
+
+    /**
+     * <p>
+     * Nombre de bits occupés par une case.</p>
+     *
+     * @since 1.1
+     */
+    private final int _bits;
+
+    /**
+     * <p>
+     * Nombre d'octets occupés par une grille.</p>
+     *
+     * @since 1.1
+     */
+    private final int _packedSize;
+
+    /**
+     * <p>
+     * Taille d'un enregistrement en octets.</p>
+     *
+     * @since 1.1
+     */
+    private final int _recordSize;
+
+    /**
+     * <p>
+     * Nombre d'enregistrements d'un segment.</p>
+     *
+     * @since 1.1
+     */
+    private final int _recordsPerSegment;
+
+    /**
+     * <p>
+     * Fichier de la base.</p>
+     *
+     * @since 1.1
+     */
+    private final RandomAccessFile _file;
+
+    /**
+     * <p>
+     * Canal du fichier, utilisé pour les projections en mémoire.</p>
+     *
+     * @since 1.1
+     */
+    private final FileChannel _channel;
+
+    /**
+     * <p>
+     * En-tête projeté en mémoire.</p>
+     *
+     * @since 1.1
+     */
+    private final MappedByteBuffer _header;
+
+    /**
+     * <p>
+     * Segments d'enregistrements projetés en mémoire.</p>
+     *
+     * @since 1.1
+     */
+    private final ArrayList<MappedByteBuffer> _segments;
+
+    /**
+     * <p>
+     * Nombre d'enregistrements écrits et nombre d'enregistrements
+     * validés.</p>
+     *
+     * @since 1.1
+     */
+    private long _count, _committed;
+
+    /**
+     * <p>
+     * Index des enregistrements : empreintes et numéros d'enregistrement plus
+     * un (0 pour une place libre), rangés par adressage ouvert.</p>
+     *
+     * @since 1.1
+     */
+    private long[] _keys, _records;
+
+    /**
+     * <p>
+     * Nombre d'entrées de l'index.</p>
+     *
+     * @since 1.1
+     */
+    private long _indexed;
+
+    /**
+     * <p>
+     * Calcul des empreintes et des formes canoniques.</p>
+     *
+     * @since 1.1
+     */
+    private final Canonicalizer _canonicalizer;
+
+    /**
+     * <p>
+     * Tableaux de travail : forme canonique, transformation de la dernière
+     * grille recherchée et grille lue dans la base.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _canonical, _cells, _labels, _buffer;
+
+    /**
+     * <p>
+     * Empreinte de la dernière grille recherchée.</p>
+     *
+     * @since 1.1
+     */
+    private long _fingerprint;
+
+    /**
+     * <p>
+     * Vrai si la forme canonique de la dernière grille recherchée a été
+     * calculée.</p>
+     *
+     * @since 1.1
+     */
+    private boolean _canonicalized;
+
+    /**
+     * <p>
+     * Ouvre une base de grilles, ou la crée si le fichier n'existe pas ou est
+     * vide.</p>
+     *
+     * @param path Le chemin du fichier
+     * @param size La taille de l'arête d'un bloc des grilles de la base
+     *
+     * @throws IOException              Si le fichier ne peut être ouvert ou
+     *                                  n'est pas une base de grilles de cette
+     *                                  taille
+     * @throws IllegalArgumentException Si la taille est inférieure à 1
+     *
+     * @since 1.1
+     */
+    public PuzzleStore(String path, int size) throws IOException, IllegalArgumentException {
+        _canonicalizer = new Canonicalizer(size);
+        _size = size;
+        int width = size * size;
+        _nbCells = width * width;
+        _bits = 32 - Integer.numberOfLeadingZeros(width);
+        _packedSize = (_nbCells * _bits + 7) / 8;
+        _recordSize = (PUZZLE + 2 * _packedSize + 7) & ~7;
+        _recordsPerSegment = Math.max(1, SEGMENT_BYTES / _recordSize);
+        _canonical = new int[_nbCells];
+        _cells = new int[_nbCells];
+        _labels = new int[width + 1];
+        _buffer = new int[_nbCells];
+        _segments = new ArrayList<>();
+
+        _file = new RandomAccessFile(path, "rw");
+        try {
+            _channel = _file.getChannel();
+            boolean created = _file.length() == 0;
+            if (created) {
+                _file.setLength(HEADER_SIZE);
+            }
+            _header = _channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (created) {
+                _header.putInt(0, MAGIC);
+                _header.putInt(4, VERSION);
+                _header.putInt(8, _size);
+                _header.putInt(12, _recordSize);
+                _header.putLong(COUNT_OFFSET, 0);
+                _header.force();
+            } else if (_header.getInt(0) != MAGIC || _header.getInt(4) != VERSION) {
+                throw new IOException("Not a puzzle store file.");
+            } else if (_header.getInt(8) != _size || _header.getInt(12) != _recordSize) {
+                throw new IOException("Puzzle store size does not match.");
+            }
+            _committed = _header.getLong(COUNT_OFFSET);
+            if (_committed < 0 || HEADER_SIZE + _committed * _recordSize > _file.length()) {
+                throw new IOException("Puzzle store file is truncated.");
+            }
+            _count = _committed;
+            _keys = new long[16];
+            _records = new long[16];
+            for (long index = 0; index < _count; ++index) {
+                index(segment(index).getLong(offset(index) + FINGERPRINT), index);
+            }
+        } catch (IOException | RuntimeException ex) {
+            _file.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc des grilles de la base.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return _size;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre d'enregistrements de la base, validés ou non.</p>
+     *
+     * @return Le nombre d'enregistrements
+     *
+     * @since 1.1
+     */
+    public long size() {
+        return _count;
+    }
+
+    /**
+     * <p>
+     * Ajoute une grille et sa première solution à la base, sauf si une grille
+     * équivalente y est déjà présente. L'ajout ne devient définitif qu'au
+     * prochain appel à {@link #commit()}.</p>
+     *
+     * @param puzzle      La grille, rangée ligne par ligne, 0 pour une case
+     *                    vide
+     * @param solution   La première solution de la grille, ou null si elle
+     *                   n'en a pas
+     * @param solveNanos La durée de la résolution en nanosecondes
+     *
+     * @return Le numéro de l'enregistrement de la grille
+     *
+     * @throws IllegalArgumentException Si les tableaux n'ont pas la taille des
+     *                                  grilles de la base
+     * @throws IllegalStateException    Si le fichier ne peut être agrandi
+     *
+     * @since 1.1
+     */
+    public long append(int[] puzzle, int[] solution, long solveNanos) throws IllegalArgumentException, IllegalStateException {
+        if (solution != null && solution.length != _nbCells) {
+            throw new IllegalArgumentException("Array size does not match the grid size.");
+        }
+        long index = find(puzzle);
+        if (index >= 0) {
+            return index;
+        }
+        canonicalize(puzzle);
+        index = _count;
+        MappedByteBuffer segment = segment(index);
+        int offset = offset(index);
+        int clues = 0;
+        for (int value : puzzle) {
+            if (value != 0) {
+                ++clues;
+            }
+        }
+        segment.putLong(offset + FINGERPRINT, _fingerprint);
+        segment.putInt(offset + CLUES, clues);
+        segment.putInt(offset + SOLVABLE, solution == null ? 0 : 1);
+        segment.putLong(offset + SOLVE_NANOS, solveNanos);
+        pack(_canonical, segment, offset + PUZZLE);
+        for (int i = 0; i < _nbCells; ++i) {
+            _buffer[i] = solution == null ? 0 : _labels[solution[_cells[i]]];
+        }
+        pack(_buffer, segment, offset + PUZZLE + _packedSize);
+        index(_fingerprint, index);
+        ++_count;
+        return index;
+    }
+
+    /**
+     * <p>
+     * Rend définitifs les enregistrements ajoutés depuis la dernière
+     * validation : ils sont écrits sur le disque avant que le nombre
+     * d'enregistrements de l'en-tête ne soit mis à jour.</p>
+     *
+     * @since 1.1
+     */
+    public void commit() {
+        if (_count == _committed) {
+            return;
+        }
+        int last = (int) ((_count - 1) / _recordsPerSegment);
+        for (int s = (int) (_committed / _recordsPerSegment); s <= last; ++s) {
+            _segments.get(s).force();
+        }
+        _header.putLong(COUNT_OFFSET, _count);
+        _header.force();
+        _committed = _count;
+    }
+
+    /**
+     * <p>
+     * Cherche une grille, ou une grille équivalente, dans la base.</p>
+     *
+     * @param puzzle La grille, rangée ligne par ligne, 0 pour une case vide
+     *
+     * @return Le numéro de l'enregistrement de la grille, ou -1 si elle est
+     *         absente
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille des
+     *                                  grilles de la base
+     *
+     * @since 1.1
+     */
+    public long find(int[] puzzle) throws IllegalArgumentException {
+        if (puzzle.length != _nbCells) {
+            throw new IllegalArgumentException("Array size does not match the grid size.");
+        }
+        _fingerprint = _canonicalizer.fingerprint(puzzle);
+        _canonicalized = false;
+        int mask = _keys.length - 1;
+        for (int slot = hash(_fingerprint) & mask; _records[slot] != 0; slot = (slot + 1) & mask) {
+            if (_keys[slot] == _fingerprint) {
+                long index = _records[slot] - 1;
+                canonicalize(puzzle);
+                unpack(segment(index), offset(index) + PUZZLE, _buffer);
+                if (Arrays.equals(_buffer, _canonical)) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Calcule la forme canonique de la dernière grille recherchée si elle ne
+     * l'a pas déjà été. Les grilles dont l'empreinte est inconnue de la base
+     * n'ont ainsi pas besoin d'être canonisées pour être recherchées.</p>
+     *
+     * @param puzzle La grille
+     *
+     * @since 1.1
+     */
+    private void canonicalize(int[] puzzle) {
+        if (!_canonicalized) {
+            _canonicalizer.canonicalize(puzzle, _canonical, _cells, _labels);
+            _canonicalized = true;
+        }
+    }
+
+    /**
+     * <p>
+     * Cherche une grille dans la base et recopie sa première solution, dans
+     * l'orientation et la numérotation de la grille donnée.</p>
+     *
+     * @param puzzle La grille, rangée ligne par ligne, 0 pour une case vide
+     * @param dst    Le tableau recevant la solution
+     *
+     * @return Le numéro de l'enregistrement de la grille, ou -1 si elle est
+     *         absente. Si la grille n'a pas de solution (voir
+     *         {@link #isSolvable(long)}), <code>dst</code> n'est pas
+     *         modifié.
+     *
+     * @throws IllegalArgumentException Si les tableaux n'ont pas la taille des
+     *                                  grilles de la base
+     *
+     * @since 1.1
+     */
+    public long findSolution(int[] puzzle, int[] dst) throws IllegalArgumentException {
+        if (dst.length != _nbCells) {
+            throw new IllegalArgumentException("Array size does not match the grid size.");
+        }
+        long index = find(puzzle);
+        if (index < 0 || !isSolvable(index)) {
+            return index;
+        }
+        unpack(segment(index), offset(index) + PUZZLE + _packedSize, _buffer);
+        int[] digits = new int[_labels.length];
+        for (int d = 0; d < digits.length; ++d) {
+            digits[_labels[d]] = d;
+        }
+        for (int i = 0; i < _nbCells; ++i) {
+            dst[_cells[i]] = digits[_buffer[i]];
+        }
+        return index;
+    }
+
+    /**
+     * <p>
+     * Recopie la forme canonique de la grille d'un enregistrement.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     * @param dst   Le tableau recevant la grille
+     *
+     * @throws IndexOutOfBoundsException Si l'enregistrement n'existe pas
+     * @throws IllegalArgumentException  Si le tableau n'a pas la taille des
+     *                                   grilles de la base
+     *
+     * @since 1.1
+     */
+    public void readPuzzle(long index, int[] dst) throws IndexOutOfBoundsException, IllegalArgumentException {
+        check(index, dst);
+        unpack(segment(index), offset(index) + PUZZLE, dst);
+    }
+
+    /**
+     * <p>
+     * Recopie la forme canonique de la première solution d'un
+     * enregistrement, qui ne contient que des 0 si la grille n'a pas de
+     * solution.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     * @param dst   Le tableau recevant la solution
+     *
+     * @throws IndexOutOfBoundsException Si l'enregistrement n'existe pas
+     * @throws IllegalArgumentException  Si le tableau n'a pas la taille des
+     *                                   grilles de la base
+     *
+     * @since 1.1
+     */
+    public void readSolution(long index, int[] dst) throws IndexOutOfBoundsException, IllegalArgumentException {
+        check(index, dst);
+        unpack(segment(index), offset(index) + PUZZLE + _packedSize, dst);
+    }
+
+    /**
+     * <p>
+     * Retourne l'empreinte de la grille d'un enregistrement.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     *
+     * @return L'empreinte de la grille
+     *
+     * @throws IndexOutOfBoundsException Si l'enregistrement n'existe pas
+     *
+     * @since 1.1
+     */
+    public long getFingerprint(long index) throws IndexOutOfBoundsException {
+        check(index);
+        return segment(index).getLong(offset(index) + FINGERPRINT);
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de cases initialisées de la grille d'un
+     * enregistrement.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     *
+     * @return Le nombre de cases initialisées
+     *
+     * @throws IndexOutOfBoundsException Si l'enregistrement n'existe pas
+     *
+     * @since 1.1
+     */
+    public int getClueCount(long index) throws IndexOutOfBoundsException {
+        check(index);
+        return segment(index).getInt(offset(index) + CLUES);
+    }
+
+    /**
+     * <p>
+     * Indique si la grille d'un enregistrement a une solution.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     *
+     * @return Vrai si la grille a une solution, faux si elle n'en a pas
+     *
+     * @throws IndexOutOfBoundsException Si l'enregistrement n'existe pas
+     *
+     * @since 1.1
+     */
+    public boolean isSolvable(long index) throws IndexOutOfBoundsException {
+        check(index);
+        return segment(index).getInt(offset(index) + SOLVABLE) != 0;
+    }
+
+    /**
+     * <p>
+     * Retourne la durée de la résolution de la grille d'un
+     * enregistrement.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     *
+     * @return La durée de la résolution en nanosecondes
+     *
+     * @throws IndexOutOfBoundsException Si l'enregistrement n'existe pas
+     *
+     * @since 1.1
+     */
+    public long getSolveNanos(long index) throws IndexOutOfBoundsException {
+        check(index);
+        return segment(index).getLong(offset(index) + SOLVE_NANOS);
+    }
+
+    /**
+     * <p>
+     * Valide les derniers ajouts puis ferme le fichier.</p>
+     *
+     * @throws IOException Si le fichier ne peut être fermé
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            _file.close();
+        }
+    }
+
+    /**
+     * <p>
+     * Vérifie qu'un enregistrement existe et qu'un tableau a la taille des
+     * grilles de la base.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     * @param dst   Le tableau
+     *
+     * @throws IndexOutOfBoundsException Si l'enregistrement n'existe pas
+     * @throws IllegalArgumentException  Si le tableau n'a pas la bonne taille
+     *
+     * @since 1.1
+     */
+    private void check(long index, int[] dst) throws IndexOutOfBoundsException, IllegalArgumentException {
+        check(index);
+        if (dst.length != _nbCells) {
+            throw new IllegalArgumentException("Array size does not match the grid size.");
+        }
+    }
+
+    /**
+     * <p>
+     * Vérifie qu'un enregistrement existe.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     *
+     * @throws IndexOutOfBoundsException Si l'enregistrement n'existe pas
+     *
+     * @since 1.1
+     */
+    private void check(long index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= _count) {
+            throw new IndexOutOfBoundsException("No such record: " + index);
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne le segment contenant un enregistrement, en agrandissant le
+     * fichier et en projetant de nouveaux segments si nécessaire.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     *
+     * @return Le segment projeté en mémoire
+     *
+     * @throws IllegalStateException Si le fichier ne peut être agrandi ou
+     *                               projeté
+     *
+     * @since 1.1
+     */
+    private MappedByteBuffer segment(long index) throws IllegalStateException {
+        int s = (int) (index / _recordsPerSegment);
+        try {
+            while (_segments.size() <= s) {
+                long bytes = (long) _recordsPerSegment * _recordSize;
+                long start = HEADER_SIZE + _segments.size() * bytes;
+                if (_file.length() < start + bytes) {
+                    _file.setLength(start + bytes);
+                }
+                _segments.add(_channel.map(FileChannel.MapMode.READ_WRITE, start, bytes));
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Puzzle store file could not be mapped.", ex);
+        }
+        return _segments.get(s);
+    }
+
+    /**
+     * <p>
+     * Retourne la position d'un enregistrement dans son segment.</p>
+     *
+     * @param index Le numéro de l'enregistrement
+     *
+     * @return La position en octets
+     *
+     * @since 1.1
+     */
+    private int offset(long index) {
+        return (int) (index % _recordsPerSegment) * _recordSize;
+    }
+
+    /**
+     * <p>
+     * Ajoute un enregistrement à l'index, en doublant sa taille s'il est à
+     * moitié plein.</p>
+     *
+     * @param fingerprint L'empreinte de la grille
+     * @param index       Le numéro de l'enregistrement
+     *
+     * @since 1.1
+     */
+    private void index(long fingerprint, long index) {
+        if (2 * (_indexed + 1) > _keys.length) {
+            long[] keys = _keys;
+            long[] records = _records;
+            _keys = new long[keys.length * 2];
+            _records = new long[keys.length * 2];
+            for (int slot = 0; slot < keys.length; ++slot) {
+                if (records[slot] != 0) {
+                    insert(keys[slot], records[slot]);
+                }
+            }
+        }
+        insert(fingerprint, index + 1);
+        ++_indexed;
+    }
+
+    /**
+     * <p>
+     * Range une entrée dans l'index à la première place libre.</p>
+     *
+     * @param fingerprint L'empreinte de la grille
+     * @param record      Le numéro de l'enregistrement plus un
+     *
+     * @since 1.1
+     */
+    private void insert(long fingerprint, long record) {
+        int mask = _keys.length - 1;
+        int slot = hash(fingerprint) & mask;
+        while (_records[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        _keys[slot] = fingerprint;
+        _records[slot] = record;
+    }
+
+    /**
+     * <p>
+     * Réduit une empreinte à un entier pour l'index.</p>
+     *
+     * @param fingerprint L'empreinte
+     *
+     * @return La place initiale de l'empreinte dans l'index
+     *
+     * @since 1.1
+     */
+    private static int hash(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    /**
+     * <p>
+     * Écrit une grille en n'utilisant que {@link #_bits} bits par case.</p>
+     *
+     * @param values La grille
+     * @param buffer Le segment
+     * @param offset La position de la grille dans le segment
+     *
+     * @since 1.1
+     */
+    private void pack(int[] values, MappedByteBuffer buffer, int offset) {
+        long bits = 0;
+        int nb = 0;
+        for (int value : values) {
+            bits |= (long) value << nb;
+            nb += _bits;
+            while (nb >= 8) {
+                buffer.put(offset++, (byte) bits);
+                bits >>>= 8;
+                nb -= 8;
+            }
+        }
+        if (nb > 0) {
+            buffer.put(offset, (byte) bits);
+        }
+    }
+
+    /**
+     * <p>
+     * Lit une grille écrite par {@link #pack(int[], MappedByteBuffer, int)}.</p>
+     *
+     * @param buffer Le segment
+     * @param offset La position de la grille dans le segment
+     * @param dst    Le tableau recevant la grille
+     *
+     * @since 1.1
+     */
+    private void unpack(MappedByteBuffer buffer, int offset, int[] dst) {
+        long bits = 0;
+        int nb = 0;
+        int mask = (1 << _bits) - 1;
+        for (int i = 0; i < dst.length; ++i) {
+            while (nb < _bits) {
+                bits |= (long) (buffer.get(offset++) & 0xFF) << nb;
+                nb += 8;
+            }
+            dst[i] = (int) bits & mask;
+            bits >>>= _bits;
+            nb -= _bits;
+        }
+    }
+}
@@ -0,0 +1,579 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package IO;
+
+import BSBT.BitSetBTCheck;
+import Logic.Difficulty;
+import Sudoku.PuzzlePool;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>
+ * <b><code>Server</code></b> est un point d'entrée du programme, à côté de
+ * {@link InOut}, qui résout, génère et compte les solutions de grilles pour
+ * d'autres programmes à travers une connexion TCP locale.</p>
+ *
+ * <p>
+ * Le protocole est textuel, une requête par ligne et une réponse par
+ * ligne :</p>
+ * <ul>
+ * <li><code>SOLVE v1 v2 ... vn</code> : résout la grille donnée case par case
+ * et ligne par ligne, 0 pour une case vide</li>
+ * <li><code>COUNT v1 v2 ... vn</code> : compte les solutions de la grille, au
+ * plus jusqu'au nombre maximum fixé au démarrage du serveur ; si la grille en
+ * a davantage, le nombre est suivi de <code>+</code> (<code>OK 1000+</code>
+ * signifie « au moins 1000 »)</li>
+ * <li><code>GENERATE n [niveau]</code> : génère une grille 9x9 de
+ * <code>n</code> valeurs, éventuellement d'un niveau de difficulté donné</li>
+ * <li><code>QUIT</code> : ferme la connexion</li>
+ * </ul>
+ * <p>
+ * Les réponses sont <code>OK</code> suivi de la grille ou du nombre de
+ * solutions, <code>NONE</code> si la grille n'admet aucune solution,
+ * <code>ABORTED</code> si la requête a épuisé son budget de noeuds de
+ * recherche, ou <code>ERR</code> suivi d'un message.</p>
+ *
+ * <p>
+ * Chaque connexion est servie par son propre thread. Le nombre de connexions
+ * simultanées est borné ; au-delà, une connexion reçoit
+ * <code>ERR busy</code> et est fermée. Le calcul lui-même est limité à autant
+ * de requêtes simultanées que de processeurs, les autres attendant leur tour,
+ * ce qui évite que des milliers de requêtes ne se partagent les processeurs
+ * et ne finissent toutes en retard. Les moteurs de résolution sont conservés
+ * dans des réserves par taille de grille et réutilisés d'une requête à
+ * l'autre ; les grilles demandées sont générées à l'avance en fond par un
+ * {@link PuzzlePool}.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see InOut
+ * @see BitSetBTCheck#run(int, long)
+ *
+ * @since 1.1
+ */
+public class Server implements Closeable {
+
+    /**
+     * <p>
+     * Port d'écoute par défaut.</p>
+     *
+     * @since 1.1
+     */
+    public static final int DEFAULT_PORT = 4242;
+
+    /**
+     * <p>
+     * Nombre maximum de noeuds de recherche par requête, par défaut.</p>
+     *
+     * @since 1.1
+     */
+    public static final long DEFAULT_NODE_BUDGET = 1000000;
+
+    /**
+     * <p>
+     * Nombre maximum de solutions comptées par requête, par défaut.</p>
+     *
+     * @since 1.1
+     */
+    public static final int DEFAULT_MAX_COUNT = 1000;
+
+    /**
+     * <p>
+     * Nombre maximum de connexions simultanées.</p>
+     *
+     * @since 1.1
+     */
+    public static final int MAX_CONNECTIONS = 20000;
+
+    /**
+     * <p>
+     * Longueur maximum d'une requête, suffisante pour une grille 100x100.</p>
+     *
+     * @since 1.1
+     */
+    public static final int MAX_LINE = 65536;
+
+    /**
+     * <p>
+     * Délai en millisecondes au-delà duquel une connexion inactive est
+     * fermée.</p>
+     *
+     * @since 1.1
+     */
+    public static final int IDLE_TIMEOUT = 30000;
+
+    /**
+     * <p>
+     * Nombre de grilles générées à l'avance pour chaque couple nombre de
+     * valeurs/niveau demandé.</p>
+     *
+     * @since 1.1
+     */
+    public static final int POOL_CAPACITY = 16;
+
+    /**
+     * <p>
+     * Taille maximum de l'arête d'un bloc des grilles acceptées.</p>
+     *
+     * @since 1.1
+     */
+    private static final int MAX_SIZE = 10;
+
+    /**
+     * <p>
+     * Socket d'écoute.</p>
+     *
+     * @since 1.1
+     */
+    private final ServerSocket socket;
+
+    /**
+     * <p>
+     * Nombre maximum de noeuds de recherche par requête.</p>
+     *
+     * @since 1.1
+     */
+    private final long nodeBudget;
+
+    /**
+     * <p>
+     * Nombre maximum de solutions comptées par requête.</p>
+     *
+     * @since 1.1
+     */
+    private final int maxCount;
+
+    /**
+     * <p>
+     * Threads servant les connexions.</p>
+     *
+     * @since 1.1
+     */
+    private final ExecutorService connections;
+
+    /**
+     * <p>
+     * Places de connexion encore libres.</p>
+     *
+     * @since 1.1
+     */
+    private final Semaphore slots;
+
+    /**
+     * <p>
+     * Autorisations de calcul, une par processeur.</p>
+     *
+     * @since 1.1
+     */
+    private final Semaphore workers;
+
+    /**
+     * <p>
+     * Réserves de moteurs de résolution, indexées par taille de grille.</p>
+     *
+     * @since 1.1
+     */
+    private final ArrayList<Queue<BitSetBTCheck>> checks;
+
+    /**
+     * <p>
+     * Réserve de grilles 9x9 générées à l'avance.</p>
+     *
+     * @since 1.1
+     */
+    private final PuzzlePool puzzles;
+
+    /**
+     * <p>
+     * Construit un serveur écoutant sur un port de l'adresse locale.</p>
+     *
+     * @param port       Le port d'écoute, 0 pour un port libre quelconque
+     * @param nodeBudget Le nombre maximum de noeuds de recherche par requête
+     * @param maxCount   Le nombre maximum de solutions comptées par requête
+     *
+     * @throws IllegalArgumentException Si l'un des maximums est inférieur ou
+     *                                  égal à 0
+     * @throws IOException              Si le port n'a pas pu être ouvert
+     *
+     * @since 1.1
+     */
+    public Server(int port, long nodeBudget, int maxCount) throws IllegalArgumentException, IOException {
+        if (nodeBudget <= 0 || maxCount <= 0) {
+            throw new IllegalArgumentException("Request budgets must be > 0.");
+        }
+        this.nodeBudget = nodeBudget;
+        this.maxCount = maxCount;
+        socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        connections = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "sudoku-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        slots = new Semaphore(MAX_CONNECTIONS);
+        workers = new Semaphore(Runtime.getRuntime().availableProcessors(), true);
+        checks = new ArrayList<>();
+        for (int size = 0; size <= MAX_SIZE; ++size) {
+            checks.add(new ConcurrentLinkedQueue<>());
+        }
+        puzzles = new PuzzlePool(3, POOL_CAPACITY, 1, 0);
+    }
+
+    /**
+     * <p>
+     * Main du serveur : <code>Server [port [budget]]</code>, le budget étant
+     * le nombre maximum de noeuds de recherche par requête.</p>
+     *
+     * @param args Les paramètres d'éxécution
+     *
+     * @since 1.1
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        long budget = DEFAULT_NODE_BUDGET;
+        int pos = 0;
+        try {
+            if (args.length > 0) {
+                port = Integer.parseInt(args[pos++]);
+            }
+            if (args.length > 1) {
+                budget = Long.parseLong(args[pos++]);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println(args[pos - 1] + " doit etre un entier.");
+            System.exit(1);
+        }
+        try (Server server = new Server(port, budget, DEFAULT_MAX_COUNT)) {
+            System.out.println("Serveur en ecoute sur le port " + server.getPort());
+            server.serve();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Le serveur n'a pas pu etre demarre : " + e.getMessage());
+            System.exit(3);
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne le port d'écoute du serveur.</p>
+     *
+     * @return Le port d'écoute
+     *
+     * @since 1.1
+     */
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * <p>
+     * Accepte les connexions jusqu'à la fermeture du serveur, chacune étant
+     * servie par son propre thread.</p>
+     *
+     * @throws IOException Si une erreur survient sur la socket d'écoute
+     *
+     * @see #close()
+     *
+     * @since 1.1
+     */
+    public void serve() throws IOException {
+        while (!socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (SocketException e) {
+                if (socket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            if (!slots.tryAcquire()) {
+                try (Socket rejected = client) {
+                    rejected.getOutputStream().write("ERR busy\n".getBytes(StandardCharsets.US_ASCII));
+                } catch (IOException e) {
+                    // La connexion refusée est déjà fermée.
+                }
+                continue;
+            }
+            connections.execute(() -> {
+                try {
+                    talk(client);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * <p>
+     * Ferme la socket d'écoute. Les connexions en cours se terminent
+     * d'elles-mêmes.</p>
+     *
+     * @throws IOException Si la socket n'a pas pu être fermée
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        connections.shutdown();
+        puzzles.close();
+    }
+
+    /**
+     * <p>
+     * Traite une requête et retourne sa réponse, sans passer par une
+     * connexion.</p>
+     *
+     * @param request La requête
+     *
+     * @return La réponse, sans fin de ligne, ou null pour fermer la connexion
+     *
+     * @since 1.1
+     */
+    String handle(String request) {
+        String[] tokens = request.trim().split("\\s+");
+        String command = tokens[0].toUpperCase();
+        try {
+            switch (command) {
+                case "SOLVE":
+                    return solve(tokens, false);
+                case "COUNT":
+                    return solve(tokens, true);
+                case "GENERATE":
+                    return generate(tokens);
+                case "QUIT":
+                    return null;
+                default:
+                    return "ERR unknown command";
+            }
+        } catch (NumberFormatException e) {
+            return "ERR values must be integers";
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return "ERR " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "ERR interrupted";
+        }
+    }
+
+    /**
+     * <p>
+     * Sert une connexion : lit les requêtes une par une et écrit leurs
+     * réponses jusqu'à la requête <code>QUIT</code>, la fermeture de la
+     * connexion par le client ou son inactivité.</p>
+     *
+     * @param client La connexion
+     *
+     * @since 1.1
+     */
+    private void talk(Socket client) {
+        try (Socket connection = client) {
+            connection.setSoTimeout(IDLE_TIMEOUT);
+            connection.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(connection.getInputStream());
+            OutputStream raw = connection.getOutputStream();
+            Writer out = new OutputStreamWriter(raw, StandardCharsets.US_ASCII);
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                line.setLength(0);
+                if (!readLine(in, line)) {
+                    return;
+                }
+                if (line.length() > MAX_LINE) {
+                    out.write("ERR request too long\n");
+                    out.flush();
+                    return;
+                }
+                if (line.toString().trim().isEmpty()) {
+                    continue;
+                }
+                String response = handle(line.toString());
+                if (response == null) {
+                    return;
+                }
+                out.write(response);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Connexion fermée ou inactive : rien à répondre.
+        }
+    }
+
+    /**
+     * <p>
+     * Lit une ligne d'une connexion, en s'arrêtant au-delà de
+     * {@link #MAX_LINE} caractères.</p>
+     *
+     * @param in   Le flux de la connexion
+     * @param line La ligne lue, sans fin de ligne
+     *
+     * @return Faux si la connexion a été fermée avant toute ligne
+     *
+     * @throws IOException Si la lecture échoue
+     *
+     * @since 1.1
+     */
+    private boolean readLine(InputStream in, StringBuilder line) throws IOException {
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            if (c != '\r') {
+                line.append((char) c);
+            }
+            if (line.length() > MAX_LINE) {
+                return true;
+            }
+        }
+        return c != -1 || line.length() > 0;
+    }
+
+    /**
+     * <p>
+     * Résout ou compte les solutions d'une grille avec un moteur de la
+     * réserve.</p>
+     *
+     * @param tokens La requête découpée, la grille à partir du second
+     *               élément
+     * @param count  Vrai pour compter les solutions, faux pour en retourner
+     *               une
+     *
+     * @return La réponse
+     *
+     * @throws IllegalArgumentException Si la grille n'a pas une taille valide
+     * @throws InterruptedException     Si le thread est interrompu en attendant
+     *                                  son tour de calcul
+     *
+     * @since 1.1
+     */
+    private String solve(String[] tokens, boolean count) throws IllegalArgumentException, InterruptedException {
+        int nbCells = tokens.length - 1;
+        int size = 1;
+        while (size * size * size * size < nbCells) {
+            ++size;
+        }
+        if (size * size * size * size != nbCells || size > MAX_SIZE) {
+            throw new IllegalArgumentException("grid size is invalid");
+        }
+        int[] grid = new int[nbCells];
+        for (int cell = 0; cell < nbCells; ++cell) {
+            grid[cell] = Integer.parseInt(tokens[cell + 1]);
+        }
+
+        Queue<BitSetBTCheck> pool = checks.get(size);
+        BitSetBTCheck check = pool.poll();
+        if (check == null) {
+            check = new BitSetBTCheck(size);
+        }
+        workers.acquire();
+        try {
+            if (!check.reset(grid, 0)) {
+                return "NONE";
+            }
+            int found = check.run(count ? Math.max(maxCount, maxCount + 1) : 1, nodeBudget);
+            if (check.isInterrupted()) {
+                return "ABORTED";
+            }
+            if (found == 0) {
+                return "NONE";
+            }
+            if (count) {
+                return found > maxCount ? "OK " + maxCount + "+" : "OK " + found;
+            }
+            check.copySolutionTo(grid);
+        } finally {
+            workers.release();
+            pool.offer(check);
+        }
+        return "OK " + join(grid);
+    }
+
+    /**
+     * <p>
+     * Retourne une grille 9x9 prise dans la réserve de grilles, ou générée à
+     * la demande si celle-ci est vide.</p>
+     *
+     * @param tokens La requête découpée : le nombre de valeurs puis
+     *               éventuellement le niveau de difficulté
+     *
+     * @return La réponse
+     *
+     * @throws IllegalArgumentException Si les paramètres sont invalides
+     * @throws IllegalStateException    Si aucune grille du niveau demandé n'a
+     *                                  pu être générée
+     * @throws InterruptedException     Si le thread est interrompu en attendant
+     *                                  son tour de calcul
+     *
+     * @since 1.1
+     */
+    private String generate(String[] tokens) throws IllegalArgumentException, IllegalStateException,
+            InterruptedException {
+        if (tokens.length < 2 || tokens.length > 3) {
+            throw new IllegalArgumentException("usage: GENERATE n [level]");
+        }
+        int solvedCases = Integer.parseInt(tokens[1]);
+        if (solvedCases <= 0 || solvedCases > 81) {
+            throw new IllegalArgumentException("solvedCases must be between 1 and the ammount of sudoku cases.");
+        }
+        Difficulty difficulty = tokens.length == 3 ? Difficulty.parse(tokens[2]) : null;
+
+        Integer[] generated = puzzles.poll(solvedCases, difficulty);
+        if (generated == null) {
+            workers.acquire();
+            try {
+                generated = puzzles.generate(solvedCases, difficulty);
+            } finally {
+                workers.release();
+            }
+        }
+        int[] grid = new int[generated.length];
+        for (int cell = 0; cell < grid.length; ++cell) {
+            grid[cell] = generated[cell];
+        }
+        return "OK " + join(grid);
+    }
+
+    /**
+     * <p>
+     * Écrit les valeurs d'une grille sur une ligne, séparées par des
+     * espaces.</p>
+     *
+     * @param grid La grille
+     *
+     * @return La ligne
+     *
+     * @since 1.1
+     */
+    private static String join(int[] grid) {
+        StringBuilder line = new StringBuilder(grid.length * 3);
+        for (int cell = 0; cell < grid.length; ++cell) {
+            if (cell > 0) {
+                line.append(' ');
+            }
+            line.append(grid[cell]);
+        }
+        return line.toString();
+    }
+}
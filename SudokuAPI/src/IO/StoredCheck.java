@@ -0,0 +1,135 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package IO;
+
+import Sudoku.ICheck;
+import Sudoku.Sudoku;
+import java.util.ArrayList;
+
+/**
+ * <p>
+ * <b><code>StoredCheck</code></b> place une base de grilles
+ * ({@link PuzzleStore}) devant une autre méthode de résolution implémentant
+ * {@link ICheck}.</p>
+ *
+ * <p>
+ * Une grille déjà présente dans la base, ou une grille équivalente, obtient sa
+ * première solution sans recherche. Les autres grilles sont résolues par la
+ * méthode protégée puis ajoutées à la base avec leur première solution, ou
+ * l'indication qu'elles n'en ont pas, et la durée de leur résolution. Seule la
+ * première solution étant conservée, cette méthode ne convient qu'à la
+ * recherche d'une seule solution.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see PuzzleStore
+ * @see ICheck
+ *
+ * @since 1.1
+ */
+public class StoredCheck implements ICheck {
+
+    /**
+     * <p>
+     * Méthode de résolution utilisée lorsque la grille n'est pas dans la
+     * base.</p>
+     *
+     * @since 1.1
+     */
+    private final ICheck _check;
+
+    /**
+     * <p>
+     * Base de grilles consultée puis complétée.</p>
+     *
+     * @since 1.1
+     */
+    private final PuzzleStore _store;
+
+    /**
+     * <p>
+     * Construit une méthode de résolution utilisant une base de grilles.</p>
+     *
+     * @param check La méthode de résolution à utiliser pour les grilles
+     *              absentes de la base
+     * @param store La base de grilles
+     *
+     * @since 1.1
+     */
+    public StoredCheck(ICheck check, PuzzleStore store) {
+        _check = check;
+        _store = store;
+    }
+
+    /**
+     * <p>
+     * Retourne la première solution d'un sudoku à partir de la base si la
+     * grille ou une grille équivalente y est présente, ou à partir de la
+     * méthode de résolution protégée sinon.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @return Les solutions du sudoku ou null s'il n'en a pas
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond pas
+     *                                  à celle de la base
+     * @throws IllegalStateException    Si la base ne peut être complétée
+     *
+     * @since 1.1
+     */
+    @Override
+    public ArrayList<Integer[]> solve(Sudoku sudoku) throws IllegalArgumentException, IllegalStateException {
+        if (sudoku.getSize() != _store.getSize()) {
+            throw new IllegalArgumentException("Sudoku size does not match the store size.");
+        }
+        int width = sudoku.getSize() * sudoku.getSize();
+        int[] grid = new int[width * width];
+        int[] solution = new int[grid.length];
+        sudoku.copyGridTo(grid);
+
+        long index = _store.findSolution(grid, solution);
+        if (index >= 0) {
+            if (!_store.isSolvable(index)) {
+                return null;
+            }
+            ArrayList<Integer[]> solutions = new ArrayList<>(1);
+            solutions.add(box(solution));
+            return solutions;
+        }
+
+        long start = System.nanoTime();
+        ArrayList<Integer[]> solutions = _check.solve(sudoku);
+        long nanos = System.nanoTime() - start;
+        int[] first = null;
+        if (solutions != null && !solutions.isEmpty()) {
+            first = solution;
+            for (int i = 0; i < first.length; ++i) {
+                first[i] = solutions.get(0)[i];
+            }
+        }
+        _store.append(grid, first, nanos);
+        _store.commit();
+        return solutions;
+    }
+
+    /**
+     * <p>
+     * Convertit une grille en tableau d'<code>Integer</code>.</p>
+     *
+     * @param grid La grille
+     *
+     * @return La grille convertie
+     *
+     * @since 1.1
+     */
+    private static Integer[] box(int[] grid) {
+        Integer[] boxed = new Integer[grid.length];
+        for (int i = 0; i < grid.length; ++i) {
+            boxed[i] = grid[i];
+        }
+        return boxed;
+    }
+}
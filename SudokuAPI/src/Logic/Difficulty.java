@@ -0,0 +1,144 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Logic;
+
+/**
+ * <p>
+ * <b><code>Difficulty</code></b> énumère les niveaux de difficulté d'une
+ * grille, déterminés par la technique la plus coûteuse nécessaire à sa
+ * résolution (voir {@link Technique#getCost()}). Une grille que les
+ * techniques de {@link LogicalSolver} ne suffisent pas à résoudre est
+ * {@link #EXTREME}.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Rating
+ * @see Rater
+ *
+ * @since 1.1
+ */
+public enum Difficulty {
+
+    /**
+     * Singletons cachés uniquement.
+     */
+    EASY("facile", Technique.HIDDEN_SINGLE.getCost()),
+    /**
+     * Singletons nus et intersections entre blocs et lignes.
+     */
+    MEDIUM("moyen", Technique.BOX_LINE.getCost()),
+    /**
+     * Paires, triplets et X-wing.
+     */
+    HARD("difficile", Technique.HIDDEN_TRIPLE.getCost()),
+    /**
+     * Quadruplets.
+     */
+    EXPERT("expert", Technique.HIDDEN_QUAD.getCost()),
+    /**
+     * Recherche par essais et erreurs nécessaire.
+     */
+    EXTREME("extreme", Integer.MAX_VALUE);
+
+    /**
+     * <p>
+     * Nom du niveau.</p>
+     *
+     * @since 1.1
+     */
+    private final String _name;
+
+    /**
+     * <p>
+     * Coût maximum d'une technique pour ce niveau.</p>
+     *
+     * @since 1.1
+     */
+    private final int _maxCost;
+
+    /**
+     * <p>
+     * Construit un niveau.</p>
+     *
+     * @param name    Le nom du niveau
+     * @param maxCost Le coût maximum d'une technique pour ce niveau
+     *
+     * @since 1.1
+     */
+    private Difficulty(String name, int maxCost) {
+        _name = name;
+        _maxCost = maxCost;
+    }
+
+    /**
+     * <p>
+     * Retourne le nom du niveau.</p>
+     *
+     * @return Le nom du niveau
+     *
+     * @since 1.1
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * <p>
+     * Retourne le coût maximum d'une technique pour ce niveau.</p>
+     *
+     * @return Le coût maximum, en dixièmes
+     *
+     * @since 1.1
+     */
+    public int getMaxCost() {
+        return _maxCost;
+    }
+
+    /**
+     * <p>
+     * Retourne le niveau correspondant à une résolution.</p>
+     *
+     * @param hardestCost   Le coût de la technique la plus coûteuse employée
+     * @param solvedByLogic Vrai si les techniques ont suffi à remplir la
+     *                      grille
+     *
+     * @return Le niveau
+     *
+     * @since 1.1
+     */
+    public static Difficulty of(int hardestCost, boolean solvedByLogic) {
+        if (!solvedByLogic) {
+            return EXTREME;
+        }
+        for (Difficulty difficulty : values()) {
+            if (hardestCost <= difficulty._maxCost) {
+                return difficulty;
+            }
+        }
+        return EXTREME;
+    }
+
+    /**
+     * <p>
+     * Retourne le niveau portant un nom donné.</p>
+     *
+     * @param name Le nom du niveau
+     *
+     * @return Le niveau
+     *
+     * @throws IllegalArgumentException Si aucun niveau ne porte ce nom
+     *
+     * @since 1.1
+     */
+    public static Difficulty parse(String name) throws IllegalArgumentException {
+        for (Difficulty difficulty : values()) {
+            if (difficulty._name.equalsIgnoreCase(name)) {
+                return difficulty;
+            }
+        }
+        throw new IllegalArgumentException("Unknown difficulty: " + name);
+    }
+}
@@ -0,0 +1,1160 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Logic;
+
+import SudoLib.ISudoku;
+import SudoLib.UnitTable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * <b><code>LogicalSolver</code></b> résout une grille de sudoku comme le ferait
+ * un joueur : à chaque appel de {@link #next()}, il cherche la déduction la
+ * moins coûteuse (voir {@link Technique}) applicable à la grille et la
+ * retourne sous forme d'{@link Step}, accompagnée d'une explication. Aucune
+ * recherche par essais et erreurs n'est faite : si aucune technique ne
+ * s'applique, le solveur s'arrête.</p>
+ *
+ * <p>
+ * Les valeurs possibles de chaque case sont représentées par un
+ * <code>long</code>, la valeur <code>v</code> étant représentée par le bit
+ * <code>v - 1</code> ; le solveur accepte donc les grilles d'au plus 64
+ * valeurs par case. Toutes les structures sont allouées à la construction et
+ * réutilisées à chaque chargement d'une grille, partiellement remplie ou non.
+ * Dans les explications, la case de la ligne <code>l</code> et de la colonne
+ * <code>c</code> est notée <code>LlCc</code>, en comptant à partir de 1.</p>
+ *
+ * <p>
+ * Un <b>LogicalSolver</b> ne doit pas être partagé entre plusieurs
+ * threads.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Step
+ * @see Technique
+ *
+ * @since 1.1
+ */
+public class LogicalSolver {
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc.</p>
+     *
+     * @since 1.1
+     */
+    private final int _size;
+
+    /**
+     * <p>
+     * Nombre de cases d'une unité.</p>
+     *
+     * @since 1.1
+     */
+    private final int _width;
+
+    /**
+     * <p>
+     * Nombre de cases de la grille.</p>
+     *
+     * @since 1.1
+     */
+    private final int _nbCells;
+
+    /**
+     * <p>
+     * Ensemble de toutes les valeurs.</p>
+     *
+     * @since 1.1
+     */
+    private final long _full;
+
+    /**
+     * <p>
+     * Table des unités de la grille.</p>
+     *
+     * @since 1.1
+     */
+    private final UnitTable _units;
+
+    /**
+     * <p>
+     * Cases de chaque unité, recopiées de {@link #_units} pour être lues sans
+     * appel de méthode dans les parcours.</p>
+     *
+     * @see UnitTable#getUnitCell(int, int)
+     *
+     * @since 1.1
+     */
+    private final int[] _unitCells;
+
+    /**
+     * <p>
+     * Nombre de voisins d'une case.</p>
+     *
+     * @since 1.1
+     */
+    private final int _nbPeers;
+
+    /**
+     * <p>
+     * Voisins de chaque case, rangés par paquets de {@link #_nbPeers},
+     * recopiés de {@link #_units}.</p>
+     *
+     * @see UnitTable#getPeer(int, int)
+     *
+     * @since 1.1
+     */
+    private final int[] _peers;
+
+    /**
+     * <p>
+     * Ligne, colonne et bloc de chaque case, rangés par paquets de 3.</p>
+     *
+     * @see UnitTable#getUnit(int, int)
+     *
+     * @since 1.1
+     */
+    private final int[] _cellUnits;
+
+    /**
+     * <p>
+     * Grille courante, 0 pour une case vide.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _grid;
+
+    /**
+     * <p>
+     * Valeurs possibles de chaque case vide, 0 pour une case remplie.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _candidates;
+
+    /**
+     * <p>
+     * Valeurs déjà posées dans chaque unité.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _present;
+
+    /**
+     * <p>
+     * Cases retenues pour l'étape en cours de construction.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _stepCells;
+
+    /**
+     * <p>
+     * Valeurs retirées de chaque case de l'étape en cours de
+     * construction.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _stepMasks;
+
+    /**
+     * <p>
+     * Positions de chaque valeur dans l'unité examinée, ou cases de l'unité
+     * examinée retenues pour un sous-ensemble nu.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _positions;
+
+    /**
+     * <p>
+     * Cases ou valeurs du sous-ensemble en cours de construction.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _chosen;
+
+    /**
+     * <p>
+     * Nombre de cases de l'étape en cours de construction.</p>
+     *
+     * @since 1.1
+     */
+    private int _stepSize;
+
+    /**
+     * <p>
+     * Nombre de cases remplies.</p>
+     *
+     * @since 1.1
+     */
+    private int _filled;
+
+    /**
+     * <p>
+     * Vrai si la grille est contradictoire : deux valeurs identiques dans une
+     * unité, une case sans valeur possible ou une valeur sans place dans une
+     * unité.</p>
+     *
+     * @since 1.1
+     */
+    private boolean _contradicted;
+
+    /**
+     * <p>
+     * Construit un solveur pour les sudokus dont l'arête d'un bloc mesure
+     * <code>size</code>.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @throws IllegalArgumentException Si la taille est inférieure à 1 ou si
+     *                                  une case admet plus de 64 valeurs
+     *
+     * @since 1.1
+     */
+    public LogicalSolver(int size) throws IllegalArgumentException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be strictly superior to 0.");
+        }
+        if (size * size > 64) {
+            throw new IllegalArgumentException("Logical solver supports at most 64 values per cell.");
+        }
+        _size = size;
+        _width = size * size;
+        _nbCells = _width * _width;
+        _full = _width == 64 ? -1L : (1L << _width) - 1;
+        _units = UnitTable.of(size);
+        _unitCells = new int[_units.getNbUnits() * _width];
+        for (int unit = 0; unit < _units.getNbUnits(); ++unit) {
+            for (int k = 0; k < _width; ++k) {
+                _unitCells[unit * _width + k] = _units.getUnitCell(unit, k);
+            }
+        }
+        _nbPeers = _units.getNbPeers();
+        _peers = new int[_nbCells * _nbPeers];
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            for (int k = 0; k < _nbPeers; ++k) {
+                _peers[cell * _nbPeers + k] = _units.getPeer(cell, k);
+            }
+        }
+        _cellUnits = new int[3 * _nbCells];
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            for (int k = 0; k < 3; ++k) {
+                _cellUnits[3 * cell + k] = _units.getUnit(cell, k);
+            }
+        }
+        _grid = new int[_nbCells];
+        _candidates = new long[_nbCells];
+        _present = new long[_units.getNbUnits()];
+        _stepCells = new int[_nbCells];
+        _stepMasks = new long[_nbCells];
+        _positions = new long[_width];
+        _chosen = new int[4];
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return _size;
+    }
+
+    /**
+     * <p>
+     * Charge la grille d'un sudoku, remplie ou non. Les déductions
+     * précédentes sont oubliées.</p>
+     *
+     * @param sudoku Le sudoku à charger
+     *
+     * @return Faux si la grille est contradictoire
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas à celle du solveur
+     *
+     * @since 1.1
+     */
+    public boolean load(ISudoku sudoku) throws IllegalArgumentException {
+        if (sudoku.getSize() != _size) {
+            throw new IllegalArgumentException("Sudoku size does not match the solver size.");
+        }
+        clear();
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            int value = sudoku.getValueAt(cell);
+            if (value != 0) {
+                place(cell, value - 1);
+            }
+        }
+        return !_contradicted;
+    }
+
+    /**
+     * <p>
+     * Charge une grille, remplie ou non. Les déductions précédentes sont
+     * oubliées.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne, 0 pour une case vide
+     *
+     * @return Faux si la grille est contradictoire
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille ou contient une valeur invalide
+     *
+     * @since 1.1
+     */
+    public boolean load(int[] grid) throws IllegalArgumentException {
+        if (grid.length != _nbCells) {
+            throw new IllegalArgumentException("Array sizes do not match the grid size.");
+        }
+        clear();
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            if (grid[cell] < 0 || grid[cell] > _width) {
+                throw new IllegalArgumentException("Invalid value in the grid.");
+            }
+            if (grid[cell] != 0) {
+                place(cell, grid[cell] - 1);
+            }
+        }
+        return !_contradicted;
+    }
+
+    /**
+     * <p>
+     * Retourne la prochaine déduction applicable à la grille, sans
+     * l'appliquer. Les techniques sont essayées de la moins coûteuse à la plus
+     * coûteuse.</p>
+     *
+     * @return La déduction, ou null si la grille est remplie, contradictoire
+     *         ou si aucune technique ne s'applique
+     *
+     * @see #apply(Logic.Step)
+     *
+     * @since 1.1
+     */
+    public Step next() {
+        for (Technique technique : Technique.values()) {
+            if (_contradicted || _filled == _nbCells) {
+                return null;
+            }
+            Step step = find(technique);
+            if (step != null) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Applique une déduction à la grille.</p>
+     *
+     * @param step La déduction, trouvée par ce solveur sur la grille courante
+     *
+     * @since 1.1
+     */
+    public void apply(Step step) {
+        if (step.isPlacement()) {
+            if (_grid[step.getCell()] == 0) {
+                place(step.getCell(), step.getValue() - 1);
+            }
+            return;
+        }
+        for (int k = 0; k < step.getNbCells(); ++k) {
+            int cell = step.getCell(k);
+            if (_grid[cell] == 0) {
+                _candidates[cell] &= ~step.getMask(k);
+                if (_candidates[cell] == 0) {
+                    _contradicted = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Applique les déductions les unes après les autres tant qu'une
+     * technique s'applique.</p>
+     *
+     * @return Les déductions appliquées, dans l'ordre
+     *
+     * @since 1.1
+     */
+    public ArrayList<Step> solve() {
+        ArrayList<Step> steps = new ArrayList<>();
+        Step step;
+        while ((step = next()) != null) {
+            apply(step);
+            steps.add(step);
+        }
+        return steps;
+    }
+
+    /**
+     * <p>
+     * Applique les déductions jusqu'à la première pose d'une valeur. Les
+     * retraits de valeurs possibles qui la précèdent sont retournés avec elle
+     * et conservés par le solveur, de sorte qu'un appel suivant reprend là où
+     * celui-ci s'est arrêté.</p>
+     *
+     * @return Les déductions appliquées, la dernière étant une pose ; une
+     *         liste vide si la grille est remplie, contradictoire ou si aucune
+     *         technique ne s'applique
+     *
+     * @since 1.1
+     */
+    public ArrayList<Step> hint() {
+        ArrayList<Step> steps = new ArrayList<>();
+        Step step;
+        while ((step = next()) != null) {
+            apply(step);
+            steps.add(step);
+            if (step.isPlacement()) {
+                return steps;
+            }
+        }
+        steps.clear();
+        return steps;
+    }
+
+    /**
+     * <p>
+     * Pose en un seul parcours toutes les valeurs n'ayant plus qu'une place
+     * dans une unité, sans construire d'étapes.</p>
+     *
+     * @return Le nombre de valeurs posées
+     *
+     * @see Technique#HIDDEN_SINGLE
+     *
+     * @since 1.1
+     */
+    int placeHiddenSingles() {
+        int placed = 0;
+        for (int unit = 0; unit < 3 * _width && !_contradicted; ++unit) {
+            long once = 0;
+            long twice = 0;
+            for (int k = unit * _width, end = k + _width; k < end; ++k) {
+                long candidates = _candidates[_unitCells[k]];
+                twice |= once & candidates;
+                once |= candidates;
+            }
+            if ((once | _present[unit]) != _full) {
+                _contradicted = true;
+                break;
+            }
+            for (long singles = once & ~twice; singles != 0; singles &= singles - 1) {
+                long bit = singles & -singles;
+                for (int k = 0; k < _width; ++k) {
+                    int cell = _unitCells[unit * _width + k];
+                    if ((_candidates[cell] & bit) != 0) {
+                        place(cell, Long.numberOfTrailingZeros(bit));
+                        ++placed;
+                        break;
+                    }
+                }
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * <p>
+     * Pose en un seul parcours toutes les valeurs des cases n'ayant plus
+     * qu'une valeur possible, sans construire d'étapes.</p>
+     *
+     * @return Le nombre de valeurs posées
+     *
+     * @see Technique#NAKED_SINGLE
+     *
+     * @since 1.1
+     */
+    int placeNakedSingles() {
+        int placed = 0;
+        for (int cell = 0; cell < _nbCells && !_contradicted; ++cell) {
+            long candidates = _candidates[cell];
+            if (candidates != 0 && (candidates & (candidates - 1)) == 0) {
+                place(cell, Long.numberOfTrailingZeros(candidates));
+                ++placed;
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * <p>
+     * Indique si la grille est entièrement remplie.</p>
+     *
+     * @return Vrai si toutes les cases sont remplies
+     *
+     * @since 1.1
+     */
+    public boolean isSolved() {
+        return _filled == _nbCells && !_contradicted;
+    }
+
+    /**
+     * <p>
+     * Indique si une contradiction a été détectée dans la grille.</p>
+     *
+     * @return Vrai si la grille n'admet aucune solution
+     *
+     * @since 1.1
+     */
+    public boolean isContradicted() {
+        return _contradicted;
+    }
+
+    /**
+     * <p>
+     * Retourne la valeur d'une case.</p>
+     *
+     * @param cell L'indice de la case
+     *
+     * @return La valeur, 0 si la case est vide
+     *
+     * @since 1.1
+     */
+    public int getValueAt(int cell) {
+        return _grid[cell];
+    }
+
+    /**
+     * <p>
+     * Retourne les valeurs encore possibles d'une case, compte tenu des
+     * déductions appliquées.</p>
+     *
+     * @param cell L'indice de la case
+     *
+     * @return Le masque des valeurs possibles, 0 si la case est remplie
+     *
+     * @since 1.1
+     */
+    public long getCandidates(int cell) {
+        return _candidates[cell];
+    }
+
+    /**
+     * <p>
+     * Recopie la grille courante dans un tableau.</p>
+     *
+     * @param dst Le tableau de destination
+     *
+     * @throws IllegalArgumentException Si le tableau est trop petit
+     *
+     * @since 1.1
+     */
+    public void copyGridTo(int[] dst) throws IllegalArgumentException {
+        if (dst.length < _nbCells) {
+            throw new IllegalArgumentException("Destination array is too small.");
+        }
+        System.arraycopy(_grid, 0, dst, 0, _nbCells);
+    }
+
+    /**
+     * <p>
+     * Vide la grille.</p>
+     *
+     * @since 1.1
+     */
+    private void clear() {
+        Arrays.fill(_grid, 0);
+        Arrays.fill(_candidates, _full);
+        Arrays.fill(_present, 0L);
+        _filled = 0;
+        _contradicted = false;
+    }
+
+    /**
+     * <p>
+     * Remplit une case et retire la valeur des cases voisines.</p>
+     *
+     * @param cell  L'indice de la case
+     * @param digit La valeur, entre 0 et <code>width - 1</code>
+     *
+     * @since 1.1
+     */
+    private void place(int cell, int digit) {
+        long bit = 1L << digit;
+        if ((_candidates[cell] & bit) == 0) {
+            _contradicted = true;
+        }
+        _grid[cell] = digit + 1;
+        _candidates[cell] = 0;
+        ++_filled;
+        _present[_cellUnits[3 * cell]] |= bit;
+        _present[_cellUnits[3 * cell + 1]] |= bit;
+        _present[_cellUnits[3 * cell + 2]] |= bit;
+        for (int k = cell * _nbPeers, end = k + _nbPeers; k < end; ++k) {
+            int peer = _peers[k];
+            long candidates = _candidates[peer];
+            if ((candidates & bit) != 0) {
+                _candidates[peer] = candidates & ~bit;
+                if (candidates == bit) {
+                    _contradicted = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Cherche une déduction utilisant une technique donnée.</p>
+     *
+     * @param technique La technique
+     *
+     * @return La déduction ou null
+     *
+     * @since 1.1
+     */
+    private Step find(Technique technique) {
+        switch (technique) {
+            case HIDDEN_SINGLE:
+                return hiddenSingle();
+            case NAKED_SINGLE:
+                return nakedSingle();
+            case POINTING:
+                return intersection(true);
+            case BOX_LINE:
+                return intersection(false);
+            case X_WING:
+                return xWing();
+            case NAKED_PAIR:
+                return naked(2);
+            case NAKED_TRIPLE:
+                return naked(3);
+            case NAKED_QUAD:
+                return naked(4);
+            case HIDDEN_PAIR:
+                return hidden(2);
+            case HIDDEN_TRIPLE:
+                return hidden(3);
+            default:
+                return hidden(4);
+        }
+    }
+
+    /**
+     * <p>
+     * Cherche une valeur n'ayant plus qu'une place dans une unité. Une valeur
+     * n'ayant plus aucune place rend la grille contradictoire.</p>
+     *
+     * @return La pose ou null
+     *
+     * @since 1.1
+     */
+    private Step hiddenSingle() {
+        for (int unit = 0; unit < 3 * _width; ++unit) {
+            long once = 0;
+            long twice = 0;
+            for (int k = unit * _width, end = k + _width; k < end; ++k) {
+                long candidates = _candidates[_unitCells[k]];
+                twice |= once & candidates;
+                once |= candidates;
+            }
+            if ((once | _present[unit]) != _full) {
+                _contradicted = true;
+                return null;
+            }
+            long single = once & ~twice;
+            if (single != 0) {
+                int digit = Long.numberOfTrailingZeros(single);
+                for (int k = 0; k < _width; ++k) {
+                    int cell = _unitCells[unit * _width + k];
+                    if ((_candidates[cell] & single & -single) != 0) {
+                        return placement(Technique.HIDDEN_SINGLE, cell, digit,
+                                "le " + (digit + 1) + " n'a qu'une place dans " + unitName(unit));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Cherche une case n'ayant plus qu'une valeur possible.</p>
+     *
+     * @return La pose ou null
+     *
+     * @since 1.1
+     */
+    private Step nakedSingle() {
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            long candidates = _candidates[cell];
+            if (candidates != 0 && (candidates & (candidates - 1)) == 0) {
+                int digit = Long.numberOfTrailingZeros(candidates);
+                return placement(Technique.NAKED_SINGLE, cell, digit,
+                        "la case " + cellName(cell) + " n'accepte plus que le " + (digit + 1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Cherche une valeur limitée, dans un bloc, à une ligne ou une colonne
+     * (paire pointante), ou limitée, dans une ligne ou une colonne, à un bloc
+     * (réduction ligne/bloc).</p>
+     *
+     * @param pointing Vrai pour les paires pointantes, faux pour les
+     *                 réductions ligne/bloc
+     *
+     * @return Les retraits ou null
+     *
+     * @since 1.1
+     */
+    private Step intersection(boolean pointing) {
+        for (int box = 0; box < _width; ++box) {
+            int boxUnit = 2 * _width + box;
+            for (int kind = 0; kind < 2; ++kind) {
+                for (int i = 0; i < _size; ++i) {
+                    long inside = 0;
+                    long restBox = 0;
+                    int line = -1;
+                    for (int k = 0; k < _width; ++k) {
+                        int cell = _unitCells[boxUnit * _width + k];
+                        if ((kind == 0 ? k / _size : k % _size) == i) {
+                            inside |= _candidates[cell];
+                            line = _units.getUnit(cell, kind);
+                        } else {
+                            restBox |= _candidates[cell];
+                        }
+                    }
+                    long restLine = 0;
+                    for (int k = 0; k < _width; ++k) {
+                        int cell = _unitCells[line * _width + k];
+                        if (_units.boxOf(cell) != box) {
+                            restLine |= _candidates[cell];
+                        }
+                    }
+                    long digits = pointing ? inside & ~restBox & restLine : inside & ~restLine & restBox;
+                    if (digits != 0) {
+                        long bit = digits & -digits;
+                        _stepSize = 0;
+                        int target = pointing ? line : boxUnit;
+                        for (int k = 0; k < _width; ++k) {
+                            int cell = _unitCells[target * _width + k];
+                            boolean outside = pointing
+                                    ? _units.boxOf(cell) != box
+                                    : _units.getUnit(cell, kind) != line;
+                            if (outside && (_candidates[cell] & bit) != 0) {
+                                eliminate(cell, bit);
+                            }
+                        }
+                        int digit = Long.numberOfTrailingZeros(bit) + 1;
+                        return pointing
+                                ? elimination(Technique.POINTING, "dans " + unitName(boxUnit)
+                                        + ", le " + digit + " est limité à " + unitName(line)
+                                        + " ; il est retiré du reste de " + unitName(line))
+                                : elimination(Technique.BOX_LINE, "dans " + unitName(line)
+                                        + ", le " + digit + " est limité à " + unitName(boxUnit)
+                                        + " ; il est retiré du reste de " + unitName(boxUnit));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Cherche une valeur limitée aux deux mêmes colonnes dans deux lignes, ou
+     * aux deux mêmes lignes dans deux colonnes.</p>
+     *
+     * @return Les retraits ou null
+     *
+     * @since 1.1
+     */
+    private Step xWing() {
+        for (int digit = 0; digit < _width; ++digit) {
+            long bit = 1L << digit;
+            for (int kind = 0; kind < 2; ++kind) {
+                for (int i = 0; i < _width; ++i) {
+                    _positions[i] = positions(kind * _width + i, bit);
+                }
+                for (int first = 0; first < _width; ++first) {
+                    long columns = _positions[first];
+                    if (Long.bitCount(columns) != 2) {
+                        continue;
+                    }
+                    for (int second = first + 1; second < _width; ++second) {
+                        if (_positions[second] != columns) {
+                            continue;
+                        }
+                        _stepSize = 0;
+                        for (long rest = columns; rest != 0; rest &= rest - 1) {
+                            int cover = (1 - kind) * _width + Long.numberOfTrailingZeros(rest);
+                            for (int k = 0; k < _width; ++k) {
+                                int cell = _unitCells[cover * _width + k];
+                                if (k != first && k != second && (_candidates[cell] & bit) != 0) {
+                                    eliminate(cell, bit);
+                                }
+                            }
+                        }
+                        if (_stepSize > 0) {
+                            int low = (1 - kind) * _width + Long.numberOfTrailingZeros(columns);
+                            int high = (1 - kind) * _width + 63 - Long.numberOfLeadingZeros(columns);
+                            return elimination(Technique.X_WING, "dans " + unitName(kind * _width + first)
+                                    + " et " + unitName(kind * _width + second) + ", le " + (digit + 1)
+                                    + " est limité à " + unitName(low) + " et " + unitName(high)
+                                    + " ; il est retiré du reste de ces deux unités");
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Cherche, dans une unité, <code>n</code> cases n'acceptant que
+     * <code>n</code> valeurs.</p>
+     *
+     * @param n La taille du sous-ensemble, entre 2 et 4
+     *
+     * @return Les retraits ou null
+     *
+     * @since 1.1
+     */
+    private Step naked(int n) {
+        for (int unit = 0; unit < 3 * _width; ++unit) {
+            int members = 0;
+            for (int k = 0; k < _width; ++k) {
+                long candidates = _candidates[_unitCells[unit * _width + k]];
+                int count = Long.bitCount(candidates);
+                if (count >= 2 && count <= n) {
+                    _positions[members++] = k;
+                }
+            }
+            if (members >= n) {
+                Step step = naked(unit, n, members, 0, 0, 0L);
+                if (step != null) {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Complète récursivement un sous-ensemble nu parmi les cases retenues
+     * d'une unité.</p>
+     *
+     * @param unit    L'unité
+     * @param n       La taille du sous-ensemble
+     * @param members Le nombre de cases retenues
+     * @param start   La première case retenue pouvant encore être choisie
+     * @param depth   Le nombre de cases déjà choisies
+     * @param union   Les valeurs possibles des cases déjà choisies
+     *
+     * @return Les retraits ou null
+     *
+     * @since 1.1
+     */
+    private Step naked(int unit, int n, int members, int start, int depth, long union) {
+        if (depth == n) {
+            _stepSize = 0;
+            for (int k = 0; k < _width; ++k) {
+                int cell = _unitCells[unit * _width + k];
+                if (!isChosen(k, n) && (_candidates[cell] & union) != 0) {
+                    eliminate(cell, _candidates[cell] & union);
+                }
+            }
+            if (_stepSize == 0) {
+                return null;
+            }
+            return elimination(Technique.naked(n), "les cases " + chosenCells(unit, n)
+                    + " de " + unitName(unit) + " n'acceptent que " + digitList(union)
+                    + " ; ces valeurs sont retirées des autres cases de l'unité");
+        }
+        for (int m = start; m <= members - (n - depth); ++m) {
+            long next = union | _candidates[_unitCells[unit * _width + (int) _positions[m]]];
+            if (Long.bitCount(next) <= n) {
+                _chosen[depth] = (int) _positions[m];
+                Step step = naked(unit, n, members, m + 1, depth + 1, next);
+                if (step != null) {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Cherche, dans une unité, <code>n</code> valeurs limitées aux
+     * <code>n</code> mêmes cases.</p>
+     *
+     * @param n La taille du sous-ensemble, entre 2 et 4
+     *
+     * @return Les retraits ou null
+     *
+     * @since 1.1
+     */
+    private Step hidden(int n) {
+        for (int unit = 0; unit < 3 * _width; ++unit) {
+            int empty = 0;
+            for (int digit = 0; digit < _width; ++digit) {
+                _positions[digit] = positions(unit, 1L << digit);
+            }
+            for (int k = 0; k < _width; ++k) {
+                if (_grid[_unitCells[unit * _width + k]] == 0) {
+                    ++empty;
+                }
+            }
+            if (empty > n) {
+                Step step = hidden(unit, n, 0, 0, 0L, 0L);
+                if (step != null) {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Complète récursivement un sous-ensemble caché parmi les valeurs d'une
+     * unité.</p>
+     *
+     * @param unit   L'unité
+     * @param n      La taille du sous-ensemble
+     * @param start  La première valeur pouvant encore être choisie
+     * @param depth  Le nombre de valeurs déjà choisies
+     * @param digits Les valeurs déjà choisies
+     * @param union  Les positions dans l'unité des valeurs déjà choisies
+     *
+     * @return Les retraits ou null
+     *
+     * @since 1.1
+     */
+    private Step hidden(int unit, int n, int start, int depth, long digits, long union) {
+        if (depth == n) {
+            if (Long.bitCount(union) != n) {
+                return null;
+            }
+            _stepSize = 0;
+            for (long rest = union; rest != 0; rest &= rest - 1) {
+                int cell = _unitCells[unit * _width + Long.numberOfTrailingZeros(rest)];
+                if ((_candidates[cell] & ~digits) != 0) {
+                    eliminate(cell, _candidates[cell] & ~digits);
+                }
+            }
+            if (_stepSize == 0) {
+                return null;
+            }
+            int k = 0;
+            for (long rest = union; rest != 0; rest &= rest - 1) {
+                _chosen[k++] = Long.numberOfTrailingZeros(rest);
+            }
+            return elimination(Technique.hidden(n), "dans " + unitName(unit) + ", " + digitList(digits)
+                    + " sont limités aux cases " + chosenCells(unit, n)
+                    + " ; les autres valeurs sont retirées de ces cases");
+        }
+        for (int digit = start; digit < _width; ++digit) {
+            int count = Long.bitCount(_positions[digit]);
+            if (count < 2 || count > n) {
+                continue;
+            }
+            long next = union | _positions[digit];
+            if (Long.bitCount(next) <= n) {
+                Step step = hidden(unit, n, digit + 1, depth + 1, digits | 1L << digit, next);
+                if (step != null) {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Retourne les positions dans une unité des cases acceptant une
+     * valeur.</p>
+     *
+     * @param unit L'unité
+     * @param bit  Le bit de la valeur
+     *
+     * @return Le masque des positions
+     *
+     * @since 1.1
+     */
+    private long positions(int unit, long bit) {
+        long positions = 0;
+        for (int k = 0; k < _width; ++k) {
+            if ((_candidates[_unitCells[unit * _width + k]] & bit) != 0) {
+                positions |= 1L << k;
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * <p>
+     * Indique si une position d'une unité fait partie du sous-ensemble
+     * choisi.</p>
+     *
+     * @param k La position
+     * @param n La taille du sous-ensemble
+     *
+     * @return Vrai si la position a été choisie
+     *
+     * @since 1.1
+     */
+    private boolean isChosen(int k, int n) {
+        for (int i = 0; i < n; ++i) {
+            if (_chosen[i] == k) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Ajoute un retrait à l'étape en cours de construction.</p>
+     *
+     * @param cell La case
+     * @param mask Les valeurs retirées
+     *
+     * @since 1.1
+     */
+    private void eliminate(int cell, long mask) {
+        _stepCells[_stepSize] = cell;
+        _stepMasks[_stepSize] = mask;
+        ++_stepSize;
+    }
+
+    /**
+     * <p>
+     * Construit une pose.</p>
+     *
+     * @param technique La technique employée
+     * @param cell      La case
+     * @param digit     La valeur, entre 0 et <code>width - 1</code>
+     * @param reason    La justification
+     *
+     * @return La pose
+     *
+     * @since 1.1
+     */
+    private Step placement(Technique technique, int cell, int digit, String reason) {
+        return new Step(technique, true, new int[]{cell}, new long[]{1L << digit},
+                technique.getName() + " : " + reason + ", " + cellName(cell) + " = " + (digit + 1) + ".");
+    }
+
+    /**
+     * <p>
+     * Construit les retraits à partir de l'étape en cours de
+     * construction.</p>
+     *
+     * @param technique La technique employée
+     * @param reason    La justification
+     *
+     * @return Les retraits
+     *
+     * @since 1.1
+     */
+    private Step elimination(Technique technique, String reason) {
+        StringBuilder s = new StringBuilder(technique.getName()).append(" : ").append(reason).append(" (");
+        for (int k = 0; k < _stepSize; ++k) {
+            if (k > 0) {
+                s.append(", ");
+            }
+            s.append(cellName(_stepCells[k])).append(" ≠ ").append(digitList(_stepMasks[k]));
+        }
+        s.append(").");
+        return new Step(technique, false, Arrays.copyOf(_stepCells, _stepSize),
+                Arrays.copyOf(_stepMasks, _stepSize), s.toString());
+    }
+
+    /**
+     * <p>
+     * Retourne le nom d'une case.</p>
+     *
+     * @param cell La case
+     *
+     * @return Le nom de la case, <code>LlCc</code>
+     *
+     * @since 1.1
+     */
+    private String cellName(int cell) {
+        return "L" + (_units.rowOf(cell) + 1) + "C" + (_units.colOf(cell) + 1);
+    }
+
+    /**
+     * <p>
+     * Retourne les noms des cases choisies d'une unité.</p>
+     *
+     * @param unit L'unité
+     * @param n    Le nombre de cases choisies
+     *
+     * @return Les noms des cases, séparés par des virgules
+     *
+     * @since 1.1
+     */
+    private String chosenCells(int unit, int n) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < n; ++i) {
+            if (i > 0) {
+                s.append(", ");
+            }
+            s.append(cellName(_unitCells[unit * _width + _chosen[i]]));
+        }
+        return s.toString();
+    }
+
+    /**
+     * <p>
+     * Retourne le nom d'une unité.</p>
+     *
+     * @param unit L'unité
+     *
+     * @return Le nom de l'unité, précédé de son article
+     *
+     * @since 1.1
+     */
+    private String unitName(int unit) {
+        if (unit < _width) {
+            return "la ligne " + (unit + 1);
+        }
+        if (unit < 2 * _width) {
+            return "la colonne " + (unit - _width + 1);
+        }
+        return "le bloc " + (unit - 2 * _width + 1);
+    }
+
+    /**
+     * <p>
+     * Retourne la liste des valeurs d'un masque.</p>
+     *
+     * @param mask Le masque
+     *
+     * @return Les valeurs, entre accolades s'il y en a plusieurs
+     *
+     * @since 1.1
+     */
+    private static String digitList(long mask) {
+        if ((mask & (mask - 1)) == 0) {
+            return Integer.toString(Long.numberOfTrailingZeros(mask) + 1);
+        }
+        StringBuilder s = new StringBuilder("{");
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            if (rest != mask) {
+                s.append(", ");
+            }
+            s.append(Long.numberOfTrailingZeros(rest) + 1);
+        }
+        return s.append('}').toString();
+    }
+}
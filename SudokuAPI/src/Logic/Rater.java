@@ -0,0 +1,125 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Logic;
+
+import BSBT.BitSetBTCheck;
+import SudoLib.ISudoku;
+
+/**
+ * <p>
+ * <b><code>Rater</code></b> note des grilles de sudoku (voir {@link Rating}).
+ * Chaque grille est d'abord résolue par un {@link LogicalSolver}, ce qui donne
+ * la technique la plus coûteuse nécessaire. Les déductions étant valables pour
+ * toutes les solutions, une grille que le solveur remplit admet une unique
+ * solution et ne demande aucune recherche. Sinon, la grille est résolue par un
+ * {@link BitSetBTCheck} cherchant deux solutions, ce qui établit l'unicité de
+ * la solution et mesure l'effort de recherche.</p>
+ *
+ * <p>
+ * Les singletons, qui forment l'essentiel des étapes, sont posés en bloc sans
+ * construire d'{@link Step} ; seules les techniques plus coûteuses passent par
+ * {@link LogicalSolver#next()}. Les deux moteurs sont alloués à la
+ * construction et réarmés pour chaque grille, de sorte qu'un <b>Rater</b>
+ * note plusieurs dizaines de milliers de grilles 9x9 par seconde. Un
+ * <b>Rater</b> ne doit pas être partagé entre plusieurs threads.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Rating
+ * @see Difficulty
+ *
+ * @since 1.1
+ */
+public class Rater {
+
+    /**
+     * <p>
+     * Moteur de recherche, limité à deux solutions.</p>
+     *
+     * @since 1.1
+     */
+    private final BitSetBTCheck _check;
+
+    /**
+     * <p>
+     * Moteur de résolution logique.</p>
+     *
+     * @since 1.1
+     */
+    private final LogicalSolver _solver;
+
+    /**
+     * <p>
+     * Construit un outil de notation pour les sudokus dont l'arête d'un bloc
+     * mesure <code>size</code>.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @throws IllegalArgumentException Si la taille est inférieure à 1 ou si
+     *                                  une case admet plus de 64 valeurs
+     *
+     * @since 1.1
+     */
+    public Rater(int size) throws IllegalArgumentException {
+        _check = new BitSetBTCheck(size, 2);
+        _solver = new LogicalSolver(size);
+    }
+
+    /**
+     * <p>
+     * Note la grille d'un sudoku.</p>
+     *
+     * @param sudoku Le sudoku
+     *
+     * @return La note de la grille
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas à celle de l'outil
+     *
+     * @since 1.1
+     */
+    public Rating rate(ISudoku sudoku) throws IllegalArgumentException {
+        if (!_solver.load(sudoku)) {
+            return new Rating(0, null, 0, 0, false, 0, 0);
+        }
+
+        Technique hardest = null;
+        long totalCost = 0;
+        int nbSteps = 0;
+        while (!_solver.isSolved() && !_solver.isContradicted()) {
+            Technique technique = Technique.HIDDEN_SINGLE;
+            int placed = _solver.placeHiddenSingles();
+            if (placed == 0) {
+                technique = Technique.NAKED_SINGLE;
+                placed = _solver.placeNakedSingles();
+            }
+            if (placed == 0) {
+                Step step = _solver.next();
+                if (step == null) {
+                    break;
+                }
+                _solver.apply(step);
+                technique = step.getTechnique();
+                placed = 1;
+            }
+            if (hardest == null || technique.getCost() > hardest.getCost()) {
+                hardest = technique;
+            }
+            totalCost += (long) technique.getCost() * placed;
+            nbSteps += placed;
+        }
+        if (_solver.isSolved()) {
+            return new Rating(1, hardest, totalCost, nbSteps, true, 0, 0);
+        }
+        if (_solver.isContradicted()) {
+            return new Rating(0, null, 0, 0, false, 0, 0);
+        }
+
+        int nbSolutions = _check.reset(sudoku) ? _check.run() : 0;
+        return new Rating(nbSolutions, nbSolutions == 1 ? hardest : null, totalCost, nbSteps, false,
+                _check.getNbNodes(), _check.getNbBacktracks());
+    }
+}
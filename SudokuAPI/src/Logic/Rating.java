@@ -0,0 +1,261 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Logic;
+
+/**
+ * <p>
+ * <b><code>Rating</code></b> est la note d'une grille calculée par
+ * {@link Rater} : nombre de solutions, technique la plus coûteuse nécessaire
+ * à une résolution logique, et effort d'une recherche par essais et erreurs
+ * (noeuds visités et retours en arrière).</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Rater
+ * @see Difficulty
+ *
+ * @since 1.1
+ */
+public final class Rating {
+
+    /**
+     * <p>
+     * Note de base des grilles nécessitant une recherche, supérieure au coût
+     * de toutes les techniques.</p>
+     *
+     * @since 1.1
+     */
+    public static final int SEARCH_SCORE = 60;
+
+    /**
+     * <p>
+     * Nombre de solutions, 2 signifiant au moins deux.</p>
+     *
+     * @since 1.1
+     */
+    private final int _nbSolutions;
+
+    /**
+     * <p>
+     * Technique la plus coûteuse employée, null si aucune étape n'a été
+     * nécessaire.</p>
+     *
+     * @since 1.1
+     */
+    private final Technique _hardest;
+
+    /**
+     * <p>
+     * Somme des coûts des étapes.</p>
+     *
+     * @since 1.1
+     */
+    private final long _totalCost;
+
+    /**
+     * <p>
+     * Nombre d'étapes de la résolution logique.</p>
+     *
+     * @since 1.1
+     */
+    private final int _nbSteps;
+
+    /**
+     * <p>
+     * Vrai si les techniques ont suffi à remplir la grille.</p>
+     *
+     * @since 1.1
+     */
+    private final boolean _solvedByLogic;
+
+    /**
+     * <p>
+     * Nombre de noeuds visités par la recherche.</p>
+     *
+     * @since 1.1
+     */
+    private final long _nodes;
+
+    /**
+     * <p>
+     * Nombre de retours en arrière de la recherche.</p>
+     *
+     * @since 1.1
+     */
+    private final long _backtracks;
+
+    /**
+     * <p>
+     * Construit une note.</p>
+     *
+     * @param nbSolutions   Le nombre de solutions, au plus 2
+     * @param hardest       La technique la plus coûteuse employée ou null
+     * @param totalCost     La somme des coûts des étapes
+     * @param nbSteps       Le nombre d'étapes
+     * @param solvedByLogic Vrai si les techniques ont suffi
+     * @param nodes         Le nombre de noeuds visités par la recherche
+     * @param backtracks    Le nombre de retours en arrière de la recherche
+     *
+     * @since 1.1
+     */
+    Rating(int nbSolutions, Technique hardest, long totalCost, int nbSteps, boolean solvedByLogic,
+            long nodes, long backtracks) {
+        _nbSolutions = nbSolutions;
+        _hardest = hardest;
+        _totalCost = totalCost;
+        _nbSteps = nbSteps;
+        _solvedByLogic = solvedByLogic;
+        _nodes = nodes;
+        _backtracks = backtracks;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de solutions de la grille.</p>
+     *
+     * @return 0, 1, ou 2 pour au moins deux solutions
+     *
+     * @since 1.1
+     */
+    public int getNbSolutions() {
+        return _nbSolutions;
+    }
+
+    /**
+     * <p>
+     * Indique si la grille admet une unique solution.</p>
+     *
+     * @return Vrai si la solution est unique
+     *
+     * @since 1.1
+     */
+    public boolean isUnique() {
+        return _nbSolutions == 1;
+    }
+
+    /**
+     * <p>
+     * Retourne la technique la plus coûteuse employée.</p>
+     *
+     * @return La technique, null si la grille était déjà remplie
+     *
+     * @since 1.1
+     */
+    public Technique getHardest() {
+        return _hardest;
+    }
+
+    /**
+     * <p>
+     * Retourne la somme des coûts des étapes de la résolution logique.</p>
+     *
+     * @return La somme des coûts, en dixièmes
+     *
+     * @since 1.1
+     */
+    public long getTotalCost() {
+        return _totalCost;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre d'étapes de la résolution logique.</p>
+     *
+     * @return Le nombre d'étapes
+     *
+     * @since 1.1
+     */
+    public int getNbSteps() {
+        return _nbSteps;
+    }
+
+    /**
+     * <p>
+     * Indique si les techniques de {@link LogicalSolver} ont suffi à remplir
+     * la grille.</p>
+     *
+     * @return Vrai si la grille a été résolue sans recherche
+     *
+     * @since 1.1
+     */
+    public boolean isSolvedByLogic() {
+        return _solvedByLogic;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de noeuds visités par la recherche.</p>
+     *
+     * @return Le nombre de noeuds, 0 si la grille a été résolue sans
+     *         recherche
+     *
+     * @since 1.1
+     */
+    public long getNbNodes() {
+        return _nodes;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de retours en arrière de la recherche.</p>
+     *
+     * @return Le nombre de retours en arrière
+     *
+     * @since 1.1
+     */
+    public long getNbBacktracks() {
+        return _backtracks;
+    }
+
+    /**
+     * <p>
+     * Retourne la note de la grille : le coût de la technique la plus coûteuse
+     * si les techniques suffisent, sinon {@link #SEARCH_SCORE} augmenté du
+     * logarithme en base 2 du nombre de retours en arrière.</p>
+     *
+     * @return La note, en dixièmes
+     *
+     * @since 1.1
+     */
+    public int getScore() {
+        if (_solvedByLogic) {
+            return _hardest == null ? 0 : _hardest.getCost();
+        }
+        return SEARCH_SCORE + 64 - Long.numberOfLeadingZeros(_backtracks);
+    }
+
+    /**
+     * <p>
+     * Retourne le niveau de difficulté de la grille.</p>
+     *
+     * @return Le niveau, null si la grille n'admet pas une unique solution
+     *
+     * @since 1.1
+     */
+    public Difficulty getDifficulty() {
+        if (_nbSolutions != 1) {
+            return null;
+        }
+        return Difficulty.of(_hardest == null ? 0 : _hardest.getCost(), _solvedByLogic);
+    }
+
+    /**
+     * <p>
+     * Retourne une description de la note.</p>
+     *
+     * @return La description
+     *
+     * @since 1.1
+     */
+    @Override
+    public String toString() {
+        Difficulty difficulty = getDifficulty();
+        return (difficulty == null ? "sans solution unique" : difficulty.getName())
+                + " (note " + getScore() + ", " + _nbSteps + " étapes"
+                + (_hardest == null ? "" : ", " + _hardest.getName())
+                + ", " + _nodes + " noeuds, " + _backtracks + " retours)";
+    }
+}
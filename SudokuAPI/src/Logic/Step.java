@@ -0,0 +1,219 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Logic;
+
+/**
+ * <p>
+ * <b><code>Step</code></b> est une déduction trouvée par
+ * {@link LogicalSolver} : soit la pose d'une valeur dans une case, soit le
+ * retrait de valeurs possibles d'un ensemble de cases. Chaque étape est
+ * accompagnée de la technique employée et d'une explication.</p>
+ *
+ * <p>
+ * Les cases sont désignées par leur indice dans la grille, rangée ligne par
+ * ligne. Les valeurs retirées d'une case sont données sous forme de masque, la
+ * valeur <code>v</code> étant représentée par le bit <code>v - 1</code>.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Technique
+ * @see LogicalSolver
+ *
+ * @since 1.1
+ */
+public final class Step {
+
+    /**
+     * <p>
+     * Technique employée.</p>
+     *
+     * @since 1.1
+     */
+    private final Technique _technique;
+
+    /**
+     * <p>
+     * Vrai si l'étape pose une valeur, faux si elle retire des valeurs
+     * possibles.</p>
+     *
+     * @since 1.1
+     */
+    private final boolean _placement;
+
+    /**
+     * <p>
+     * Cases concernées : la case remplie, ou les cases dont des valeurs sont
+     * retirées.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _cells;
+
+    /**
+     * <p>
+     * Pour chaque case concernée, la valeur posée ou les valeurs retirées.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _masks;
+
+    /**
+     * <p>
+     * Explication de la déduction.</p>
+     *
+     * @since 1.1
+     */
+    private final String _explanation;
+
+    /**
+     * <p>
+     * Construit une étape.</p>
+     *
+     * @param technique   La technique employée
+     * @param placement   Vrai pour la pose d'une valeur
+     * @param cells       Les cases concernées
+     * @param masks       La valeur posée ou les valeurs retirées de chaque case
+     * @param explanation L'explication de la déduction
+     *
+     * @since 1.1
+     */
+    Step(Technique technique, boolean placement, int[] cells, long[] masks, String explanation) {
+        _technique = technique;
+        _placement = placement;
+        _cells = cells;
+        _masks = masks;
+        _explanation = explanation;
+    }
+
+    /**
+     * <p>
+     * Retourne la technique employée.</p>
+     *
+     * @return La technique
+     *
+     * @since 1.1
+     */
+    public Technique getTechnique() {
+        return _technique;
+    }
+
+    /**
+     * <p>
+     * Retourne le coût de l'étape, celui de sa technique.</p>
+     *
+     * @return Le coût, en dixièmes
+     *
+     * @see Technique#getCost()
+     *
+     * @since 1.1
+     */
+    public int getCost() {
+        return _technique.getCost();
+    }
+
+    /**
+     * <p>
+     * Indique si l'étape pose une valeur.</p>
+     *
+     * @return Vrai pour la pose d'une valeur, faux pour des retraits
+     *
+     * @since 1.1
+     */
+    public boolean isPlacement() {
+        return _placement;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de cases concernées, 1 pour la pose d'une
+     * valeur.</p>
+     *
+     * @return Le nombre de cases
+     *
+     * @since 1.1
+     */
+    public int getNbCells() {
+        return _cells.length;
+    }
+
+    /**
+     * <p>
+     * Retourne une case concernée.</p>
+     *
+     * @param k Le numéro de la case, entre 0 et {@link #getNbCells()} - 1
+     *
+     * @return L'indice de la case dans la grille
+     *
+     * @since 1.1
+     */
+    public int getCell(int k) {
+        return _cells[k];
+    }
+
+    /**
+     * <p>
+     * Retourne la valeur posée ou les valeurs retirées d'une case
+     * concernée.</p>
+     *
+     * @param k Le numéro de la case, entre 0 et {@link #getNbCells()} - 1
+     *
+     * @return Le masque des valeurs
+     *
+     * @since 1.1
+     */
+    public long getMask(int k) {
+        return _masks[k];
+    }
+
+    /**
+     * <p>
+     * Retourne la case remplie par une pose.</p>
+     *
+     * @return L'indice de la case dans la grille
+     *
+     * @since 1.1
+     */
+    public int getCell() {
+        return _cells[0];
+    }
+
+    /**
+     * <p>
+     * Retourne la valeur posée.</p>
+     *
+     * @return La valeur, 0 si l'étape ne pose pas de valeur
+     *
+     * @since 1.1
+     */
+    public int getValue() {
+        return _placement ? Long.numberOfTrailingZeros(_masks[0]) + 1 : 0;
+    }
+
+    /**
+     * <p>
+     * Retourne l'explication de la déduction.</p>
+     *
+     * @return L'explication
+     *
+     * @since 1.1
+     */
+    public String getExplanation() {
+        return _explanation;
+    }
+
+    /**
+     * <p>
+     * Retourne l'explication de la déduction.</p>
+     *
+     * @return L'explication
+     *
+     * @since 1.1
+     */
+    @Override
+    public String toString() {
+        return _explanation;
+    }
+}
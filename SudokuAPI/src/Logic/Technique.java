@@ -0,0 +1,156 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Logic;
+
+/**
+ * <p>
+ * <b><code>Technique</code></b> énumère les techniques de résolution humaine
+ * utilisées par {@link LogicalSolver}, de la moins coûteuse à la plus
+ * coûteuse. Le solveur les essaie dans cet ordre.</p>
+ *
+ * <p>
+ * Le coût d'une technique mesure sa difficulté pour un joueur, en dixièmes,
+ * sur une échelle proche de celle couramment utilisée pour noter les grilles
+ * (1,2 pour un singleton caché, 3,2 pour un X-wing...).</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Step
+ * @see LogicalSolver
+ *
+ * @since 1.1
+ */
+public enum Technique {
+
+    /**
+     * Une valeur n'a plus qu'une place dans une ligne, une colonne ou un bloc.
+     */
+    HIDDEN_SINGLE("Singleton caché", 12),
+    /**
+     * Une case n'a plus qu'une valeur possible.
+     */
+    NAKED_SINGLE("Singleton nu", 23),
+    /**
+     * Dans un bloc, une valeur est limitée à une ligne ou à une colonne.
+     */
+    POINTING("Paire pointante", 26),
+    /**
+     * Dans une ligne ou une colonne, une valeur est limitée à un bloc.
+     */
+    BOX_LINE("Réduction ligne/bloc", 28),
+    /**
+     * Deux cases d'une unité n'acceptent que les deux mêmes valeurs.
+     */
+    NAKED_PAIR("Paire nue", 30),
+    /**
+     * Une valeur est limitée aux deux mêmes colonnes dans deux lignes, ou aux
+     * deux mêmes lignes dans deux colonnes.
+     */
+    X_WING("X-wing", 32),
+    /**
+     * Deux valeurs d'une unité sont limitées aux deux mêmes cases.
+     */
+    HIDDEN_PAIR("Paire cachée", 34),
+    /**
+     * Trois cases d'une unité n'acceptent que trois valeurs.
+     */
+    NAKED_TRIPLE("Triplet nu", 36),
+    /**
+     * Trois valeurs d'une unité sont limitées aux trois mêmes cases.
+     */
+    HIDDEN_TRIPLE("Triplet caché", 40),
+    /**
+     * Quatre cases d'une unité n'acceptent que quatre valeurs.
+     */
+    NAKED_QUAD("Quadruplet nu", 50),
+    /**
+     * Quatre valeurs d'une unité sont limitées aux quatre mêmes cases.
+     */
+    HIDDEN_QUAD("Quadruplet caché", 54);
+
+    /**
+     * <p>
+     * Nom de la technique, affiché dans les explications.</p>
+     *
+     * @since 1.1
+     */
+    private final String _name;
+
+    /**
+     * <p>
+     * Coût de la technique, en dixièmes.</p>
+     *
+     * @since 1.1
+     */
+    private final int _cost;
+
+    /**
+     * <p>
+     * Construit une technique.</p>
+     *
+     * @param name Le nom de la technique
+     * @param cost Le coût de la technique, en dixièmes
+     *
+     * @since 1.1
+     */
+    private Technique(String name, int cost) {
+        _name = name;
+        _cost = cost;
+    }
+
+    /**
+     * <p>
+     * Retourne le nom de la technique.</p>
+     *
+     * @return Le nom de la technique
+     *
+     * @since 1.1
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * <p>
+     * Retourne le coût de la technique.</p>
+     *
+     * @return Le coût de la technique, en dixièmes
+     *
+     * @since 1.1
+     */
+    public int getCost() {
+        return _cost;
+    }
+
+    /**
+     * <p>
+     * Retourne la technique des sous-ensembles nus d'une taille donnée.</p>
+     *
+     * @param size La taille du sous-ensemble, entre 2 et 4
+     *
+     * @return La technique correspondante
+     *
+     * @since 1.1
+     */
+    static Technique naked(int size) {
+        return size == 2 ? NAKED_PAIR : size == 3 ? NAKED_TRIPLE : NAKED_QUAD;
+    }
+
+    /**
+     * <p>
+     * Retourne la technique des sous-ensembles cachés d'une taille
+     * donnée.</p>
+     *
+     * @param size La taille du sous-ensemble, entre 2 et 4
+     *
+     * @return La technique correspondante
+     *
+     * @since 1.1
+     */
+    static Technique hidden(int size) {
+        return size == 2 ? HIDDEN_PAIR : size == 3 ? HIDDEN_TRIPLE : HIDDEN_QUAD;
+    }
+}
@@ -0,0 +1,1126 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SAT;
+
+import SudoLib.Luby;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * <b><code>CdclSolver</code></b> est un solveur SAT par apprentissage de
+ * clauses (Conflict-Driven Clause Learning), écrit entièrement en Java.</p>
+ *
+ * <p>
+ * Il reprend les techniques des solveurs modernes :</p>
+ * <ul>
+ * <li>propagation unitaire par deux littéraux surveillés par clause, avec un
+ * littéral témoin qui évite le plus souvent de lire la clause ;</li>
+ * <li>analyse des conflits jusqu'au premier point d'implication unique,
+ * apprentissage de la clause obtenue, simplifiée par ses propres raisons, et
+ * retour en arrière non chronologique ;</li>
+ * <li>choix de la variable la plus active (VSIDS) à l'aide d'un tas, et
+ * mémorisation de la dernière valeur de chaque variable ;</li>
+ * <li>redémarrages suivant la suite de Luby (voir {@link Luby}) ;</li>
+ * <li>réduction périodique des clauses apprises, en gardant celles qui
+ * touchent peu de niveaux de décision (LBD).</li>
+ * </ul>
+ *
+ * <p>
+ * Les littéraux suivent la convention DIMACS à l'extérieur du solveur
+ * (variable <i>v</i> à partir de 1, négation <code>-v</code>) ; à l'intérieur,
+ * le littéral de la variable <i>v</i> - 1 vaut 2(<i>v</i> - 1), et sa négation
+ * 2(<i>v</i> - 1) + 1. Le solveur est incrémental : des clauses peuvent être
+ * ajoutées entre deux appels à {@link #solve(long)}, ce qui permet
+ * d'énumérer plusieurs solutions en excluant les précédentes. Un
+ * <b>CdclSolver</b> ne doit pas être partagé entre plusieurs threads, à
+ * l'exception de {@link #setCancelled(boolean)}.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Cnf
+ * @see SatCheck
+ *
+ * @since 1.1
+ */
+public class CdclSolver {
+
+    /**
+     * <p>
+     * Résultat d'une résolution.</p>
+     *
+     * @since 1.1
+     */
+    public enum Status {
+
+        /**
+         * La formule admet un modèle (voir {@link CdclSolver#getModel()}).
+         */
+        SAT,
+        /**
+         * La formule n'admet aucun modèle.
+         */
+        UNSAT,
+        /**
+         * La résolution a été interrompue avant de conclure.
+         */
+        UNKNOWN
+    }
+
+    /**
+     * <p>
+     * Clause du solveur. Les deux premiers littéraux sont surveillés ; le
+     * premier littéral d'une clause servant de raison est celui qu'elle a
+     * impliqué.</p>
+     *
+     * @since 1.1
+     */
+    private static final class Clause {
+
+        /**
+         * Les littéraux.
+         */
+        final int[] lits;
+
+        /**
+         * Vrai pour une clause apprise.
+         */
+        final boolean learnt;
+
+        /**
+         * Nombre de niveaux de décision distincts de la clause à son
+         * apprentissage.
+         */
+        int lbd;
+
+        /**
+         * Activité de la clause apprise.
+         */
+        double activity;
+
+        /**
+         * Vrai si la clause a été supprimée ; elle est retirée des listes de
+         * surveillance lors de leur prochain parcours.
+         */
+        boolean deleted;
+
+        /**
+         * <p>
+         * Construit une clause.</p>
+         *
+         * @param lits   Les littéraux
+         * @param learnt Vrai pour une clause apprise
+         */
+        Clause(int[] lits, boolean learnt) {
+            this.lits = lits;
+            this.learnt = learnt;
+        }
+    }
+
+    /**
+     * <p>
+     * Nombre de conflits correspondant à 1 dans la suite de Luby.</p>
+     *
+     * @since 1.1
+     */
+    public static final int RESTART_UNIT = 100;
+
+    /**
+     * <p>
+     * Nombre de conflits avant la première réduction des clauses apprises,
+     * puis augmentation de cet intervalle à chaque réduction.</p>
+     *
+     * @since 1.1
+     */
+    private static final int REDUCE_FIRST = 2000, REDUCE_INC = 300;
+
+    /**
+     * <p>
+     * Facteurs d'oubli des activités des variables et des clauses.</p>
+     *
+     * @since 1.1
+     */
+    private static final double VAR_DECAY = 0.95, CLAUSE_DECAY = 0.999;
+
+    /**
+     * <p>
+     * Nombre de variables.</p>
+     *
+     * @since 1.1
+     */
+    private final int nbVars;
+
+    /**
+     * <p>
+     * Valeur de chaque variable : 1 vraie, -1 fausse, 0 non affectée.</p>
+     *
+     * @since 1.1
+     */
+    private final byte[] values;
+
+    /**
+     * <p>
+     * Niveau de décision de chaque variable affectée.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] levels;
+
+    /**
+     * <p>
+     * Clause ayant impliqué chaque variable, null pour une décision.</p>
+     *
+     * @since 1.1
+     */
+    private final Clause[] reasons;
+
+    /**
+     * <p>
+     * Dernière valeur de chaque variable, reprise lorsqu'elle est choisie.</p>
+     *
+     * @since 1.1
+     */
+    private final boolean[] phases;
+
+    /**
+     * <p>
+     * Marques utilisées pendant l'analyse des conflits.</p>
+     *
+     * @since 1.1
+     */
+    private final boolean[] seen;
+
+    /**
+     * <p>
+     * Littéraux marqués pendant l'analyse d'un conflit, à démarquer à la
+     * fin.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] toClear;
+
+    /**
+     * <p>
+     * Littéraux affectés, dans l'ordre d'affectation.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] trail;
+
+    /**
+     * <p>
+     * Nombre de littéraux affectés et position du prochain littéral à
+     * propager.</p>
+     *
+     * @since 1.1
+     */
+    private int trailSize, qhead;
+
+    /**
+     * <p>
+     * Début de chaque niveau de décision dans la pile des affectations.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] trailLim;
+
+    /**
+     * <p>
+     * Niveau de décision courant.</p>
+     *
+     * @since 1.1
+     */
+    private int decisionLevel;
+
+    /**
+     * <p>
+     * Clauses surveillant chaque littéral, et littéral témoin associé à
+     * chacune.</p>
+     *
+     * @since 1.1
+     */
+    private final Clause[][] watchClauses;
+
+    /**
+     * @see #watchClauses
+     *
+     * @since 1.1
+     */
+    private final int[][] watchBlockers;
+
+    /**
+     * <p>
+     * Nombre de clauses surveillant chaque littéral.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] watchSizes;
+
+    /**
+     * <p>
+     * Activité de chaque variable et incrément courant.</p>
+     *
+     * @since 1.1
+     */
+    private final double[] activity;
+
+    /**
+     * @see #activity
+     *
+     * @since 1.1
+     */
+    private double varInc = 1;
+
+    /**
+     * <p>
+     * Incrément courant de l'activité des clauses.</p>
+     *
+     * @since 1.1
+     */
+    private double clauseInc = 1;
+
+    /**
+     * <p>
+     * Tas des variables, la plus active en tête, et position de chaque
+     * variable dans le tas (-1 si absente).</p>
+     *
+     * @since 1.1
+     */
+    private final int[] heap, heapIndex;
+
+    /**
+     * @see #heap
+     *
+     * @since 1.1
+     */
+    private int heapSize;
+
+    /**
+     * <p>
+     * Clauses apprises.</p>
+     *
+     * @since 1.1
+     */
+    private final ArrayList<Clause> learnts = new ArrayList<>();
+
+    /**
+     * <p>
+     * Faux dès que la formule est insatisfiable au niveau 0.</p>
+     *
+     * @since 1.1
+     */
+    private boolean ok = true;
+
+    /**
+     * <p>
+     * Modèle trouvé par la dernière résolution, indicé à partir de 1.</p>
+     *
+     * @since 1.1
+     */
+    private final boolean[] model;
+
+    /**
+     * <p>
+     * Statistiques de résolution.</p>
+     *
+     * @since 1.1
+     */
+    private long conflicts, decisions, propagations, restarts;
+
+    /**
+     * <p>
+     * Conflits avant la prochaine réduction des clauses apprises.</p>
+     *
+     * @since 1.1
+     */
+    private long nextReduce = REDUCE_FIRST;
+
+    /**
+     * <p>
+     * Nombre de réductions des clauses apprises.</p>
+     *
+     * @since 1.1
+     */
+    private int nbReductions;
+
+    /**
+     * <p>
+     * Demande d'interruption venant d'un autre thread.</p>
+     *
+     * @since 1.1
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * <p>
+     * Construit un solveur sans clause sur un nombre donné de variables.</p>
+     *
+     * @param nbVars Le nombre de variables
+     *
+     * @since 1.1
+     */
+    public CdclSolver(int nbVars) {
+        this.nbVars = nbVars;
+        values = new byte[nbVars];
+        levels = new int[nbVars];
+        reasons = new Clause[nbVars];
+        phases = new boolean[nbVars];
+        seen = new boolean[nbVars];
+        toClear = new int[nbVars];
+        trail = new int[nbVars];
+        trailLim = new int[nbVars + 1];
+        watchClauses = new Clause[2 * nbVars][];
+        watchBlockers = new int[2 * nbVars][];
+        watchSizes = new int[2 * nbVars];
+        activity = new double[nbVars];
+        heap = new int[nbVars];
+        heapIndex = new int[nbVars];
+        model = new boolean[nbVars + 1];
+        for (int var = 0; var < nbVars; ++var) {
+            heap[var] = var;
+            heapIndex[var] = var;
+        }
+        heapSize = nbVars;
+    }
+
+    /**
+     * <p>
+     * Construit un solveur contenant les clauses d'une formule.</p>
+     *
+     * @param cnf La formule
+     *
+     * @since 1.1
+     */
+    public CdclSolver(Cnf cnf) {
+        this(cnf.getNbVars());
+        addCnf(cnf);
+    }
+
+    /**
+     * <p>
+     * Ajoute toutes les clauses d'une formule.</p>
+     *
+     * @param cnf La formule
+     *
+     * @return Faux si la formule est devenue insatisfiable
+     *
+     * @throws IllegalArgumentException Si la formule a plus de variables que
+     *                                  le solveur
+     *
+     * @since 1.1
+     */
+    public final boolean addCnf(Cnf cnf) throws IllegalArgumentException {
+        if (cnf.getNbVars() > nbVars) {
+            throw new IllegalArgumentException("Formula has more variables than the solver.");
+        }
+        int[] clause = new int[16];
+        for (int c = 0; c < cnf.getNbClauses() && ok; ++c) {
+            int length = cnf.getClauseLength(c);
+            if (clause.length < length) {
+                clause = new int[length];
+            }
+            for (int k = 0; k < length; ++k) {
+                clause[k] = cnf.getLiteral(c, k);
+            }
+            addClause(clause, length);
+        }
+        return ok;
+    }
+
+    /**
+     * <p>
+     * Ajoute une clause, en littéraux DIMACS.</p>
+     *
+     * @param clause Les littéraux
+     *
+     * @return Faux si la formule est devenue insatisfiable
+     *
+     * @throws IllegalArgumentException Si un littéral est nul ou désigne une
+     *                                  variable inexistante
+     *
+     * @since 1.1
+     */
+    public boolean addClause(int... clause) throws IllegalArgumentException {
+        return addClause(clause, clause.length);
+    }
+
+    /**
+     * <p>
+     * Ajoute une clause formée des premiers littéraux DIMACS d'un tableau. La
+     * clause est simplifiée par les affectations du niveau 0 : elle est
+     * ignorée si elle est déjà satisfaite, et ses littéraux faux sont
+     * retirés.</p>
+     *
+     * @param clause Les littéraux
+     * @param length Le nombre de littéraux de la clause
+     *
+     * @return Faux si la formule est devenue insatisfiable
+     *
+     * @throws IllegalArgumentException Si un littéral est nul ou désigne une
+     *                                  variable inexistante
+     *
+     * @since 1.1
+     */
+    public boolean addClause(int[] clause, int length) throws IllegalArgumentException {
+        if (!ok) {
+            return false;
+        }
+        cancelUntil(0);
+        int[] lits = new int[length];
+        int n = 0;
+        for (int k = 0; k < length; ++k) {
+            int dimacs = clause[k];
+            if (dimacs == 0 || Math.abs(dimacs) > nbVars) {
+                throw new IllegalArgumentException("Invalid literal: " + dimacs);
+            }
+            int lit = dimacs > 0 ? 2 * (dimacs - 1) : 2 * (-dimacs - 1) + 1;
+            int value = valueOf(lit);
+            if (value > 0) {
+                return true;
+            }
+            if (value < 0) {
+                continue;
+            }
+            boolean duplicate = false;
+            for (int j = 0; j < n; ++j) {
+                if (lits[j] == lit) {
+                    duplicate = true;
+                } else if (lits[j] == (lit ^ 1)) {
+                    return true;
+                }
+            }
+            if (!duplicate) {
+                lits[n++] = lit;
+            }
+        }
+        if (n == 0) {
+            ok = false;
+        } else if (n == 1) {
+            enqueue(lits[0], null);
+            ok = propagate() == null;
+        } else {
+            attach(new Clause(Arrays.copyOf(lits, n), false));
+        }
+        return ok;
+    }
+
+    /**
+     * <p>
+     * Cherche un modèle de la formule.</p>
+     *
+     * @param maxConflicts Le nombre maximum de conflits avant d'abandonner,
+     *                     ou une valeur négative pour ne fixer aucune limite
+     *
+     * @return Le résultat de la résolution
+     *
+     * @see #getModel()
+     *
+     * @since 1.1
+     */
+    public Status solve(long maxConflicts) {
+        if (!ok) {
+            return Status.UNSAT;
+        }
+        long limit = maxConflicts < 0 ? Long.MAX_VALUE : conflicts + maxConflicts;
+        Status status = Status.UNKNOWN;
+        for (long restart = 1; status == Status.UNKNOWN; ++restart) {
+            if (cancelled || conflicts >= limit) {
+                break;
+            }
+            status = search(Luby.term(restart) * RESTART_UNIT, limit);
+            if (status == Status.UNKNOWN) {
+                ++restarts;
+            }
+        }
+        cancelUntil(0);
+        return status;
+    }
+
+    /**
+     * <p>
+     * Retourne le modèle trouvé par la dernière résolution réussie.</p>
+     *
+     * @return La valeur de chaque variable, indicée à partir de 1 ; le tableau
+     *         est réutilisé par les résolutions suivantes
+     *
+     * @since 1.1
+     */
+    public boolean[] getModel() {
+        return model;
+    }
+
+    /**
+     * <p>
+     * Demande l'interruption de la résolution en cours, depuis n'importe quel
+     * thread, ou réarme le solveur.</p>
+     *
+     * @param cancelled Vrai pour interrompre, faux pour réarmer
+     *
+     * @since 1.1
+     */
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de conflits rencontrés depuis la construction.</p>
+     *
+     * @return Le nombre de conflits
+     *
+     * @since 1.1
+     */
+    public long getNbConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de décisions prises depuis la construction.</p>
+     *
+     * @return Le nombre de décisions
+     *
+     * @since 1.1
+     */
+    public long getNbDecisions() {
+        return decisions;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de littéraux propagés depuis la construction.</p>
+     *
+     * @return Le nombre de propagations
+     *
+     * @since 1.1
+     */
+    public long getNbPropagations() {
+        return propagations;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de redémarrages depuis la construction.</p>
+     *
+     * @return Le nombre de redémarrages
+     *
+     * @since 1.1
+     */
+    public long getNbRestarts() {
+        return restarts;
+    }
+
+    /**
+     * <p>
+     * Recherche jusqu'à trouver un modèle, établir que la formule n'en a pas,
+     * ou atteindre le nombre de conflits de ce redémarrage.</p>
+     *
+     * @param budget Le nombre de conflits de ce redémarrage
+     * @param limit  Le nombre total de conflits à ne pas dépasser
+     *
+     * @return Le résultat, {@link Status#UNKNOWN} pour redémarrer
+     *
+     * @since 1.1
+     */
+    private Status search(long budget, long limit) {
+        long local = 0;
+        int[] learnt = new int[nbVars];
+        while (true) {
+            Clause conflict = propagate();
+            if (conflict != null) {
+                ++conflicts;
+                ++local;
+                if (decisionLevel == 0) {
+                    ok = false;
+                    return Status.UNSAT;
+                }
+                int length = analyze(conflict, learnt);
+                int backLevel = length == 1 ? 0 : levels[learnt[1] >> 1];
+                cancelUntil(backLevel);
+                if (length == 1) {
+                    enqueue(learnt[0], null);
+                } else {
+                    Clause clause = new Clause(Arrays.copyOf(learnt, length), true);
+                    clause.lbd = lbd(clause.lits);
+                    bumpClause(clause);
+                    attach(clause);
+                    learnts.add(clause);
+                    enqueue(learnt[0], clause);
+                }
+                varInc /= VAR_DECAY;
+                clauseInc /= CLAUSE_DECAY;
+            } else {
+                if (local >= budget || conflicts >= limit || cancelled) {
+                    cancelUntil(0);
+                    return Status.UNKNOWN;
+                }
+                if (conflicts >= nextReduce) {
+                    reduce();
+                }
+                int next = pickBranch();
+                if (next < 0) {
+                    for (int var = 0; var < nbVars; ++var) {
+                        model[var + 1] = values[var] > 0;
+                    }
+                    return Status.SAT;
+                }
+                ++decisions;
+                trailLim[decisionLevel++] = trailSize;
+                enqueue(next, null);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Propage les littéraux affectés depuis la dernière propagation.</p>
+     *
+     * @return La clause devenue fausse, ou null
+     *
+     * @since 1.1
+     */
+    private Clause propagate() {
+        Clause conflict = null;
+        while (qhead < trailSize && conflict == null) {
+            int falseLit = trail[qhead++] ^ 1;
+            ++propagations;
+            if (watchSizes[falseLit] == 0) {
+                continue;
+            }
+            Clause[] clauses = watchClauses[falseLit];
+            int[] blockers = watchBlockers[falseLit];
+            int n = watchSizes[falseLit];
+            int i = 0, j = 0;
+            while (i < n) {
+                if (valueOf(blockers[i]) > 0) {
+                    clauses[j] = clauses[i];
+                    blockers[j++] = blockers[i++];
+                    continue;
+                }
+                Clause clause = clauses[i++];
+                if (clause.deleted) {
+                    continue;
+                }
+                int[] lits = clause.lits;
+                if (lits[0] == falseLit) {
+                    lits[0] = lits[1];
+                    lits[1] = falseLit;
+                }
+                int first = lits[0];
+                if (valueOf(first) > 0) {
+                    clauses[j] = clause;
+                    blockers[j++] = first;
+                    continue;
+                }
+                boolean moved = false;
+                for (int k = 2; k < lits.length; ++k) {
+                    if (valueOf(lits[k]) >= 0) {
+                        lits[1] = lits[k];
+                        lits[k] = falseLit;
+                        watch(lits[1], clause, first);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    continue;
+                }
+                clauses[j] = clause;
+                blockers[j++] = first;
+                if (valueOf(first) < 0) {
+                    conflict = clause;
+                    qhead = trailSize;
+                    while (i < n) {
+                        clauses[j] = clauses[i];
+                        blockers[j++] = blockers[i++];
+                    }
+                } else {
+                    enqueue(first, clause);
+                }
+            }
+            Arrays.fill(clauses, j, n, null);
+            watchSizes[falseLit] = j;
+        }
+        return conflict;
+    }
+
+    /**
+     * <p>
+     * Analyse un conflit jusqu'au premier point d'implication unique.</p>
+     *
+     * @param conflict La clause fausse
+     * @param learnt   Reçoit la clause apprise, le littéral affirmé en
+     *                 premier et un littéral du niveau de retour en second
+     *
+     * @return La longueur de la clause apprise
+     *
+     * @since 1.1
+     */
+    private int analyze(Clause conflict, int[] learnt) {
+        int length = 1;
+        int pending = 0;
+        int lit = -1;
+        int index = trailSize - 1;
+        Clause clause = conflict;
+        do {
+            if (clause.learnt) {
+                bumpClause(clause);
+            }
+            for (int k = lit < 0 ? 0 : 1; k < clause.lits.length; ++k) {
+                int q = clause.lits[k];
+                int var = q >> 1;
+                if (!seen[var] && levels[var] > 0) {
+                    bumpVar(var);
+                    seen[var] = true;
+                    if (levels[var] >= decisionLevel) {
+                        ++pending;
+                    } else {
+                        learnt[length++] = q;
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) {
+                --index;
+            }
+            lit = trail[index--];
+            clause = reasons[lit >> 1];
+            seen[lit >> 1] = false;
+            --pending;
+        } while (pending > 0);
+        learnt[0] = lit ^ 1;
+
+        System.arraycopy(learnt, 1, toClear, 0, length - 1);
+        int kept = 1;
+        for (int k = 1; k < length; ++k) {
+            Clause reason = reasons[learnt[k] >> 1];
+            boolean redundant = reason != null;
+            for (int r = 1; redundant && r < reason.lits.length; ++r) {
+                int var = reason.lits[r] >> 1;
+                redundant = seen[var] || levels[var] == 0;
+            }
+            if (!redundant) {
+                learnt[kept++] = learnt[k];
+            }
+        }
+        for (int k = 0; k < length - 1; ++k) {
+            seen[toClear[k] >> 1] = false;
+        }
+        length = kept;
+
+        if (length > 1) {
+            int max = 1;
+            for (int k = 2; k < length; ++k) {
+                if (levels[learnt[k] >> 1] > levels[learnt[max] >> 1]) {
+                    max = k;
+                }
+            }
+            int swap = learnt[1];
+            learnt[1] = learnt[max];
+            learnt[max] = swap;
+        }
+        return length;
+    }
+
+    /**
+     * <p>
+     * Supprime la moitié des clauses apprises les moins utiles, en gardant
+     * celles qui touchent au plus deux niveaux de décision et celles qui
+     * servent de raison à une affectation.</p>
+     *
+     * @since 1.1
+     */
+    private void reduce() {
+        nextReduce = conflicts + REDUCE_FIRST + REDUCE_INC * (long) ++nbReductions;
+        learnts.sort((a, b) -> a.lbd != b.lbd ? Integer.compare(b.lbd, a.lbd)
+                : Double.compare(a.activity, b.activity));
+        int limit = learnts.size() / 2;
+        ArrayList<Clause> kept = new ArrayList<>();
+        for (int k = 0; k < learnts.size(); ++k) {
+            Clause clause = learnts.get(k);
+            if (k < limit && clause.lbd > 2 && !isLocked(clause)) {
+                clause.deleted = true;
+            } else {
+                kept.add(clause);
+            }
+        }
+        learnts.clear();
+        learnts.addAll(kept);
+    }
+
+    /**
+     * <p>
+     * Indique si une clause est la raison d'une affectation courante.</p>
+     *
+     * @param clause La clause
+     *
+     * @return Vrai si la clause ne peut être supprimée
+     *
+     * @since 1.1
+     */
+    private boolean isLocked(Clause clause) {
+        int var = clause.lits[0] >> 1;
+        return reasons[var] == clause && valueOf(clause.lits[0]) > 0;
+    }
+
+    /**
+     * <p>
+     * Choisit le prochain littéral de décision.</p>
+     *
+     * @return Le littéral, ou -1 si toutes les variables sont affectées
+     *
+     * @since 1.1
+     */
+    private int pickBranch() {
+        while (heapSize > 0) {
+            int var = heapRemoveMax();
+            if (values[var] == 0) {
+                return 2 * var + (phases[var] ? 0 : 1);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Annule les affectations des niveaux supérieurs à un niveau donné.</p>
+     *
+     * @param level Le niveau conservé
+     *
+     * @since 1.1
+     */
+    private void cancelUntil(int level) {
+        if (decisionLevel <= level) {
+            return;
+        }
+        for (int k = trailSize - 1; k >= trailLim[level]; --k) {
+            int var = trail[k] >> 1;
+            phases[var] = values[var] > 0;
+            values[var] = 0;
+            reasons[var] = null;
+            if (heapIndex[var] < 0) {
+                heapInsert(var);
+            }
+        }
+        trailSize = trailLim[level];
+        qhead = trailSize;
+        decisionLevel = level;
+    }
+
+    /**
+     * <p>
+     * Affecte un littéral à vrai au niveau courant.</p>
+     *
+     * @param lit    Le littéral
+     * @param reason La clause l'ayant impliqué, ou null pour une décision
+     *
+     * @since 1.1
+     */
+    private void enqueue(int lit, Clause reason) {
+        int var = lit >> 1;
+        values[var] = (byte) ((lit & 1) == 0 ? 1 : -1);
+        levels[var] = decisionLevel;
+        reasons[var] = reason;
+        trail[trailSize++] = lit;
+    }
+
+    /**
+     * <p>
+     * Retourne la valeur d'un littéral : 1 vrai, -1 faux, 0 non affecté.</p>
+     *
+     * @param lit Le littéral
+     *
+     * @return La valeur
+     *
+     * @since 1.1
+     */
+    private int valueOf(int lit) {
+        int value = values[lit >> 1];
+        return (lit & 1) == 0 ? value : -value;
+    }
+
+    /**
+     * <p>
+     * Place une clause sous la surveillance de ses deux premiers
+     * littéraux.</p>
+     *
+     * @param clause La clause
+     *
+     * @since 1.1
+     */
+    private void attach(Clause clause) {
+        watch(clause.lits[0], clause, clause.lits[1]);
+        watch(clause.lits[1], clause, clause.lits[0]);
+    }
+
+    /**
+     * <p>
+     * Ajoute une clause à la liste de surveillance d'un littéral.</p>
+     *
+     * @param lit     Le littéral surveillé
+     * @param clause  La clause
+     * @param blocker Le littéral témoin
+     *
+     * @since 1.1
+     */
+    private void watch(int lit, Clause clause, int blocker) {
+        int n = watchSizes[lit];
+        if (watchClauses[lit] == null) {
+            watchClauses[lit] = new Clause[4];
+            watchBlockers[lit] = new int[4];
+        } else if (n == watchClauses[lit].length) {
+            watchClauses[lit] = Arrays.copyOf(watchClauses[lit], 2 * n);
+            watchBlockers[lit] = Arrays.copyOf(watchBlockers[lit], 2 * n);
+        }
+        watchClauses[lit][n] = clause;
+        watchBlockers[lit][n] = blocker;
+        watchSizes[lit] = n + 1;
+    }
+
+    /**
+     * <p>
+     * Compte les niveaux de décision distincts d'une clause.</p>
+     *
+     * @param lits Les littéraux
+     *
+     * @return Le nombre de niveaux
+     *
+     * @since 1.1
+     */
+    private int lbd(int[] lits) {
+        int count = 0;
+        for (int k = 0; k < lits.length; ++k) {
+            int level = levels[lits[k] >> 1];
+            boolean first = true;
+            for (int j = 0; j < k && first; ++j) {
+                first = levels[lits[j] >> 1] != level;
+            }
+            if (first) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <p>
+     * Augmente l'activité d'une variable.</p>
+     *
+     * @param var La variable
+     *
+     * @since 1.1
+     */
+    private void bumpVar(int var) {
+        if ((activity[var] += varInc) > 1e100) {
+            for (int v = 0; v < nbVars; ++v) {
+                activity[v] *= 1e-100;
+            }
+            varInc *= 1e-100;
+        }
+        if (heapIndex[var] >= 0) {
+            heapUp(heapIndex[var]);
+        }
+    }
+
+    /**
+     * <p>
+     * Augmente l'activité d'une clause apprise.</p>
+     *
+     * @param clause La clause
+     *
+     * @since 1.1
+     */
+    private void bumpClause(Clause clause) {
+        if ((clause.activity += clauseInc) > 1e20) {
+            for (Clause learnt : learnts) {
+                learnt.activity *= 1e-20;
+            }
+            clauseInc *= 1e-20;
+        }
+    }
+
+    /**
+     * <p>
+     * Ajoute une variable au tas.</p>
+     *
+     * @param var La variable
+     *
+     * @since 1.1
+     */
+    private void heapInsert(int var) {
+        heap[heapSize] = var;
+        heapIndex[var] = heapSize;
+        heapUp(heapSize++);
+    }
+
+    /**
+     * <p>
+     * Retire la variable la plus active du tas.</p>
+     *
+     * @return La variable
+     *
+     * @since 1.1
+     */
+    private int heapRemoveMax() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapIndex[last] = 0;
+            heapDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * <p>
+     * Remonte une variable dans le tas.</p>
+     *
+     * @param pos Sa position
+     *
+     * @since 1.1
+     */
+    private void heapUp(int pos) {
+        int var = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >> 1;
+            if (activity[heap[parent]] >= activity[var]) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            heapIndex[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = var;
+        heapIndex[var] = pos;
+    }
+
+    /**
+     * <p>
+     * Descend une variable dans le tas.</p>
+     *
+     * @param pos Sa position
+     *
+     * @since 1.1
+     */
+    private void heapDown(int pos) {
+        int var = heap[pos];
+        while (2 * pos + 1 < heapSize) {
+            int child = 2 * pos + 1;
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) {
+                ++child;
+            }
+            if (activity[heap[child]] <= activity[var]) {
+                break;
+            }
+            heap[pos] = heap[child];
+            heapIndex[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = var;
+        heapIndex[var] = pos;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SAT;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * <b><code>Cnf</code></b> est une formule en forme normale conjonctive : une
+ * conjonction de clauses, chacune étant une disjonction de littéraux.</p>
+ *
+ * <p>
+ * Les littéraux suivent la convention DIMACS : la variable <i>v</i>,
+ * numérotée à partir de 1, s'écrit <code>v</code> et sa négation
+ * <code>-v</code>. Toutes les clauses sont rangées à la suite dans un seul
+ * tableau, ce qui évite de créer un objet par clause pour les formules de
+ * plusieurs millions de clauses des grandes grilles.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see SudokuCnf
+ * @see CdclSolver#addCnf(SAT.Cnf)
+ *
+ * @since 1.1
+ */
+public class Cnf {
+
+    /**
+     * <p>
+     * Nombre de variables.</p>
+     *
+     * @since 1.1
+     */
+    private int nbVars;
+
+    /**
+     * <p>
+     * Littéraux de toutes les clauses, rangés à la suite.</p>
+     *
+     * @since 1.1
+     */
+    private int[] lits = new int[1024];
+
+    /**
+     * <p>
+     * Nombre de littéraux rangés.</p>
+     *
+     * @since 1.1
+     */
+    private int nbLits;
+
+    /**
+     * <p>
+     * Position du premier littéral de chaque clause, suivie de la fin du
+     * tableau des littéraux.</p>
+     *
+     * @since 1.1
+     */
+    private int[] starts = new int[256];
+
+    /**
+     * <p>
+     * Nombre de clauses.</p>
+     *
+     * @since 1.1
+     */
+    private int nbClauses;
+
+    /**
+     * <p>
+     * Crée une formule vide.</p>
+     *
+     * @since 1.1
+     */
+    public Cnf() {
+    }
+
+    /**
+     * <p>
+     * Crée une nouvelle variable.</p>
+     *
+     * @return Le numéro de la variable, à partir de 1
+     *
+     * @since 1.1
+     */
+    public int newVar() {
+        return ++nbVars;
+    }
+
+    /**
+     * <p>
+     * Ajoute une clause à la formule. Une clause vide rend la formule
+     * insatisfiable.</p>
+     *
+     * @param clause Les littéraux de la clause
+     *
+     * @throws IllegalArgumentException Si un littéral est nul ou désigne une
+     *                                  variable inexistante
+     *
+     * @since 1.1
+     */
+    public void addClause(int... clause) throws IllegalArgumentException {
+        addClause(clause, clause.length);
+    }
+
+    /**
+     * <p>
+     * Ajoute une clause formée des premiers littéraux d'un tableau.</p>
+     *
+     * @param clause Les littéraux
+     * @param length Le nombre de littéraux de la clause
+     *
+     * @throws IllegalArgumentException Si un littéral est nul ou désigne une
+     *                                  variable inexistante
+     *
+     * @since 1.1
+     */
+    public void addClause(int[] clause, int length) throws IllegalArgumentException {
+        if (nbLits + length > lits.length) {
+            lits = Arrays.copyOf(lits, Math.max(lits.length * 2, nbLits + length));
+        }
+        if (nbClauses + 2 > starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        for (int k = 0; k < length; ++k) {
+            int lit = clause[k];
+            if (lit == 0 || Math.abs(lit) > nbVars) {
+                throw new IllegalArgumentException("Invalid literal: " + lit);
+            }
+            lits[nbLits++] = lit;
+        }
+        starts[++nbClauses] = nbLits;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de variables.</p>
+     *
+     * @return Le nombre de variables
+     *
+     * @since 1.1
+     */
+    public int getNbVars() {
+        return nbVars;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de clauses.</p>
+     *
+     * @return Le nombre de clauses
+     *
+     * @since 1.1
+     */
+    public int getNbClauses() {
+        return nbClauses;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de littéraux d'une clause.</p>
+     *
+     * @param clause L'indice de la clause
+     *
+     * @return Le nombre de littéraux
+     *
+     * @since 1.1
+     */
+    public int getClauseLength(int clause) {
+        return starts[clause + 1] - starts[clause];
+    }
+
+    /**
+     * <p>
+     * Retourne un littéral d'une clause.</p>
+     *
+     * @param clause L'indice de la clause
+     * @param k      La position du littéral dans la clause
+     *
+     * @return Le littéral
+     *
+     * @since 1.1
+     */
+    public int getLiteral(int clause, int k) {
+        return lits[starts[clause] + k];
+    }
+
+    /**
+     * <p>
+     * Écrit la formule au format DIMACS, lisible par les solveurs SAT
+     * usuels.</p>
+     *
+     * @param writer   La destination
+     * @param comments Des lignes de commentaire écrites en tête, ou null
+     *
+     * @throws IOException Si l'écriture a échoué
+     *
+     * @since 1.1
+     */
+    public void writeDimacs(Writer writer, Iterable<String> comments) throws IOException {
+        if (comments != null) {
+            for (String comment : comments) {
+                writer.write("c ");
+                writer.write(comment);
+                writer.write('\n');
+            }
+        }
+        writer.write("p cnf " + nbVars + " " + nbClauses + "\n");
+        StringBuilder line = new StringBuilder();
+        for (int c = 0; c < nbClauses; ++c) {
+            line.setLength(0);
+            for (int k = starts[c]; k < starts[c + 1]; ++k) {
+                line.append(lits[k]).append(' ');
+            }
+            line.append("0\n");
+            writer.write(line.toString());
+        }
+        writer.flush();
+    }
+}
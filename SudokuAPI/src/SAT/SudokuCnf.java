@@ -0,0 +1,352 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SAT;
+
+import Coord2D.Coord2D;
+import SudoLib.ISudoku;
+import SudoLib.UnitTable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+/**
+ * <p>
+ * <b><code>SudokuCnf</code></b> traduit une grille de sudoku en une formule
+ * {@link Cnf} dont les modèles sont exactement les solutions de la
+ * grille.</p>
+ *
+ * <p>
+ * Une variable est créée pour chaque couple (case vide, valeur) encore
+ * possible compte tenu des valeurs données : les valeurs déjà présentes sur la
+ * ligne, la colonne ou le bloc d'une case ne donnent lieu à aucune variable,
+ * ce qui réduit fortement la formule sur les grilles bien remplies. Le codage
+ * est le codage « étendu » : chaque case vide reçoit exactement une valeur,
+ * et chaque valeur absente d'une ligne, d'une colonne ou d'un bloc y occupe
+ * exactement une case. Les contraintes « au plus une » portant sur plus de six
+ * variables sont codées par un compteur séquentiel, avec des variables
+ * auxiliaires, plutôt que par toutes les paires, ce qui garde la formule
+ * linéaire en nombre de candidats jusqu'aux grilles 100x100.</p>
+ *
+ * <p>
+ * Des valeurs données en double dans une ligne, une colonne ou un bloc, ou
+ * une case sans aucune valeur possible, produisent une clause vide : la
+ * formule est alors insatisfiable.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Cnf
+ * @see SatCheck
+ *
+ * @since 1.1
+ */
+public class SudokuCnf {
+
+    /**
+     * <p>
+     * Nombre maximum de variables d'une contrainte « au plus une » codée par
+     * toutes les paires.</p>
+     *
+     * @since 1.1
+     */
+    private static final int PAIRWISE_LIMIT = 6;
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc de la grille.</p>
+     *
+     * @since 1.1
+     */
+    private final int size;
+
+    /**
+     * <p>
+     * Nombre de valeurs possibles d'une case.</p>
+     *
+     * @since 1.1
+     */
+    private final int width;
+
+    /**
+     * <p>
+     * Grille de départ.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] puzzle;
+
+    /**
+     * <p>
+     * Variable de chaque couple (case, valeur), 0 si le couple est
+     * impossible.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] varOf;
+
+    /**
+     * <p>
+     * Case et valeur de chaque variable de candidat.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] cellOf, valueOf;
+
+    /**
+     * <p>
+     * Nombre de variables de candidats, les variables auxiliaires venant
+     * ensuite.</p>
+     *
+     * @since 1.1
+     */
+    private final int nbCandidates;
+
+    /**
+     * <p>
+     * La formule.</p>
+     *
+     * @since 1.1
+     */
+    private final Cnf cnf = new Cnf();
+
+    /**
+     * <p>
+     * Clause en cours de construction.</p>
+     *
+     * @since 1.1
+     */
+    private int[] buffer;
+
+    /**
+     * <p>
+     * Traduit une grille en formule.</p>
+     *
+     * @param sudoku La grille
+     *
+     * @since 1.1
+     */
+    public SudokuCnf(ISudoku sudoku) {
+        size = sudoku.getSize();
+        width = size * size;
+        UnitTable units = UnitTable.of(size);
+        int nbCells = width * width;
+        puzzle = new int[nbCells];
+        sudoku.copyGridTo(puzzle);
+        buffer = new int[width];
+
+        boolean contradiction = false;
+        boolean[] used = new boolean[units.getNbUnits() * width];
+        for (int cell = 0; cell < nbCells; ++cell) {
+            int value = puzzle[cell];
+            if (value != 0) {
+                for (int kind = 0; kind < 3; ++kind) {
+                    int unit = units.getUnit(cell, kind);
+                    contradiction |= used[unit * width + value - 1];
+                    used[unit * width + value - 1] = true;
+                }
+            }
+        }
+
+        varOf = new int[nbCells * width];
+        int count = 0;
+        for (int cell = 0; cell < nbCells; ++cell) {
+            if (puzzle[cell] != 0) {
+                continue;
+            }
+            boolean any = false;
+            for (int value = 0; value < width; ++value) {
+                if (!used[units.getUnit(cell, 0) * width + value]
+                        && !used[units.getUnit(cell, 1) * width + value]
+                        && !used[units.getUnit(cell, 2) * width + value]) {
+                    varOf[cell * width + value] = cnf.newVar();
+                    ++count;
+                    any = true;
+                }
+            }
+            contradiction |= !any;
+        }
+        nbCandidates = count;
+        cellOf = new int[count + 1];
+        valueOf = new int[count + 1];
+        for (int k = 0; k < varOf.length; ++k) {
+            if (varOf[k] != 0) {
+                cellOf[varOf[k]] = k / width;
+                valueOf[varOf[k]] = k % width + 1;
+            }
+        }
+
+        if (contradiction) {
+            cnf.addClause();
+            return;
+        }
+
+        for (int cell = 0; cell < nbCells; ++cell) {
+            if (puzzle[cell] == 0) {
+                int n = 0;
+                for (int value = 0; value < width; ++value) {
+                    if (varOf[cell * width + value] != 0) {
+                        buffer[n++] = varOf[cell * width + value];
+                    }
+                }
+                exactlyOne(n);
+            }
+        }
+        for (int unit = 0; unit < units.getNbUnits(); ++unit) {
+            for (int value = 0; value < width; ++value) {
+                if (used[unit * width + value]) {
+                    continue;
+                }
+                int n = 0;
+                for (int k = 0; k < width; ++k) {
+                    int var = varOf[units.getUnitCell(unit, k) * width + value];
+                    if (var != 0) {
+                        buffer[n++] = var;
+                    }
+                }
+                exactlyOne(n);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne la formule.</p>
+     *
+     * @return La formule
+     *
+     * @since 1.1
+     */
+    public Cnf getCnf() {
+        return cnf;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de variables de candidats, numérotées de 1 à ce
+     * nombre ; les variables suivantes sont auxiliaires.</p>
+     *
+     * @return Le nombre de variables de candidats
+     *
+     * @since 1.1
+     */
+    public int getNbCandidates() {
+        return nbCandidates;
+    }
+
+    /**
+     * <p>
+     * Retourne la variable signifiant qu'une case vide porte une valeur.</p>
+     *
+     * @param cell  L'indice de la case
+     * @param value La valeur, entre 1 et <code>width</code>
+     *
+     * @return La variable, ou 0 si la case est donnée ou si la valeur y est
+     *         impossible
+     *
+     * @since 1.1
+     */
+    public int getVar(int cell, int value) {
+        return varOf[cell * width + value - 1];
+    }
+
+    /**
+     * <p>
+     * Reconstitue la grille correspondant à un modèle de la formule.</p>
+     *
+     * @param model La valeur de chaque variable, indicée à partir de 1
+     * @param grid  La grille, remplie ligne par ligne
+     *
+     * @since 1.1
+     */
+    public void decode(boolean[] model, int[] grid) {
+        System.arraycopy(puzzle, 0, grid, 0, puzzle.length);
+        for (int var = 1; var <= nbCandidates; ++var) {
+            if (model[var]) {
+                grid[cellOf[var]] = valueOf[var];
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne la clause excluant la solution correspondant à un modèle, ce
+     * qui permet d'en chercher une autre.</p>
+     *
+     * @param model La valeur de chaque variable, indicée à partir de 1
+     *
+     * @return La clause
+     *
+     * @since 1.1
+     */
+    public int[] blockingClause(boolean[] model) {
+        int n = 0;
+        for (int var = 1; var <= nbCandidates; ++var) {
+            if (model[var]) {
+                ++n;
+            }
+        }
+        int[] clause = new int[n];
+        n = 0;
+        for (int var = 1; var <= nbCandidates; ++var) {
+            if (model[var]) {
+                clause[n++] = -var;
+            }
+        }
+        return clause;
+    }
+
+    /**
+     * <p>
+     * Écrit la formule au format DIMACS, précédée de commentaires donnant la
+     * taille de la grille et, pour chaque variable de candidat, la case et la
+     * valeur qu'elle représente (<code>c v x y valeur</code>).</p>
+     *
+     * @param writer La destination
+     *
+     * @throws IOException Si l'écriture a échoué
+     *
+     * @since 1.1
+     */
+    public void writeDimacs(Writer writer) throws IOException {
+        ArrayList<String> comments = new ArrayList<>();
+        comments.add("sudoku " + width + "x" + width + ", " + nbCandidates + " candidats");
+        for (int var = 1; var <= nbCandidates; ++var) {
+            comments.add(var + " " + Coord2D.xOf(cellOf[var], width) + " " + Coord2D.yOf(cellOf[var], width)
+                    + " " + valueOf[var]);
+        }
+        cnf.writeDimacs(writer, comments);
+    }
+
+    /**
+     * <p>
+     * Ajoute les clauses imposant qu'exactement une des premières variables
+     * du tampon soit vraie.</p>
+     *
+     * @param n Le nombre de variables
+     *
+     * @since 1.1
+     */
+    private void exactlyOne(int n) {
+        cnf.addClause(buffer, n);
+        if (n <= PAIRWISE_LIMIT) {
+            for (int i = 0; i < n; ++i) {
+                for (int j = i + 1; j < n; ++j) {
+                    cnf.addClause(-buffer[i], -buffer[j]);
+                }
+            }
+            return;
+        }
+        int previous = cnf.newVar();
+        cnf.addClause(-buffer[0], previous);
+        for (int i = 1; i < n - 1; ++i) {
+            int next = cnf.newVar();
+            cnf.addClause(-buffer[i], next);
+            cnf.addClause(-previous, next);
+            cnf.addClause(-buffer[i], -previous);
+            previous = next;
+        }
+        cnf.addClause(-buffer[n - 1], -previous);
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Sudoku;
+
+import SudoLib.Canonicalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * <b><code>CachedCheck</code></b> est un cache de solutions placé devant une
+ * autre méthode de résolution implémentant {@link ICheck}.</p>
+ *
+ * <p>
+ * Les grilles sont rangées sous leur forme canonique (voir
+ * {@link Canonicalizer}) : une grille déjà résolue, ou toute grille
+ * équivalente obtenue par renumérotation des chiffres, transposition ou
+ * permutation des bandes, des piles, des lignes d'une bande ou des colonnes
+ * d'une pile, obtient donc ses solutions sans recherche, celles-ci étant
+ * ramenées dans l'orientation et la numérotation de la grille demandée.</p>
+ *
+ * <p>
+ * Le cache est borné par le nombre total de cases qu'il conserve (grilles et
+ * solutions) et retire en premier les grilles utilisées le moins récemment.
+ * Les grilles sans solution sont aussi conservées.</p>
+ *
+ * <p>
+ * Le cache peut être partagé entre plusieurs threads si la méthode de
+ * résolution qu'il protège le peut aussi.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see ICheck
+ *
+ * @since 1.1
+ */
+public class CachedCheck implements ICheck {
+
+    /**
+     * <p>
+     * Grille canonique servant de clé dans le cache.</p>
+     *
+     * @since 1.1
+     */
+    private static final class Key {
+
+        /**
+         * Taille de l'arête d'un bloc de la grille.
+         */
+        private final int size;
+
+        /**
+         * Grille canonique.
+         */
+        private final int[] grid;
+
+        /**
+         * Empreinte de la grille.
+         */
+        private final int hash;
+
+        /**
+         * <p>
+         * Construit une clé à partir d'une grille canonique.</p>
+         *
+         * @param size La taille de l'arête d'un bloc
+         * @param grid La grille canonique
+         */
+        private Key(int size, int[] grid) {
+            this.size = size;
+            this.grid = grid;
+            hash = 31 * size + Arrays.hashCode(grid);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return k.hash == hash && k.size == size && Arrays.equals(k.grid, grid);
+        }
+    }
+
+    /**
+     * <p>
+     * Forme canonique d'une grille accompagnée de la transformation permettant
+     * de passer de la grille à sa forme canonique.</p>
+     *
+     * @since 1.1
+     */
+    private static final class Canonical {
+
+        /**
+         * Clé de la grille canonique.
+         */
+        private Key key;
+
+        /**
+         * Case de la grille d'origine correspondant à chaque case de la
+         * grille canonique.
+         */
+        private int[] cells;
+
+        /**
+         * Nouveau numéro de chaque chiffre, l'indice 0 étant réservé aux
+         * cases vides.
+         */
+        private int[] labels;
+    }
+
+    /**
+     * <p>
+     * Méthode de résolution utilisée lorsque la grille n'est pas dans le
+     * cache.</p>
+     *
+     * @since 1.1
+     */
+    private final ICheck _check;
+
+    /**
+     * <p>
+     * Nombre maximum de cases conservées par le cache.</p>
+     *
+     * @since 1.1
+     */
+    private final long _capacity;
+
+    /**
+     * <p>
+     * Solutions canoniques des grilles déjà résolues, rangées de la moins
+     * récemment utilisée à la plus récemment utilisée. Une liste vide indique
+     * une grille sans solution.</p>
+     *
+     * @since 1.1
+     */
+    private final LinkedHashMap<Key, ArrayList<int[]>> _entries;
+
+    /**
+     * <p>
+     * Nombre de cases actuellement conservées par le cache.</p>
+     *
+     * @since 1.1
+     */
+    private long _weight;
+
+    /**
+     * <p>
+     * Calcul des formes canoniques propre à chaque thread, un
+     * {@link Canonicalizer} ne pouvant être partagé.</p>
+     *
+     * @since 1.1
+     */
+    private final ThreadLocal<Canonicalizer> _canonicalizer = new ThreadLocal<>();
+
+    /**
+     * <p>
+     * Nombre de grilles trouvées et non trouvées dans le cache.</p>
+     *
+     * @since 1.1
+     */
+    private long _hits, _misses;
+
+    /**
+     * <p>
+     * Construit un cache devant une méthode de résolution.</p>
+     *
+     * @param check    La méthode de résolution à utiliser pour les grilles
+     *                 absentes du cache
+     * @param capacity Le nombre maximum de cases (grilles et solutions)
+     *                 conservées par le cache
+     *
+     * @throws IllegalArgumentException Si la capacité est inférieure ou égale
+     *                                  à 0
+     *
+     * @since 1.1
+     */
+    public CachedCheck(ICheck check, long capacity) throws IllegalArgumentException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be > 0.");
+        }
+        _check = check;
+        _capacity = capacity;
+        _entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * <p>
+     * Retourne les solutions d'un sudoku à partir du cache si la grille ou
+     * l'une de ses variantes y est présente, ou à partir de la méthode de
+     * résolution protégée sinon.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @return L'ensemble des solutions du sudoku ou null s'il n'en a pas
+     *
+     * @since 1.1
+     */
+    @Override
+    public ArrayList<Integer[]> solve(Sudoku sudoku) {
+        Canonical canonical = canonicalize(sudoku);
+        ArrayList<int[]> cached;
+        synchronized (_entries) {
+            cached = _entries.get(canonical.key);
+            if (cached != null) {
+                ++_hits;
+            } else {
+                ++_misses;
+            }
+        }
+        if (cached != null) {
+            return restore(cached, canonical);
+        }
+
+        ArrayList<Integer[]> solutions = _check.solve(sudoku);
+        ArrayList<int[]> stored = new ArrayList<>();
+        if (solutions != null) {
+            for (Integer[] solution : solutions) {
+                int[] c = new int[solution.length];
+                for (int i = 0; i < c.length; ++i) {
+                    c[i] = canonical.labels[solution[canonical.cells[i]]];
+                }
+                stored.add(c);
+            }
+        }
+        store(canonical.key, stored);
+        return solutions;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de grilles dont les solutions ont été trouvées dans le
+     * cache.</p>
+     *
+     * @return Le nombre de succès du cache
+     *
+     * @since 1.1
+     */
+    public long getHits() {
+        synchronized (_entries) {
+            return _hits;
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de grilles ayant dû être résolues.</p>
+     *
+     * @return Le nombre d'échecs du cache
+     *
+     * @since 1.1
+     */
+    public long getMisses() {
+        synchronized (_entries) {
+            return _misses;
+        }
+    }
+
+    /**
+     * <p>
+     * Vide le cache.</p>
+     *
+     * @since 1.1
+     */
+    public void clear() {
+        synchronized (_entries) {
+            _entries.clear();
+            _weight = 0;
+        }
+    }
+
+    /**
+     * <p>
+     * Ajoute des solutions au cache puis retire les grilles les moins
+     * récemment utilisées jusqu'à revenir sous la capacité du cache.</p>
+     *
+     * @param key       La grille canonique
+     * @param solutions Ses solutions canoniques
+     *
+     * @since 1.1
+     */
+    private void store(Key key, ArrayList<int[]> solutions) {
+        long weight = weight(key, solutions);
+        if (weight > _capacity) {
+            return;
+        }
+        synchronized (_entries) {
+            ArrayList<int[]> previous = _entries.put(key, solutions);
+            if (previous != null) {
+                _weight -= weight(key, previous);
+            }
+            _weight += weight;
+            Iterator<Map.Entry<Key, ArrayList<int[]>>> it = _entries.entrySet().iterator();
+            while (_weight > _capacity && it.hasNext()) {
+                Map.Entry<Key, ArrayList<int[]>> eldest = it.next();
+                _weight -= weight(eldest.getKey(), eldest.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de cases occupées par une grille et ses
+     * solutions.</p>
+     *
+     * @param key       La grille canonique
+     * @param solutions Ses solutions canoniques
+     *
+     * @return Le nombre de cases conservées
+     *
+     * @since 1.1
+     */
+    private static long weight(Key key, ArrayList<int[]> solutions) {
+        return (long) key.grid.length * (1 + solutions.size());
+    }
+
+    /**
+     * <p>
+     * Ramène des solutions canoniques dans l'orientation et la numérotation
+     * d'une grille.</p>
+     *
+     * @param cached    Les solutions canoniques
+     * @param canonical La transformation de la grille vers sa forme canonique
+     *
+     * @return Les solutions de la grille, ou null s'il n'y en a pas
+     *
+     * @since 1.1
+     */
+    private static ArrayList<Integer[]> restore(ArrayList<int[]> cached, Canonical canonical) {
+        if (cached.isEmpty()) {
+            return null;
+        }
+        int[] digits = new int[canonical.labels.length];
+        for (int d = 0; d < digits.length; ++d) {
+            digits[canonical.labels[d]] = d;
+        }
+        ArrayList<Integer[]> solutions = new ArrayList<>(cached.size());
+        for (int[] c : cached) {
+            Integer[] solution = new Integer[c.length];
+            for (int i = 0; i < c.length; ++i) {
+                solution[canonical.cells[i]] = digits[c[i]];
+            }
+            solutions.add(solution);
+        }
+        return solutions;
+    }
+
+    /**
+     * <p>
+     * Calcule la forme canonique d'une grille et la transformation
+     * correspondante.</p>
+     *
+     * @param sudoku Le sudoku contenant la grille
+     *
+     * @return La forme canonique et la transformation correspondante
+     *
+     * @see Canonicalizer#canonicalize(int[], int[], int[], int[])
+     *
+     * @since 1.1
+     */
+    private Canonical canonicalize(Sudoku sudoku) {
+        int size = sudoku.getSize();
+        int width = size * size;
+        int[] grid = new int[width * width];
+        sudoku.copyGridTo(grid);
+
+        Canonicalizer canonicalizer = _canonicalizer.get();
+        if (canonicalizer == null || canonicalizer.getSize() != size) {
+            canonicalizer = new Canonicalizer(size);
+            _canonicalizer.set(canonicalizer);
+        }
+        Canonical canonical = new Canonical();
+        int[] canonicalGrid = new int[grid.length];
+        canonical.cells = new int[grid.length];
+        canonical.labels = new int[width + 1];
+        canonicalizer.canonicalize(grid, canonicalGrid, canonical.cells, canonical.labels);
+        canonical.key = new Key(size, canonicalGrid);
+        return canonical;
+    }
+}
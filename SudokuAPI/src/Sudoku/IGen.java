@@ -4,6 +4,11 @@
  */
 package Sudoku;
 
+import Logic.Difficulty;
+import Logic.Rater;
+import java.util.ArrayList;
+import java.util.Arrays;
+
 /**
  * <p>
  * <b><code>IGen</code></b> définit le contrat avec les classes contenant les
@@ -18,6 +23,15 @@ package Sudoku;
  */
 public interface IGen {
 
+    /**
+     * <p>
+     * Nombre maximum de grilles générées par
+     * {@link #generate(int, Logic.Difficulty)} avant d'abandonner.</p>
+     *
+     * @since 1.1
+     */
+    public static final int MAX_ATTEMPTS = 1000;
+
     /**
      * <p>
      * Génère une grille de sudoku en fonction du nombre de cases à initaliser
@@ -35,4 +49,41 @@ public interface IGen {
      * @since 1.0
      */
     public Integer[] generate(int solvedCases) throws IllegalArgumentException;
+
+    /**
+     * <p>
+     * Génère une grille de sudoku à solution unique d'un niveau de difficulté
+     * donné. Les grilles sont générées par {@link #generate(int)} puis notées
+     * par un {@link Rater} jusqu'à obtenir le niveau demandé.</p>
+     *
+     * @param solvedCases Le nombre de case à initaliser
+     * @param difficulty  Le niveau de difficulté désiré
+     *
+     * @return La grille générée
+     *
+     * @throws IllegalArgumentException Si le nombre de case à initialiser est
+     *                                  invalide
+     * @throws IllegalStateException    Si aucune grille du niveau demandé n'a
+     *                                  été obtenue en {@link #MAX_ATTEMPTS}
+     *                                  essais
+     *
+     * @see Logic.Rating#getDifficulty()
+     *
+     * @since 1.1
+     */
+    public default Integer[] generate(int solvedCases, Difficulty difficulty) throws IllegalArgumentException, IllegalStateException {
+        Rater rater = null;
+        int size = 0;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; ++attempt) {
+            Integer[] grid = generate(solvedCases);
+            if (rater == null) {
+                size = (int) Math.round(Math.sqrt(Math.sqrt(grid.length)));
+                rater = new Rater(size);
+            }
+            if (rater.rate(new Sudoku(new ArrayList<>(Arrays.asList(grid)), size)).getDifficulty() == difficulty) {
+                return grid;
+            }
+        }
+        throw new IllegalStateException("No grid of the requested difficulty could be generated.");
+    }
 }
@@ -0,0 +1,277 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Sudoku;
+
+import IMBT.InMemoryBTCheck;
+import IMBT.ValueOrder;
+import SudoLib.Luby;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * <b><code>PortfolioCheck</code></b> résout une grille en lançant plusieurs
+ * recherches différentes en même temps et en retenant la première qui
+ * aboutit.</p>
+ *
+ * <p>
+ * Le temps de résolution par backtracking varie énormément d'une grille à
+ * l'autre : un ordre de valeurs malheureux peut coûter des milliers de fois
+ * plus que la moyenne, alors qu'un autre ordre aurait trouvé la solution
+ * aussitôt. Chaque recherche du portefeuille utilise son propre
+ * {@link InMemoryBTCheck} sur son propre thread :</p>
+ * <ul>
+ * <li>la première suit l'ordre croissant des valeurs, sans limite, ce qui
+ * garantit qu'un portefeuille n'est jamais plus lent que la recherche
+ * habituelle qu'à la part de processeur cédée aux autres près ;</li>
+ * <li>les suivantes tirent l'ordre des valeurs au hasard (voir
+ * {@link ValueOrder#random(long)}) et recommencent avec un nouvel ordre
+ * lorsqu'elles épuisent leur budget de noeuds, ces budgets suivant la suite
+ * de Luby (voir {@link Luby}) multipliée par une unité. Cette suite
+ * croissant sans limite, chaque recherche finit par parcourir tout l'arbre et
+ * peut donc aussi établir qu'une grille n'a pas de solution.</li>
+ * </ul>
+ * <p>
+ * Un portefeuille d'un seul thread se réduit à la recherche aléatoire avec
+ * redémarrages. Dès qu'une recherche aboutit, les autres sont interrompues et
+ * le résultat est retourné une fois qu'elles se sont arrêtées, de sorte que
+ * les moteurs sont prêts pour la grille suivante. Les graines dépendent
+ * seulement du numéro de la recherche et du redémarrage : une même grille est
+ * résolue par les mêmes chemins d'une fois à l'autre.</p>
+ *
+ * <p>
+ * Seule la première solution trouvée est retournée. Un <b>PortfolioCheck</b>
+ * peut être partagé entre plusieurs threads, les résolutions étant alors
+ * traitées l'une après l'autre.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see InMemoryBTCheck#solve(Sudoku.Sudoku, long)
+ * @see ValueOrder
+ *
+ * @since 1.1
+ */
+public class PortfolioCheck implements ICheck, Closeable {
+
+    /**
+     * <p>
+     * Unité par défaut de la suite de Luby, en noeuds de recherche.</p>
+     *
+     * @since 1.1
+     */
+    public static final long DEFAULT_LUBY_UNIT = 2048;
+
+    /**
+     * <p>
+     * Moteurs de résolution, un par recherche.</p>
+     *
+     * @since 1.1
+     */
+    private final InMemoryBTCheck[] _checks;
+
+    /**
+     * <p>
+     * Unité de la suite de Luby.</p>
+     *
+     * @since 1.1
+     */
+    private final long _unit;
+
+    /**
+     * <p>
+     * Threads des recherches.</p>
+     *
+     * @since 1.1
+     */
+    private final ExecutorService _executor;
+
+    /**
+     * <p>
+     * Nombre de grilles résolues par chaque recherche.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _wins;
+
+    /**
+     * <p>
+     * Construit un portefeuille d'au moins deux recherches, une par
+     * processeur, avec l'unité de Luby par défaut.</p>
+     *
+     * @param size La taille de l'arête d'un bloc des grilles à résoudre
+     *
+     * @see #DEFAULT_LUBY_UNIT
+     *
+     * @since 1.1
+     */
+    public PortfolioCheck(int size) {
+        this(size, Math.max(2, Runtime.getRuntime().availableProcessors()), DEFAULT_LUBY_UNIT);
+    }
+
+    /**
+     * <p>
+     * Construit un portefeuille.</p>
+     *
+     * @param size      La taille de l'arête d'un bloc des grilles à résoudre
+     * @param nbThreads Le nombre de recherches simultanées
+     * @param lubyUnit  Le nombre de noeuds correspondant à 1 dans la suite de
+     *                  Luby
+     *
+     * @throws IllegalArgumentException Si le nombre de recherches ou l'unité
+     *                                  est inférieur ou égal à 0
+     *
+     * @since 1.1
+     */
+    public PortfolioCheck(int size, int nbThreads, long lubyUnit) throws IllegalArgumentException {
+        if (nbThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be > 0.");
+        }
+        if (lubyUnit <= 0) {
+            throw new IllegalArgumentException("Luby unit must be > 0.");
+        }
+        _checks = new InMemoryBTCheck[nbThreads];
+        for (int k = 0; k < nbThreads; ++k) {
+            _checks[k] = new InMemoryBTCheck(size, 1);
+        }
+        _unit = lubyUnit;
+        _wins = new long[nbThreads];
+        _executor = Executors.newFixedThreadPool(nbThreads, r -> {
+            Thread thread = new Thread(r, "PortfolioCheck");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * <p>
+     * Résout un sudoku avec toutes les recherches du portefeuille et retourne
+     * la solution de la première qui aboutit.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @return La solution si la grille en accepte ou null
+     *
+     * @throws IllegalStateException Si le portefeuille est fermé ou si la
+     *                               résolution est interrompue
+     *
+     * @since 1.1
+     */
+    @Override
+    public synchronized ArrayList<Integer[]> solve(Sudoku sudoku) throws IllegalStateException {
+        if (_executor.isShutdown()) {
+            throw new IllegalStateException("Portfolio is closed.");
+        }
+        BlockingQueue<Object[]> results = new ArrayBlockingQueue<>(_checks.length);
+        ArrayList<Future<?>> lanes = new ArrayList<>();
+        for (InMemoryBTCheck check : _checks) {
+            check.setCancelled(false);
+        }
+        for (int k = 0; k < _checks.length; ++k) {
+            int lane = k;
+            lanes.add(_executor.submit(() -> {
+                try {
+                    ArrayList<Integer[]> solution = search(lane, sudoku);
+                    if (solution != null || !_checks[lane].isInterrupted()) {
+                        results.add(new Object[]{lane, solution});
+                    }
+                } catch (RuntimeException e) {
+                    results.add(new Object[]{lane, e});
+                }
+            }));
+        }
+
+        Object[] result;
+        try {
+            result = results.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = null;
+        } finally {
+            for (InMemoryBTCheck check : _checks) {
+                check.setCancelled(true);
+            }
+        }
+        for (Future<?> lane : lanes) {
+            try {
+                lane.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Les erreurs des recherches sont déjà transmises par results.
+            }
+        }
+        if (result == null) {
+            throw new IllegalStateException("Portfolio solve was interrupted.");
+        }
+        if (result[1] instanceof RuntimeException) {
+            throw (RuntimeException) result[1];
+        }
+        ++_wins[(Integer) result[0]];
+        @SuppressWarnings("unchecked")
+        ArrayList<Integer[]> solution = (ArrayList<Integer[]>) result[1];
+        return solution;
+    }
+
+    /**
+     * <p>
+     * Retourne, pour chaque recherche, le nombre de grilles qu'elle a résolues
+     * la première.</p>
+     *
+     * @return Le nombre de victoires de chaque recherche
+     *
+     * @since 1.1
+     */
+    public synchronized long[] getWins() {
+        return _wins.clone();
+    }
+
+    /**
+     * <p>
+     * Arrête les threads du portefeuille.</p>
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() {
+        _executor.shutdownNow();
+    }
+
+    /**
+     * <p>
+     * Recherche d'une solution par une recherche du portefeuille : sans
+     * limite et dans l'ordre croissant pour la première, avec redémarrages
+     * aléatoires pour les autres.</p>
+     *
+     * @param lane   Le numéro de la recherche
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @return La solution, ou null si la grille n'en a pas ou si la recherche
+     *         a été interrompue
+     *
+     * @since 1.1
+     */
+    private ArrayList<Integer[]> search(int lane, Sudoku sudoku) {
+        InMemoryBTCheck check = _checks[lane];
+        if (lane == 0 && _checks.length > 1) {
+            check.setValueOrder(ValueOrder.ASCENDING);
+            return check.solve(sudoku);
+        }
+        for (long restart = 1;; ++restart) {
+            check.setValueOrder(ValueOrder.random(restart * _checks.length + lane));
+            long budget = Luby.term(restart) * _unit;
+            ArrayList<Integer[]> solution = check.solve(sudoku, budget > 0 ? budget : Long.MAX_VALUE);
+            if (solution != null || !check.isInterrupted() || check.getNbNodes() <= budget) {
+                return solution;
+            }
+        }
+    }
+}
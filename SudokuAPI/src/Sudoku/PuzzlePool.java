@@ -0,0 +1,603 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Sudoku;
+
+import IMBT.Shaker;
+import Logic.Difficulty;
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * <b><code>PuzzlePool</code></b> tient à disposition des grilles générées à
+ * l'avance, rangées dans des réserves par nombre de valeurs initialisées et
+ * par niveau de difficulté, que des threads de fond remplissent au fur et à
+ * mesure qu'elles se vident.</p>
+ *
+ * <p>
+ * Chaque réserve est une file sans verrou ({@link ConcurrentLinkedQueue})
+ * accompagnée d'un compteur atomique des grilles rangées ou en cours de
+ * génération : prendre une grille ne bloque jamais et ne coûte qu'un retrait
+ * de la file. Les threads de fond remplissent en priorité la réserve la moins
+ * pleine et s'endorment lorsque toutes sont pleines ; une réserve qui passe
+ * sous la moitié de sa capacité les réveille. Le débit de génération peut être
+ * limité pour laisser les processeurs aux autres traitements.</p>
+ *
+ * <p>
+ * Une réserve est créée à la première demande d'un couple nombre de
+ * valeurs/niveau, ou à l'avance par {@link #reserve(int, Logic.Difficulty)}.
+ * Lorsqu'une réserve est vide, {@link #poll(int, Logic.Difficulty)} retourne
+ * null tandis que {@link #generate(int, Logic.Difficulty)} génère la grille
+ * dans le thread appelant. Une réserve dont le niveau n'a pu être atteint
+ * plusieurs fois de suite n'est plus remplie en fond jusqu'à ce qu'une
+ * génération à la demande y parvienne.</p>
+ *
+ * <p>
+ * Un <b>PuzzlePool</b> peut être partagé entre plusieurs threads et servir de
+ * générateur à plusieurs {@link Sudoku} (voir
+ * {@link Sudoku#setGen(IGen)}).</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Shaker
+ * @see IGen
+ *
+ * @since 1.1
+ */
+public class PuzzlePool implements IGen, Closeable {
+
+    /**
+     * <p>
+     * Réserve de grilles d'un nombre de valeurs et d'un niveau donnés.</p>
+     *
+     * @since 1.1
+     */
+    private static final class Reservoir {
+
+        /**
+         * Nombre de valeurs initialisées des grilles.
+         */
+        private final int solvedCases;
+
+        /**
+         * Niveau des grilles, null pour un niveau quelconque.
+         */
+        private final Difficulty difficulty;
+
+        /**
+         * Grilles prêtes.
+         */
+        private final Queue<Integer[]> grids = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Nombre de grilles prêtes ou en cours de génération.
+         */
+        private final AtomicInteger reserved = new AtomicInteger();
+
+        /**
+         * Nombre d'échecs consécutifs de la génération.
+         */
+        private final AtomicInteger failures = new AtomicInteger();
+
+        /**
+         * <p>
+         * Construit une réserve vide.</p>
+         *
+         * @param solvedCases Le nombre de valeurs initialisées
+         * @param difficulty  Le niveau ou null
+         */
+        private Reservoir(int solvedCases, Difficulty difficulty) {
+            this.solvedCases = solvedCases;
+            this.difficulty = difficulty;
+        }
+    }
+
+    /**
+     * <p>
+     * Nombre d'échecs consécutifs au-delà duquel une réserve n'est plus
+     * remplie en fond.</p>
+     *
+     * @since 1.1
+     */
+    public static final int MAX_FAILURES = 3;
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc des grilles générées.</p>
+     *
+     * @since 1.1
+     */
+    private final int _size;
+
+    /**
+     * <p>
+     * Nombre maximum de grilles par réserve.</p>
+     *
+     * @since 1.1
+     */
+    private final int _capacity;
+
+    /**
+     * <p>
+     * Intervalle minimum entre deux générations de fond, en nanosecondes, 0
+     * pour un débit illimité.</p>
+     *
+     * @since 1.1
+     */
+    private final long _interval;
+
+    /**
+     * <p>
+     * Date à partir de laquelle la prochaine génération de fond peut
+     * commencer.</p>
+     *
+     * @since 1.1
+     */
+    private final AtomicLong _nextSlot = new AtomicLong();
+
+    /**
+     * <p>
+     * Réserves, indexées par {@link #key(int, Logic.Difficulty)}.</p>
+     *
+     * @since 1.1
+     */
+    private final ConcurrentHashMap<Integer, Reservoir> _reservoirs = new ConcurrentHashMap<>();
+
+    /**
+     * <p>
+     * Réserves dans leur ordre de création, parcourues par les threads de
+     * fond.</p>
+     *
+     * @since 1.1
+     */
+    private final CopyOnWriteArrayList<Reservoir> _order = new CopyOnWriteArrayList<>();
+
+    /**
+     * <p>
+     * Générateurs utilisés par les générations à la demande.</p>
+     *
+     * @since 1.1
+     */
+    private final Queue<Shaker> _shakers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * <p>
+     * Threads de fond.</p>
+     *
+     * @since 1.1
+     */
+    private final Thread[] _threads;
+
+    /**
+     * <p>
+     * Nombre de threads de fond endormis faute de réserve à remplir.</p>
+     *
+     * @since 1.1
+     */
+    private final AtomicInteger _idle = new AtomicInteger();
+
+    /**
+     * <p>
+     * Nombre de grilles servies depuis une réserve et générées à la
+     * demande.</p>
+     *
+     * @since 1.1
+     */
+    private final AtomicLong _hits = new AtomicLong(), _misses = new AtomicLong();
+
+    /**
+     * <p>
+     * Vrai une fois la réserve fermée.</p>
+     *
+     * @since 1.1
+     */
+    private volatile boolean _closed;
+
+    /**
+     * <p>
+     * Construit une réserve de grilles 9x9 de 64 grilles par couple nombre de
+     * valeurs/niveau, remplie par un thread de fond sans limite de débit.</p>
+     *
+     * @since 1.1
+     */
+    public PuzzlePool() {
+        this(3, 64, 1, 0);
+    }
+
+    /**
+     * <p>
+     * Construit une réserve de grilles et démarre ses threads de fond.</p>
+     *
+     * @param size      La taille de l'arête d'un bloc des grilles
+     * @param capacity  Le nombre maximum de grilles par couple nombre de
+     *                  valeurs/niveau
+     * @param nbThreads Le nombre de threads de fond
+     * @param rate      Le nombre maximum de grilles générées en fond par
+     *                  seconde, 0 pour un débit illimité
+     *
+     * @throws IllegalArgumentException Si la taille, la capacité ou le nombre
+     *                                  de threads est inférieur ou égal à 0,
+     *                                  ou si le débit est négatif
+     *
+     * @since 1.1
+     */
+    public PuzzlePool(int size, int capacity, int nbThreads, int rate) throws IllegalArgumentException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be strictly superior to 0.");
+        }
+        if (capacity <= 0 || nbThreads <= 0) {
+            throw new IllegalArgumentException("Pool capacity and thread count must be > 0.");
+        }
+        if (rate < 0) {
+            throw new IllegalArgumentException("Generation rate must be >= 0.");
+        }
+        _size = size;
+        _capacity = capacity;
+        _interval = rate == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / rate;
+        _threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; ++t) {
+            _threads[t] = new Thread(this::refill, "PuzzlePool-" + t);
+            _threads[t].setDaemon(true);
+            _threads[t].setPriority(Thread.MIN_PRIORITY);
+            _threads[t].start();
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc des grilles générées.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return _size;
+    }
+
+    /**
+     * <p>
+     * Crée si besoin la réserve d'un couple nombre de valeurs/niveau, afin
+     * qu'elle soit remplie avant la première demande.</p>
+     *
+     * @param solvedCases Le nombre de valeurs initialisées
+     * @param difficulty  Le niveau désiré, null pour un niveau quelconque
+     *
+     * @throws IllegalArgumentException Si le nombre de valeurs est invalide
+     *
+     * @since 1.1
+     */
+    public void reserve(int solvedCases, Difficulty difficulty) throws IllegalArgumentException {
+        reservoir(solvedCases, difficulty);
+    }
+
+    /**
+     * <p>
+     * Retire une grille de la réserve d'un couple nombre de valeurs/niveau,
+     * sans jamais bloquer.</p>
+     *
+     * @param solvedCases Le nombre de valeurs initialisées
+     * @param difficulty  Le niveau désiré, null pour un niveau quelconque
+     *
+     * @return La grille, ou null si la réserve est vide
+     *
+     * @throws IllegalArgumentException Si le nombre de valeurs est invalide
+     *
+     * @since 1.1
+     */
+    public Integer[] poll(int solvedCases, Difficulty difficulty) throws IllegalArgumentException {
+        Reservoir reservoir = reservoir(solvedCases, difficulty);
+        Integer[] grid = reservoir.grids.poll();
+        if (grid == null) {
+            _misses.incrementAndGet();
+            return null;
+        }
+        _hits.incrementAndGet();
+        if (reservoir.reserved.decrementAndGet() <= _capacity / 2 && _idle.get() > 0) {
+            for (Thread thread : _threads) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * <p>
+     * Retourne une grille d'un nombre de valeurs quelconque, prise dans la
+     * réserve ou générée dans le thread appelant si celle-ci est vide.</p>
+     *
+     * @param solvedCases Le nombre de valeurs initialisées
+     *
+     * @return La grille générée
+     *
+     * @throws IllegalArgumentException Si le nombre de valeurs est invalide
+     * @throws IllegalStateException    Si la génération a échoué
+     *
+     * @since 1.1
+     */
+    @Override
+    public Integer[] generate(int solvedCases) throws IllegalArgumentException, IllegalStateException {
+        return generate(solvedCases, null);
+    }
+
+    /**
+     * <p>
+     * Retourne une grille d'un niveau donné, prise dans la réserve ou générée
+     * dans le thread appelant si celle-ci est vide.</p>
+     *
+     * @param solvedCases Le nombre de valeurs initialisées
+     * @param difficulty  Le niveau désiré, null pour un niveau quelconque
+     *
+     * @return La grille générée
+     *
+     * @throws IllegalArgumentException Si le nombre de valeurs est invalide
+     * @throws IllegalStateException    Si aucune grille du niveau demandé n'a
+     *                                  été obtenue
+     *
+     * @since 1.1
+     */
+    @Override
+    public Integer[] generate(int solvedCases, Difficulty difficulty) throws IllegalArgumentException,
+            IllegalStateException {
+        Integer[] grid = poll(solvedCases, difficulty);
+        if (grid != null) {
+            return grid;
+        }
+        Reservoir reservoir = reservoir(solvedCases, difficulty);
+        Shaker shaker = _shakers.poll();
+        if (shaker == null) {
+            shaker = new Shaker(_size);
+        }
+        try {
+            grid = create(shaker, reservoir);
+        } finally {
+            _shakers.offer(shaker);
+        }
+        reservoir.failures.set(0);
+        return grid;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de grilles disponibles dans la réserve d'un couple
+     * nombre de valeurs/niveau.</p>
+     *
+     * @param solvedCases Le nombre de valeurs initialisées
+     * @param difficulty  Le niveau, null pour un niveau quelconque
+     *
+     * @return Le nombre de grilles prêtes, 0 si la réserve n'existe pas
+     *
+     * @since 1.1
+     */
+    public int getNbAvailable(int solvedCases, Difficulty difficulty) {
+        Reservoir reservoir = _reservoirs.get(key(solvedCases, difficulty));
+        return reservoir == null ? 0 : reservoir.grids.size();
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de grilles servies depuis une réserve.</p>
+     *
+     * @return Le nombre de succès
+     *
+     * @since 1.1
+     */
+    public long getHits() {
+        return _hits.get();
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de demandes ayant trouvé une réserve vide.</p>
+     *
+     * @return Le nombre d'échecs
+     *
+     * @since 1.1
+     */
+    public long getMisses() {
+        return _misses.get();
+    }
+
+    /**
+     * <p>
+     * Arrête les threads de fond. Les grilles déjà prêtes restent
+     * disponibles.</p>
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() {
+        _closed = true;
+        for (Thread thread : _threads) {
+            LockSupport.unpark(thread);
+        }
+        for (Thread thread : _threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Boucle d'un thread de fond : remplit la réserve la moins pleine,
+     * s'endort lorsque toutes sont pleines.</p>
+     *
+     * @since 1.1
+     */
+    private void refill() {
+        Shaker shaker = new Shaker(_size);
+        while (!_closed) {
+            Reservoir reservoir = claim();
+            if (reservoir == null) {
+                _idle.incrementAndGet();
+                if (claimable() == null) {
+                    LockSupport.park(this);
+                }
+                _idle.decrementAndGet();
+                continue;
+            }
+            try {
+                throttle();
+                reservoir.grids.offer(create(shaker, reservoir));
+                reservoir.failures.set(0);
+            } catch (RuntimeException e) {
+                reservoir.reserved.decrementAndGet();
+                reservoir.failures.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Choisit la réserve la moins pleine parmi celles qui peuvent être
+     * remplies, et y réserve une place.</p>
+     *
+     * @return La réserve, ou null si toutes sont pleines
+     *
+     * @since 1.1
+     */
+    private Reservoir claim() {
+        while (true) {
+            Reservoir reservoir = claimable();
+            if (reservoir == null) {
+                return null;
+            }
+            int reserved = reservoir.reserved.get();
+            if (reserved < _capacity && reservoir.reserved.compareAndSet(reserved, reserved + 1)) {
+                return reservoir;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Cherche la réserve la moins pleine parmi celles qui ne sont pas pleines
+     * et dont la génération n'a pas échoué trop souvent.</p>
+     *
+     * @return La réserve, ou null si aucune ne convient
+     *
+     * @since 1.1
+     */
+    private Reservoir claimable() {
+        Reservoir best = null;
+        int bestReserved = _capacity;
+        for (Reservoir reservoir : _order) {
+            int reserved = reservoir.reserved.get();
+            if (reserved < bestReserved && reservoir.failures.get() < MAX_FAILURES) {
+                best = reservoir;
+                bestReserved = reserved;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * <p>
+     * Attend le prochain créneau de génération si le débit est limité.</p>
+     *
+     * @since 1.1
+     */
+    private void throttle() {
+        if (_interval == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long slot;
+        long prev;
+        do {
+            prev = _nextSlot.get();
+            slot = Math.max(prev, now);
+        } while (!_nextSlot.compareAndSet(prev, slot + _interval));
+        long wait;
+        while (!_closed && (wait = slot - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    /**
+     * <p>
+     * Génère une grille pour une réserve. La grille retournée par le
+     * générateur étant réutilisée, elle est recopiée.</p>
+     *
+     * @param shaker    Le générateur
+     * @param reservoir La réserve
+     *
+     * @return Une copie de la grille générée
+     *
+     * @throws IllegalStateException Si la génération a échoué
+     *
+     * @since 1.1
+     */
+    private static Integer[] create(Shaker shaker, Reservoir reservoir) throws IllegalStateException {
+        Integer[] generated = reservoir.difficulty == null
+                ? shaker.generate(reservoir.solvedCases)
+                : shaker.generate(reservoir.solvedCases, reservoir.difficulty);
+        return generated.clone();
+    }
+
+    /**
+     * <p>
+     * Retourne la réserve d'un couple nombre de valeurs/niveau, en la créant
+     * si besoin.</p>
+     *
+     * @param solvedCases Le nombre de valeurs initialisées
+     * @param difficulty  Le niveau, null pour un niveau quelconque
+     *
+     * @return La réserve
+     *
+     * @throws IllegalArgumentException Si le nombre de valeurs est invalide
+     *
+     * @since 1.1
+     */
+    private Reservoir reservoir(int solvedCases, Difficulty difficulty) throws IllegalArgumentException {
+        int key = key(solvedCases, difficulty);
+        Reservoir reservoir = _reservoirs.get(key);
+        if (reservoir != null) {
+            return reservoir;
+        }
+        if (solvedCases <= 0 || solvedCases > _size * _size * _size * _size) {
+            throw new IllegalArgumentException("solvedCases must be between 1 and the ammount of sudoku cases.");
+        }
+        Reservoir created = new Reservoir(solvedCases, difficulty);
+        reservoir = _reservoirs.putIfAbsent(key, created);
+        if (reservoir != null) {
+            return reservoir;
+        }
+        _order.add(created);
+        if (_idle.get() > 0) {
+            for (Thread thread : _threads) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return created;
+    }
+
+    /**
+     * <p>
+     * Retourne la clé d'un couple nombre de valeurs/niveau.</p>
+     *
+     * @param solvedCases Le nombre de valeurs initialisées
+     * @param difficulty  Le niveau, null pour un niveau quelconque
+     *
+     * @return La clé
+     *
+     * @since 1.1
+     */
+    private static int key(int solvedCases, Difficulty difficulty) {
+        return solvedCases * (Difficulty.values().length + 1) + (difficulty == null ? 0 : difficulty.ordinal() + 1);
+    }
+}
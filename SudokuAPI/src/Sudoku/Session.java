@@ -0,0 +1,482 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Sudoku;
+
+import BSBT.BitSetBTCheck;
+import BSBT.Candidates;
+import SudoLib.UnitTable;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * <b><code>Session</code></b> maintient l'état nécessaire au jeu interactif
+ * sur la grille d'un {@link Sudoku} : le nombre d'occurrences de chaque
+ * valeur dans chaque unité, l'ensemble des valeurs présentes dans chaque
+ * unité, le nombre de conflits et une solution de référence.</p>
+ *
+ * <p>
+ * Chaque pose ou effacement d'une valeur met cet état à jour en temps
+ * constant. Les valeurs possibles d'une case se déduisent des ensembles de ses
+ * trois unités, sans parcourir ses voisines. Tant que toutes les valeurs
+ * posées s'accordent avec la solution de référence, la grille reste
+ * résoluble sans nouvelle recherche ; sinon la grille est résolue à nouveau
+ * par un {@link BitSetBTCheck} réarmé, et la solution trouvée devient la
+ * nouvelle référence.</p>
+ *
+ * <p>
+ * Les valeurs sont comprises entre 1 et <code>width</code>, la valeur
+ * <code>v</code> étant représentée par le bit <code>v - 1</code> des
+ * ensembles (voir {@link Candidates}). Une <b>Session</b> ne doit pas être
+ * partagée entre plusieurs threads.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see Sudoku#place(int, int, int)
+ * @see Sudoku#clear(int, int)
+ *
+ * @since 1.1
+ */
+public final class Session {
+
+    /**
+     * <p>
+     * Sudoku dont la grille est suivie.</p>
+     *
+     * @since 1.1
+     */
+    private final Sudoku _sudoku;
+
+    /**
+     * <p>
+     * Grille du sudoku, partagée avec celui-ci.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _grid;
+
+    /**
+     * <p>
+     * Table des unités de la grille.</p>
+     *
+     * @since 1.1
+     */
+    private final UnitTable _units;
+
+    /**
+     * <p>
+     * Nombre de valeurs possibles pour une case.</p>
+     *
+     * @since 1.1
+     */
+    private final int _width;
+
+    /**
+     * <p>
+     * Nombre de <code>long</code> par ensemble de valeurs.</p>
+     *
+     * @since 1.1
+     */
+    private final int _words;
+
+    /**
+     * <p>
+     * Nombre d'occurrences de chaque valeur dans chaque unité, à l'indice
+     * <code>unit * width + value - 1</code>.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _counts;
+
+    /**
+     * <p>
+     * Ensemble des valeurs présentes dans chaque unité, à partir de l'indice
+     * <code>unit * words</code>.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _present;
+
+    /**
+     * <p>
+     * Masque des bits utilisés de chaque mot d'un ensemble.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _masks;
+
+    /**
+     * <p>
+     * Nombre de couples unité/valeur dont la valeur apparaît plusieurs fois
+     * dans l'unité.</p>
+     *
+     * @since 1.1
+     */
+    private int _conflicts;
+
+    /**
+     * <p>
+     * Solution de référence, null tant qu'aucune solution n'est connue.</p>
+     *
+     * @since 1.1
+     */
+    private int[] _solution;
+
+    /**
+     * <p>
+     * Nombre de cases remplies dont la valeur diffère de la solution de
+     * référence.</p>
+     *
+     * @since 1.1
+     */
+    private int _mismatches;
+
+    /**
+     * <p>
+     * Vrai si la grille courante est connue pour n'avoir aucune solution.
+     * Remis à faux à chaque modification de la grille.</p>
+     *
+     * @since 1.1
+     */
+    private boolean _unsolvable;
+
+    /**
+     * <p>
+     * Moteur de résolution réarmé lorsque la solution de référence ne
+     * convient plus, alloué à la première utilisation.</p>
+     *
+     * @since 1.1
+     */
+    private BitSetBTCheck _solver;
+
+    /**
+     * <p>
+     * Construit l'état de jeu de la grille d'un sudoku.</p>
+     *
+     * @param sudoku Le sudoku
+     * @param grid   La grille du sudoku, modifiée par la session
+     *
+     * @since 1.1
+     */
+    Session(Sudoku sudoku, int[] grid) {
+        _sudoku = sudoku;
+        _grid = grid;
+        _units = UnitTable.of(sudoku.getSize());
+        _width = _units.getWidth();
+        _words = Candidates.words(_width);
+        _counts = new int[_units.getNbUnits() * _width];
+        _present = new long[_units.getNbUnits() * _words];
+        _masks = new long[_words];
+        for (int w = 0; w < _words; ++w) {
+            _masks[w] = Candidates.mask(_width, w);
+        }
+        reset();
+    }
+
+    /**
+     * <p>
+     * Recalcule l'état à partir de la grille, après une modification de
+     * celle-ci faite en dehors de la session. La solution de référence est
+     * oubliée.</p>
+     *
+     * @since 1.1
+     */
+    void reset() {
+        Arrays.fill(_counts, 0);
+        Arrays.fill(_present, 0L);
+        _conflicts = 0;
+        _solution = null;
+        _mismatches = 0;
+        _unsolvable = false;
+        for (int cell = 0; cell < _grid.length; ++cell) {
+            if (_grid[cell] != 0) {
+                add(cell, _grid[cell]);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Pose une valeur dans une case, en remplaçant la valeur éventuellement
+     * présente.</p>
+     *
+     * @param cell  L'indice de la case
+     * @param value La valeur, entre 1 et <code>width</code>
+     *
+     * @since 1.1
+     */
+    void place(int cell, int value) {
+        int old = _grid[cell];
+        if (old == value) {
+            return;
+        }
+        if (old != 0) {
+            remove(cell, old);
+        }
+        add(cell, value);
+        _grid[cell] = value;
+        _unsolvable = false;
+    }
+
+    /**
+     * <p>
+     * Efface la valeur d'une case.</p>
+     *
+     * @param cell L'indice de la case
+     *
+     * @since 1.1
+     */
+    void clear(int cell) {
+        int old = _grid[cell];
+        if (old == 0) {
+            return;
+        }
+        remove(cell, old);
+        _grid[cell] = 0;
+        _unsolvable = false;
+    }
+
+    /**
+     * <p>
+     * Propose une solution de la grille courante comme solution de
+     * référence, par exemple après une résolution complète.</p>
+     *
+     * @param solution La solution, rangée ligne par ligne
+     *
+     * @since 1.1
+     */
+    void learn(Integer[] solution) {
+        if (_solution == null) {
+            _solution = new int[_grid.length];
+        }
+        for (int cell = 0; cell < _grid.length; ++cell) {
+            _solution[cell] = solution[cell];
+        }
+        _mismatches = countMismatches();
+        _unsolvable = false;
+    }
+
+    /**
+     * <p>
+     * Recopie l'ensemble des valeurs possibles d'une case vide, c'est à dire
+     * absentes de sa ligne, de sa colonne et de son bloc. L'ensemble d'une
+     * case remplie est vide.</p>
+     *
+     * @param cell L'indice de la case
+     * @param dst  Le tableau de destination, d'au moins
+     *             {@link Candidates#words(int)} mots
+     *
+     * @return Le nombre de valeurs possibles
+     *
+     * @since 1.1
+     */
+    int candidates(int cell, long[] dst) {
+        if (_grid[cell] != 0) {
+            Candidates.clear(dst, 0, _words);
+            return 0;
+        }
+        int row = _units.getUnit(cell, 0) * _words;
+        int col = _units.getUnit(cell, 1) * _words;
+        int box = _units.getUnit(cell, 2) * _words;
+        int count = 0;
+        for (int w = 0; w < _words; ++w) {
+            dst[w] = ~(_present[row + w] | _present[col + w] | _present[box + w]) & _masks[w];
+            count += Long.bitCount(dst[w]);
+        }
+        return count;
+    }
+
+    /**
+     * <p>
+     * Indique si une valeur est absente des trois unités d'une case.</p>
+     *
+     * @param cell  L'indice de la case
+     * @param value La valeur, entre 1 et <code>width</code>
+     *
+     * @return Vrai si la valeur est absente des unités de la case
+     *
+     * @since 1.1
+     */
+    boolean isCandidate(int cell, int value) {
+        for (int k = 0; k < 3; ++k) {
+            if (_counts[_units.getUnit(cell, k) * _width + value - 1] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Indique si la valeur d'une case apparaît aussi dans l'une de ses
+     * unités.</p>
+     *
+     * @param cell L'indice de la case
+     *
+     * @return Vrai si la case est remplie et en conflit
+     *
+     * @since 1.1
+     */
+    boolean isConflicting(int cell) {
+        int value = _grid[cell];
+        if (value == 0) {
+            return false;
+        }
+        for (int k = 0; k < 3; ++k) {
+            if (_counts[_units.getUnit(cell, k) * _width + value - 1] > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Indique si la grille contient au moins un conflit.</p>
+     *
+     * @return Vrai si une valeur apparaît deux fois dans une même unité
+     *
+     * @since 1.1
+     */
+    boolean hasConflicts() {
+        return _conflicts > 0;
+    }
+
+    /**
+     * <p>
+     * Indique si la grille courante admet au moins une solution. La réponse
+     * est immédiate lorsque la solution de référence s'accorde avec les
+     * valeurs posées ou lorsque la grille contient un conflit.</p>
+     *
+     * @return Vrai si la grille admet une solution
+     *
+     * @since 1.1
+     */
+    boolean isSolvable() {
+        if (_unsolvable || _conflicts > 0) {
+            return false;
+        }
+        if (_solution != null && _mismatches == 0) {
+            return true;
+        }
+        if (_solver == null) {
+            _solver = new BitSetBTCheck(_sudoku.getSize());
+        }
+        if (!_solver.reset(_sudoku) || _solver.run() == 0) {
+            _unsolvable = true;
+            return false;
+        }
+        if (_solution == null) {
+            _solution = new int[_grid.length];
+        }
+        _solver.copySolutionTo(_solution);
+        _mismatches = 0;
+        return true;
+    }
+
+    /**
+     * <p>
+     * Retourne un indice : parmi les cases vides ayant le moins de valeurs
+     * possibles, la première, accompagnée de sa valeur dans une solution de la
+     * grille courante.</p>
+     *
+     * @return L'indice de la case multiplié par <code>width</code> plus la
+     *         valeur moins un, ou -1 si la grille est remplie ou sans
+     *         solution
+     *
+     * @since 1.1
+     */
+    int hint() {
+        if (!isSolvable()) {
+            return -1;
+        }
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < _grid.length && bestCount > 1; ++cell) {
+            if (_grid[cell] == 0) {
+                int row = _units.getUnit(cell, 0) * _words;
+                int col = _units.getUnit(cell, 1) * _words;
+                int box = _units.getUnit(cell, 2) * _words;
+                int count = 0;
+                for (int w = 0; w < _words; ++w) {
+                    count += Long.bitCount(~(_present[row + w] | _present[col + w] | _present[box + w]) & _masks[w]);
+                }
+                if (count < bestCount) {
+                    best = cell;
+                    bestCount = count;
+                }
+            }
+        }
+        return best < 0 ? -1 : best * _width + _solution[best] - 1;
+    }
+
+    /**
+     * <p>
+     * Ajoute une valeur aux unités d'une case et la compare à la solution de
+     * référence.</p>
+     *
+     * @param cell  L'indice de la case
+     * @param value La valeur
+     *
+     * @since 1.1
+     */
+    private void add(int cell, int value) {
+        for (int k = 0; k < 3; ++k) {
+            int unit = _units.getUnit(cell, k);
+            int count = ++_counts[unit * _width + value - 1];
+            if (count == 1) {
+                Candidates.add(_present, unit * _words, value - 1);
+            } else if (count == 2) {
+                ++_conflicts;
+            }
+        }
+        if (_solution != null && _solution[cell] != value) {
+            ++_mismatches;
+        }
+    }
+
+    /**
+     * <p>
+     * Retire une valeur des unités d'une case.</p>
+     *
+     * @param cell  L'indice de la case
+     * @param value La valeur
+     *
+     * @since 1.1
+     */
+    private void remove(int cell, int value) {
+        for (int k = 0; k < 3; ++k) {
+            int unit = _units.getUnit(cell, k);
+            int count = --_counts[unit * _width + value - 1];
+            if (count == 0) {
+                Candidates.remove(_present, unit * _words, value - 1);
+            } else if (count == 1) {
+                --_conflicts;
+            }
+        }
+        if (_solution != null && _solution[cell] != value) {
+            --_mismatches;
+        }
+    }
+
+    /**
+     * <p>
+     * Compte les cases remplies dont la valeur diffère de la solution de
+     * référence.</p>
+     *
+     * @return Le nombre de cases en désaccord
+     *
+     * @since 1.1
+     */
+    private int countMismatches() {
+        int mismatches = 0;
+        for (int cell = 0; cell < _grid.length; ++cell) {
+            if (_grid[cell] != 0 && _grid[cell] != _solution[cell]) {
+                ++mismatches;
+            }
+        }
+        return mismatches;
+    }
+}
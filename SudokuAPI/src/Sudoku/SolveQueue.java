@@ -0,0 +1,508 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package Sudoku;
+
+import BSBT.BitSetBTCheck;
+import BSBT.LaneCheck;
+import SudoLib.ISudoku;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * <b><code>SolveQueue</code></b> est une file de résolution asynchrone : les
+ * grilles soumises une à une, depuis un ou plusieurs threads, sont regroupées
+ * en lots confiés à des moteurs de résolution alloués une fois pour toutes et
+ * réarmés d'une grille à l'autre.</p>
+ *
+ * <p>
+ * Chaque thread de la file attend une première grille, puis réunit les grilles
+ * suivantes jusqu'à ce que le lot atteigne sa taille maximum ou que le délai
+ * maximum soit écoulé depuis l'arrivée de la première. Les grilles 9x9 d'un
+ * lot sont résolues ensemble par un {@link LaneCheck}, les autres une à une
+ * par un {@link BitSetBTCheck} propre à leur taille. Un délai nul ne retarde
+ * aucune grille : le lot réunit alors seulement les grilles déjà en attente,
+ * ce qui suffit à former de grands lots lorsque la file est chargée. Un délai
+ * de quelques microsecondes permet de former des lots même sous une charge
+ * modérée.</p>
+ *
+ * <p>
+ * Les résultats sont transmis par des {@link CompletableFuture} complétés par
+ * le thread de la file ; les actions enchaînées sur un résultat ne doivent
+ * donc pas bloquer. Une <b>SolveQueue</b> peut être partagée entre plusieurs
+ * threads.</p>
+ *
+ * @author Pascal Luttgens
+ * @version 1.1
+ *
+ * @see LaneCheck
+ * @see BitSetBTCheck
+ *
+ * @since 1.1
+ */
+public class SolveQueue implements ICheck, Closeable {
+
+    /**
+     * <p>
+     * Grille en attente de résolution.</p>
+     *
+     * @since 1.1
+     */
+    private static final class Request {
+
+        /**
+         * Taille de l'arête d'un bloc de la grille.
+         */
+        private final int size;
+
+        /**
+         * Copie de la grille, rangée ligne par ligne.
+         */
+        private final int[] grid;
+
+        /**
+         * Résultat promis à l'appelant.
+         */
+        private final CompletableFuture<int[]> result = new CompletableFuture<>();
+
+        /**
+         * <p>
+         * Construit une requête.</p>
+         *
+         * @param size La taille de l'arête d'un bloc
+         * @param grid La copie de la grille
+         */
+        private Request(int size, int[] grid) {
+            this.size = size;
+            this.grid = grid;
+        }
+    }
+
+    /**
+     * <p>
+     * Requête servant à réveiller les threads lors de la fermeture.</p>
+     *
+     * @since 1.1
+     */
+    private static final Request CLOSED = new Request(0, new int[0]);
+
+    /**
+     * <p>
+     * Nombre de cases d'une grille 9x9.</p>
+     *
+     * @since 1.1
+     */
+    private static final int LANE_CELLS = 81;
+
+    /**
+     * <p>
+     * Grilles en attente.</p>
+     *
+     * @since 1.1
+     */
+    private final BlockingQueue<Request> _pending = new LinkedBlockingQueue<>();
+
+    /**
+     * <p>
+     * Threads de la file.</p>
+     *
+     * @since 1.1
+     */
+    private final Thread[] _threads;
+
+    /**
+     * <p>
+     * Nombre maximum de grilles par lot.</p>
+     *
+     * @since 1.1
+     */
+    private final int _maxBatch;
+
+    /**
+     * <p>
+     * Délai maximum d'attente d'un lot, en nanosecondes.</p>
+     *
+     * @since 1.1
+     */
+    private final long _maxDelay;
+
+    /**
+     * <p>
+     * Nombre de lots et de grilles traités.</p>
+     *
+     * @since 1.1
+     */
+    private final AtomicLong _batches = new AtomicLong(), _grids = new AtomicLong();
+
+    /**
+     * <p>
+     * Vrai une fois la file fermée.</p>
+     *
+     * @since 1.1
+     */
+    private volatile boolean _closed;
+
+    /**
+     * <p>
+     * Verrou rendant atomiques, vis à vis de la fermeture, la vérification de
+     * {@link #_closed} et l'ajout d'une requête : aucune requête ne peut ainsi
+     * arriver après les marques de fin des threads.</p>
+     *
+     * @since 1.1
+     */
+    private final Object _lock = new Object();
+
+    /**
+     * <p>
+     * Construit une file servie par un thread par processeur, formant des
+     * lots d'au plus {@link LaneCheck#LANES} grilles sans délai
+     * d'attente.</p>
+     *
+     * @since 1.1
+     */
+    public SolveQueue() {
+        this(Runtime.getRuntime().availableProcessors(), LaneCheck.LANES, 0);
+    }
+
+    /**
+     * <p>
+     * Construit une file de résolution et démarre ses threads.</p>
+     *
+     * @param nbThreads Le nombre de threads de résolution
+     * @param maxBatch  Le nombre maximum de grilles par lot
+     * @param maxDelay  Le délai maximum, en microsecondes, pendant lequel une
+     *                  grille attend que son lot se remplisse
+     *
+     * @throws IllegalArgumentException Si le nombre de threads ou la taille
+     *                                  des lots est inférieur ou égal à 0, ou
+     *                                  si le délai est négatif
+     *
+     * @since 1.1
+     */
+    public SolveQueue(int nbThreads, int maxBatch, long maxDelay) throws IllegalArgumentException {
+        if (nbThreads <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("Thread count and batch size must be > 0.");
+        }
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("Batch delay must be >= 0.");
+        }
+        _maxBatch = maxBatch;
+        _maxDelay = TimeUnit.MICROSECONDS.toNanos(maxDelay);
+        _threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; ++t) {
+            _threads[t] = new Thread(this::drain, "SolveQueue-" + t);
+            _threads[t].setDaemon(true);
+            _threads[t].start();
+        }
+    }
+
+    /**
+     * <p>
+     * Soumet une grille à résoudre. La grille est recopiée et peut être
+     * modifiée dès le retour de la méthode.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne, 0 pour une case vide
+     *
+     * @return Le résultat : une solution de la grille rangée ligne par ligne,
+     *         ou null si la grille n'en admet aucune
+     *
+     * @throws IllegalArgumentException Si la longueur du tableau n'est pas
+     *                                  celle d'une grille ou si une valeur est
+     *                                  hors des bornes
+     * @throws IllegalStateException    Si la file est fermée
+     *
+     * @since 1.1
+     */
+    public CompletableFuture<int[]> submit(int[] grid) throws IllegalArgumentException, IllegalStateException {
+        int size = (int) Math.round(Math.sqrt(Math.sqrt(grid.length)));
+        int width = size * size;
+        if (size < 1 || width * width != grid.length) {
+            throw new IllegalArgumentException("Array length is not the size of a grid.");
+        }
+        int[] copy = new int[grid.length];
+        for (int cell = 0; cell < grid.length; ++cell) {
+            int value = grid[cell];
+            if (value < 0 || value > width) {
+                throw new IllegalArgumentException("Value must be between 0 and " + width + ".");
+            }
+            copy[cell] = value;
+        }
+        return enqueue(new Request(size, copy));
+    }
+
+    /**
+     * <p>
+     * Soumet la grille d'un sudoku à résoudre.</p>
+     *
+     * @param sudoku Le sudoku
+     *
+     * @return Le résultat : une solution de la grille rangée ligne par ligne,
+     *         ou null si la grille n'en admet aucune
+     *
+     * @throws IllegalStateException Si la file est fermée
+     *
+     * @see #submit(int[])
+     *
+     * @since 1.1
+     */
+    public CompletableFuture<int[]> submit(ISudoku sudoku) throws IllegalStateException {
+        int width = sudoku.getSize() * sudoku.getSize();
+        int[] copy = new int[width * width];
+        sudoku.copyGridTo(copy);
+        return enqueue(new Request(sudoku.getSize(), copy));
+    }
+
+    /**
+     * <p>
+     * Résoud un sudoku en passant par la file et attend le résultat.</p>
+     *
+     * @param sudoku Le sudoku à résoudre
+     *
+     * @return Une solution si la grille en accepte ou null
+     *
+     * @throws IllegalStateException Si la file est fermée
+     *
+     * @since 1.1
+     */
+    @Override
+    public ArrayList<Integer[]> solve(Sudoku sudoku) throws IllegalStateException {
+        int[] solution;
+        try {
+            solution = submit(sudoku).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        if (solution == null) {
+            return null;
+        }
+        Integer[] copy = new Integer[solution.length];
+        for (int cell = 0; cell < solution.length; ++cell) {
+            copy[cell] = solution[cell];
+        }
+        ArrayList<Integer[]> solutions = new ArrayList<>(1);
+        solutions.add(copy);
+        return solutions;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de lots traités depuis la création de la file.</p>
+     *
+     * @return Le nombre de lots
+     *
+     * @since 1.1
+     */
+    public long getNbBatches() {
+        return _batches.get();
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de grilles traitées depuis la création de la
+     * file.</p>
+     *
+     * @return Le nombre de grilles
+     *
+     * @since 1.1
+     */
+    public long getNbGrids() {
+        return _grids.get();
+    }
+
+    /**
+     * <p>
+     * Ferme la file. Les grilles encore en attente sont abandonnées et leur
+     * résultat se termine par une {@link IllegalStateException}.</p>
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() {
+        synchronized (_lock) {
+            if (_closed) {
+                return;
+            }
+            _closed = true;
+            for (Thread thread : _threads) {
+                _pending.add(CLOSED);
+            }
+        }
+        for (Thread thread : _threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        Request request;
+        while ((request = _pending.poll()) != null) {
+            request.result.completeExceptionally(new IllegalStateException("Solve queue is closed."));
+        }
+    }
+
+    /**
+     * <p>
+     * Place une requête dans la file.</p>
+     *
+     * @param request La requête
+     *
+     * @return Le résultat promis
+     *
+     * @throws IllegalStateException Si la file est fermée
+     *
+     * @since 1.1
+     */
+    private CompletableFuture<int[]> enqueue(Request request) throws IllegalStateException {
+        synchronized (_lock) {
+            if (_closed) {
+                throw new IllegalStateException("Solve queue is closed.");
+            }
+            _pending.add(request);
+        }
+        return request.result;
+    }
+
+    /**
+     * <p>
+     * Boucle d'un thread de la file : forme des lots et les résout jusqu'à la
+     * fermeture de la file.</p>
+     *
+     * @since 1.1
+     */
+    private void drain() {
+        LaneCheck lanes = new LaneCheck();
+        HashMap<Integer, BitSetBTCheck> checks = new HashMap<>();
+        ArrayList<Request> batch = new ArrayList<>(_maxBatch);
+        int[] grids = new int[_maxBatch * LANE_CELLS];
+        int[] slots = new int[_maxBatch];
+        try {
+            while (true) {
+                Request request = _pending.take();
+                long deadline = System.nanoTime() + _maxDelay;
+                while (request != CLOSED) {
+                    batch.add(request);
+                    if (batch.size() == _maxBatch) {
+                        break;
+                    }
+                    request = _pending.poll();
+                    if (request == null) {
+                        long wait = deadline - System.nanoTime();
+                        if (wait <= 0 || (request = _pending.poll(wait, TimeUnit.NANOSECONDS)) == null) {
+                            break;
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    dispatch(batch, lanes, checks, grids, slots);
+                    batch.clear();
+                }
+                if (request == CLOSED) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Request request : batch) {
+                request.result.completeExceptionally(new IllegalStateException("Solve queue is closed."));
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Résoud un lot et complète le résultat de chacune de ses grilles. Les
+     * grilles dont le résultat a été annulé entre temps sont ignorées.</p>
+     *
+     * @param batch  Le lot
+     * @param lanes  Le moteur des grilles 9x9
+     * @param checks Les moteurs des autres grilles, par taille
+     * @param grids  Le tampon des grilles 9x9 du lot
+     * @param slots  Le tampon des positions dans <code>grids</code> de chaque
+     *               grille du lot, -1 pour une grille d'une autre taille
+     *
+     * @since 1.1
+     */
+    private void dispatch(ArrayList<Request> batch, LaneCheck lanes, HashMap<Integer, BitSetBTCheck> checks,
+            int[] grids, int[] slots) {
+        _batches.incrementAndGet();
+        _grids.addAndGet(batch.size());
+
+        int nbLanes = 0;
+        for (int k = 0; k < batch.size(); ++k) {
+            Request request = batch.get(k);
+            slots[k] = -1;
+            if (request.size == 3 && !request.result.isDone()) {
+                slots[k] = nbLanes * LANE_CELLS;
+                System.arraycopy(request.grid, 0, grids, slots[k], LANE_CELLS);
+                ++nbLanes;
+            }
+        }
+        if (nbLanes > 0) {
+            try {
+                lanes.solve(grids, nbLanes, grids);
+            } catch (RuntimeException e) {
+                for (int k = 0; k < batch.size(); ++k) {
+                    if (slots[k] >= 0) {
+                        batch.get(k).result.completeExceptionally(e);
+                    }
+                }
+            }
+        }
+
+        for (int k = 0; k < batch.size(); ++k) {
+            Request request = batch.get(k);
+            if (request.result.isDone()) {
+                continue;
+            }
+            if (slots[k] >= 0) {
+                if (grids[slots[k]] == 0) {
+                    request.result.complete(null);
+                } else {
+                    System.arraycopy(grids, slots[k], request.grid, 0, LANE_CELLS);
+                    request.result.complete(request.grid);
+                }
+            } else if (request.size != 3) {
+                solveOne(request, checks);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Résoud seule une grille qui n'est pas une grille 9x9.</p>
+     *
+     * @param request La requête
+     * @param checks  Les moteurs de résolution, par taille
+     *
+     * @since 1.1
+     */
+    private static void solveOne(Request request, HashMap<Integer, BitSetBTCheck> checks) {
+        try {
+            BitSetBTCheck check = checks.get(request.size);
+            if (check == null) {
+                check = new BitSetBTCheck(request.size);
+                checks.put(request.size, check);
+            }
+            if (check.reset(request.grid, 0) && check.run() > 0) {
+                check.copySolutionTo(request.grid);
+                request.result.complete(request.grid);
+            } else {
+                request.result.complete(null);
+            }
+        } catch (RuntimeException e) {
+            request.result.completeExceptionally(e);
+        }
+    }
+}
@@ -7,9 +7,11 @@ package Sudoku;
 import Coord2D.Coord2D;
 import IMBT.Shaker;
 import IMBT.InMemoryBTCheck;
+import Logic.Difficulty;
+import SudoLib.Canonicalizer;
+import SudoLib.GridValidator;
 import SudoLib.ISudoku;
 import java.util.ArrayList;
-import java.util.Arrays;
 
 /**
  * <p>
@@ -29,6 +31,12 @@ import java.util.Arrays;
  * Les grilles de sudoku peuvent être passé en paramètre à l'appel du
  * constructeur.</p>
  *
+ * <p>
+ * Pour le jeu interactif, les valeurs peuvent être posées et effacées une à
+ * une ; les valeurs possibles, les conflits, la résolubilité et les indices
+ * sont alors obtenus à partir d'un état tenu à jour (voir {@link Session})
+ * plutôt que par une nouvelle résolution.</p>
+ *
  * @author Pascal Luttgens
  * @version 1.0
  *
@@ -74,7 +82,8 @@ public class Sudoku implements ISudoku {
 
     /**
      * <p>
-     * Nombre de valeur devant être initialisées à la génération du sudoku.</p>
+     * Nombre de valeurs initialisées dans la grille, tenu à jour à la
+     * génération et lors des poses et effacements.</p>
      *
      * @see #Sudoku(int)
      * @see #Sudoku(java.util.ArrayList, int)
@@ -82,7 +91,7 @@ public class Sudoku implements ISudoku {
      *
      * @since 1.0
      */
-    private final int NB_INITIALIZED_VALUES;
+    private int _nbInitializedValues;
 
     /**
      * <p>
@@ -96,7 +105,7 @@ public class Sudoku implements ISudoku {
      *
      * @since 1.0
      */
-    private Integer[] _grid;
+    private int[] _grid;
 
     /**
      * <p>
@@ -127,6 +136,27 @@ public class Sudoku implements ISudoku {
      */
     private IGen _gen;
 
+    /**
+     * <p>
+     * État de jeu interactif de la grille, créé à la première pose,
+     * effacement ou question sur la grille.</p>
+     *
+     * @see Session
+     *
+     * @since 1.1
+     */
+    private Session _session;
+
+    /**
+     * <p>
+     * Vérificateur de la grille, créé à la première vérification.</p>
+     *
+     * @see GridValidator
+     *
+     * @since 1.1
+     */
+    private GridValidator _validator;
+
     /**
      * <p>
      * Génère une grille de sudoku avec le nombre de valeur spécifié en
@@ -147,6 +177,32 @@ public class Sudoku implements ISudoku {
      * @since 1.0
      */
     public Sudoku(int n) throws IllegalStateException, IllegalArgumentException, RuntimeException {
+        this(n, null);
+    }
+
+    /**
+     * <p>
+     * Génère une grille de sudoku avec le nombre de valeur spécifié en
+     * paramètre et, si un niveau est donné, à solution unique de ce niveau de
+     * difficulté. La grille n'est générée qu'une fois.</p>
+     *
+     * @param n          Le nombre de valeur initialisées
+     * @param difficulty Le niveau de difficulté désiré, ou null pour une grille
+     *                   quelconque
+     *
+     * @throws IllegalStateException    Si le sudoku est mal initalisé ou si
+     *                                  aucune grille du niveau demandé n'a pu
+     *                                  être générée
+     * @throws IllegalArgumentException Si le nombre de valeur à générer est
+     *                                  invalide
+     * @throws RuntimeException         Si il y'a une erreur lors de la
+     *                                  génération d'une grille quelconque
+     *
+     * @see #generate(int, Logic.Difficulty)
+     *
+     * @since 1.1
+     */
+    public Sudoku(int n, Difficulty difficulty) throws IllegalStateException, IllegalArgumentException, RuntimeException {
         if (DEFAULT_MAX_SIZE < DEFAULT_MIN_SIZE) {
             throw new IllegalStateException("DEFAULT_MIN_SIZE must be inferior to DEFAULT_MAX_SIZE");
         }
@@ -160,8 +216,12 @@ public class Sudoku implements ISudoku {
         }
 
         SIZE = DEFAULT_MIN_SIZE;
-        NB_INITIALIZED_VALUES = n;
-        _grid = new Integer[SIZE * SIZE * SIZE * SIZE];
+        _nbInitializedValues = n;
+        _grid = new int[SIZE * SIZE * SIZE * SIZE];
+        if (difficulty != null) {
+            generate(n, difficulty);
+            return;
+        }
         try {
             generate(n);
         } catch (IllegalStateException e) {
@@ -211,9 +271,11 @@ public class Sudoku implements ISudoku {
                 count += 1;
             }
         }
-        NB_INITIALIZED_VALUES = count;
-        Object[] array = grid.toArray();
-        _grid = Arrays.copyOf(array, array.length, Integer[].class);
+        _nbInitializedValues = count;
+        _grid = new int[SIZE * SIZE * SIZE * SIZE];
+        for (int i = 0; i < grid.size(); ++i) {
+            _grid[i] = grid.get(i);
+        }
     }
 
     /**
@@ -230,6 +292,22 @@ public class Sudoku implements ISudoku {
         _check = check;
     }
 
+    /**
+     * <p>
+     * Spécifie le générateur de grilles à utiliser pour le sudoku, par exemple
+     * un {@link PuzzlePool} partagé entre plusieurs sudokus. Le générateur
+     * doit produire des grilles de la taille du sudoku.</p>
+     *
+     * @param gen Une classe de génération implémentant {@link IGen}
+     *
+     * @see IGen
+     *
+     * @since 1.1
+     */
+    public void setGen(IGen gen) {
+        _gen = gen;
+    }
+
     /**
      * <p>
      * Retourne la taille de l'arête d'un bloc du sudoku</p>
@@ -253,7 +331,7 @@ public class Sudoku implements ISudoku {
      */
     @Override
     public int getNbInitializedValue() {
-        return NB_INITIALIZED_VALUES;
+        return _nbInitializedValues;
     }
 
     /**
@@ -278,7 +356,321 @@ public class Sudoku implements ISudoku {
                     + "Coordinates must be between 0 and " + (SIZE * SIZE - 1));
         }
 
-        return _grid[new Coord2D(x, y).convCoord(SIZE * SIZE)];
+        return _grid[Coord2D.convCoord(x, y, SIZE * SIZE)];
+    }
+
+    /**
+     * <p>
+     * Retourne la valeur d'une case donnée par son indice dans la grille, sans
+     * vérification de l'indice.</p>
+     *
+     * @param cell Indice de la case
+     *
+     * @return La valeur de la case, 0 si vide.
+     *
+     * @see Coord2D#convCoord(int, int, int)
+     *
+     * @since 1.1
+     */
+    @Override
+    public int getValueAt(int cell) {
+        return _grid[cell];
+    }
+
+    /**
+     * <p>
+     * Recopie la grille entière dans un tableau en une seule copie.</p>
+     *
+     * @param dst Le tableau de destination
+     *
+     * @throws IllegalArgumentException Si le tableau est trop petit
+     *
+     * @since 1.1
+     */
+    @Override
+    public void copyGridTo(int[] dst) throws IllegalArgumentException {
+        if (dst.length < _grid.length) {
+            throw new IllegalArgumentException("Destination array is too small.");
+        }
+        System.arraycopy(_grid, 0, dst, 0, _grid.length);
+    }
+
+    /**
+     * <p>
+     * Recopie une ligne de la grille dans un tableau en une seule copie.</p>
+     *
+     * @param y      La ligne à recopier
+     * @param dst    Le tableau de destination
+     * @param offset La position de la première case de la ligne dans
+     *               <code>dst</code>
+     *
+     * @throws IllegalArgumentException Si la ligne est invalide ou si le
+     *                                  tableau est trop petit
+     *
+     * @since 1.1
+     */
+    @Override
+    public void copyRowTo(int y, int[] dst, int offset) throws IllegalArgumentException {
+        if (y < 0 || y >= SIZE * SIZE || offset < 0 || dst.length - offset < SIZE * SIZE) {
+            throw new IllegalArgumentException("Invalid row or destination.");
+        }
+        System.arraycopy(_grid, y * SIZE * SIZE, dst, offset, SIZE * SIZE);
+    }
+
+    /**
+     * <p>
+     * Indique si la grille de ce sudoku est équivalente à celle d'un autre
+     * sudoku, c'est à dire si l'une se déduit de l'autre par renumérotation des
+     * chiffres, transposition, permutation des bandes ou des piles, ou
+     * permutation des lignes d'une bande ou des colonnes d'une pile. Aucune
+     * des deux grilles n'est résolue.</p>
+     *
+     * @param other L'autre sudoku
+     *
+     * @return Vrai si les deux grilles sont équivalentes
+     *
+     * @see Canonicalizer
+     *
+     * @since 1.1
+     */
+    public boolean isEquivalent(Sudoku other) {
+        if (other.SIZE != SIZE) {
+            return false;
+        }
+        return new Canonicalizer(SIZE).equivalent(_grid, other._grid);
+    }
+
+    /**
+     * <p>
+     * Pose une valeur dans une case, en remplaçant la valeur éventuellement
+     * présente. Une valeur en conflit avec une autre case est tout de même
+     * posée. Les solutions déjà calculées sont oubliées.</p>
+     *
+     * @param x     Coordonnée de la case en abscisse
+     * @param y     Coordonnée de la case en ordonnée
+     * @param value La valeur, entre 1 et le nombre de cases d'une ligne
+     *
+     * @return Faux si la valeur posée apparaît déjà sur la ligne, la colonne
+     *         ou le bloc de la case
+     *
+     * @throws IllegalArgumentException Si les coordonnées ou la valeur sont
+     *                                  invalides
+     *
+     * @see Session
+     *
+     * @since 1.1
+     */
+    public boolean place(int x, int y, int value) throws IllegalArgumentException {
+        if (value < 1 || value > SIZE * SIZE) {
+            throw new IllegalArgumentException("Invalid value.\n"
+                    + "Values must be between 1 and " + (SIZE * SIZE));
+        }
+        int cell = cellAt(x, y);
+        if (_grid[cell] == 0) {
+            _nbInitializedValues += 1;
+        }
+        session().place(cell, value);
+        solutions = null;
+        return !_session.isConflicting(cell);
+    }
+
+    /**
+     * <p>
+     * Efface la valeur d'une case. Les solutions déjà calculées sont
+     * oubliées.</p>
+     *
+     * @param x Coordonnée de la case en abscisse
+     * @param y Coordonnée de la case en ordonnée
+     *
+     * @throws IllegalArgumentException Si les coordonnées sont invalides
+     *
+     * @see Session
+     *
+     * @since 1.1
+     */
+    public void clear(int x, int y) throws IllegalArgumentException {
+        int cell = cellAt(x, y);
+        if (_grid[cell] != 0) {
+            _nbInitializedValues -= 1;
+        }
+        session().clear(cell);
+        solutions = null;
+    }
+
+    /**
+     * <p>
+     * Recopie l'ensemble des valeurs possibles d'une case vide, c'est à dire
+     * absentes de sa ligne, de sa colonne et de son bloc. La valeur
+     * <code>v</code> est représentée par le bit <code>(v - 1) % 64</code> du
+     * mot <code>(v - 1) / 64</code>. L'ensemble d'une case remplie est
+     * vide.</p>
+     *
+     * @param x   Coordonnée de la case en abscisse
+     * @param y   Coordonnée de la case en ordonnée
+     * @param dst Le tableau de destination, d'au moins
+     *            <code>(SIZE * SIZE + 63) / 64</code> mots
+     *
+     * @return Le nombre de valeurs possibles
+     *
+     * @throws IllegalArgumentException Si les coordonnées sont invalides ou si
+     *                                  le tableau est trop petit
+     *
+     * @since 1.1
+     */
+    public int getCandidates(int x, int y, long[] dst) throws IllegalArgumentException {
+        int cell = cellAt(x, y);
+        if (dst.length < (SIZE * SIZE + 63) >>> 6) {
+            throw new IllegalArgumentException("Destination array is too small.");
+        }
+        return session().candidates(cell, dst);
+    }
+
+    /**
+     * <p>
+     * Indique si une valeur est absente de la ligne, de la colonne et du bloc
+     * d'une case.</p>
+     *
+     * @param x     Coordonnée de la case en abscisse
+     * @param y     Coordonnée de la case en ordonnée
+     * @param value La valeur, entre 1 et le nombre de cases d'une ligne
+     *
+     * @return Vrai si la valeur peut être posée sans conflit
+     *
+     * @throws IllegalArgumentException Si les coordonnées ou la valeur sont
+     *                                  invalides
+     *
+     * @since 1.1
+     */
+    public boolean isCandidate(int x, int y, int value) throws IllegalArgumentException {
+        if (value < 1 || value > SIZE * SIZE) {
+            throw new IllegalArgumentException("Invalid value.\n"
+                    + "Values must be between 1 and " + (SIZE * SIZE));
+        }
+        return session().isCandidate(cellAt(x, y), value);
+    }
+
+    /**
+     * <p>
+     * Indique si la valeur d'une case apparaît aussi sur sa ligne, sa colonne
+     * ou son bloc.</p>
+     *
+     * @param x Coordonnée de la case en abscisse
+     * @param y Coordonnée de la case en ordonnée
+     *
+     * @return Vrai si la case est remplie et en conflit
+     *
+     * @throws IllegalArgumentException Si les coordonnées sont invalides
+     *
+     * @since 1.1
+     */
+    public boolean isConflicting(int x, int y) throws IllegalArgumentException {
+        return session().isConflicting(cellAt(x, y));
+    }
+
+    /**
+     * <p>
+     * Indique si la grille contient au moins un conflit.</p>
+     *
+     * @return Vrai si une valeur apparaît deux fois sur une même ligne,
+     *         colonne ou bloc
+     *
+     * @since 1.1
+     */
+    public boolean hasConflicts() {
+        return session().hasConflicts();
+    }
+
+    /**
+     * <p>
+     * Indique si la grille ne contient que des valeurs comprises entre 1 et
+     * la largeur de la grille, sans doublon sur une ligne, une colonne ou un
+     * bloc. La vérification se fait en un seul parcours de la grille.</p>
+     *
+     * @return Vrai si la grille est valide
+     *
+     * @see GridValidator
+     *
+     * @since 1.1
+     */
+    public boolean isValid() {
+        if (_validator == null) {
+            _validator = new GridValidator(SIZE);
+        }
+        return _validator.isValid(_grid);
+    }
+
+    /**
+     * <p>
+     * Indique si la grille, dans son état courant, admet encore au moins une
+     * solution. La réponse est immédiate tant que les valeurs posées
+     * s'accordent avec la dernière solution connue.</p>
+     *
+     * @return Vrai si la grille admet une solution
+     *
+     * @see Session
+     *
+     * @since 1.1
+     */
+    public boolean isSolvable() {
+        return session().isSolvable();
+    }
+
+    /**
+     * <p>
+     * Retourne un indice : la case vide ayant le moins de valeurs possibles et
+     * sa valeur dans une solution de la grille courante.</p>
+     *
+     * @return Un tableau <code>{x, y, valeur}</code>, ou null si la grille est
+     *         remplie ou n'admet aucune solution
+     *
+     * @see #isSolvable()
+     *
+     * @since 1.1
+     */
+    public int[] hint() {
+        int hint = session().hint();
+        if (hint < 0) {
+            return null;
+        }
+        int cell = hint / (SIZE * SIZE);
+        return new int[]{cell % (SIZE * SIZE), cell / (SIZE * SIZE), hint % (SIZE * SIZE) + 1};
+    }
+
+    /**
+     * <p>
+     * Retourne l'état de jeu de la grille, en le créant si nécessaire.</p>
+     *
+     * @return L'état de jeu
+     *
+     * @since 1.1
+     */
+    private Session session() {
+        if (_session == null) {
+            _session = new Session(this, _grid);
+        }
+        return _session;
+    }
+
+    /**
+     * <p>
+     * Retourne l'indice d'une case après vérification de ses
+     * coordonnées.</p>
+     *
+     * @param x Coordonnée de la case en abscisse
+     * @param y Coordonnée de la case en ordonnée
+     *
+     * @return L'indice de la case
+     *
+     * @throws IllegalArgumentException Si les coordonnées sont invalides
+     *
+     * @since 1.1
+     */
+    private int cellAt(int x, int y) throws IllegalArgumentException {
+        if (x >= SIZE * SIZE || y >= SIZE * SIZE || x < 0 || y < 0) {
+            throw new IllegalArgumentException("Invalid coordinates.\n"
+                    + "Coordinates must be between 0 and " + (SIZE * SIZE - 1));
+        }
+        return Coord2D.convCoord(x, y, SIZE * SIZE);
     }
 
     /**
@@ -310,7 +702,63 @@ public class Sudoku implements ISudoku {
                 throw new IllegalStateException("Sudoku was not properly initialized", ex);
             }
         }
-        _grid = _gen.generate(solvedCases);
+        load(_gen.generate(solvedCases));
+    }
+
+    /**
+     * <p>
+     * Génère une grille de sudoku à solution unique d'un niveau de difficulté
+     * donné, en spécifiant le nombre de valeurs à initialiser.</p>
+     *
+     * @param solvedCases Le nombre de valeur à initialiser
+     * @param difficulty  Le niveau de difficulté désiré
+     *
+     * @throws IllegalArgumentException Si le nombre de cases à résoudre est
+     *                                  invalide
+     * @throws IllegalStateException    Si le sudoku n'a pas été correctement
+     *                                  initialisé ou si aucune grille du niveau
+     *                                  demandé n'a pu être générée
+     *
+     * @see IGen#generate(int, Logic.Difficulty)
+     *
+     * @since 1.1
+     */
+    public void generate(int solvedCases, Difficulty difficulty) throws IllegalArgumentException, IllegalStateException {
+        if ((solvedCases > SIZE * SIZE * SIZE * SIZE) || solvedCases <= 0) {
+            throw new IllegalArgumentException("solvedCases must be between 1 and the ammount of sudoku cases.");
+        }
+
+        if (_gen == null) {
+            try {
+                _gen = new Shaker(SIZE);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalStateException("Sudoku was not properly initialized", ex);
+            }
+        }
+        load(_gen.generate(solvedCases, difficulty));
+    }
+
+    /**
+     * <p>
+     * Remplace la grille par une grille générée.</p>
+     *
+     * @param generated La grille générée
+     *
+     * @since 1.1
+     */
+    private void load(Integer[] generated) {
+        int count = 0;
+        for (int i = 0; i < _grid.length; ++i) {
+            _grid[i] = generated[i];
+            if (_grid[i] != 0) {
+                count += 1;
+            }
+        }
+        _nbInitializedValues = count;
+        solutions = null;
+        if (_session != null) {
+            _session.reset();
+        }
     }
 
     /**
@@ -322,6 +770,12 @@ public class Sudoku implements ISudoku {
      */
     @Override
     public void solve() throws IllegalStateException {
+        if (_grid == null) {
+            throw new IllegalStateException("No grid found to resolve");
+        }
+        if (!isValid()) {
+            throw new IllegalStateException("The grid submitted admit no solutions.");
+        }
         if (_check == null) {
             try {
                 _check = new InMemoryBTCheck(this);
@@ -329,14 +783,18 @@ public class Sudoku implements ISudoku {
                 throw new IllegalStateException("Sudoku was not properly initialized", ex);
             }
         }
-        if (_grid == null) {
-            throw new IllegalStateException("No grid found to resolve");
-        }
 
-        if ((solutions = _check.solve(this)) == null) {
+        try {
+            solutions = _check.solve(this);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("Sudoku was not properly initialized", ex);
+        }
+        if (solutions == null) {
             throw new IllegalStateException("The grid submitted admit no solutions.");
         }
-
+        if (_session != null && !solutions.isEmpty()) {
+            _session.learn(solutions.get(0));
+        }
     }
 
     /**
@@ -356,7 +814,7 @@ public class Sudoku implements ISudoku {
 
         if (solutions == null) {
             for (int i = 0; i < SIZE * SIZE * SIZE * SIZE; ++i) {
-                if ((i % 9 == 0) && (i != 0)) {
+                if ((i % (SIZE * SIZE) == 0) && (i != 0)) {
                     s += "\n";
                 }
                 s += _grid[i] + " ";
@@ -365,7 +823,7 @@ public class Sudoku implements ISudoku {
         } else {
             for (Integer[] array : solutions) {
                 for (int i = 0; i < SIZE * SIZE * SIZE * SIZE; ++i) {
-                    if (i % 9 == 0) {
+                    if (i % (SIZE * SIZE) == 0) {
                         s += "\n";
                     }
                     s += array[i] + " ";
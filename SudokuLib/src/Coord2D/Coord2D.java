@@ -8,9 +8,15 @@ package Coord2D;
  * (x,y) tout en proposant une fonction de conversion permettant de retourner
  * une coordonnée simple pour un tableau 1D.</p>
  *
+ * <p>
+ * Pour les boucles où la création d'objets doit être évitée, la classe propose
+ * aussi des fonctions statiques de conversion travaillant directement sur des
+ * entiers (voir {@link #convCoord(int, int, int)}, {@link #xOf(int, int)} et
+ * {@link #yOf(int, int)}).</p>
+ *
  * @author Le Victor
  * @author Luttgens Pascal
- * @version 1.1
+ * @version 1.2
  * @since 1.0
  */
 public class Coord2D {
@@ -143,7 +149,7 @@ public class Coord2D {
      *
      * @since 1.0
      */
-    public Integer convCoord(int ratio) throws IllegalArgumentException {
+    public int convCoord(int ratio) throws IllegalArgumentException {
         if (ratio <= 1) {
             throw new IllegalArgumentException("Width must be strictly superior to 1");
         }
@@ -178,4 +184,65 @@ public class Coord2D {
         return new Coord2D(pos % ratio, pos / ratio);
     }
 
+    /**
+     * <p>
+     * Convertit un couple de coordonnées en coordonnée simple en fonction de
+     * la largeur du plan, sans créer d'objet (voir
+     * {@link #convCoord(int)}).</p>
+     *
+     * <p>
+     * Aucune vérification n'est effectuée : cette fonction est destinée aux
+     * boucles de résolution dont les coordonnées sont déjà valides.</p>
+     *
+     * @param x     coordonnée en abscisse
+     * @param y     coordonnée en ordonnée
+     * @param ratio largeur du plan
+     *
+     * @return coordonnée en 1D
+     *
+     * @see #xOf(int, int)
+     * @see #yOf(int, int)
+     *
+     * @since 1.2
+     */
+    public static int convCoord(int x, int y, int ratio) {
+        return y * ratio + x;
+    }
+
+    /**
+     * <p>
+     * Retourne la coordonnée en abscisse d'une coordonnée simple en fonction
+     * de la largeur du plan, sans créer d'objet.</p>
+     *
+     * @param pos   indice de la position dans le tableau 1D
+     * @param ratio largeur du plan
+     *
+     * @return coordonnée en abscisse
+     *
+     * @see #convCoord(int, int, int)
+     *
+     * @since 1.2
+     */
+    public static int xOf(int pos, int ratio) {
+        return pos % ratio;
+    }
+
+    /**
+     * <p>
+     * Retourne la coordonnée en ordonnée d'une coordonnée simple en fonction
+     * de la largeur du plan, sans créer d'objet.</p>
+     *
+     * @param pos   indice de la position dans le tableau 1D
+     * @param ratio largeur du plan
+     *
+     * @return coordonnée en ordonnée
+     *
+     * @see #convCoord(int, int, int)
+     *
+     * @since 1.2
+     */
+    public static int yOf(int pos, int ratio) {
+        return pos / ratio;
+    }
+
 }
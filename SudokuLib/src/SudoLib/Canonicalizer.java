@@ -0,0 +1,981 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * <code><b>Canonicalizer</b></code> permet de reconnaître les grilles de sudoku
+ * équivalentes, c'est à dire qui se déduisent l'une de l'autre par :</p>
+ * <ul>
+ * <li>une renumérotation des chiffres</li>
+ * <li>une transposition</li>
+ * <li>une permutation des bandes (groupes de lignes d'un même bloc) ou des
+ * piles (groupes de colonnes d'un même bloc)</li>
+ * <li>une permutation des lignes à l'intérieur d'une bande ou des colonnes à
+ * l'intérieur d'une pile</li>
+ * </ul>
+ *
+ * <p>
+ * Deux outils sont proposés :</p>
+ * <ul>
+ * <li>{@link #fingerprint(int[])} calcule rapidement une empreinte de
+ * 64 bits construite uniquement à partir de propriétés conservées par ces
+ * transformations : deux grilles équivalentes ont toujours la même empreinte.
+ * Deux grilles différentes peuvent exceptionnellement partager la même
+ * empreinte, elle sert donc de premier filtre lors du dédoublonnage de grandes
+ * quantités de grilles.</li>
+ * <li>{@link #canonicalize(int[], int[])} calcule la forme canonique de la
+ * grille : la plus petite grille, dans l'ordre lexicographique des cases lues
+ * ligne par ligne (0 pour une case vide), parmi toutes les grilles
+ * équivalentes. Deux grilles sont équivalentes si et seulement si elles ont la
+ * même forme canonique.</li>
+ * </ul>
+ *
+ * <p>
+ * La forme canonique est obtenue par une recherche avec élagage : les chiffres
+ * étant renumérotés dans l'ordre de leur première apparition, chaque case
+ * placée est comparée à la meilleure grille trouvée jusque là et les
+ * transformations donnant un début de grille plus grand sont abandonnées. Les
+ * colonnes et les piles restées vides sur toutes les lignes déjà placées ne
+ * sont pas ordonnées tant qu'une ligne ne les distingue pas, ce qui évite
+ * d'essayer leurs permutations une à une.</p>
+ *
+ * <p>
+ * Les tableaux de travail sont alloués à la construction : une instance ne
+ * doit pas être partagée entre plusieurs threads, mais peut être réutilisée
+ * pour un nombre quelconque de grilles de même taille.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ * @since 1.1
+ */
+public final class Canonicalizer {
+
+    /**
+     * Taille de l'arête d'un bloc.
+     */
+    private final int _size;
+
+    /**
+     * Nombre de cases d'une ligne.
+     */
+    private final int _width;
+
+    /**
+     * Nombre de cases de la grille.
+     */
+    private final int _nbCells;
+
+    /**
+     * Grille dans l'orientation en cours d'examen.
+     */
+    private final int[] _grid;
+
+    /**
+     * Vrai si l'orientation en cours d'examen est la transposée de la
+     * grille d'origine.
+     */
+    private boolean _transposed;
+
+    /**
+     * Ligne de la grille examinée placée sur chaque ligne canonique.
+     */
+    private final int[] _rows;
+
+    /**
+     * Colonne de la grille examinée placée sur chaque colonne canonique.
+     */
+    private final int[] _cols;
+
+    /**
+     * Pile de la grille examinée placée sur chaque pile canonique.
+     */
+    private final int[] _stacks;
+
+    /**
+     * Nombre de cases remplies de chaque ligne de la grille examinée.
+     */
+    private final int[] _rowClues;
+
+    /**
+     * Lignes de la grille examinée, de la moins remplie à la plus remplie.
+     */
+    private final int[] _rowOrder;
+
+    /**
+     * Clés des piles candidates pour chaque ligne canonique et chaque pile
+     * canonique (voir {@link #rank(int, int)}).
+     */
+    private final long[] _stackKeys;
+
+    /**
+     * Valeurs triées d'un segment de ligne (voir {@link #rank(int, int)}).
+     */
+    private final int[] _segment;
+
+    /**
+     * Lignes et bandes déjà placées.
+     */
+    private final boolean[] _rowUsed, _bandUsed;
+
+    /**
+     * Pour chaque ligne canonique, indique si chaque colonne canonique est
+     * interchangeable avec la précédente : les deux colonnes appartiennent à
+     * la même pile et sont vides sur toutes les lignes déjà placées.
+     */
+    private final boolean[][] _colTied;
+
+    /**
+     * Pour chaque ligne canonique, indique si chaque pile canonique est
+     * interchangeable avec la précédente : les deux piles sont vides sur
+     * toutes les lignes déjà placées.
+     */
+    private final boolean[][] _stackTied;
+
+    /**
+     * Numéro attribué à chaque chiffre, 0 si le chiffre n'est pas encore
+     * apparu.
+     */
+    private final int[] _labels;
+
+    /**
+     * Chiffres dans l'ordre où ils ont reçu leur numéro.
+     */
+    private final int[] _labelled;
+
+    /**
+     * Nombre de chiffres ayant reçu un numéro.
+     */
+    private int _nbLabelled;
+
+    /**
+     * Meilleure grille trouvée.
+     */
+    private final int[] _best;
+
+    /**
+     * Nombre de cases de {@link #_best} valables pour la comparaison.
+     */
+    private int _bestLength;
+
+    /**
+     * Vrai si le chemin en cours a modifié {@link #_best}.
+     */
+    private boolean _improved;
+
+    /**
+     * Case d'origine de chaque case de la meilleure grille.
+     */
+    private final int[] _bestCells;
+
+    /**
+     * Numéro de chaque chiffre dans la meilleure grille.
+     */
+    private final int[] _bestLabels;
+
+    /**
+     * Tampons utilisés par le calcul de l'empreinte.
+     */
+    private final long[] _lineSigs, _bandSigs, _items, _parts;
+
+    /**
+     * Nombre d'occurrences de chaque chiffre.
+     */
+    private final int[] _freq;
+
+    /**
+     * Colonne de chaque chiffre dans chaque ligne, -1 si absent.
+     */
+    private final int[] _posInLine;
+
+    /**
+     * <p>
+     * Construit un <b>Canonicalizer</b> pour les grilles dont l'arête d'un
+     * bloc mesure <code>size</code>.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @throws IllegalArgumentException Si la taille est inférieure à 1
+     *
+     * @since 1.1
+     */
+    public Canonicalizer(int size) throws IllegalArgumentException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be strictly superior to 0.");
+        }
+        _size = size;
+        _width = size * size;
+        _nbCells = _width * _width;
+        _grid = new int[_nbCells];
+        _rows = new int[_width];
+        _cols = new int[_width];
+        _stacks = new int[_size];
+        _rowClues = new int[_width];
+        _rowOrder = new int[_width];
+        _segment = new int[_size];
+        _stackKeys = new long[_width * _size * _size];
+        _rowUsed = new boolean[_width];
+        _bandUsed = new boolean[_size];
+        _colTied = new boolean[_width + 1][_width];
+        _stackTied = new boolean[_width + 1][_size];
+        for (int j = 0; j < _width; ++j) {
+            _colTied[0][j] = j % _size != 0;
+        }
+        for (int s = 0; s < _size; ++s) {
+            _stackTied[0][s] = s != 0;
+        }
+        _labels = new int[_width + 1];
+        _labelled = new int[_width];
+        _best = new int[_nbCells];
+        _bestCells = new int[_nbCells];
+        _bestLabels = new int[_width + 1];
+        _lineSigs = new long[_width];
+        _bandSigs = new long[_size];
+        _items = new long[_width * _width];
+        _parts = new long[_width];
+        _freq = new int[_width + 1];
+        _posInLine = new int[_width * (_width + 1)];
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc des grilles acceptées.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return _size;
+    }
+
+    /**
+     * <p>
+     * Calcule la forme canonique d'une grille.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne, 0 pour une case vide
+     * @param dst  Le tableau recevant la forme canonique
+     *
+     * @throws IllegalArgumentException Si les tableaux n'ont pas la taille de
+     *                                  la grille
+     *
+     * @see #canonicalize(int[], int[], int[], int[])
+     *
+     * @since 1.1
+     */
+    public void canonicalize(int[] grid, int[] dst) throws IllegalArgumentException {
+        canonicalize(grid, dst, null, null);
+    }
+
+    /**
+     * <p>
+     * Calcule la forme canonique d'une grille ainsi que la transformation
+     * permettant de l'obtenir : la case <code>i</code> de la forme canonique
+     * contient <code>labels[grid[cells[i]]]</code>.</p>
+     *
+     * @param grid   La grille, rangée ligne par ligne, 0 pour une case vide
+     * @param dst    Le tableau recevant la forme canonique
+     * @param cells  Le tableau recevant la case d'origine de chaque case de la
+     *               forme canonique, ou null
+     * @param labels Le tableau recevant le nouveau numéro de chaque chiffre
+     *               (indices 0 à <code>width</code>, la case vide gardant le
+     *               numéro 0), ou null. Les chiffres absents de la grille
+     *               reçoivent les derniers numéros.
+     *
+     * @throws IllegalArgumentException Si les tableaux n'ont pas la taille de
+     *                                  la grille
+     *
+     * @since 1.1
+     */
+    public void canonicalize(int[] grid, int[] dst, int[] cells, int[] labels) throws IllegalArgumentException {
+        if (grid.length != _nbCells || dst.length != _nbCells
+                || (cells != null && cells.length != _nbCells)
+                || (labels != null && labels.length != _width + 1)) {
+            throw new IllegalArgumentException("Array sizes do not match the grid size.");
+        }
+        _bestLength = 0;
+        for (int t = 0; t < 2; ++t) {
+            _transposed = t == 1;
+            for (int r = 0; r < _width; ++r) {
+                for (int c = 0; c < _width; ++c) {
+                    _grid[r * _width + c] = _transposed ? grid[c * _width + r] : grid[r * _width + c];
+                }
+            }
+            for (int r = 0; r < _width; ++r) {
+                _rowClues[r] = 0;
+                for (int c = 0; c < _width; ++c) {
+                    if (_grid[r * _width + c] != 0) {
+                        ++_rowClues[r];
+                    }
+                }
+                int k = r;
+                while (k > 0 && _rowClues[_rowOrder[k - 1]] > _rowClues[r]) {
+                    _rowOrder[k] = _rowOrder[k - 1];
+                    --k;
+                }
+                _rowOrder[k] = r;
+            }
+            for (int j = 0; j < _width; ++j) {
+                _cols[j] = j;
+            }
+            for (int s = 0; s < _size; ++s) {
+                _stacks[s] = s;
+            }
+            placeRow(0, 0);
+        }
+        System.arraycopy(_best, 0, dst, 0, _nbCells);
+        if (cells != null) {
+            System.arraycopy(_bestCells, 0, cells, 0, _nbCells);
+        }
+        if (labels != null) {
+            System.arraycopy(_bestLabels, 0, labels, 0, _width + 1);
+        }
+    }
+
+    /**
+     * <p>
+     * Indique si deux grilles sont équivalentes.</p>
+     *
+     * @param a La première grille
+     * @param b La deuxième grille
+     *
+     * @return Vrai si les deux grilles ont la même forme canonique
+     *
+     * @since 1.1
+     */
+    public boolean equivalent(int[] a, int[] b) {
+        if (fingerprint(a) != fingerprint(b)) {
+            return false;
+        }
+        int[] ca = new int[_nbCells];
+        int[] cb = new int[_nbCells];
+        canonicalize(a, ca);
+        canonicalize(b, cb);
+        return Arrays.equals(ca, cb);
+    }
+
+    /**
+     * <p>
+     * Place une ligne de la grille examinée sur la ligne canonique
+     * <code>i</code>.</p>
+     *
+     * <p>
+     * Une nouvelle bande peut être choisie toutes les <code>size</code>
+     * lignes ; les autres lignes sont prises dans la bande de la ligne
+     * précédente. Les lignes vides d'une même bande étant interchangeables,
+     * une seule d'entre elles est essayée. Les lignes sont essayées de la
+     * moins remplie à la plus remplie afin de trouver rapidement une petite
+     * grille et d'élaguer davantage.</p>
+     *
+     * @param i    La ligne canonique à remplir
+     * @param band La bande de la ligne canonique précédente
+     *
+     * @since 1.1
+     */
+    private void placeRow(int i, int band) {
+        if (i == _width) {
+            if (_improved) {
+                record();
+                _improved = false;
+            }
+            return;
+        }
+        int emptyTried = 0;
+        for (int k = 0; k < _width; ++k) {
+            int r = _rowOrder[k];
+            int b = r / _size;
+            if (_rowUsed[r] || (i % _size == 0 ? _bandUsed[b] : b != band)) {
+                continue;
+            }
+            if (_rowClues[r] == 0) {
+                if ((emptyTried & (1 << b)) != 0) {
+                    continue;
+                }
+                emptyTried |= 1 << b;
+            }
+            _rows[i] = r;
+            _rowUsed[r] = true;
+            _bandUsed[b] = true;
+            placeCell(i, r, 0);
+            _rowUsed[r] = false;
+            if (i % _size == 0) {
+                _bandUsed[b] = false;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Remplit la case <code>j</code> de la ligne canonique <code>i</code> en
+     * choisissant la pile (au début d'une pile canonique) puis la colonne
+     * placées à cette position.</p>
+     *
+     * <p>
+     * Seules les piles et les colonnes interchangeables avec la position
+     * courante peuvent y être amenées, les autres ayant déjà été fixées par
+     * les lignes précédentes. Parmi celles-ci, les piles ou les colonnes vides
+     * sur la ligne courante donnent des grilles identiques : une seule est
+     * essayée et elles restent interchangeables pour les lignes suivantes.
+     * Les autres sont essayées en commençant par celles qui donnent les plus
+     * petites valeurs.</p>
+     *
+     * @param i La ligne canonique en cours de remplissage
+     * @param r La ligne de la grille examinée placée sur cette ligne
+     * @param j La colonne canonique à remplir
+     *
+     * @since 1.1
+     */
+    private void placeCell(int i, int r, int j) {
+        if (j == _width) {
+            tie(i);
+            placeRow(i + 1, _rows[i] / _size);
+            return;
+        }
+        if (j % _size != 0) {
+            placeColumn(i, r, j);
+            return;
+        }
+        int s = j / _size;
+        int last = s;
+        while (last + 1 < _size && _stackTied[i][last + 1]) {
+            ++last;
+        }
+        if (last == s) {
+            placeColumn(i, r, j);
+            return;
+        }
+        int keys = (i * _size + s) * _size;
+        for (int u = s; u <= last; ++u) {
+            _stackKeys[keys + u - s] = rank(r, _stacks[u]);
+        }
+        int tried = 0;
+        while (true) {
+            int t = -1;
+            long key = Long.MAX_VALUE;
+            for (int u = s; u <= last; ++u) {
+                if ((tried & (1 << (u - s))) == 0 && _stackKeys[keys + u - s] < key) {
+                    key = _stackKeys[keys + u - s];
+                    t = u;
+                }
+            }
+            if (t < 0) {
+                return;
+            }
+            tried |= 1 << (t - s);
+            if (key == 0) {
+                for (int u = s; u <= last; ++u) {
+                    if (_stackKeys[keys + u - s] == 0) {
+                        tried |= 1 << (u - s);
+                    }
+                }
+            }
+            swapStacks(s, t);
+            placeColumn(i, r, j);
+            swapStacks(s, t);
+        }
+    }
+
+    /**
+     * <p>
+     * Choisit la colonne placée sur la colonne canonique <code>j</code>
+     * parmi celles qui sont interchangeables avec elle, compare la valeur
+     * obtenue à la meilleure grille puis poursuit le remplissage de la
+     * ligne.</p>
+     *
+     * @param i La ligne canonique en cours de remplissage
+     * @param r La ligne de la grille examinée placée sur cette ligne
+     * @param j La colonne canonique à remplir
+     *
+     * @since 1.1
+     */
+    private void placeColumn(int i, int r, int j) {
+        int end = (j / _size + 1) * _size;
+        int last = j;
+        while (last + 1 < end && _colTied[i][last + 1]) {
+            ++last;
+        }
+        int tried = 0;
+        while (true) {
+            int q = -1;
+            int key = Integer.MAX_VALUE;
+            for (int u = j; u <= last; ++u) {
+                int k;
+                if ((tried & (1 << (u - j))) == 0 && (k = rank(_grid[r * _width + _cols[u]])) < key) {
+                    key = k;
+                    q = u;
+                }
+            }
+            if (q < 0) {
+                return;
+            }
+            tried |= 1 << (q - j);
+            if (key == 0) {
+                for (int u = j; u <= last; ++u) {
+                    if (_grid[r * _width + _cols[u]] == 0) {
+                        tried |= 1 << (u - j);
+                    }
+                }
+            }
+            swap(_cols, j, q);
+            int mark = _nbLabelled;
+            if (accept(i * _width + j, label(_grid[r * _width + _cols[j]]))) {
+                placeCell(i, r, j + 1);
+            }
+            unlabel(mark);
+            swap(_cols, j, q);
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne la valeur que prendrait un chiffre s'il était placé à la
+     * prochaine position : 0 pour une case vide, son numéro s'il en a déjà
+     * un, et une valeur supérieure à tous les numéros sinon.</p>
+     *
+     * @param digit Le chiffre
+     *
+     * @return La valeur du chiffre
+     *
+     * @since 1.1
+     */
+    private int rank(int digit) {
+        return digit == 0 ? 0 : _labels[digit] != 0 ? _labels[digit] : _width + 1;
+    }
+
+    /**
+     * <p>
+     * Évalue le segment d'une ligne situé dans une pile à partir de son
+     * nombre de cases remplies puis de ses plus petites valeurs (voir
+     * {@link #rank(int)}), afin d'essayer en premier les piles donnant les
+     * plus petits segments.</p>
+     *
+     * @param r     La ligne de la grille examinée
+     * @param stack La pile
+     *
+     * @return Une clé d'autant plus petite que le segment est petit, 0 si
+     *         le segment est vide
+     *
+     * @since 1.1
+     */
+    private long rank(int r, int stack) {
+        int n = 0;
+        for (int k = 0; k < _size; ++k) {
+            int v = rank(_grid[r * _width + stack * _size + k]);
+            if (v != 0) {
+                int p = n++;
+                while (p > 0 && _segment[p - 1] > v) {
+                    _segment[p] = _segment[p - 1];
+                    --p;
+                }
+                _segment[p] = v;
+            }
+        }
+        long key = n;
+        for (int k = 0; k < 3; ++k) {
+            key = key * (_width + 2) + (k < n ? _segment[k] : 0);
+        }
+        return key;
+    }
+
+    /**
+     * <p>
+     * Calcule les colonnes et les piles restant interchangeables après le
+     * remplissage de la ligne canonique <code>i</code> : celles qui l'étaient
+     * déjà et qui sont vides sur cette ligne. Les cases acceptées du chemin
+     * en cours étant toujours égales à celles de la meilleure grille, les
+     * valeurs de la ligne sont lues dans cette dernière.</p>
+     *
+     * @param i La ligne canonique qui vient d'être remplie
+     *
+     * @since 1.1
+     */
+    private void tie(int i) {
+        int line = i * _width;
+        boolean[] cols = _colTied[i + 1];
+        for (int j = 0; j < _width; ++j) {
+            cols[j] = _colTied[i][j] && _best[line + j] == 0 && _best[line + j - 1] == 0;
+        }
+        boolean[] stacks = _stackTied[i + 1];
+        boolean previous = false;
+        for (int s = 0; s < _size; ++s) {
+            boolean empty = true;
+            for (int j = s * _size; j < (s + 1) * _size && empty; ++j) {
+                empty = _best[line + j] == 0;
+            }
+            stacks[s] = _stackTied[i][s] && empty && previous;
+            previous = empty;
+        }
+    }
+
+    /**
+     * <p>
+     * Indique si un segment d'une ligne de la grille examinée est vide.</p>
+     *
+     * @param r      La ligne
+     * @param from   La première colonne du segment
+     * @param length Le nombre de colonnes du segment
+     *
+     * @return Vrai si toutes les cases du segment sont vides
+     *
+     * @since 1.1
+     */
+    private boolean isEmpty(int r, int from, int length) {
+        for (int c = from; c < from + length; ++c) {
+            if (_grid[r * _width + c] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Échange deux piles canoniques ainsi que leurs colonnes.</p>
+     *
+     * @param s La première pile canonique
+     * @param t La deuxième pile canonique
+     *
+     * @since 1.1
+     */
+    private void swapStacks(int s, int t) {
+        if (s == t) {
+            return;
+        }
+        swap(_stacks, s, t);
+        for (int k = 0; k < _size; ++k) {
+            swap(_cols, s * _size + k, t * _size + k);
+        }
+    }
+
+    /**
+     * <p>
+     * Échange deux éléments d'un tableau.</p>
+     *
+     * @param a Le tableau
+     * @param i Le premier indice
+     * @param j Le deuxième indice
+     *
+     * @since 1.1
+     */
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    /**
+     * <p>
+     * Compare une case du chemin en cours à la meilleure grille.</p>
+     *
+     * @param p     La position de la case
+     * @param value La valeur de la case
+     *
+     * @return Faux si le chemin en cours donne une grille plus grande que la
+     *         meilleure grille et doit être abandonné
+     *
+     * @since 1.1
+     */
+    private boolean accept(int p, int value) {
+        if (p < _bestLength) {
+            if (value > _best[p]) {
+                return false;
+            } else if (value == _best[p]) {
+                return true;
+            }
+        }
+        _best[p] = value;
+        _bestLength = p + 1;
+        _improved = true;
+        return true;
+    }
+
+    /**
+     * <p>
+     * Retourne le numéro d'un chiffre en lui attribuant le prochain numéro
+     * libre s'il n'est pas encore apparu.</p>
+     *
+     * @param digit Le chiffre, 0 pour une case vide
+     *
+     * @return Le numéro du chiffre
+     *
+     * @since 1.1
+     */
+    private int label(int digit) {
+        if (digit != 0 && _labels[digit] == 0) {
+            _labelled[_nbLabelled++] = digit;
+            _labels[digit] = _nbLabelled;
+        }
+        return _labels[digit];
+    }
+
+    /**
+     * <p>
+     * Retire leur numéro aux chiffres numérotés après une position donnée.</p>
+     *
+     * @param mark Le nombre de chiffres numérotés à conserver
+     *
+     * @since 1.1
+     */
+    private void unlabel(int mark) {
+        while (_nbLabelled > mark) {
+            _labels[_labelled[--_nbLabelled]] = 0;
+        }
+    }
+
+    /**
+     * <p>
+     * Enregistre la transformation du chemin en cours comme celle de la
+     * meilleure grille.</p>
+     *
+     * @since 1.1
+     */
+    private void record() {
+        for (int i = 0; i < _width; ++i) {
+            for (int j = 0; j < _width; ++j) {
+                _bestCells[i * _width + j] = _transposed
+                        ? _cols[j] * _width + _rows[i]
+                        : _rows[i] * _width + _cols[j];
+            }
+        }
+        int next = _nbLabelled + 1;
+        _bestLabels[0] = 0;
+        for (int d = 1; d <= _width; ++d) {
+            _bestLabels[d] = _labels[d] != 0 ? _labels[d] : next++;
+        }
+    }
+
+    /**
+     * <p>
+     * Calcule l'empreinte d'une grille. Deux grilles équivalentes ont toujours
+     * la même empreinte.</p>
+     *
+     * <p>
+     * L'empreinte combine, pour les lignes puis pour les colonnes, des
+     * propriétés de chaque ligne ne dépendant ni de l'ordre des lignes, des
+     * colonnes, des bandes et des piles, ni des numéros des chiffres : nombre
+     * de chiffres de la ligne et de chacun de ses segments, nombre
+     * d'occurrences dans la grille de chacun de ses chiffres, et répartition
+     * des chiffres de chaque segment dans les segments des autres lignes de
+     * la bande. Les deux résultats sont combinés sans tenir compte de leur
+     * ordre afin que l'empreinte ne dépende pas de la transposition.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne, 0 pour une case vide
+     *
+     * @return L'empreinte de la grille
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    public long fingerprint(int[] grid) throws IllegalArgumentException {
+        if (grid.length != _nbCells) {
+            throw new IllegalArgumentException("Array size does not match the grid size.");
+        }
+        Arrays.fill(_freq, 0);
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            ++_freq[grid[cell]];
+        }
+        long rows = side(grid, false);
+        long cols = side(grid, true);
+        long h = mix(Math.min(rows, cols) * 0x9E3779B97F4A7C15L + Math.max(rows, cols));
+        for (int d = 1; d <= _width; ++d) {
+            _parts[d - 1] = _freq[d];
+        }
+        return mix(h ^ fold(_parts, 0, _width, _freq[0]));
+    }
+
+    /**
+     * <p>
+     * Calcule la partie de l'empreinte obtenue à partir des lignes de la
+     * grille, ou de ses colonnes.</p>
+     *
+     * @param grid       La grille
+     * @param transposed Vrai pour travailler sur les colonnes
+     *
+     * @return L'empreinte des lignes ou des colonnes
+     *
+     * @since 1.1
+     */
+    private long side(int[] grid, boolean transposed) {
+        Arrays.fill(_posInLine, -1);
+        for (int r = 0; r < _width; ++r) {
+            for (int c = 0; c < _width; ++c) {
+                int v = at(grid, transposed, r, c);
+                if (v != 0) {
+                    _posInLine[r * (_width + 1) + v] = c;
+                }
+            }
+        }
+        for (int band = 0; band < _size; ++band) {
+            for (int k = 0; k < _size; ++k) {
+                _lineSigs[k] = line(grid, transposed, band * _size + k);
+            }
+            long lines = fold(_lineSigs, 0, _size, 1);
+            for (int s = 0; s < _size; ++s) {
+                int count = 0;
+                for (int k = 0; k < _size; ++k) {
+                    for (int l = 0; l < _size; ++l) {
+                        if (at(grid, transposed, band * _size + k, s * _size + l) != 0) {
+                            ++count;
+                        }
+                    }
+                }
+                _parts[s] = count;
+            }
+            _bandSigs[band] = mix(lines ^ fold(_parts, 0, _size, 2));
+        }
+        return fold(_bandSigs, 0, _size, 3);
+    }
+
+    /**
+     * <p>
+     * Calcule l'empreinte d'une ligne.</p>
+     *
+     * @param grid       La grille
+     * @param transposed Vrai pour travailler sur les colonnes
+     * @param r          La ligne
+     *
+     * @return L'empreinte de la ligne
+     *
+     * @since 1.1
+     */
+    private long line(int[] grid, boolean transposed, int r) {
+        int band = r / _size;
+        int clues = 0;
+        int n = 0;
+        for (int c = 0; c < _width; ++c) {
+            int v = at(grid, transposed, r, c);
+            if (v != 0) {
+                ++clues;
+                _items[n++] = _freq[v];
+            }
+        }
+        long h = mix(clues ^ fold(_items, 0, n, 4));
+
+        for (int s = 0; s < _size; ++s) {
+            int count = 0;
+            for (int l = 0; l < _size; ++l) {
+                if (at(grid, transposed, r, s * _size + l) != 0) {
+                    ++count;
+                }
+            }
+            _parts[s] = count;
+        }
+        h = mix(h ^ fold(_parts, 0, _size, 5));
+
+        n = 0;
+        for (int s = 0; s < _size; ++s) {
+            for (int k = 0; k < _size; ++k) {
+                int other = band * _size + k;
+                if (other == r) {
+                    continue;
+                }
+                int base = n;
+                for (int t = 0; t < _size; ++t) {
+                    _items[base + t] = 0;
+                }
+                for (int l = 0; l < _size; ++l) {
+                    int v = at(grid, transposed, r, s * _size + l);
+                    if (v != 0) {
+                        int c = _posInLine[other * (_width + 1) + v];
+                        if (c >= 0) {
+                            ++_items[base + c / _size];
+                        }
+                    }
+                }
+                sort(_items, base, base + _size);
+                long spreadHash = 7;
+                for (int t = base; t < base + _size; ++t) {
+                    spreadHash = spreadHash * 31 + _items[t];
+                }
+                _items[n++] = spreadHash;
+            }
+        }
+        return mix(h ^ fold(_items, 0, n, 6));
+    }
+
+    /**
+     * <p>
+     * Retourne la valeur d'une case de la grille ou de sa transposée.</p>
+     *
+     * @param grid       La grille
+     * @param transposed Vrai pour lire la transposée
+     * @param r          La ligne
+     * @param c          La colonne
+     *
+     * @return La valeur de la case
+     *
+     * @since 1.1
+     */
+    private int at(int[] grid, boolean transposed, int r, int c) {
+        return transposed ? grid[c * _width + r] : grid[r * _width + c];
+    }
+
+    /**
+     * <p>
+     * Combine un ensemble de valeurs sans tenir compte de leur ordre. Le
+     * tableau est trié sur l'intervalle donné.</p>
+     *
+     * @param values Les valeurs
+     * @param from   Le début de l'intervalle
+     * @param to     La fin de l'intervalle (exclue)
+     * @param seed   Une valeur distinguant les différents usages
+     *
+     * @return La combinaison des valeurs
+     *
+     * @since 1.1
+     */
+    private static long fold(long[] values, int from, int to, long seed) {
+        sort(values, from, to);
+        long h = mix(seed);
+        for (int i = from; i < to; ++i) {
+            h = mix(h ^ values[i]);
+        }
+        return h;
+    }
+
+    /**
+     * <p>
+     * Trie un intervalle d'un tableau par insertion, les intervalles triés
+     * par l'empreinte étant toujours courts.</p>
+     *
+     * @param values Le tableau
+     * @param from   Le début de l'intervalle
+     * @param to     La fin de l'intervalle (exclue)
+     *
+     * @since 1.1
+     */
+    private static void sort(long[] values, int from, int to) {
+        for (int i = from + 1; i < to; ++i) {
+            long v = values[i];
+            int k = i;
+            while (k > from && values[k - 1] > v) {
+                values[k] = values[k - 1];
+                --k;
+            }
+            values[k] = v;
+        }
+    }
+
+    /**
+     * <p>
+     * Mélange les bits d'une valeur (fonction de finalisation de
+     * SplitMix64).</p>
+     *
+     * @param z La valeur
+     *
+     * @return La valeur mélangée
+     *
+     * @since 1.1
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
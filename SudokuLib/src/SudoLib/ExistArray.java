@@ -6,6 +6,7 @@ package SudoLib;
 
 import Coord2D.Coord2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * <p>
@@ -28,8 +29,19 @@ import java.util.ArrayList;
  * <b>Pour vérifier si un chiffre peut être ajouté, le nombre de test sera
  * toujours 3.</b></p>
  *
+ * <p>
+ * Les tableaux peuvent être réinitialisés à partir d'une autre grille de même
+ * taille avec {@link #reset(SudoLib.ISudoku)}.</p>
+ *
+ * <p>
+ * L'<b>ExistArray</b> garde aussi trace des cases remplies, ce qui permet de
+ * détecter une contradiction avant de poursuivre une résolution : case vide
+ * n'acceptant plus aucune valeur, ou valeur n'ayant plus aucune place dans
+ * une ligne, une colonne ou un bloc (voir {@link #hasContradiction()} et
+ * {@link #isDeadEnd(int, int)}).</p>
+ *
  * @author Luttgens Pascal
- * @version 1.0
+ * @version 1.1
  * @since 1.0
  */
 public class ExistArray {
@@ -43,6 +55,23 @@ public class ExistArray {
      */
     private final int _size;
 
+    /**
+     * Nombre de cases sur une ligne du sudoku, soit aussi le nombre de valeurs
+     * possibles.
+     *
+     * @since 1.1
+     */
+    private final int _width;
+
+    /**
+     * Tables d'indices partagées pour la taille du sudoku.
+     *
+     * @see UnitTable#of(int)
+     *
+     * @since 1.1
+     */
+    private final UnitTable _units;
+
     /**
      * <p>
      * Tableau réprésentant la grille du sudoku qui indique si un chiffre est
@@ -91,6 +120,15 @@ public class ExistArray {
      */
     private final boolean[] existsOnBloc;
 
+    /**
+     * <p>
+     * Tableau indiquant si une case de la grille est remplie, que sa valeur
+     * soit donnée par la grille ou posée par {@link #setBoolAt(int, int, boolean)}.</p>
+     *
+     * @since 1.1
+     */
+    private final boolean[] filled;
+
     /**
      * <p>
      * Construit un nouvel <b>ExistArray</b> à partir d'un sudoku.</p>
@@ -103,40 +141,87 @@ public class ExistArray {
      *
      * @throws IllegalArgumentException Si la grille est remplie est invalide.
      *
+     * @see #ExistArray(int)
+     * @see #reset(SudoLib.ISudoku)
+     *
+     * @since 1.0
+     */
+    public ExistArray(ISudoku sudoku) throws IllegalArgumentException {
+        this(sudoku.getSize());
+        reset(sudoku);
+    }
+
+    /**
+     * <p>
+     * Construit un <b>ExistArray</b> vide pour les sudokus dont l'arête d'un
+     * bloc mesure <code>size</code>. Il devra être initialisé par
+     * {@link #reset(SudoLib.ISudoku)} avant d'être utilisé.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @see #reset(SudoLib.ISudoku)
+     *
+     * @since 1.1
+     */
+    public ExistArray(int size) {
+        _size = size;
+        _width = size * size;
+        _units = UnitTable.of(size);
+        existsOnRow = new boolean[_width * _width];
+        existsOnCol = new boolean[_width * _width];
+        existsOnBloc = new boolean[_width * _width];
+        filled = new boolean[_width * _width];
+    }
+
+    /**
+     * <p>
+     * Réinitialise les tableaux en fonction de l'état du sudoku au moment de
+     * l'appel de la fonction, sans allouer de nouveaux tableaux.</p>
+     *
+     * @param sudoku Le sudoku contenant la grille
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas, si une valeur de la grille est
+     *                                  hors de l'intervalle 0 à
+     *                                  <code>width</code> ou si la grille est
+     *                                  remplie est invalide.
+     *
      * @see #existsOnBloc
      * @see #existsOnCol
      * @see #existsOnRow
-     * @see ISudoku#getValueAt(int, int)
+     * @see ISudoku#getValueAt(int)
      * @see ISudoku#getNbInitializedValue()
      * @see ISudoku#getSize()
      *
-     * @since 1.0
+     * @since 1.1
      */
-    public ExistArray(ISudoku sudoku) throws IllegalArgumentException {
-        _size = sudoku.getSize();
-        existsOnRow = new boolean[_size * _size * _size * _size];
-        existsOnCol = new boolean[_size * _size * _size * _size];
-        existsOnBloc = new boolean[_size * _size * _size * _size];
+    public final void reset(ISudoku sudoku) throws IllegalArgumentException {
+        if (sudoku.getSize() != _size) {
+            throw new IllegalArgumentException("Sudoku size does not match.");
+        }
+        Arrays.fill(existsOnRow, false);
+        Arrays.fill(existsOnCol, false);
+        Arrays.fill(existsOnBloc, false);
 
         /*
          * Initialisation des tableaux de booléen en fonction de la grille.
          */
-        for (int i = 0; i < _size * _size; ++i) {
-            for (int j = 0; j < _size * _size; ++j) {
-                int k;
-                if ((k = sudoku.getValueAt(j, i)) != 0) {
-                    existsOnRow[new Coord2D(k - 1, i).convCoord(_size * _size)]
-                            = existsOnCol[new Coord2D(k - 1, j).convCoord(_size * _size)]
-                            = existsOnBloc[new Coord2D(k - 1,
-                                    _size * (i / _size) + (j / _size)).convCoord(_size * _size)] = true;
-                }
+        for (int cell = 0; cell < _width * _width; ++cell) {
+            int k = sudoku.getValueAt(cell);
+            if (k < 0 || k > _width) {
+                throw new IllegalArgumentException("Grid value out of range: " + k);
+            }
+            if (filled[cell] = k != 0) {
+                existsOnRow[_units.rowOf(cell) * _width + k - 1]
+                        = existsOnCol[_units.colOf(cell) * _width + k - 1]
+                        = existsOnBloc[_units.boxOf(cell) * _width + k - 1] = true;
             }
         }
 
         /*
          * Si la grille est pleine, on vérifie si elle est valide.
          */
-        if (sudoku.getNbInitializedValue() == _size * _size * _size * _size) {
+        if (sudoku.getNbInitializedValue() == _width * _width) {
             for (boolean b : existsOnRow) {
                 if (b == false) {
                     throw new IllegalArgumentException("Grid is invalid and full.");
@@ -162,11 +247,31 @@ public class ExistArray {
      * @param coord Coordonnées de la case
      * @param value Valeur à ajouter/retirer
      * @param bool  Vrai si on ajoute, Faux si on retire
+     *
+     * @see #setBoolAt(int, int, boolean)
      */
     public void setBoolAt(Coord2D coord, int value, boolean bool) {
-        existsOnRow[new Coord2D(value, coord.getY()).convCoord(_size * _size)] = bool;
-        existsOnCol[new Coord2D(value, coord.getX()).convCoord(_size * _size)] = bool;
-        existsOnBloc[new Coord2D(value, _size * (coord.getY() / _size) + (coord.getX() / _size)).convCoord(_size * _size)] = bool;
+        setBoolAt(Coord2D.convCoord(coord.getX(), coord.getY(), _width), value, bool);
+    }
+
+    /**
+     * <p>
+     * Modifie la valeur d'un booléen dans les <b>ExistArrays</b> à partir de
+     * l'indice de la case dans la grille. La case est marquée comme remplie si
+     * on ajoute la valeur, comme vide si on la retire.</p>
+     *
+     * @param cell  Indice de la case (voir
+     *              {@link Coord2D#convCoord(int, int, int)})
+     * @param value Valeur à ajouter/retirer
+     * @param bool  Vrai si on ajoute, Faux si on retire
+     *
+     * @since 1.1
+     */
+    public void setBoolAt(int cell, int value, boolean bool) {
+        existsOnRow[_units.rowOf(cell) * _width + value] = bool;
+        existsOnCol[_units.colOf(cell) * _width + value] = bool;
+        existsOnBloc[_units.boxOf(cell) * _width + value] = bool;
+        filled[cell] = bool;
     }
 
     /**
@@ -192,9 +297,28 @@ public class ExistArray {
      * @since 1.0
      */
     public boolean isInArrays(Coord2D coord, int value) {
-        return existsOnRow[new Coord2D(value, coord.getY()).convCoord(_size * _size)]
-                || existsOnCol[new Coord2D(value, coord.getX()).convCoord(_size * _size)]
-                || existsOnBloc[new Coord2D(value, _size * (coord.getY() / _size) + (coord.getX() / _size)).convCoord(_size * _size)];
+        return isInArrays(Coord2D.convCoord(coord.getX(), coord.getY(), _width), value);
+    }
+
+    /**
+     * <p>
+     * Indique si une valeur peut être placée dans une case donnée par son
+     * indice dans la grille (voir {@link #isInArrays(Coord2D.Coord2D, int)}).
+     * Aucun objet n'est créé.</p>
+     *
+     * @param cell  Indice de la case (voir
+     *              {@link Coord2D#convCoord(int, int, int)})
+     * @param value Valeur à tester
+     *
+     * @return Vrai si la valeur est déjà présente sur la ligne, la colonne ou
+     *         le bloc
+     *
+     * @since 1.1
+     */
+    public boolean isInArrays(int cell, int value) {
+        return existsOnRow[_units.rowOf(cell) * _width + value]
+                || existsOnCol[_units.colOf(cell) * _width + value]
+                || existsOnBloc[_units.boxOf(cell) * _width + value];
     }
 
     /**
@@ -211,13 +335,182 @@ public class ExistArray {
      * @since 1.0
      */
     public ArrayList<Integer> countContenders(Coord2D coord) {
+        return countContenders(Coord2D.convCoord(coord.getX(), coord.getY(), _width));
+    }
+
+    /**
+     * <p>
+     * Détermine la liste des nombres qu'une case, donnée par son indice dans
+     * la grille, peut accepter en fonction de l'état actuel du sudoku.</p>
+     *
+     * @param cell Indice de la case (voir
+     *             {@link Coord2D#convCoord(int, int, int)})
+     *
+     * @return la liste des valeurs possibles pour la case
+     *
+     * @see #isInArrays(int, int)
+     *
+     * @since 1.1
+     */
+    public ArrayList<Integer> countContenders(int cell) {
         ArrayList<Integer> contenders = new ArrayList<>();
-        for (int i = 0; i < _size * _size; ++i) {
-            if (!isInArrays(coord, i)) {
+        for (int i = 0; i < _width; ++i) {
+            if (!isInArrays(cell, i)) {
                 contenders.add(i);
             }
         }
         return contenders;
     }
 
+    /**
+     * <p>
+     * Compte les cases vides voisines d'une case, sur sa ligne, sa colonne et
+     * son bloc, qui acceptent encore une valeur et la perdraient si elle était
+     * posée dans la case.</p>
+     *
+     * @param cell  L'indice de la case
+     * @param value La valeur, entre 0 et <code>width - 1</code>
+     *
+     * @return Le nombre de cases voisines contraintes par la valeur
+     *
+     * @since 1.1
+     */
+    public int countEliminations(int cell, int value) {
+        int count = 0;
+        for (int k = 0; k < _units.getNbPeers(); ++k) {
+            int peer = _units.getPeer(cell, k);
+            if (!filled[peer] && !isInArrays(peer, value)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <p>
+     * Indique si la grille courante est sans issue : une case vide n'accepte
+     * plus aucune valeur, ou une valeur absente d'une ligne, d'une colonne ou
+     * d'un bloc n'y a plus aucune case vide où être placée.</p>
+     *
+     * <p>
+     * Cette vérification parcourt toute la grille ; elle est destinée à être
+     * appelée une fois avant une résolution, les vérifications suivantes
+     * pouvant se limiter aux conséquences de chaque valeur posée (voir
+     * {@link #isDeadEnd(int, int)}).</p>
+     *
+     * @return Vrai si la grille n'admet aucune solution
+     *
+     * @since 1.1
+     */
+    public boolean hasContradiction() {
+        for (int cell = 0; cell < _width * _width; ++cell) {
+            if (!filled[cell] && !hasCandidate(cell)) {
+                return true;
+            }
+        }
+        for (int unit = 0; unit < _units.getNbUnits(); ++unit) {
+            for (int value = 0; value < _width; ++value) {
+                if (!hasPlace(unit, value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Indique si la valeur qui vient d'être posée dans une case rend la grille
+     * sans issue. Seules les contradictions que cette pose peut introduire
+     * sont recherchées :</p>
+     * <ul>
+     * <li>une case vide voisine n'accepte plus aucune valeur</li>
+     * <li>une valeur n'a plus de place sur la ligne, la colonne ou le bloc de
+     * la case, qui vient d'être occupée</li>
+     * <li>la valeur posée n'a plus de place dans une autre unité, les cases
+     * voisines ne pouvant plus l'accepter</li>
+     * </ul>
+     * <p>
+     * Si {@link #hasContradiction()} était faux avant la pose, il est vrai
+     * après si et seulement si cette méthode retourne vrai.</p>
+     *
+     * @param cell  Indice de la case (voir
+     *              {@link Coord2D#convCoord(int, int, int)})
+     * @param value Valeur posée
+     *
+     * @return Vrai si la pose rend la grille sans issue
+     *
+     * @see #setBoolAt(int, int, boolean)
+     * @see #hasContradiction()
+     *
+     * @since 1.1
+     */
+    public boolean isDeadEnd(int cell, int value) {
+        for (int k = 0; k < _units.getNbPeers(); ++k) {
+            int peer = _units.getPeer(cell, k);
+            if (!filled[peer] && !hasCandidate(peer)) {
+                return true;
+            }
+        }
+        for (int kind = 0; kind < 3; ++kind) {
+            int unit = _units.getUnit(cell, kind);
+            for (int v = 0; v < _width; ++v) {
+                if (!hasPlace(unit, v)) {
+                    return true;
+                }
+            }
+        }
+        for (int unit = 0; unit < _units.getNbUnits(); ++unit) {
+            if (!hasPlace(unit, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Indique si une case accepte encore au moins une valeur.</p>
+     *
+     * @param cell Indice de la case
+     *
+     * @return Vrai si une valeur peut être placée dans la case
+     *
+     * @since 1.1
+     */
+    private boolean hasCandidate(int cell) {
+        for (int value = 0; value < _width; ++value) {
+            if (!isInArrays(cell, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Indique si une valeur est présente dans une unité ou peut encore être
+     * placée dans une de ses cases vides.</p>
+     *
+     * @param unit  Indice de l'unité (voir {@link UnitTable#getUnit(int, int)})
+     * @param value Valeur à tester
+     *
+     * @return Vrai si la valeur a une place dans l'unité
+     *
+     * @since 1.1
+     */
+    private boolean hasPlace(int unit, int value) {
+        boolean[] exists = unit < _width ? existsOnRow : unit < 2 * _width ? existsOnCol : existsOnBloc;
+        if (exists[unit % _width * _width + value]) {
+            return true;
+        }
+        for (int k = 0; k < _width; ++k) {
+            int cell = _units.getUnitCell(unit, k);
+            if (!filled[cell] && !isInArrays(cell, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,217 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * <p>
+ * <code><b>GridSet</b></code> est un ensemble de grilles de sudoku d'une même
+ * taille ne contenant jamais deux grilles équivalentes (voir
+ * {@link Canonicalizer}). Il permet d'éliminer les doublons d'un grand nombre
+ * de grilles générées ou lues dans un fichier.</p>
+ *
+ * <p>
+ * Les grilles sont regroupées par empreinte : tant qu'une grille ajoutée a une
+ * empreinte inconnue, seule l'empreinte est calculée. La forme canonique n'est
+ * calculée, puis conservée, que pour les grilles partageant une même
+ * empreinte.</p>
+ *
+ * <p>
+ * Un <b>GridSet</b> ne doit pas être partagé entre plusieurs threads.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ *
+ * @see Canonicalizer
+ *
+ * @since 1.1
+ */
+public class GridSet {
+
+    /**
+     * <p>
+     * Grille de l'ensemble accompagnée de sa forme canonique, calculée à la
+     * demande.</p>
+     *
+     * @since 1.1
+     */
+    private static final class Entry {
+
+        /**
+         * Grille ajoutée.
+         */
+        private final int[] grid;
+
+        /**
+         * Forme canonique de la grille, null tant qu'elle n'a pas été
+         * calculée.
+         */
+        private int[] canonical;
+
+        /**
+         * <p>
+         * Construit une entrée à partir d'une grille.</p>
+         *
+         * @param grid La grille
+         */
+        private Entry(int[] grid) {
+            this.grid = grid;
+        }
+    }
+
+    /**
+     * <p>
+     * Calcul des empreintes et des formes canoniques.</p>
+     *
+     * @since 1.1
+     */
+    private final Canonicalizer _canonicalizer;
+
+    /**
+     * <p>
+     * Grilles de l'ensemble, regroupées par empreinte.</p>
+     *
+     * @since 1.1
+     */
+    private final HashMap<Long, ArrayList<Entry>> _entries;
+
+    /**
+     * <p>
+     * Nombre de grilles de l'ensemble.</p>
+     *
+     * @since 1.1
+     */
+    private int _count;
+
+    /**
+     * <p>
+     * Construit un ensemble vide pour les grilles dont l'arête d'un bloc
+     * mesure <code>size</code>.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @throws IllegalArgumentException Si la taille est inférieure à 1
+     *
+     * @since 1.1
+     */
+    public GridSet(int size) throws IllegalArgumentException {
+        _canonicalizer = new Canonicalizer(size);
+        _entries = new HashMap<>();
+    }
+
+    /**
+     * <p>
+     * Ajoute une grille à l'ensemble si aucune grille équivalente n'y est
+     * déjà présente. La grille est recopiée.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne, 0 pour une case vide
+     *
+     * @return Vrai si la grille a été ajoutée, faux si une grille équivalente
+     *         était déjà présente
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    public boolean add(int[] grid) throws IllegalArgumentException {
+        Long fingerprint = _canonicalizer.fingerprint(grid);
+        ArrayList<Entry> bucket = _entries.get(fingerprint);
+        Entry entry = new Entry(grid.clone());
+        if (bucket == null) {
+            bucket = new ArrayList<>(1);
+            _entries.put(fingerprint, bucket);
+        } else if (find(bucket, entry)) {
+            return false;
+        }
+        bucket.add(entry);
+        ++_count;
+        return true;
+    }
+
+    /**
+     * <p>
+     * Indique si l'ensemble contient une grille équivalente à une grille
+     * donnée.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne, 0 pour une case vide
+     *
+     * @return Vrai si une grille équivalente est présente
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    public boolean contains(int[] grid) throws IllegalArgumentException {
+        ArrayList<Entry> bucket = _entries.get(_canonicalizer.fingerprint(grid));
+        return bucket != null && find(bucket, new Entry(grid));
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de grilles de l'ensemble.</p>
+     *
+     * @return Le nombre de grilles
+     *
+     * @since 1.1
+     */
+    public int size() {
+        return _count;
+    }
+
+    /**
+     * <p>
+     * Vide l'ensemble.</p>
+     *
+     * @since 1.1
+     */
+    public void clear() {
+        _entries.clear();
+        _count = 0;
+    }
+
+    /**
+     * <p>
+     * Cherche une grille équivalente à une entrée parmi les grilles de même
+     * empreinte, en calculant les formes canoniques nécessaires.</p>
+     *
+     * @param bucket Les grilles de même empreinte
+     * @param entry  L'entrée recherchée
+     *
+     * @return Vrai si une grille équivalente est présente
+     *
+     * @since 1.1
+     */
+    private boolean find(ArrayList<Entry> bucket, Entry entry) {
+        canonicalize(entry);
+        for (Entry other : bucket) {
+            canonicalize(other);
+            if (Arrays.equals(other.canonical, entry.canonical)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Calcule la forme canonique d'une entrée si elle ne l'a pas déjà
+     * été.</p>
+     *
+     * @param entry L'entrée
+     *
+     * @since 1.1
+     */
+    private void canonicalize(Entry entry) {
+        if (entry.canonical == null) {
+            entry.canonical = new int[entry.grid.length];
+            _canonicalizer.canonicalize(entry.grid, entry.canonical);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * <code><b>GridValidator</b></code> vérifie en un seul parcours qu'une grille
+ * de sudoku, remplie ou non, ne contient pas deux fois la même valeur sur une
+ * ligne, une colonne ou un bloc, et qu'une grille remplie est une
+ * solution.</p>
+ *
+ * <p>
+ * Les valeurs déjà rencontrées dans chaque unité sont représentées par des
+ * masques de bits, la valeur <code>v</code> étant représentée par le bit
+ * <code>(v - 1) % 64</code> du mot <code>(v - 1) / 64</code>. Les masques sont
+ * alloués à la construction et réutilisés : une vérification n'alloue rien et
+ * ne lève aucune exception pour une grille invalide, ce qui permet d'écarter
+ * immédiatement les grilles incorrectes d'un traitement par lots.</p>
+ *
+ * <p>
+ * Un <b>GridValidator</b> ne doit pas être partagé entre plusieurs
+ * threads.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ *
+ * @see ExistArray
+ *
+ * @since 1.1
+ */
+public final class GridValidator {
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc.</p>
+     *
+     * @since 1.1
+     */
+    private final int _size;
+
+    /**
+     * <p>
+     * Nombre de cases d'une unité, soit aussi le nombre de valeurs
+     * possibles.</p>
+     *
+     * @since 1.1
+     */
+    private final int _width;
+
+    /**
+     * <p>
+     * Nombre de cases de la grille.</p>
+     *
+     * @since 1.1
+     */
+    private final int _nbCells;
+
+    /**
+     * <p>
+     * Nombre de <code>long</code> par masque.</p>
+     *
+     * @since 1.1
+     */
+    private final int _words;
+
+    /**
+     * <p>
+     * Pour chaque case, indices dans {@link #_seen} des masques de sa ligne,
+     * de sa colonne et de son bloc, à partir de l'indice
+     * <code>cell * 3</code>.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _unitBases;
+
+    /**
+     * <p>
+     * Valeurs rencontrées dans chaque unité, à partir de l'indice
+     * <code>unit * words</code>.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _seen;
+
+    /**
+     * <p>
+     * Copie de la grille d'un {@link ISudoku} à vérifier.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _buffer;
+
+    /**
+     * <p>
+     * Construit un vérificateur pour les grilles dont l'arête d'un bloc
+     * mesure <code>size</code>.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @throws IllegalArgumentException Si la taille est inférieure à 1
+     *
+     * @since 1.1
+     */
+    public GridValidator(int size) throws IllegalArgumentException {
+        UnitTable units = UnitTable.of(size);
+        _size = size;
+        _width = size * size;
+        _nbCells = _width * _width;
+        _words = (_width + 63) >>> 6;
+        _seen = new long[units.getNbUnits() * _words];
+        _buffer = new int[_nbCells];
+        _unitBases = new int[_nbCells * 3];
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            for (int k = 0; k < 3; ++k) {
+                _unitBases[cell * 3 + k] = units.getUnit(cell, k) * _words;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return _size;
+    }
+
+    /**
+     * <p>
+     * Cherche la première case invalide d'une grille : case dont la valeur
+     * est hors des bornes ou apparaît déjà plus haut sur sa ligne, sa colonne
+     * ou son bloc.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne, 0 pour une case vide
+     *
+     * @return L'indice de la première case invalide, -1 si la grille est
+     *         valide
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    public int findConflict(int[] grid) throws IllegalArgumentException {
+        checkLength(grid);
+        return scan(grid, false);
+    }
+
+    /**
+     * <p>
+     * Cherche la première case invalide de la grille d'un sudoku.</p>
+     *
+     * @param sudoku Le sudoku
+     *
+     * @return L'indice de la première case invalide, -1 si la grille est
+     *         valide
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas
+     *
+     * @see #findConflict(int[])
+     *
+     * @since 1.1
+     */
+    public int findConflict(ISudoku sudoku) throws IllegalArgumentException {
+        return scan(load(sudoku), false);
+    }
+
+    /**
+     * <p>
+     * Indique si une grille, remplie ou non, ne contient que des valeurs
+     * valides sans doublon sur une ligne, une colonne ou un bloc.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne, 0 pour une case vide
+     *
+     * @return Vrai si la grille est valide
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    public boolean isValid(int[] grid) throws IllegalArgumentException {
+        return findConflict(grid) < 0;
+    }
+
+    /**
+     * <p>
+     * Indique si la grille d'un sudoku, remplie ou non, est valide.</p>
+     *
+     * @param sudoku Le sudoku
+     *
+     * @return Vrai si la grille est valide
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas
+     *
+     * @see #isValid(int[])
+     *
+     * @since 1.1
+     */
+    public boolean isValid(ISudoku sudoku) throws IllegalArgumentException {
+        return findConflict(sudoku) < 0;
+    }
+
+    /**
+     * <p>
+     * Indique si une grille est entièrement remplie et valide, c'est à dire si
+     * elle est la solution d'une grille de sudoku.</p>
+     *
+     * @param grid La grille, rangée ligne par ligne
+     *
+     * @return Vrai si la grille est une solution
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    public boolean isSolution(int[] grid) throws IllegalArgumentException {
+        checkLength(grid);
+        return scan(grid, true) < 0;
+    }
+
+    /**
+     * <p>
+     * Indique si la grille d'un sudoku est entièrement remplie et
+     * valide.</p>
+     *
+     * @param sudoku Le sudoku
+     *
+     * @return Vrai si la grille est une solution
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas
+     *
+     * @see #isSolution(int[])
+     *
+     * @since 1.1
+     */
+    public boolean isSolution(ISudoku sudoku) throws IllegalArgumentException {
+        return scan(load(sudoku), true) < 0;
+    }
+
+    /**
+     * <p>
+     * Indique si une grille remplie est une solution d'une grille donnée,
+     * c'est à dire si elle est valide et reprend toutes ses valeurs.</p>
+     *
+     * @param puzzle   La grille à résoudre, 0 pour une case vide
+     * @param solution La solution proposée
+     *
+     * @return Vrai si la solution est correcte
+     *
+     * @throws IllegalArgumentException Si les tableaux n'ont pas la taille de
+     *                                  la grille
+     *
+     * @since 1.1
+     */
+    public boolean isSolutionOf(int[] puzzle, int[] solution) throws IllegalArgumentException {
+        checkLength(puzzle);
+        checkLength(solution);
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            if (puzzle[cell] != 0 && puzzle[cell] != solution[cell]) {
+                return false;
+            }
+        }
+        return scan(solution, true) < 0;
+    }
+
+    /**
+     * <p>
+     * Parcourt une grille en marquant les valeurs rencontrées dans chaque
+     * unité.</p>
+     *
+     * @param grid La grille
+     * @param full Vrai si une case vide doit être considérée comme invalide
+     *
+     * @return L'indice de la première case invalide, -1 si aucune
+     *
+     * @since 1.1
+     */
+    private int scan(int[] grid, boolean full) {
+        Arrays.fill(_seen, 0L);
+        for (int cell = 0; cell < _nbCells; ++cell) {
+            int value = grid[cell];
+            if (value == 0) {
+                if (full) {
+                    return cell;
+                }
+                continue;
+            }
+            if (value < 0 || value > _width) {
+                return cell;
+            }
+            int word = (value - 1) >>> 6;
+            long bit = 1L << (value - 1);
+            int row = _unitBases[cell * 3] + word;
+            int col = _unitBases[cell * 3 + 1] + word;
+            int box = _unitBases[cell * 3 + 2] + word;
+            if (((_seen[row] | _seen[col] | _seen[box]) & bit) != 0) {
+                return cell;
+            }
+            _seen[row] |= bit;
+            _seen[col] |= bit;
+            _seen[box] |= bit;
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Recopie la grille d'un sudoku dans le tampon.</p>
+     *
+     * @param sudoku Le sudoku
+     *
+     * @return Le tampon
+     *
+     * @throws IllegalArgumentException Si la taille du sudoku ne correspond
+     *                                  pas
+     *
+     * @since 1.1
+     */
+    private int[] load(ISudoku sudoku) throws IllegalArgumentException {
+        if (sudoku.getSize() != _size) {
+            throw new IllegalArgumentException("Sudoku size does not match.");
+        }
+        sudoku.copyGridTo(_buffer);
+        return _buffer;
+    }
+
+    /**
+     * <p>
+     * Vérifie qu'un tableau a la taille de la grille.</p>
+     *
+     * @param grid Le tableau
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    private void checkLength(int[] grid) throws IllegalArgumentException {
+        if (grid.length != _nbCells) {
+            throw new IllegalArgumentException("Array sizes do not match the grid size.");
+        }
+    }
+}
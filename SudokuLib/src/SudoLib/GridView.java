@@ -0,0 +1,75 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+/**
+ * <p>
+ * <b><code>GridView</code></b> est une vue en lecture seule sur un tableau
+ * contenant une grille rangée ligne par ligne. Le tableau n'est pas recopié :
+ * la vue reflète ses modifications.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ *
+ * @see IGridView
+ *
+ * @since 1.1
+ */
+public final class GridView implements IGridView {
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc.</p>
+     *
+     * @since 1.1
+     */
+    private final int _size;
+
+    /**
+     * <p>
+     * Grille observée.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _grid;
+
+    /**
+     * <p>
+     * Construit une vue sur une grille.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     * @param grid La grille, d'exactement <code>size<sup>4</sup></code> cases
+     *
+     * @throws IllegalArgumentException Si le tableau n'a pas la taille de la
+     *                                  grille
+     *
+     * @since 1.1
+     */
+    public GridView(int size, int[] grid) throws IllegalArgumentException {
+        if (size < 1 || grid.length != size * size * size * size) {
+            throw new IllegalArgumentException("Array sizes do not match the grid size.");
+        }
+        _size = size;
+        _grid = grid;
+    }
+
+    @Override
+    public int getSize() {
+        return _size;
+    }
+
+    @Override
+    public int getValueAt(int cell) {
+        return _grid[cell];
+    }
+
+    @Override
+    public void copyGridTo(int[] dst) throws IllegalArgumentException {
+        if (dst.length < _grid.length) {
+            throw new IllegalArgumentException("Destination array is too small.");
+        }
+        System.arraycopy(_grid, 0, dst, 0, _grid.length);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+/**
+ * <p>
+ * <b>IGridView</b> est une vue en lecture seule sur une grille de sudoku, les
+ * cases étant rangées ligne par ligne.</p>
+ *
+ * <p>
+ * Une vue peut refléter une grille en cours de modification, par exemple la
+ * grille de travail d'un algorithme de résolution : son contenu n'est alors
+ * garanti que pendant l'appel qui la transmet (voir {@link ISolutionSink}).
+ * Pour conserver la grille, il faut la recopier avec
+ * {@link #copyGridTo(int[])}.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ *
+ * @see ISolutionSink
+ * @see GridView
+ *
+ * @since 1.1
+ */
+public interface IGridView {
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc de la grille.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize();
+
+    /**
+     * <p>
+     * Retourne la valeur de la case indiquée par son indice dans la grille.
+     * L'indice n'est pas vérifié.</p>
+     *
+     * @param cell Indice de la case, entre 0 et le nombre de cases - 1
+     *
+     * @return La valeur présente dans la case, 0 si vide
+     *
+     * @since 1.1
+     */
+    public int getValueAt(int cell);
+
+    /**
+     * <p>
+     * Recopie la grille entière dans un tableau, les cases étant rangées ligne
+     * par ligne.</p>
+     *
+     * @param dst Le tableau de destination, d'au moins autant de cases que la
+     *            grille
+     *
+     * @throws IllegalArgumentException Si le tableau est trop petit
+     *
+     * @since 1.1
+     */
+    public void copyGridTo(int[] dst) throws IllegalArgumentException;
+}
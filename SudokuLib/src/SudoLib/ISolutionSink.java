@@ -0,0 +1,39 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+/**
+ * <p>
+ * <b>ISolutionSink</b> reçoit les solutions d'une grille au fur et à mesure
+ * que l'algorithme de résolution les trouve.</p>
+ *
+ * <p>
+ * Chaque solution est transmise sous la forme d'une vue sur la grille de
+ * travail de l'algorithme, sans copie : le destinataire choisit de recopier,
+ * compacter ou ignorer la solution, de sorte que compter ou hacher les
+ * solutions n'alloue rien. La vue n'est valable que pendant l'appel de
+ * {@link #accept(IGridView)} et ne doit pas être conservée.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ *
+ * @see IGridView
+ *
+ * @since 1.1
+ */
+public interface ISolutionSink {
+
+    /**
+     * <p>
+     * Reçoit une solution.</p>
+     *
+     * @param solution La solution, valable uniquement pendant l'appel
+     *
+     * @return Vrai pour poursuivre la recherche, faux pour l'arrêter
+     *
+     * @since 1.1
+     */
+    public boolean accept(IGridView solution);
+}
@@ -4,6 +4,8 @@
  */
 package SudoLib;
 
+import Coord2D.Coord2D;
+
 /**
  * <p>
  * <b>ISudoku</b> est l'interface définissant le contrat à respecté par
@@ -13,8 +15,16 @@ package SudoLib;
  * Elle impose en plus que le programme puisse générer et résoudre des grilles
  * de sudoku.</p>
  *
+ * <p>
+ * Des accès groupés à la grille (voir {@link #copyGridTo(int[])},
+ * {@link #copyRowTo(int, int[], int)} et {@link #getValueAt(int)}) permettent
+ * aux algorithmes de résolution de lire la grille en une seule passe, sans
+ * vérification ni création d'objet par case. Ils ont une implémentation par
+ * défaut basée sur {@link #getValueAt(int, int)} que les implémentations
+ * peuvent remplacer par un accès direct à leur grille.</p>
+ *
  * @author Luttgens Pascal
- * @version 1.0
+ * @version 1.1
  * @since 1.0
  */
 public interface ISudoku {
@@ -50,6 +60,74 @@ public interface ISudoku {
      */
     public int getValueAt(int x, int y) throws IllegalArgumentException;
 
+    /**
+     * <p>
+     * Retourne la valeur de la case indiquée par son indice dans la grille,
+     * les cases étant numérotées ligne par ligne (voir
+     * {@link Coord2D#convCoord(int, int, int)}).</p>
+     *
+     * <p>
+     * Les implémentations ne sont pas tenues de vérifier l'indice : un indice
+     * en dehors de la grille a un comportement indéfini.</p>
+     *
+     * @param cell Indice de la case, entre 0 et le nombre de cases - 1
+     *
+     * @return La valeur présente dans la case, 0 si vide
+     *
+     * @since 1.1
+     */
+    public default int getValueAt(int cell) {
+        int width = getSize() * getSize();
+        return getValueAt(Coord2D.xOf(cell, width), Coord2D.yOf(cell, width));
+    }
+
+    /**
+     * <p>
+     * Recopie la grille entière dans un tableau, les cases étant rangées ligne
+     * par ligne.</p>
+     *
+     * @param dst Le tableau de destination, d'au moins autant de cases que la
+     *            grille
+     *
+     * @throws IllegalArgumentException Si le tableau est trop petit
+     *
+     * @since 1.1
+     */
+    public default void copyGridTo(int[] dst) throws IllegalArgumentException {
+        int width = getSize() * getSize();
+        if (dst.length < width * width) {
+            throw new IllegalArgumentException("Destination array is too small.");
+        }
+        for (int y = 0; y < width; ++y) {
+            copyRowTo(y, dst, y * width);
+        }
+    }
+
+    /**
+     * <p>
+     * Recopie une ligne de la grille dans un tableau à partir d'une position
+     * donnée.</p>
+     *
+     * @param y      La ligne à recopier
+     * @param dst    Le tableau de destination
+     * @param offset La position de la première case de la ligne dans
+     *               <code>dst</code>
+     *
+     * @throws IllegalArgumentException Si la ligne est invalide ou si le
+     *                                  tableau est trop petit
+     *
+     * @since 1.1
+     */
+    public default void copyRowTo(int y, int[] dst, int offset) throws IllegalArgumentException {
+        int width = getSize() * getSize();
+        if (y < 0 || y >= width || offset < 0 || dst.length - offset < width) {
+            throw new IllegalArgumentException("Invalid row or destination.");
+        }
+        for (int x = 0; x < width; ++x) {
+            dst[offset + x] = getValueAt(x, y);
+        }
+    }
+
     /**
      * <p>
      * Génère une grille de sudoku valide, c'est à dire résolvable.</p>
@@ -0,0 +1,56 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+/**
+ * <p>
+ * <code><b>Luby</b></code> donne la suite de Luby : 1, 1, 2, 1, 1, 2, 4, 1, 1,
+ * 2, 1, 1, 2, 4, 8, ...</p>
+ *
+ * <p>
+ * Multipliée par une unité, elle fixe le budget de chaque redémarrage d'une
+ * recherche : la plupart des redémarrages sont courts, mais certains sont de
+ * plus en plus longs, de sorte qu'une recherche finit toujours par être menée
+ * jusqu'au bout. Elle est partagée par les méthodes de résolution qui
+ * redémarrent, qu'elles comptent leur budget en noeuds ou en conflits.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ * @since 1.1
+ */
+public final class Luby {
+
+    /**
+     * <p>
+     * Classe utilitaire, non instanciable.</p>
+     *
+     * @since 1.1
+     */
+    private Luby() {
+    }
+
+    /**
+     * <p>
+     * Retourne le <code>i</code>-ème terme de la suite de Luby.</p>
+     *
+     * @param i Le rang du terme, à partir de 1
+     *
+     * @return Le terme
+     *
+     * @since 1.1
+     */
+    public static long term(long i) {
+        while (true) {
+            int k = 1;
+            while ((1L << k) - 1 < i) {
+                ++k;
+            }
+            if (i == (1L << k) - 1) {
+                return 1L << (k - 1);
+            }
+            i -= (1L << (k - 1)) - 1;
+        }
+    }
+}
@@ -0,0 +1,531 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * <p>
+ * <b><code>PackedSolutions</code></b> conserve un grand nombre de solutions
+ * d'une même grille sous une forme compacte.</p>
+ *
+ * <p>
+ * Seules les cases vides de la grille de départ sont conservées, les autres
+ * étant communes à toutes les solutions. Chaque valeur occupe juste assez de
+ * bits pour représenter <code>width</code> (4 bits pour une grille 9x9) et
+ * chaque solution occupe un nombre entier de <code>long</code> : une solution
+ * d'une grille 9x9 de 30 valeurs tient dans 32 octets, contre plus de 400
+ * pour un <code>Integer[]</code> dans une liste.</p>
+ *
+ * <p>
+ * Les solutions sont rangées dans des blocs de taille fixe tant que la mémoire
+ * occupée reste sous un plafond ; les suivantes sont écrites dans un fichier
+ * temporaire, supprimé par {@link #close()}. Toutes restent accessibles par
+ * leur indice ou par un parcours séquentiel.</p>
+ *
+ * <p>
+ * Un <b>PackedSolutions</b> est un {@link ISolutionSink} : il peut recevoir
+ * directement les solutions d'un algorithme de résolution. Il ne doit pas être
+ * partagé entre plusieurs threads.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ *
+ * @see ISolutionSink
+ * @see SolutionSpill
+ *
+ * @since 1.1
+ */
+public final class PackedSolutions implements ISolutionSink, Closeable {
+
+    /**
+     * <p>
+     * Plafond par défaut de la mémoire occupée par les solutions, en
+     * octets.</p>
+     *
+     * @since 1.1
+     */
+    public static final long DEFAULT_MEMORY_CAP = 64L << 20;
+
+    /**
+     * <p>
+     * Nombre de <code>long</code> par bloc de mémoire.</p>
+     *
+     * @since 1.1
+     */
+    private static final int BLOCK_LONGS = 1 << 15;
+
+    /**
+     * <p>
+     * Compacteur des solutions.</p>
+     *
+     * @since 1.1
+     */
+    private final SolutionPacker _packer;
+
+    /**
+     * <p>
+     * Nombre de <code>long</code> par solution.</p>
+     *
+     * @since 1.1
+     */
+    private final int _stride;
+
+    /**
+     * <p>
+     * Nombre de solutions par bloc de mémoire.</p>
+     *
+     * @since 1.1
+     */
+    private final int _perBlock;
+
+    /**
+     * <p>
+     * Nombre maximum de solutions conservées en mémoire.</p>
+     *
+     * @since 1.1
+     */
+    private final long _maxInMemory;
+
+    /**
+     * <p>
+     * Blocs de mémoire.</p>
+     *
+     * @since 1.1
+     */
+    private final ArrayList<long[]> _blocks = new ArrayList<>();
+
+    /**
+     * <p>
+     * Nombre total de solutions.</p>
+     *
+     * @since 1.1
+     */
+    private long _count;
+
+    /**
+     * <p>
+     * Fichier des solutions au-delà du plafond, null tant qu'il n'a pas été
+     * créé.</p>
+     *
+     * @since 1.1
+     */
+    private File _file;
+
+    /**
+     * <p>
+     * Canal d'accès au fichier des solutions.</p>
+     *
+     * @since 1.1
+     */
+    private FileChannel _channel;
+
+    /**
+     * <p>
+     * Tampon des solutions en attente d'écriture dans le fichier.</p>
+     *
+     * @since 1.1
+     */
+    private ByteBuffer _spill;
+
+    /**
+     * <p>
+     * Vue sur les <code>long</code> du tampon d'écriture.</p>
+     *
+     * @since 1.1
+     */
+    private LongBuffer _spillLongs;
+
+    /**
+     * <p>
+     * Nombre de solutions écrites dans le fichier, tampon non compris.</p>
+     *
+     * @since 1.1
+     */
+    private long _flushed;
+
+    /**
+     * <p>
+     * Tampon de lecture d'une solution du fichier.</p>
+     *
+     * @since 1.1
+     */
+    private final ByteBuffer _read;
+
+    /**
+     * <p>
+     * Solution compactée en cours d'écriture ou de lecture.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _packed;
+
+    /**
+     * <p>
+     * Solution décompactée, observée par {@link #_view}.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _grid;
+
+    /**
+     * <p>
+     * Vue sur la solution décompactée.</p>
+     *
+     * @since 1.1
+     */
+    private final GridView _view;
+
+    /**
+     * <p>
+     * Construit un ensemble vide de solutions d'une grille, avec le plafond
+     * de mémoire par défaut.</p>
+     *
+     * @param puzzle La grille de départ
+     *
+     * @see #DEFAULT_MEMORY_CAP
+     *
+     * @since 1.1
+     */
+    public PackedSolutions(ISudoku puzzle) {
+        this(puzzle, DEFAULT_MEMORY_CAP);
+    }
+
+    /**
+     * <p>
+     * Construit un ensemble vide de solutions d'une grille.</p>
+     *
+     * @param puzzle    La grille de départ
+     * @param memoryCap Le nombre maximum d'octets de solutions conservés en
+     *                  mémoire avant d'écrire les suivantes dans un fichier
+     *
+     * @throws IllegalArgumentException Si le plafond est négatif
+     *
+     * @since 1.1
+     */
+    public PackedSolutions(ISudoku puzzle, long memoryCap) throws IllegalArgumentException {
+        if (memoryCap < 0) {
+            throw new IllegalArgumentException("Memory cap must be >= 0.");
+        }
+        int width = puzzle.getSize() * puzzle.getSize();
+        int[] grid = new int[width * width];
+        puzzle.copyGridTo(grid);
+        _packer = new SolutionPacker(puzzle.getSize(), grid);
+        _stride = _packer.stride;
+        _perBlock = Math.max(1, BLOCK_LONGS / _stride);
+        _maxInMemory = memoryCap / (8L * _stride);
+        _read = ByteBuffer.allocate(8 * _stride);
+        _packed = new long[_stride];
+        _grid = new int[grid.length];
+        _view = new GridView(puzzle.getSize(), _grid);
+    }
+
+    /**
+     * <p>
+     * Ajoute une solution. Seules les cases vides de la grille de départ sont
+     * lues.</p>
+     *
+     * @param solution La solution
+     *
+     * @return Toujours vrai
+     *
+     * @throws UncheckedIOException Si la solution n'a pas pu être écrite dans
+     *                              le fichier
+     *
+     * @since 1.1
+     */
+    @Override
+    public boolean accept(IGridView solution) throws UncheckedIOException {
+        _packer.pack(solution, _packed);
+        if (_count < _maxInMemory) {
+            int block = (int) (_count / _perBlock);
+            if (block == _blocks.size()) {
+                _blocks.add(new long[_perBlock * _stride]);
+            }
+            System.arraycopy(_packed, 0, _blocks.get(block), (int) (_count % _perBlock) * _stride, _stride);
+        } else {
+            spill();
+        }
+        ++_count;
+        return true;
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc de la grille.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return _packer.size;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de solutions conservées.</p>
+     *
+     * @return Le nombre de solutions
+     *
+     * @since 1.1
+     */
+    public long size() {
+        return _count;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de solutions écrites dans le fichier.</p>
+     *
+     * @return Le nombre de solutions hors de la mémoire
+     *
+     * @since 1.1
+     */
+    public long getNbSpilled() {
+        return Math.max(0, _count - _maxInMemory);
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre d'octets occupés par une solution.</p>
+     *
+     * @return Le nombre d'octets par solution
+     *
+     * @since 1.1
+     */
+    public int getBytesPerSolution() {
+        return 8 * _stride;
+    }
+
+    /**
+     * <p>
+     * Recopie une solution dans un tableau, les cases étant rangées ligne par
+     * ligne.</p>
+     *
+     * @param index L'indice de la solution, dans l'ordre d'ajout
+     * @param dst   Le tableau de destination, d'au moins autant de cases que
+     *              la grille
+     *
+     * @throws IndexOutOfBoundsException Si l'indice est invalide
+     * @throws IllegalArgumentException  Si le tableau est trop petit
+     * @throws UncheckedIOException      Si la solution n'a pas pu être lue
+     *
+     * @since 1.1
+     */
+    public void copyTo(long index, int[] dst) throws IndexOutOfBoundsException, IllegalArgumentException,
+            UncheckedIOException {
+        load(index).copyGridTo(dst);
+    }
+
+    /**
+     * <p>
+     * Retourne une copie d'une solution.</p>
+     *
+     * @param index L'indice de la solution, dans l'ordre d'ajout
+     *
+     * @return La solution, rangée ligne par ligne
+     *
+     * @throws IndexOutOfBoundsException Si l'indice est invalide
+     * @throws UncheckedIOException      Si la solution n'a pas pu être lue
+     *
+     * @since 1.1
+     */
+    public Integer[] get(long index) throws IndexOutOfBoundsException, UncheckedIOException {
+        load(index);
+        Integer[] copy = new Integer[_grid.length];
+        for (int cell = 0; cell < _grid.length; ++cell) {
+            copy[cell] = _grid[cell];
+        }
+        return copy;
+    }
+
+    /**
+     * <p>
+     * Transmet les solutions, dans l'ordre d'ajout, à un destinataire. Chaque
+     * solution est transmise sous la forme d'une vue réutilisée d'un appel à
+     * l'autre.</p>
+     *
+     * @param sink Le destinataire, qui peut arrêter le parcours en retournant
+     *             faux
+     *
+     * @return Le nombre de solutions transmises
+     *
+     * @throws UncheckedIOException Si une solution n'a pas pu être lue
+     *
+     * @since 1.1
+     */
+    public long forEach(ISolutionSink sink) throws UncheckedIOException {
+        for (long index = 0; index < _count; ++index) {
+            if (!sink.accept(load(index))) {
+                return index + 1;
+            }
+        }
+        return _count;
+    }
+
+    /**
+     * <p>
+     * Recopie toutes les solutions dans une liste.</p>
+     *
+     * @return La liste des solutions
+     *
+     * @throws UncheckedIOException Si une solution n'a pas pu être lue
+     *
+     * @since 1.1
+     */
+    public ArrayList<Integer[]> toList() throws UncheckedIOException {
+        ArrayList<Integer[]> list = new ArrayList<>((int) Math.min(_count, Integer.MAX_VALUE));
+        for (long index = 0; index < _count; ++index) {
+            list.add(get(index));
+        }
+        return list;
+    }
+
+    /**
+     * <p>
+     * Vide l'ensemble des solutions et supprime le fichier éventuel.</p>
+     *
+     * @throws IOException Si le fichier n'a pas pu être fermé
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() throws IOException {
+        _blocks.clear();
+        _count = 0;
+        _flushed = 0;
+        _spill = null;
+        _spillLongs = null;
+        if (_channel != null) {
+            try {
+                _channel.close();
+            } finally {
+                _channel = null;
+                _file.delete();
+                _file = null;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Ajoute la solution compactée au tampon d'écriture, en créant le fichier
+     * si besoin, et écrit le tampon dans le fichier lorsqu'il est plein.</p>
+     *
+     * @throws UncheckedIOException Si le fichier n'a pas pu être créé ou
+     *                              écrit
+     *
+     * @since 1.1
+     */
+    private void spill() throws UncheckedIOException {
+        try {
+            if (_channel == null) {
+                _file = File.createTempFile("solutions", ".bin");
+                _file.deleteOnExit();
+                _channel = new RandomAccessFile(_file, "rw").getChannel();
+                _spill = ByteBuffer.allocate(8 * _perBlock * _stride);
+                _spillLongs = _spill.asLongBuffer();
+            }
+            _spillLongs.put(_packed);
+            if (!_spillLongs.hasRemaining()) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * <p>
+     * Écrit le tampon d'écriture à la fin du fichier.</p>
+     *
+     * @throws IOException Si le fichier n'a pas pu être écrit
+     *
+     * @since 1.1
+     */
+    private void flush() throws IOException {
+        int longs = _spillLongs.position();
+        _spill.clear().limit(8 * longs);
+        long position = 8L * _flushed * _stride;
+        while (_spill.hasRemaining()) {
+            position += _channel.write(_spill, position);
+        }
+        _flushed += longs / _stride;
+        _spill.clear();
+        _spillLongs.clear();
+    }
+
+    /**
+     * <p>
+     * Décompacte une solution dans la grille observée par la vue.</p>
+     *
+     * @param index L'indice de la solution
+     *
+     * @return La vue sur la solution
+     *
+     * @throws IndexOutOfBoundsException Si l'indice est invalide
+     * @throws UncheckedIOException      Si la solution n'a pas pu être lue
+     *
+     * @since 1.1
+     */
+    private GridView load(long index) throws IndexOutOfBoundsException, UncheckedIOException {
+        if (index < 0 || index >= _count) {
+            throw new IndexOutOfBoundsException("No solution at index " + index + ".");
+        }
+        if (index < _maxInMemory) {
+            System.arraycopy(_blocks.get((int) (index / _perBlock)), (int) (index % _perBlock) * _stride,
+                    _packed, 0, _stride);
+        } else {
+            long spilled = index - _maxInMemory;
+            if (spilled >= _flushed) {
+                int base = (int) (spilled - _flushed) * _stride;
+                for (int w = 0; w < _stride; ++w) {
+                    _packed[w] = _spillLongs.get(base + w);
+                }
+            } else {
+                readSpilled(spilled);
+            }
+        }
+        _packer.unpack(_packed, _grid);
+        return _view;
+    }
+
+    /**
+     * <p>
+     * Lit une solution compactée dans le fichier.</p>
+     *
+     * @param spilled L'indice de la solution parmi celles du fichier
+     *
+     * @throws UncheckedIOException Si la solution n'a pas pu être lue
+     *
+     * @since 1.1
+     */
+    private void readSpilled(long spilled) throws UncheckedIOException {
+        _read.clear();
+        long position = 8L * spilled * _stride;
+        try {
+            while (_read.hasRemaining()) {
+                int read = _channel.read(_read, position);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of solution file.");
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        _read.flip();
+        _read.asLongBuffer().get(_packed);
+    }
+}
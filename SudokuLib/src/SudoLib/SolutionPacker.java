@@ -0,0 +1,158 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * <b><code>SolutionPacker</code></b> compacte les solutions d'une grille en
+ * ne conservant que ses cases vides, chaque valeur occupant juste assez de
+ * bits pour représenter <code>width</code> et chaque solution un nombre entier
+ * de <code>long</code>.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ *
+ * @see PackedSolutions
+ * @see SolutionSpill
+ *
+ * @since 1.1
+ */
+final class SolutionPacker {
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc de la grille.</p>
+     *
+     * @since 1.1
+     */
+    final int size;
+
+    /**
+     * <p>
+     * Grille de départ, dont les valeurs sont communes à toutes les
+     * solutions.</p>
+     *
+     * @since 1.1
+     */
+    final int[] puzzle;
+
+    /**
+     * <p>
+     * Nombre de <code>long</code> par solution.</p>
+     *
+     * @since 1.1
+     */
+    final int stride;
+
+    /**
+     * <p>
+     * Cases vides de la grille de départ.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] free;
+
+    /**
+     * <p>
+     * Nombre de bits par valeur.</p>
+     *
+     * @since 1.1
+     */
+    private final int bits;
+
+    /**
+     * <p>
+     * Masque des bits d'une valeur.</p>
+     *
+     * @since 1.1
+     */
+    private final long mask;
+
+    /**
+     * <p>
+     * Construit le compacteur des solutions d'une grille.</p>
+     *
+     * @param size   La taille de l'arête d'un bloc
+     * @param puzzle La grille de départ, conservée sans copie
+     *
+     * @throws IllegalArgumentException Si la grille n'a pas la taille
+     *                                  indiquée
+     *
+     * @since 1.1
+     */
+    SolutionPacker(int size, int[] puzzle) throws IllegalArgumentException {
+        int width = size * size;
+        if (size < 1 || puzzle.length != width * width) {
+            throw new IllegalArgumentException("Array sizes do not match the grid size.");
+        }
+        this.size = size;
+        this.puzzle = puzzle;
+        int nbFree = 0;
+        for (int value : puzzle) {
+            if (value == 0) {
+                ++nbFree;
+            }
+        }
+        free = new int[nbFree];
+        nbFree = 0;
+        for (int cell = 0; cell < puzzle.length; ++cell) {
+            if (puzzle[cell] == 0) {
+                free[nbFree++] = cell;
+            }
+        }
+        bits = 32 - Integer.numberOfLeadingZeros(width);
+        mask = (1L << bits) - 1;
+        stride = Math.max(1, (nbFree * bits + 63) >>> 6);
+    }
+
+    /**
+     * <p>
+     * Compacte une solution.</p>
+     *
+     * @param solution La solution
+     * @param packed   Le tableau de destination, d'au moins
+     *                 {@link #stride} <code>long</code>
+     *
+     * @since 1.1
+     */
+    void pack(IGridView solution, long[] packed) {
+        Arrays.fill(packed, 0, stride, 0L);
+        for (int k = 0; k < free.length; ++k) {
+            long value = solution.getValueAt(free[k]);
+            int bit = k * bits;
+            int word = bit >>> 6;
+            int offset = bit & 63;
+            packed[word] |= value << offset;
+            if (offset + bits > 64) {
+                packed[word + 1] |= value >>> (64 - offset);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Décompacte une solution.</p>
+     *
+     * @param packed La solution compactée
+     * @param grid   La grille de destination
+     *
+     * @since 1.1
+     */
+    void unpack(long[] packed, int[] grid) {
+        System.arraycopy(puzzle, 0, grid, 0, puzzle.length);
+        for (int k = 0; k < free.length; ++k) {
+            int bit = k * bits;
+            int word = bit >>> 6;
+            int offset = bit & 63;
+            long value = packed[word] >>> offset;
+            if (offset + bits > 64) {
+                value |= packed[word + 1] << (64 - offset);
+            }
+            grid[free[k]] = (int) (value & mask);
+        }
+    }
+}
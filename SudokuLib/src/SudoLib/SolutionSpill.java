@@ -0,0 +1,421 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>
+ * <b><code>SolutionSpill</code></b> écrit dans un fichier, au fur et à mesure
+ * qu'elles sont trouvées, les solutions d'une grille dont le nombre dépasse
+ * ce que la mémoire peut contenir.</p>
+ *
+ * <p>
+ * Les solutions sont compactées comme dans {@link PackedSolutions} puis
+ * rangées dans un anneau de tampons alloués hors du tas
+ * ({@link ByteBuffer#allocateDirect(int)}). Un tampon plein est confié à un
+ * thread d'écriture pendant que la recherche remplit le suivant ; elle n'est
+ * ralentie que si tous les tampons attendent d'être écrits. La mémoire occupée
+ * sur le tas est fixée à la construction et ne dépend pas du nombre de
+ * solutions : aucune solution ne crée d'objet.</p>
+ *
+ * <p>
+ * Le fichier commence par un en-tête contenant un nombre magique, la taille
+ * de l'arête d'un bloc, le nombre de solutions et la grille de départ, suivi
+ * des solutions compactées. Il se relit avec
+ * {@link #read(java.io.File, SudoLib.ISolutionSink)}. Un
+ * <b>SolutionSpill</b> ne doit pas être partagé entre plusieurs threads.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ *
+ * @see PackedSolutions
+ * @see ISolutionSink
+ *
+ * @since 1.1
+ */
+public final class SolutionSpill implements ISolutionSink, Closeable {
+
+    /**
+     * <p>
+     * Nombre magique en tête des fichiers de solutions.</p>
+     *
+     * @since 1.1
+     */
+    public static final int MAGIC = 0x53554453;
+
+    /**
+     * <p>
+     * Taille par défaut de l'anneau de tampons, en octets.</p>
+     *
+     * @since 1.1
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 4 << 20;
+
+    /**
+     * <p>
+     * Nombre de tampons de l'anneau.</p>
+     *
+     * @since 1.1
+     */
+    private static final int NB_SEGMENTS = 4;
+
+    /**
+     * <p>
+     * Position du nombre de solutions dans l'en-tête.</p>
+     *
+     * @since 1.1
+     */
+    private static final int COUNT_OFFSET = 8;
+
+    /**
+     * <p>
+     * Tampon signalant la fin de l'écriture au thread d'écriture.</p>
+     *
+     * @since 1.1
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    /**
+     * <p>
+     * Compacteur des solutions.</p>
+     *
+     * @since 1.1
+     */
+    private final SolutionPacker _packer;
+
+    /**
+     * <p>
+     * Solution compactée en cours d'écriture.</p>
+     *
+     * @since 1.1
+     */
+    private final long[] _packed;
+
+    /**
+     * <p>
+     * Canal d'accès au fichier.</p>
+     *
+     * @since 1.1
+     */
+    private final FileChannel _channel;
+
+    /**
+     * <p>
+     * Tampons libres.</p>
+     *
+     * @since 1.1
+     */
+    private final BlockingQueue<ByteBuffer> _free = new ArrayBlockingQueue<>(NB_SEGMENTS);
+
+    /**
+     * <p>
+     * Tampons pleins, en attente d'écriture.</p>
+     *
+     * @since 1.1
+     */
+    private final BlockingQueue<ByteBuffer> _full = new ArrayBlockingQueue<>(NB_SEGMENTS + 1);
+
+    /**
+     * <p>
+     * Thread d'écriture.</p>
+     *
+     * @since 1.1
+     */
+    private final Thread _writer;
+
+    /**
+     * <p>
+     * Tampon en cours de remplissage, null une fois le fichier fermé.</p>
+     *
+     * @since 1.1
+     */
+    private ByteBuffer _current;
+
+    /**
+     * <p>
+     * Nombre de solutions reçues.</p>
+     *
+     * @since 1.1
+     */
+    private long _count;
+
+    /**
+     * <p>
+     * Erreur rencontrée par le thread d'écriture.</p>
+     *
+     * @since 1.1
+     */
+    private volatile IOException _failure;
+
+    /**
+     * <p>
+     * Crée un fichier de solutions avec la taille d'anneau par défaut.</p>
+     *
+     * @param puzzle La grille de départ
+     * @param file   Le fichier, remplacé s'il existe
+     *
+     * @throws IOException Si le fichier n'a pas pu être créé
+     *
+     * @see #DEFAULT_BUFFER_SIZE
+     *
+     * @since 1.1
+     */
+    public SolutionSpill(ISudoku puzzle, File file) throws IOException {
+        this(puzzle, file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>
+     * Crée un fichier de solutions et démarre le thread d'écriture.</p>
+     *
+     * @param puzzle     La grille de départ
+     * @param file       Le fichier, remplacé s'il existe
+     * @param bufferSize La taille totale de l'anneau de tampons, en octets
+     *
+     * @throws IllegalArgumentException Si l'anneau ne peut contenir au moins
+     *                                  une solution par tampon
+     * @throws IOException              Si le fichier n'a pas pu être créé
+     *
+     * @since 1.1
+     */
+    public SolutionSpill(ISudoku puzzle, File file, int bufferSize) throws IllegalArgumentException, IOException {
+        int width = puzzle.getSize() * puzzle.getSize();
+        int[] grid = new int[width * width];
+        puzzle.copyGridTo(grid);
+        _packer = new SolutionPacker(puzzle.getSize(), grid);
+        _packed = new long[_packer.stride];
+        int perSegment = bufferSize / NB_SEGMENTS / (8 * _packer.stride);
+        if (perSegment <= 0) {
+            throw new IllegalArgumentException("Buffer is too small for the grid size.");
+        }
+        for (int k = 0; k < NB_SEGMENTS; ++k) {
+            _free.add(ByteBuffer.allocateDirect(perSegment * 8 * _packer.stride));
+        }
+
+        _channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(16 + 4 * grid.length);
+        header.putInt(MAGIC).putInt(puzzle.getSize()).putLong(0);
+        for (int value : grid) {
+            header.putInt(value);
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            _channel.write(header);
+        }
+
+        _current = _free.poll();
+        _writer = new Thread(this::drain, "SolutionSpill");
+        _writer.setDaemon(true);
+        _writer.start();
+    }
+
+    /**
+     * <p>
+     * Ajoute une solution au tampon en cours, et confie celui-ci au thread
+     * d'écriture lorsqu'il est plein.</p>
+     *
+     * @param solution La solution
+     *
+     * @return Toujours vrai
+     *
+     * @throws IllegalStateException Si le fichier est fermé
+     * @throws UncheckedIOException  Si l'écriture du fichier a échoué
+     *
+     * @since 1.1
+     */
+    @Override
+    public boolean accept(IGridView solution) throws IllegalStateException, UncheckedIOException {
+        if (_current == null) {
+            throw new IllegalStateException("Solution file is closed.");
+        }
+        _packer.pack(solution, _packed);
+        for (long word : _packed) {
+            _current.putLong(word);
+        }
+        ++_count;
+        if (!_current.hasRemaining()) {
+            _full.add(_current);
+            _current = null;
+            try {
+                _current = _free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new IOException("Interrupted while waiting for a buffer.", e));
+            }
+            if (_failure != null) {
+                throw new UncheckedIOException(_failure);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de solutions reçues.</p>
+     *
+     * @return Le nombre de solutions
+     *
+     * @since 1.1
+     */
+    public long getCount() {
+        return _count;
+    }
+
+    /**
+     * <p>
+     * Écrit les solutions en attente, inscrit leur nombre dans l'en-tête et
+     * ferme le fichier.</p>
+     *
+     * @throws IOException Si l'écriture du fichier a échoué
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() throws IOException {
+        if (_current == null && !_writer.isAlive()) {
+            return;
+        }
+        try {
+            if (_current != null && _current.position() > 0) {
+                _full.add(_current);
+            }
+            _current = null;
+            _full.add(END);
+            _writer.join();
+            if (_failure != null) {
+                throw _failure;
+            }
+            ByteBuffer count = ByteBuffer.allocate(8);
+            count.putLong(0, _count);
+            _channel.write(count, COUNT_OFFSET);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing solutions.", e);
+        } finally {
+            _channel.close();
+        }
+    }
+
+    /**
+     * <p>
+     * Relit un fichier de solutions et transmet chacune d'elles, sous la forme
+     * d'une vue réutilisée d'un appel à l'autre, à un destinataire.</p>
+     *
+     * @param file Le fichier
+     * @param sink Le destinataire, qui peut arrêter la lecture en retournant
+     *             faux
+     *
+     * @return Le nombre de solutions transmises
+     *
+     * @throws IOException Si le fichier n'a pas pu être lu ou n'est pas un
+     *                     fichier de solutions
+     *
+     * @since 1.1
+     */
+    public static long read(File file, ISolutionSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(16);
+            readFully(channel, head);
+            int magic = head.getInt();
+            int size = head.getInt();
+            long count = head.getLong();
+            if (magic != MAGIC || size < 1 || size > 10 || count < 0) {
+                throw new IOException("Not a solution file.");
+            }
+            int width = size * size;
+            ByteBuffer cells = ByteBuffer.allocate(4 * width * width);
+            readFully(channel, cells);
+            int[] puzzle = new int[width * width];
+            cells.asIntBuffer().get(puzzle);
+
+            SolutionPacker packer = new SolutionPacker(size, puzzle);
+            long[] packed = new long[packer.stride];
+            int[] grid = new int[puzzle.length];
+            GridView view = new GridView(size, grid);
+            ByteBuffer chunk = ByteBuffer.allocate(Math.max(1, (1 << 16) / packer.stride) * 8 * packer.stride);
+            long index = 0;
+            while (index < count) {
+                chunk.clear();
+                long remaining = (count - index) * 8 * packer.stride;
+                if (remaining < chunk.capacity()) {
+                    chunk.limit((int) remaining);
+                }
+                readFully(channel, chunk);
+                while (chunk.hasRemaining()) {
+                    for (int w = 0; w < packed.length; ++w) {
+                        packed[w] = chunk.getLong();
+                    }
+                    packer.unpack(packed, grid);
+                    ++index;
+                    if (!sink.accept(view)) {
+                        return index;
+                    }
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * <p>
+     * Boucle du thread d'écriture : écrit les tampons pleins à la suite dans
+     * le fichier et les rend à l'anneau.</p>
+     *
+     * @since 1.1
+     */
+    private void drain() {
+        while (true) {
+            ByteBuffer segment;
+            try {
+                segment = _full.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (segment == END) {
+                return;
+            }
+            segment.flip();
+            try {
+                while (segment.hasRemaining() && _failure == null) {
+                    _channel.write(segment);
+                }
+            } catch (IOException e) {
+                _failure = e;
+            }
+            segment.clear();
+            _free.add(segment);
+        }
+    }
+
+    /**
+     * <p>
+     * Remplit un tampon depuis la position courante d'un fichier.</p>
+     *
+     * @param channel Le canal du fichier
+     * @param buffer  Le tampon, retourné prêt à être lu
+     *
+     * @throws IOException Si la fin du fichier est atteinte avant
+     *
+     * @since 1.1
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of solution file.");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Projet de AAV - IUT Informatique Paris Descartes 2014/2015
+ * Pascal Luttgens 201
+ */
+package SudoLib;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * <code><b>UnitTable</b></code> regroupe les tables d'indices précalculées
+ * pour une taille de sudoku donnée :</p>
+ * <ul>
+ * <li>la ligne, la colonne et le bloc de chaque case</li>
+ * <li>les voisins de chaque case, c'est à dire les cases partageant sa ligne,
+ * sa colonne ou son bloc</li>
+ * <li>les cases de chaque unité (ligne, colonne ou bloc)</li>
+ * </ul>
+ *
+ * <p>
+ * Les cases sont numérotées ligne par ligne du haut vers le bas (voir
+ * {@link Coord2D.Coord2D#convCoord(int)}). Les unités sont numérotées en
+ * commençant par les lignes, puis les colonnes et enfin les blocs : pour un
+ * sudoku de 9x9, les unités 0 à 8 sont les lignes, 9 à 17 les colonnes et 18
+ * à 26 les blocs.</p>
+ *
+ * <p>
+ * Les tables sont immuables. Une seule instance est construite par taille et
+ * elle est partagée entre tous les threads (voir {@link #of(int)}), ce qui
+ * permet de remplacer les divisions et les créations de coordonnées des
+ * boucles de résolution par de simples lectures de tableaux.</p>
+ *
+ * @author Luttgens Pascal
+ * @version 1.1
+ * @since 1.1
+ */
+public final class UnitTable {
+
+    /**
+     * <p>
+     * Tables déjà construites, indexées par la taille de l'arête d'un
+     * bloc.</p>
+     *
+     * @see #of(int)
+     *
+     * @since 1.1
+     */
+    private static final ConcurrentHashMap<Integer, UnitTable> TABLES = new ConcurrentHashMap<>();
+
+    /**
+     * <p>
+     * Taille de l'arête d'un bloc du sudoku.</p>
+     *
+     * @since 1.1
+     */
+    private final int _size;
+
+    /**
+     * <p>
+     * Nombre de cases sur une ligne du sudoku.</p>
+     *
+     * @since 1.1
+     */
+    private final int _width;
+
+    /**
+     * <p>
+     * Nombre de voisins d'une case.</p>
+     *
+     * @since 1.1
+     */
+    private final int _nbPeers;
+
+    /**
+     * <p>
+     * Ligne de chaque case.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _rowOf;
+
+    /**
+     * <p>
+     * Colonne de chaque case.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _colOf;
+
+    /**
+     * <p>
+     * Bloc de chaque case.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _boxOf;
+
+    /**
+     * <p>
+     * Voisins de chaque case, rangés par paquets de {@link #_nbPeers}.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _peers;
+
+    /**
+     * <p>
+     * Cases de chaque unité, rangées par paquets de {@link #_width}.</p>
+     *
+     * @since 1.1
+     */
+    private final int[] _unitCells;
+
+    /**
+     * <p>
+     * Construit les tables pour une taille de sudoku donnée.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    private UnitTable(int size) {
+        _size = size;
+        _width = size * size;
+        int nbCells = _width * _width;
+        _nbPeers = 3 * _width - 2 * size - 1;
+
+        _rowOf = new int[nbCells];
+        _colOf = new int[nbCells];
+        _boxOf = new int[nbCells];
+        _unitCells = new int[3 * _width * _width];
+        int[] filled = new int[3 * _width];
+        for (int cell = 0; cell < nbCells; ++cell) {
+            _rowOf[cell] = cell / _width;
+            _colOf[cell] = cell % _width;
+            _boxOf[cell] = _size * (_rowOf[cell] / _size) + (_colOf[cell] / _size);
+            for (int k = 0; k < 3; ++k) {
+                int unit = getUnit(cell, k);
+                _unitCells[unit * _width + filled[unit]++] = cell;
+            }
+        }
+
+        _peers = new int[nbCells * _nbPeers];
+        for (int cell = 0; cell < nbCells; ++cell) {
+            int n = cell * _nbPeers;
+            for (int k = 0; k < 3; ++k) {
+                int unit = getUnit(cell, k);
+                for (int i = 0; i < _width; ++i) {
+                    int other = _unitCells[unit * _width + i];
+                    if (other == cell
+                            || (k > 0 && _rowOf[other] == _rowOf[cell])
+                            || (k > 1 && _colOf[other] == _colOf[cell])) {
+                        continue;
+                    }
+                    _peers[n++] = other;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne les tables correspondant à une taille de sudoku. Les tables ne
+     * sont construites qu'au premier appel pour une taille donnée.</p>
+     *
+     * @param size La taille de l'arête d'un bloc
+     *
+     * @return Les tables partagées pour cette taille
+     *
+     * @throws IllegalArgumentException Si la taille est inférieure à 1
+     *
+     * @since 1.1
+     */
+    public static UnitTable of(int size) throws IllegalArgumentException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be strictly superior to 0.");
+        }
+        UnitTable table = TABLES.get(size);
+        if (table == null) {
+            table = TABLES.computeIfAbsent(size, UnitTable::new);
+        }
+        return table;
+    }
+
+    /**
+     * <p>
+     * Retourne la taille de l'arête d'un bloc.</p>
+     *
+     * @return La taille de l'arête d'un bloc
+     *
+     * @since 1.1
+     */
+    public int getSize() {
+        return _size;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de cases d'une ligne, qui est aussi le nombre de
+     * cases d'une unité et le nombre de valeurs possibles.</p>
+     *
+     * @return Le nombre de cases d'une ligne
+     *
+     * @since 1.1
+     */
+    public int getWidth() {
+        return _width;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de cases de la grille.</p>
+     *
+     * @return Le nombre de cases de la grille
+     *
+     * @since 1.1
+     */
+    public int getNbCells() {
+        return _rowOf.length;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre d'unités de la grille (lignes, colonnes et
+     * blocs).</p>
+     *
+     * @return Le nombre d'unités
+     *
+     * @since 1.1
+     */
+    public int getNbUnits() {
+        return 3 * _width;
+    }
+
+    /**
+     * <p>
+     * Retourne le nombre de voisins d'une case.</p>
+     *
+     * @return Le nombre de voisins d'une case
+     *
+     * @since 1.1
+     */
+    public int getNbPeers() {
+        return _nbPeers;
+    }
+
+    /**
+     * <p>
+     * Retourne la ligne d'une case.</p>
+     *
+     * @param cell L'indice de la case
+     *
+     * @return La ligne de la case
+     *
+     * @since 1.1
+     */
+    public int rowOf(int cell) {
+        return _rowOf[cell];
+    }
+
+    /**
+     * <p>
+     * Retourne la colonne d'une case.</p>
+     *
+     * @param cell L'indice de la case
+     *
+     * @return La colonne de la case
+     *
+     * @since 1.1
+     */
+    public int colOf(int cell) {
+        return _colOf[cell];
+    }
+
+    /**
+     * <p>
+     * Retourne le bloc d'une case.</p>
+     *
+     * @param cell L'indice de la case
+     *
+     * @return Le bloc de la case
+     *
+     * @since 1.1
+     */
+    public int boxOf(int cell) {
+        return _boxOf[cell];
+    }
+
+    /**
+     * <p>
+     * Retourne l'une des trois unités d'une case.</p>
+     *
+     * @param cell L'indice de la case
+     * @param kind 0 pour la ligne, 1 pour la colonne, 2 pour le bloc
+     *
+     * @return L'indice de l'unité
+     *
+     * @since 1.1
+     */
+    public int getUnit(int cell, int kind) {
+        switch (kind) {
+            case 0:
+                return _rowOf[cell];
+            case 1:
+                return _width + _colOf[cell];
+            default:
+                return 2 * _width + _boxOf[cell];
+        }
+    }
+
+    /**
+     * <p>
+     * Retourne un voisin d'une case.</p>
+     *
+     * @param cell L'indice de la case
+     * @param k    Le numéro du voisin, entre 0 et {@link #getNbPeers()} - 1
+     *
+     * @return L'indice du voisin
+     *
+     * @since 1.1
+     */
+    public int getPeer(int cell, int k) {
+        return _peers[cell * _nbPeers + k];
+    }
+
+    /**
+     * <p>
+     * Retourne une case d'une unité.</p>
+     *
+     * @param unit L'indice de l'unité
+     * @param k    Le numéro de la case dans l'unité, entre 0 et
+     *             {@link #getWidth()} - 1
+     *
+     * @return L'indice de la case
+     *
+     * @since 1.1
+     */
+    public int getUnitCell(int unit, int k) {
+        return _unitCells[unit * _width + k];
+    }
+}